@@ -0,0 +1,130 @@
+/* DeflaterBenchmark.java -- Measures speed and ratio of the Deflater
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath examples.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA. */
+
+package gnu.classpath.examples.zip;
+
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Measures how fast java.util.zip.Deflater compresses the corpus of
+ * InflaterBenchmark at each compression level, and how small the
+ * result is.  The input is fed in 8k pieces through a 64k output
+ * buffer, the way DeflaterOutputStream or a servlet compressing its
+ * response on the fly would use it.  Every result is inflated once to
+ * check it.
+ *
+ * Usage: <code>DeflaterBenchmark [seconds-per-sample]</code>
+ */
+public class DeflaterBenchmark
+{
+  private static final int INPUT_CHUNK = 8192;
+
+  public static void main(String[] args) throws DataFormatException
+  {
+    double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 1;
+    Random random = new Random(0x5eed);
+    run("text", InflaterBenchmark.text(random), seconds);
+    run("binary", InflaterBenchmark.binary(random), seconds);
+    run("runs", InflaterBenchmark.runs(random), seconds);
+    run("random", InflaterBenchmark.noise(random), seconds);
+  }
+
+  private static void run(String name, byte[] data, double seconds)
+    throws DataFormatException
+  {
+    byte[] out = new byte[65536];
+    byte[] compressed = new byte[data.length + data.length / 100 + 1024];
+    for (int level = Deflater.NO_COMPRESSION;
+         level <= Deflater.BEST_COMPRESSION; level++)
+      {
+        Deflater deflater = new Deflater(level);
+
+        /* Warm up and check the result once. */
+        int length = deflate(deflater, data, out, compressed);
+        check(name, data, compressed, length);
+
+        long bytes = 0;
+        long start = System.currentTimeMillis();
+        long elapsed;
+        do
+          {
+            deflate(deflater, data, out, null);
+            bytes += data.length;
+            elapsed = System.currentTimeMillis() - start;
+          }
+        while (elapsed < seconds * 1000);
+        deflater.end();
+
+        double rate = bytes / (elapsed / 1000.0) / (1 << 20);
+        double ratio = 100.0 * length / data.length;
+        System.out.println(name + ", level " + level + ": " + data.length
+                           + " -> " + length + " bytes ("
+                           + Math.round(ratio * 10) / 10.0 + "%), "
+                           + Math.round(rate * 10) / 10.0 + " MB/s");
+      }
+  }
+
+  /**
+   * Compresses data and returns the compressed length.  The output is
+   * collected in compressed, unless that is null.
+   */
+  private static int deflate(Deflater deflater, byte[] data, byte[] out,
+                             byte[] compressed)
+  {
+    deflater.reset();
+    int length = 0;
+    int pos = 0;
+    while (!deflater.finished())
+      {
+        if (deflater.needsInput() && pos < data.length)
+          {
+            int chunk = Math.min(INPUT_CHUNK, data.length - pos);
+            deflater.setInput(data, pos, chunk);
+            pos += chunk;
+            if (pos == data.length)
+              deflater.finish();
+          }
+        int count = deflater.deflate(out);
+        if (compressed != null)
+          System.arraycopy(out, 0, compressed, length, count);
+        length += count;
+      }
+    return length;
+  }
+
+  private static void check(String name, byte[] data, byte[] compressed,
+                            int length)
+    throws DataFormatException
+  {
+    Inflater inflater = new Inflater();
+    inflater.setInput(compressed, 0, length);
+    byte[] result = new byte[data.length];
+    int count = inflater.inflate(result);
+    if (count != data.length || !inflater.finished())
+      throw new InternalError(name + ": wrong inflated length");
+    for (int i = 0; i < data.length; i++)
+      if (result[i] != data[i])
+        throw new InternalError(name + ": wrong inflated data at " + i);
+    inflater.end();
+  }
+}
@@ -0,0 +1,188 @@
+/* InflaterBenchmark.java -- Measures the throughput of the Inflater
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath examples.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA. */
+
+package gnu.classpath.examples.zip;
+
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Measures how fast java.util.zip.Inflater decompresses a fixed
+ * corpus.  The corpus is generated from a fixed seed, so numbers from
+ * different runs and VMs can be compared directly.  Each sample is
+ * compressed once with the default level and then inflated repeatedly
+ * through a 64k output buffer, with the input fed in 8k pieces the
+ * way InflaterInputStream does it.
+ *
+ * Usage: <code>InflaterBenchmark [seconds-per-sample]</code>
+ */
+public class InflaterBenchmark
+{
+  private static final int SAMPLE_SIZE = 4 << 20;
+  private static final int INPUT_CHUNK = 8192;
+
+  private static final String[] WORDS =
+  {
+    "the", "of", "and", "to", "in", "is", "that", "for", "it", "as",
+    "with", "was", "on", "be", "by", "this", "are", "or", "from", "at",
+    "inflate", "window", "stream", "buffer", "header", "symbol", "code",
+    "length", "distance", "block", "Huffman", "literal", "classpath"
+  };
+
+  public static void main(String[] args) throws DataFormatException
+  {
+    double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 2;
+    Random random = new Random(0x5eed);
+    run("text", text(random), seconds);
+    run("binary", binary(random), seconds);
+    run("runs", runs(random), seconds);
+    run("random", noise(random), seconds);
+  }
+
+  /** English-like text with punctuation and line breaks. */
+  static byte[] text(Random random)
+  {
+    byte[] data = new byte[SAMPLE_SIZE];
+    int pos = 0;
+    int column = 0;
+    while (pos < data.length)
+      {
+        String word = WORDS[(int) (Math.abs(random.nextGaussian())
+                                   * WORDS.length / 3) % WORDS.length];
+        for (int i = 0; i < word.length() && pos < data.length; i++)
+          data[pos++] = (byte) word.charAt(i);
+        column += word.length() + 1;
+        if (pos < data.length)
+          {
+            if (column > 70)
+              {
+                data[pos++] = '\n';
+                column = 0;
+              }
+            else
+              data[pos++] = (byte) (random.nextInt(12) == 0 ? ',' : ' ');
+          }
+      }
+    return data;
+  }
+
+  /** Structured records, like a class file or a database page. */
+  static byte[] binary(Random random)
+  {
+    byte[] data = new byte[SAMPLE_SIZE];
+    int counter = 0;
+    for (int pos = 0; pos + 16 <= data.length; pos += 16)
+      {
+        counter += random.nextInt(5);
+        data[pos] = (byte) (counter >> 24);
+        data[pos + 1] = (byte) (counter >> 16);
+        data[pos + 2] = (byte) (counter >> 8);
+        data[pos + 3] = (byte) counter;
+        data[pos + 4] = (byte) random.nextInt(4);
+        data[pos + 8] = (byte) random.nextInt(256);
+        data[pos + 9] = (byte) random.nextInt(16);
+        data[pos + 12] = (byte) 0xca;
+        data[pos + 13] = (byte) 0xfe;
+      }
+    return data;
+  }
+
+  /** Long runs of few distinct bytes, so mostly short-distance matches. */
+  static byte[] runs(Random random)
+  {
+    byte[] data = new byte[SAMPLE_SIZE];
+    int pos = 0;
+    while (pos < data.length)
+      {
+        byte value = (byte) random.nextInt(4);
+        int end = Math.min(data.length, pos + 1 + random.nextInt(300));
+        while (pos < end)
+          data[pos++] = value;
+      }
+    return data;
+  }
+
+  /** Incompressible data, which the Deflater stores. */
+  static byte[] noise(Random random)
+  {
+    byte[] data = new byte[SAMPLE_SIZE];
+    random.nextBytes(data);
+    return data;
+  }
+
+  private static void run(String name, byte[] data, double seconds)
+    throws DataFormatException
+  {
+    Deflater deflater = new Deflater();
+    deflater.setInput(data);
+    deflater.finish();
+    byte[] compressed = new byte[data.length + data.length / 100 + 1024];
+    int length = 0;
+    while (!deflater.finished())
+      length += deflater.deflate(compressed, length,
+                                 compressed.length - length);
+    deflater.end();
+
+    byte[] out = new byte[65536];
+    Inflater inflater = new Inflater();
+
+    /* Warm up and check the result once. */
+    if (inflate(inflater, compressed, length, out) != data.length)
+      throw new InternalError(name + ": wrong inflated length");
+
+    long bytes = 0;
+    long start = System.currentTimeMillis();
+    long elapsed;
+    do
+      {
+        bytes += inflate(inflater, compressed, length, out);
+        elapsed = System.currentTimeMillis() - start;
+      }
+    while (elapsed < seconds * 1000);
+    inflater.end();
+
+    double rate = bytes / (elapsed / 1000.0) / (1 << 20);
+    System.out.println(name + ": " + length + " -> " + data.length
+                       + " bytes, " + Math.round(rate * 10) / 10.0
+                       + " MB/s");
+  }
+
+  private static long inflate(Inflater inflater, byte[] compressed,
+                              int length, byte[] out)
+    throws DataFormatException
+  {
+    inflater.reset();
+    long total = 0;
+    int pos = 0;
+    while (!inflater.finished())
+      {
+        if (inflater.needsInput())
+          {
+            int chunk = Math.min(INPUT_CHUNK, length - pos);
+            inflater.setInput(compressed, pos, chunk);
+            pos += chunk;
+          }
+        total += inflater.inflate(out);
+      }
+    return total;
+  }
+}
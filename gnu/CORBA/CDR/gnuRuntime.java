@@ -41,18 +41,17 @@ package gnu.CORBA.CDR;
 import gnu.CORBA.Minor;
 
 import gnu.java.lang.CPStringBuilder;
+import gnu.java.util.primitive.IntObjectMap;
 
 import org.omg.CORBA.LocalObject;
 import org.omg.CORBA.MARSHAL;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.IdentityHashMap;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.TreeSet;
 
 /**
  * Our implementation of the sending context runtime.
@@ -150,7 +149,7 @@ public class gnuRuntime
    * different objects must be treated as different regardless that .equals
    * returns.
    */
-  private Map positions = new HashMap();
+  private IntObjectMap<Entry> positions = new IntObjectMap<Entry>();
 
   /**
    * The Codebase.
@@ -195,7 +194,7 @@ public class gnuRuntime
     e.object = object;
 
     sh_objects.put(object, e);
-    positions.put(new Integer(at), e);
+    positions.put(at, e);
   }
 
   /**
@@ -218,7 +217,7 @@ public class gnuRuntime
   {
     Redirection redirection = new Redirection();
     redirection.at = p_present;
-    positions.put(new Integer(p_searched), redirection);
+    positions.put(p_searched, redirection);
   }
 
   /**
@@ -231,7 +230,7 @@ public class gnuRuntime
    */
   public Object isObjectWrittenAt(int x, int offset)
   {
-    Entry e = (Entry) positions.get(new Integer(x));
+    Entry e = positions.get(x);
     if (e instanceof Redirection)
       return isObjectWrittenAt(e.at, offset);
     else if (e != null)
@@ -259,7 +258,7 @@ public class gnuRuntime
     e.object = id;
 
     sh_ids.put(id, e);
-    positions.put(new Integer(at), e);
+    positions.put(at, e);
   }
 
   /**
@@ -276,7 +275,7 @@ public class gnuRuntime
     e.object = ids;
 
     sh_ids.put(ids, e);
-    positions.put(new Integer(at), e);
+    positions.put(at, e);
   }
 
   /**
@@ -323,13 +322,13 @@ public class gnuRuntime
     CPStringBuilder b = new CPStringBuilder(" Stream content: \n");
 
     // Sort by position.
-    TreeSet t = new TreeSet(positions.keySet());
-    Iterator p = t.iterator();
+    int[] keys = positions.keys();
+    Arrays.sort(keys);
 
-    while (p.hasNext())
+    for (int i = 0; i < keys.length; i++)
       {
-        Object k = p.next();
-        b.append("     " + k + ": " + ((Entry) positions.get(k)).toString()
+        int k = keys[i];
+        b.append("     " + k + ": " + positions.get(k).toString()
           + "\n");
       }
     return b.toString();
@@ -43,6 +43,7 @@ import gnu.classpath.jdwp.Jdwp;
 import gnu.classpath.jdwp.VMVirtualMachine;
 import gnu.classpath.jdwp.exception.InvalidEventTypeException;
 import gnu.classpath.jdwp.exception.JdwpException;
+import gnu.java.util.primitive.IntObjectMap;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -73,8 +74,9 @@ public class EventManager
   // Single instance
   private static EventManager _instance = null;
 
-  // maps event (EVENT_*) to lists of EventRequests
-  private Hashtable<Byte,Hashtable<Integer,EventRequest>> _requests = null;
+  // maps event (EVENT_*) to lists of EventRequests, keyed by request id;
+  // a list is locked while it is used
+  private Hashtable<Byte,IntObjectMap<EventRequest>> _requests = null;
 
   /**
    * Returns an instance of the event manager
@@ -92,41 +94,41 @@ public class EventManager
   // Private constructs a new <code>EventManager</code>
   private EventManager ()
   {
-    _requests = new Hashtable<Byte,Hashtable<Integer,EventRequest>>();
+    _requests = new Hashtable<Byte,IntObjectMap<EventRequest>>();
 
     // Add lists for all the event types
     _requests.put (Byte.valueOf(EventRequest.EVENT_SINGLE_STEP),
-                   new Hashtable<Integer,EventRequest>());
+                   new IntObjectMap<EventRequest>());
     _requests.put (Byte.valueOf(EventRequest.EVENT_BREAKPOINT),
-                   new Hashtable<Integer,EventRequest>());
+                   new IntObjectMap<EventRequest>());
     _requests.put (Byte.valueOf(EventRequest.EVENT_FRAME_POP),
-                   new Hashtable<Integer,EventRequest>());
+                   new IntObjectMap<EventRequest>());
     _requests.put (Byte.valueOf(EventRequest.EVENT_EXCEPTION),
-                   new Hashtable<Integer,EventRequest>());
+                   new IntObjectMap<EventRequest>());
     _requests.put (Byte.valueOf(EventRequest.EVENT_USER_DEFINED),
-                   new Hashtable<Integer,EventRequest>());
+                   new IntObjectMap<EventRequest>());
     _requests.put (Byte.valueOf(EventRequest.EVENT_THREAD_START),
-                   new Hashtable<Integer,EventRequest>());
+                   new IntObjectMap<EventRequest>());
     _requests.put (Byte.valueOf(EventRequest.EVENT_THREAD_END),
-                   new Hashtable<Integer,EventRequest>());
+                   new IntObjectMap<EventRequest>());
     _requests.put (Byte.valueOf(EventRequest.EVENT_CLASS_PREPARE),
-                   new Hashtable<Integer,EventRequest>());
+                   new IntObjectMap<EventRequest>());
     _requests.put (Byte.valueOf(EventRequest.EVENT_CLASS_UNLOAD),
-                   new Hashtable<Integer,EventRequest>());
+                   new IntObjectMap<EventRequest>());
     _requests.put (Byte.valueOf(EventRequest.EVENT_CLASS_LOAD),
-                   new Hashtable<Integer,EventRequest>());
+                   new IntObjectMap<EventRequest>());
     _requests.put (Byte.valueOf(EventRequest.EVENT_FIELD_ACCESS),
-                   new Hashtable<Integer,EventRequest>());
+                   new IntObjectMap<EventRequest>());
     _requests.put (Byte.valueOf(EventRequest.EVENT_FIELD_MODIFY),
-                   new Hashtable<Integer,EventRequest>());
+                   new IntObjectMap<EventRequest>());
     _requests.put (Byte.valueOf(EventRequest.EVENT_METHOD_ENTRY),
-                   new Hashtable<Integer,EventRequest>());
+                   new IntObjectMap<EventRequest>());
     _requests.put (Byte.valueOf(EventRequest.EVENT_METHOD_EXIT),
-                   new Hashtable<Integer,EventRequest>());
+                   new IntObjectMap<EventRequest>());
     _requests.put (Byte.valueOf(EventRequest.EVENT_VM_INIT),
-                   new Hashtable<Integer,EventRequest>());
+                   new IntObjectMap<EventRequest>());
     _requests.put (Byte.valueOf(EventRequest.EVENT_VM_DEATH),
-                   new Hashtable<Integer,EventRequest>());
+                   new IntObjectMap<EventRequest>());
 
     // Add auto-generated event notifications
     // only two: VM_INIT, VM_DEATH
@@ -158,7 +160,7 @@ public class EventManager
   public EventRequest[] getEventRequests(Event event)
   {
     ArrayList<EventRequest> interestedEvents = new ArrayList<EventRequest>();
-    Hashtable<Integer,EventRequest> requests;
+    IntObjectMap<EventRequest> requests;
     Byte kind = Byte.valueOf(event.getEventKind());
     requests = _requests.get(kind);
     if (requests == null)
@@ -169,7 +171,12 @@ public class EventManager
 
     // Loop through the requests. Must look at ALL requests in order
     // to evaluate all filters (think count filter).
-    Iterator<EventRequest> rIter = requests.values().iterator();
+    Collection<EventRequest> all;
+    synchronized (requests)
+      {
+        all = requests.values();
+      }
+    Iterator<EventRequest> rIter = all.iterator();
     while (rIter.hasNext())
       {
         EventRequest request = rIter.next();
@@ -200,7 +207,7 @@ public class EventManager
     throws JdwpException
   {
     // Add request to request list
-    Hashtable<Integer,EventRequest> requests;
+    IntObjectMap<EventRequest> requests;
     Byte kind = new Byte (request.getEventKind ());
     requests = _requests.get (kind);
     if (requests == null)
@@ -211,7 +218,10 @@ public class EventManager
 
     // Register the event with the VM
     VMVirtualMachine.registerEvent (request);
-    requests.put (Integer.valueOf (request.getId ()), request);
+    synchronized (requests)
+      {
+        requests.put (request.getId (), request);
+      }
   }
 
   /**
@@ -225,7 +235,7 @@ public class EventManager
   public void deleteRequest (byte kind, int id)
     throws JdwpException
   {
-    Hashtable<Integer,EventRequest> requests;
+    IntObjectMap<EventRequest> requests;
     requests = _requests.get (Byte.valueOf (kind));
     if (requests == null)
       {
@@ -233,12 +243,18 @@ public class EventManager
         throw new IllegalArgumentException ("invalid event kind: " + kind);
       }
 
-    Integer iid = Integer.valueOf (id);
-    EventRequest request = requests.get (iid);
+    EventRequest request;
+    synchronized (requests)
+      {
+        request = requests.get (id);
+      }
     if (request != null)
       {
         VMVirtualMachine.unregisterEvent (request);
-        requests.remove (iid);
+        synchronized (requests)
+          {
+            requests.remove (id);
+          }
       }
   }
 
@@ -252,7 +268,7 @@ public class EventManager
   public void clearRequests (byte kind)
     throws JdwpException
   {
-    Hashtable<Integer,EventRequest> requests = _requests.get (Byte.valueOf(kind));
+    IntObjectMap<EventRequest> requests = _requests.get (Byte.valueOf(kind));
     if (requests == null)
       {
         // Did not get a valid event type
@@ -260,7 +276,10 @@ public class EventManager
       }
 
     VMVirtualMachine.clearEvents (kind);
-    requests.clear ();
+    synchronized (requests)
+      {
+        requests.clear ();
+      }
   }
 
   /**
@@ -274,26 +293,30 @@ public class EventManager
    */
   public EventRequest getRequest (byte kind, int id)
   {
-    Hashtable<Integer,EventRequest> requests = _requests.get(Byte.valueOf(kind));
+    IntObjectMap<EventRequest> requests = _requests.get(Byte.valueOf(kind));
     if (requests == null)
       {
         // Did not get a valid event type
         throw new IllegalArgumentException ("invalid event kind: " + kind);
       }
 
-    return requests.get (Integer.valueOf(id));
+    synchronized (requests)
+      {
+        return requests.get (id);
+      }
   }
 
   /**
    * Returns all requests of the given event kind
    *
    * @param  kind  the event kind
-   * @returns a <code>Collection</code> of all the registered requests
+   * @returns a <code>Collection</code> of all the registered requests,
+   *          which is a copy of the current list
    * @throws IllegalArgumentException for invalid event kind
    */
   public Collection<EventRequest> getRequests (byte kind)
   {
-    Hashtable<Integer,EventRequest> requests =
+    IntObjectMap<EventRequest> requests =
       _requests.get (Byte.valueOf (kind));
     if (requests == null)
       {
@@ -301,6 +324,9 @@ public class EventManager
         throw new IllegalArgumentException ("invalid event kind: " + kind);
       }
 
-    return requests.values ();
+    synchronized (requests)
+      {
+        return requests.values ();
+      }
   }
 }
@@ -0,0 +1,993 @@
+/* FloatingDecimal.java -- Conversions between floating point values and decimal strings
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package gnu.java.lang;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Conversions between <code>double</code> and <code>float</code> values
+ * and decimal strings, done entirely in Java.
+ *
+ * <p>Formatting uses the Ryu algorithm (Ulf Adams, "Ry&#363;: Fast
+ * Float-to-String Conversion", PLDI 2018) to find the shortest decimal
+ * that reads back as the same value.  As the specification of
+ * {@link Double#toString(double)} asks, at least two digits are
+ * considered, so that for example <code>Double.MIN_VALUE</code> is
+ * written as 4.9E-324 rather than 5.0E-324.</p>
+ *
+ * <p>Parsing tries Clinger's exact fast path first, then the
+ * Eisel-Lemire algorithm (Daniel Lemire, "Number Parsing at a Gigabyte
+ * per Second", 2021).  The few inputs those cannot decide (more than
+ * nineteen significant digits lying close to a rounding boundary, and
+ * hexadecimal strings) are rounded exactly with <code>BigInteger</code>
+ * arithmetic.</p>
+ *
+ * <p>The tables both algorithms need are computed once, when this class
+ * is initialized.</p>
+ */
+public final class FloatingDecimal
+{
+  /** The number of bits in the 125-bit approximations of 5^i. */
+  private static final int POW5_BITCOUNT = 125;
+
+  /** The number of bits in the 125-bit approximations of 5^-i. */
+  private static final int POW5_INV_BITCOUNT = 125;
+
+  /**
+   * The top POW5_BITCOUNT bits of 5^i for 0 <= i < 326, as pairs of
+   * longs with the low word first.
+   */
+  private static final long[] POW5_SPLIT = new long[2 * 326];
+
+  /**
+   * floor(2^(bitlength(5^i) - 1 + POW5_INV_BITCOUNT) / 5^i) + 1 for
+   * 0 <= i < 342, as pairs of longs with the low word first.
+   */
+  private static final long[] POW5_INV_SPLIT = new long[2 * 342];
+
+  /** The smallest power of ten the parser's table covers. */
+  private static final int SMALLEST_POWER_OF_TEN = -342;
+
+  /** The largest power of ten the parser's table covers. */
+  private static final int LARGEST_POWER_OF_TEN = 308;
+
+  /**
+   * Normalized 128-bit approximations of 5^q for SMALLEST_POWER_OF_TEN
+   * <= q <= LARGEST_POWER_OF_TEN, as pairs of longs with the high word
+   * first.  Positive powers are truncated, negative ones rounded up.
+   */
+  private static final long[] POWER_OF_FIVE_128 =
+    new long[2 * (LARGEST_POWER_OF_TEN - SMALLEST_POWER_OF_TEN + 1)];
+
+  /** The powers of ten that are exact doubles. */
+  private static final double[] DOUBLE_POWERS_OF_TEN =
+  {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+    1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  /** The powers of ten that are exact floats. */
+  private static final float[] FLOAT_POWERS_OF_TEN =
+  {
+    1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+  };
+
+  /**
+   * Significant digits beyond this many cannot change how a decimal
+   * string rounds, beyond whether any of them is non-zero.
+   */
+  private static final int MAX_EXACT_DIGITS = 800;
+
+  static
+  {
+    BigInteger five = BigInteger.valueOf(5);
+
+    BigInteger pow = BigInteger.ONE;
+    for (int i = 0; i < POW5_SPLIT.length / 2; i++)
+      {
+        int shift = pow.bitLength() - POW5_BITCOUNT;
+        split(shift >= 0 ? pow.shiftRight(shift) : pow.shiftLeft(-shift),
+              POW5_SPLIT, 2 * i, false);
+        pow = pow.multiply(five);
+      }
+
+    pow = BigInteger.ONE;
+    for (int i = 0; i < POW5_INV_SPLIT.length / 2; i++)
+      {
+        int j = pow.bitLength() - 1 + POW5_INV_BITCOUNT;
+        split(BigInteger.ONE.shiftLeft(j).divide(pow).add(BigInteger.ONE),
+              POW5_INV_SPLIT, 2 * i, false);
+        pow = pow.multiply(five);
+      }
+
+    BigInteger limit = BigInteger.ONE.shiftLeft(128);
+    pow = five;
+    for (int q = -1; q >= SMALLEST_POWER_OF_TEN; q--)
+      {
+        int z = pow.bitLength();
+        BigInteger c;
+        if (q >= -27)
+          c = BigInteger.ONE.shiftLeft(z + 127).divide(pow)
+            .add(BigInteger.ONE);
+        else
+          {
+            c = BigInteger.ONE.shiftLeft(2 * z + 128).divide(pow)
+              .add(BigInteger.ONE);
+            c = c.shiftRight(Math.max(0, c.bitLength() - 128));
+          }
+        split(c, POWER_OF_FIVE_128, 2 * (q - SMALLEST_POWER_OF_TEN), true);
+        pow = pow.multiply(five);
+      }
+    pow = BigInteger.ONE;
+    for (int q = 0; q <= LARGEST_POWER_OF_TEN; q++)
+      {
+        int shift = pow.bitLength() - 128;
+        split(shift >= 0 ? pow.shiftRight(shift) : pow.shiftLeft(-shift),
+              POWER_OF_FIVE_128, 2 * (q - SMALLEST_POWER_OF_TEN), true);
+        pow = pow.multiply(five);
+      }
+  }
+
+  /** True if the value is negative. */
+  private final boolean negative;
+
+  /** The shortest decimal significand, without trailing zeros. */
+  private long digits;
+
+  /** The power of ten by which digits is multiplied. */
+  private int exponent;
+
+  private FloatingDecimal(boolean negative, long ieeeMantissa,
+                          int ieeeExponent, int mantissaBits, int bias)
+  {
+    this.negative = negative;
+    shortest(ieeeMantissa, ieeeExponent, mantissaBits, bias);
+  }
+
+  /**
+   * Returns the string {@link Double#toString(double)} specifies for
+   * <code>d</code>.
+   *
+   * @param d the value to convert
+   * @return its shortest decimal representation
+   */
+  public static String toString(double d)
+  {
+    long bits = Double.doubleToRawLongBits(d);
+    boolean negative = bits < 0;
+    long ieeeMantissa = bits & ((1L << 52) - 1);
+    int ieeeExponent = (int) (bits >>> 52) & 0x7ff;
+    if (ieeeExponent == 0x7ff)
+      return special(negative, ieeeMantissa != 0);
+    if (ieeeExponent == 0 && ieeeMantissa == 0)
+      return negative ? "-0.0" : "0.0";
+    return new FloatingDecimal(negative, ieeeMantissa, ieeeExponent,
+                               52, 1023).toJavaFormatString();
+  }
+
+  /**
+   * Returns the string {@link Float#toString(float)} specifies for
+   * <code>f</code>.
+   *
+   * @param f the value to convert
+   * @return its shortest decimal representation
+   */
+  public static String toString(float f)
+  {
+    int bits = Float.floatToRawIntBits(f);
+    boolean negative = bits < 0;
+    int ieeeMantissa = bits & ((1 << 23) - 1);
+    int ieeeExponent = (bits >>> 23) & 0xff;
+    if (ieeeExponent == 0xff)
+      return special(negative, ieeeMantissa != 0);
+    if (ieeeExponent == 0 && ieeeMantissa == 0)
+      return negative ? "-0.0" : "0.0";
+    return new FloatingDecimal(negative, ieeeMantissa, ieeeExponent,
+                               23, 127).toJavaFormatString();
+  }
+
+  /**
+   * Returns the shortest decimal that reads back as <code>d</code>, as a
+   * <code>BigDecimal</code>.  This is the value of
+   * <code>new BigDecimal(Double.toString(d))</code>, but the scale is
+   * the smallest that represents it.
+   *
+   * @param d the value to convert
+   * @return its shortest decimal representation
+   * @throws NumberFormatException if <code>d</code> is infinite or NaN
+   */
+  public static BigDecimal toBigDecimal(double d)
+  {
+    long bits = Double.doubleToRawLongBits(d);
+    long ieeeMantissa = bits & ((1L << 52) - 1);
+    int ieeeExponent = (int) (bits >>> 52) & 0x7ff;
+    if (ieeeExponent == 0x7ff)
+      throw new NumberFormatException("infinite or NaN");
+    if (ieeeExponent == 0 && ieeeMantissa == 0)
+      return BigDecimal.ZERO;
+    return new FloatingDecimal(bits < 0, ieeeMantissa, ieeeExponent,
+                               52, 1023).toBigDecimal();
+  }
+
+  /**
+   * Returns the shortest decimal that reads back as <code>f</code>, as a
+   * <code>BigDecimal</code>.
+   *
+   * @param f the value to convert
+   * @return its shortest decimal representation
+   * @throws NumberFormatException if <code>f</code> is infinite or NaN
+   */
+  public static BigDecimal toBigDecimal(float f)
+  {
+    int bits = Float.floatToRawIntBits(f);
+    int ieeeMantissa = bits & ((1 << 23) - 1);
+    int ieeeExponent = (bits >>> 23) & 0xff;
+    if (ieeeExponent == 0xff)
+      throw new NumberFormatException("infinite or NaN");
+    if (ieeeExponent == 0 && ieeeMantissa == 0)
+      return BigDecimal.ZERO;
+    return new FloatingDecimal(bits < 0, ieeeMantissa, ieeeExponent,
+                               23, 127).toBigDecimal();
+  }
+
+  /**
+   * Parses a string as {@link Double#parseDouble(String)} specifies.
+   *
+   * @param str the string to parse
+   * @return the nearest double to the value of <code>str</code>
+   * @throws NumberFormatException if <code>str</code> is not a valid
+   *         floating point literal
+   * @throws NullPointerException if <code>str</code> is null
+   */
+  public static double parseDouble(String str)
+  {
+    return Double.longBitsToDouble(parse(str, false));
+  }
+
+  /**
+   * Parses a string as {@link Float#parseFloat(String)} specifies.  The
+   * result is rounded once, directly to a float.
+   *
+   * @param str the string to parse
+   * @return the nearest float to the value of <code>str</code>
+   * @throws NumberFormatException if <code>str</code> is not a valid
+   *         floating point literal
+   * @throws NullPointerException if <code>str</code> is null
+   */
+  public static float parseFloat(String str)
+  {
+    return Float.intBitsToFloat((int) parse(str, true));
+  }
+
+  private static String special(boolean negative, boolean nan)
+  {
+    if (nan)
+      return "NaN";
+    return negative ? "-Infinity" : "Infinity";
+  }
+
+  /**
+   * Sets digits and exponent to the shortest decimal in the rounding
+   * interval of the given finite, non-zero value.  This is Ryu's d2s
+   * algorithm, which also serves floats since their mantissas and
+   * exponents fit in a double's.  The digit removal loop stops at two
+   * digits; the rounding at the end then picks the nearest decimal of
+   * at most two digits, as Double.toString requires.
+   */
+  private void shortest(long ieeeMantissa, int ieeeExponent,
+                        int mantissaBits, int bias)
+  {
+    int e2;
+    long m2;
+    if (ieeeExponent == 0)
+      {
+        e2 = 1 - bias - mantissaBits - 2;
+        m2 = ieeeMantissa;
+      }
+    else
+      {
+        e2 = ieeeExponent - bias - mantissaBits - 2;
+        m2 = ieeeMantissa | (1L << mantissaBits);
+      }
+    boolean acceptBounds = (m2 & 1) == 0;
+
+    // The value and the halfway points to its neighbours, times four.
+    // The lower gap is halved at a power of two.
+    long mv = 4 * m2;
+    int mmShift = (ieeeMantissa != 0 || ieeeExponent <= 1) ? 1 : 0;
+    long mp = mv + 2;
+    long mm = mv - 1 - mmShift;
+
+    long vr, vp, vm;
+    int e10;
+    boolean vmIsTrailingZeros = false;
+    boolean vrIsTrailingZeros = false;
+    if (e2 >= 0)
+      {
+        int q = log10Pow2(e2) - (e2 > 3 ? 1 : 0);
+        e10 = q;
+        int k = POW5_INV_BITCOUNT + pow5bits(q) - 1;
+        int i = -e2 + q + k;
+        vr = mulShift(mv, POW5_INV_SPLIT, q, i);
+        vp = mulShift(mp, POW5_INV_SPLIT, q, i);
+        vm = mulShift(mm, POW5_INV_SPLIT, q, i);
+        if (q <= 21)
+          {
+            // Only one of mp, mv and mm can be a multiple of 5, if any.
+            if (mv % 5 == 0)
+              vrIsTrailingZeros = multipleOfPowerOf5(mv, q);
+            else if (acceptBounds)
+              vmIsTrailingZeros = multipleOfPowerOf5(mm, q);
+            else if (multipleOfPowerOf5(mp, q))
+              vp--;
+          }
+      }
+    else
+      {
+        int q = log10Pow5(-e2) - (-e2 > 1 ? 1 : 0);
+        e10 = q + e2;
+        int i = -e2 - q;
+        int k = pow5bits(i) - POW5_BITCOUNT;
+        int j = q - k;
+        vr = mulShift(mv, POW5_SPLIT, i, j);
+        vp = mulShift(mp, POW5_SPLIT, i, j);
+        vm = mulShift(mm, POW5_SPLIT, i, j);
+        // The smallest subnormals leave fewer than three digits, too few
+        // to round to two, so take one more.  Their m2 is tiny, so the
+        // scaled multipliers stay well within range.
+        if (vr < 100)
+          {
+            vr = mulShift(10 * mv, POW5_SPLIT, i, j);
+            vp = mulShift(10 * mp, POW5_SPLIT, i, j);
+            vm = mulShift(10 * mm, POW5_SPLIT, i, j);
+            e10--;
+          }
+        if (q <= 1)
+          {
+            // mv has at least two trailing zero bits, mp at least one,
+            // and mm one exactly when mmShift is 1.
+            vrIsTrailingZeros = true;
+            if (acceptBounds)
+              vmIsTrailingZeros = mmShift == 1;
+            else
+              vp--;
+          }
+        else if (q < 63)
+          vrIsTrailingZeros = (mv & ((1L << q) - 1)) == 0;
+      }
+
+    int removed = 0;
+    int lastRemovedDigit = 0;
+    long output;
+    if (vmIsTrailingZeros || vrIsTrailingZeros)
+      {
+        // The rare case where the bounds or the value may be exact.
+        while (vp / 10 > vm / 10 && vr >= 100)
+          {
+            vmIsTrailingZeros &= vm % 10 == 0;
+            vrIsTrailingZeros &= lastRemovedDigit == 0;
+            lastRemovedDigit = (int) (vr % 10);
+            vr /= 10;
+            vp /= 10;
+            vm /= 10;
+            removed++;
+          }
+        if (vmIsTrailingZeros)
+          while (vm % 10 == 0 && vr >= 100)
+            {
+              vrIsTrailingZeros &= lastRemovedDigit == 0;
+              lastRemovedDigit = (int) (vr % 10);
+              vr /= 10;
+              vp /= 10;
+              vm /= 10;
+              removed++;
+            }
+        // Round half to even.
+        if (vrIsTrailingZeros && lastRemovedDigit == 5 && vr % 2 == 0)
+          lastRemovedDigit = 4;
+        output = vr;
+        if ((vr == vm && (! acceptBounds || ! vmIsTrailingZeros))
+            || lastRemovedDigit >= 5)
+          output++;
+      }
+    else
+      {
+        while (vp / 10 > vm / 10 && vr >= 100)
+          {
+            lastRemovedDigit = (int) (vr % 10);
+            vr /= 10;
+            vp /= 10;
+            vm /= 10;
+            removed++;
+          }
+        output = vr;
+        if (vr == vm || lastRemovedDigit >= 5)
+          output++;
+      }
+    // Stopping at two digits can leave the value just below the upper
+    // bound, where the nearer decimal above is out of range.
+    if (output > vp)
+      output = vr;
+
+    int exp = e10 + removed;
+    while (output % 10 == 0)
+      {
+        output /= 10;
+        exp++;
+      }
+    digits = output;
+    exponent = exp;
+  }
+
+  /**
+   * Formats the decimal the way Double.toString does: plainly if the
+   * magnitude is at least 10^-3 and less than 10^7, and in computerized
+   * scientific notation otherwise, always with a digit after the point.
+   */
+  private String toJavaFormatString()
+  {
+    char[] digitChars = new char[20];
+    int length = 0;
+    for (long d = digits; d != 0; d /= 10)
+      digitChars[digitChars.length - ++length] = (char) ('0' + d % 10);
+    int first = digitChars.length - length;
+    // The number of digits before the decimal point.
+    int point = length + exponent;
+
+    char[] buf = new char[32];
+    int pos = 0;
+    if (negative)
+      buf[pos++] = '-';
+    if (point > 0 && point <= 7)
+      {
+        if (length <= point)
+          {
+            System.arraycopy(digitChars, first, buf, pos, length);
+            pos += length;
+            for (int i = length; i < point; i++)
+              buf[pos++] = '0';
+            buf[pos++] = '.';
+            buf[pos++] = '0';
+          }
+        else
+          {
+            System.arraycopy(digitChars, first, buf, pos, point);
+            pos += point;
+            buf[pos++] = '.';
+            System.arraycopy(digitChars, first + point, buf, pos,
+                             length - point);
+            pos += length - point;
+          }
+      }
+    else if (point > -3 && point <= 0)
+      {
+        buf[pos++] = '0';
+        buf[pos++] = '.';
+        for (int i = point; i < 0; i++)
+          buf[pos++] = '0';
+        System.arraycopy(digitChars, first, buf, pos, length);
+        pos += length;
+      }
+    else
+      {
+        buf[pos++] = digitChars[first];
+        buf[pos++] = '.';
+        if (length == 1)
+          buf[pos++] = '0';
+        else
+          {
+            System.arraycopy(digitChars, first + 1, buf, pos, length - 1);
+            pos += length - 1;
+          }
+        buf[pos++] = 'E';
+        int exp = point - 1;
+        if (exp < 0)
+          {
+            buf[pos++] = '-';
+            exp = -exp;
+          }
+        if (exp >= 100)
+          buf[pos++] = (char) ('0' + exp / 100);
+        if (exp >= 10)
+          buf[pos++] = (char) ('0' + exp / 10 % 10);
+        buf[pos++] = (char) ('0' + exp % 10);
+      }
+    return new String(buf, 0, pos);
+  }
+
+  private BigDecimal toBigDecimal()
+  {
+    return BigDecimal.valueOf(negative ? -digits : digits, -exponent);
+  }
+
+  /** Returns floor(log10(2^e)) for 0 <= e <= 1650. */
+  private static int log10Pow2(int e)
+  {
+    return (e * 78913) >>> 18;
+  }
+
+  /** Returns floor(log10(5^e)) for 0 <= e <= 2620. */
+  private static int log10Pow5(int e)
+  {
+    return (e * 732923) >>> 20;
+  }
+
+  /** Returns the bit length of 5^e for 0 <= e <= 3528. */
+  private static int pow5bits(int e)
+  {
+    return ((e * 1217359) >>> 19) + 1;
+  }
+
+  private static boolean multipleOfPowerOf5(long value, int p)
+  {
+    int count = 0;
+    while (value % 5 == 0)
+      {
+        value /= 5;
+        count++;
+      }
+    return count >= p;
+  }
+
+  /**
+   * Returns (m * table[index]) >> j, where the table entry is a 125-bit
+   * value stored low word first, m has at most 55 bits and
+   * 64 < j < 128.
+   */
+  private static long mulShift(long m, long[] table, int index, int j)
+  {
+    long low = table[2 * index];
+    long high = table[2 * index + 1];
+    long high0 = multiplyHigh(m, low);
+    long low1 = m * high;
+    long high1 = multiplyHigh(m, high);
+    long sum = high0 + low1;
+    if (unsignedLess(sum, high0))
+      high1++;
+    int dist = j - 64;
+    return (high1 << (64 - dist)) | (sum >>> dist);
+  }
+
+  /** Returns the high 64 bits of the unsigned 128-bit product x * y. */
+  private static long multiplyHigh(long x, long y)
+  {
+    long x0 = x & 0xffffffffL;
+    long x1 = x >>> 32;
+    long y0 = y & 0xffffffffL;
+    long y1 = y >>> 32;
+    long p01 = x0 * y1;
+    long middle = x1 * y0 + ((x0 * y0) >>> 32) + (p01 & 0xffffffffL);
+    return x1 * y1 + (middle >>> 32) + (p01 >>> 32);
+  }
+
+  private static boolean unsignedLess(long x, long y)
+  {
+    return (x + Long.MIN_VALUE) < (y + Long.MIN_VALUE);
+  }
+
+  /**
+   * Stores the low 128 bits of value into two longs of table at index,
+   * the high word first if highFirst is true.
+   */
+  private static void split(BigInteger value, long[] table, int index,
+                            boolean highFirst)
+  {
+    long low = value.longValue();
+    long high = value.shiftRight(64).longValue();
+    table[index] = highFirst ? high : low;
+    table[index + 1] = highFirst ? low : high;
+  }
+
+  /**
+   * Parses str as a double or a float literal and returns the raw bits of
+   * the nearest value.
+   */
+  private static long parse(String str, boolean isFloat)
+  {
+    int start = 0;
+    int end = str.length();
+    while (start < end && str.charAt(start) <= ' ')
+      start++;
+    while (end > start && str.charAt(end - 1) <= ' ')
+      end--;
+
+    long signBit = 0;
+    if (start < end)
+      {
+        char c = str.charAt(start);
+        if (c == '-')
+          signBit = isFloat ? 1L << 31 : 1L << 63;
+        if (c == '-' || c == '+')
+          start++;
+      }
+    if (str.startsWith("NaN", start) && start + 3 == end)
+      return isFloat ? 0x7fc00000L : 0x7ff8000000000000L;
+    if (str.startsWith("Infinity", start) && start + 8 == end)
+      return signBit | (isFloat ? 0x7f800000L : 0x7ff0000000000000L);
+
+    // A type suffix is allowed after any literal.
+    if (end > start)
+      {
+        char c = str.charAt(end - 1);
+        if (c == 'f' || c == 'F' || c == 'd' || c == 'D')
+          end--;
+      }
+    if (end - start > 2 && str.charAt(start) == '0'
+        && (str.charAt(start + 1) == 'x' || str.charAt(start + 1) == 'X'))
+      return signBit | parseHex(str, start + 2, end, isFloat);
+
+    // Collect up to nineteen significant digits into w, which is then an
+    // unsigned long, and note whether any later digit is non-zero.
+    long w = 0;
+    int taken = 0;
+    int exp10 = 0;
+    boolean truncated = false;
+    boolean sawDigit = false;
+    boolean sawPoint = false;
+    int i = start;
+    for (; i < end; i++)
+      {
+        char c = str.charAt(i);
+        if (c == '.' && ! sawPoint)
+          {
+            sawPoint = true;
+            continue;
+          }
+        if (c < '0' || c > '9')
+          break;
+        sawDigit = true;
+        if (taken == 0 && c == '0')
+          {
+            if (sawPoint)
+              exp10--;
+          }
+        else if (taken < 19)
+          {
+            w = w * 10 + (c - '0');
+            taken++;
+            if (sawPoint)
+              exp10--;
+          }
+        else
+          {
+            truncated |= c != '0';
+            if (! sawPoint)
+              exp10++;
+          }
+      }
+    if (! sawDigit)
+      throw new NumberFormatException("unable to parse " + str);
+    int mantissaEnd = i;
+
+    int explicitExponent = 0;
+    if (i < end && (str.charAt(i) == 'e' || str.charAt(i) == 'E'))
+      {
+        i++;
+        boolean negativeExponent = false;
+        if (i < end && (str.charAt(i) == '+' || str.charAt(i) == '-'))
+          negativeExponent = str.charAt(i++) == '-';
+        if (i == end)
+          throw new NumberFormatException("unable to parse " + str);
+        for (; i < end; i++)
+          {
+            char c = str.charAt(i);
+            if (c < '0' || c > '9')
+              break;
+            // Anything this large is zero or infinity anyway.
+            if (explicitExponent < 100000000)
+              explicitExponent = explicitExponent * 10 + (c - '0');
+          }
+        if (negativeExponent)
+          explicitExponent = -explicitExponent;
+      }
+    if (i != end)
+      throw new NumberFormatException("unable to parse " + str);
+
+    if (w == 0)
+      return signBit;
+    int q = exp10 + explicitExponent;
+
+    if (! truncated)
+      {
+        long bits = clinger(w, q, isFloat);
+        if (bits >= 0)
+          return signBit | bits;
+      }
+    long bits = eiselLemire(w, q, isFloat);
+    // With digits dropped the value lies between w and w + 1 units, so
+    // the answer is only certain if both round the same way.
+    if (truncated && bits != eiselLemire(w + 1, q, isFloat))
+      bits = parseExact(str, start, mantissaEnd, explicitExponent,
+                        isFloat);
+    return signBit | bits;
+  }
+
+  /**
+   * Returns the bits of w * 10^q if both w and 10^q are exact in the
+   * target type, so that a single correctly rounded operation gives the
+   * answer, or -1 if they are not.
+   */
+  private static strictfp long clinger(long w, int q, boolean isFloat)
+  {
+    if (isFloat)
+      {
+        if (w < 0 || w > (1L << 24) || q < -10 || q > 10)
+          return -1;
+        float f = w;
+        if (q < 0)
+          f /= FLOAT_POWERS_OF_TEN[-q];
+        else
+          f *= FLOAT_POWERS_OF_TEN[q];
+        return Float.floatToRawIntBits(f);
+      }
+    if (w < 0 || w > (1L << 53) || q < -22 || q > 22)
+      return -1;
+    double d = w;
+    if (q < 0)
+      d /= DOUBLE_POWERS_OF_TEN[-q];
+    else
+      d *= DOUBLE_POWERS_OF_TEN[q];
+    return Double.doubleToRawLongBits(d);
+  }
+
+  /**
+   * Returns the bits of the value nearest to w * 10^q, where w is a
+   * non-zero unsigned long, using the Eisel-Lemire algorithm.  A 64-bit
+   * or, when that is not enough, 128-bit approximation of 5^q always
+   * decides the rounding (Noble Mushtak and Daniel Lemire, "Fast Number
+   * Parsing Without Fallback", 2023).
+   */
+  private static long eiselLemire(long w, int q, boolean isFloat)
+  {
+    int mantissaBits = isFloat ? 23 : 52;
+    int minimumExponent = isFloat ? -127 : -1023;
+    long infinitePower = isFloat ? 0xff : 0x7ff;
+    if (q < (isFloat ? -65 : SMALLEST_POWER_OF_TEN))
+      return 0;
+    if (q > (isFloat ? 38 : LARGEST_POWER_OF_TEN))
+      return infinitePower << mantissaBits;
+
+    int lz = Long.numberOfLeadingZeros(w);
+    w <<= lz;
+    int index = 2 * (q - SMALLEST_POWER_OF_TEN);
+    long high = multiplyHigh(w, POWER_OF_FIVE_128[index]);
+    long low = w * POWER_OF_FIVE_128[index];
+    long precisionMask = -1L >>> (mantissaBits + 3);
+    if ((high & precisionMask) == precisionMask)
+      {
+        long secondHigh = multiplyHigh(w, POWER_OF_FIVE_128[index + 1]);
+        low += secondHigh;
+        if (unsignedLess(low, secondHigh))
+          high++;
+      }
+
+    int upperBit = (int) (high >>> 63);
+    int shift = upperBit + 64 - mantissaBits - 3;
+    long mantissa = high >>> shift;
+    // floor(log2(10^q)) + 63, from which the binary exponent follows.
+    int power2 = (((152170 + 65536) * q) >> 16) + 63 + upperBit - lz
+      - minimumExponent;
+    if (power2 <= 0)
+      {
+        // Subnormal, or zero if every bit falls below the minimum.
+        if (-power2 + 1 >= 64)
+          return 0;
+        mantissa >>>= -power2 + 1;
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        // Rounding may have carried into the smallest normal exponent.
+        return mantissa;
+      }
+    // The product is exact for small q, so a value exactly halfway
+    // between two floating point numbers is recognizable; round it to
+    // even rather than up.
+    if ((low == 0 || low == 1)
+        && q >= (isFloat ? -17 : -4) && q <= (isFloat ? 10 : 23)
+        && (mantissa & 3) == 1 && (mantissa << shift) == high)
+      mantissa &= ~1L;
+    mantissa += mantissa & 1;
+    mantissa >>>= 1;
+    if (mantissa >= (2L << mantissaBits))
+      {
+        mantissa = 1L << mantissaBits;
+        power2++;
+      }
+    mantissa &= ~(1L << mantissaBits);
+    if (power2 >= infinitePower)
+      return infinitePower << mantissaBits;
+    return ((long) power2 << mantissaBits) | mantissa;
+  }
+
+  /**
+   * Rounds the decimal mantissa between start and end in str, times
+   * 10^explicitExponent, exactly.
+   */
+  private static long parseExact(String str, int start, int end,
+                                 int explicitExponent, boolean isFloat)
+  {
+    CPStringBuilder digits = new CPStringBuilder(end - start);
+    int exp10 = explicitExponent;
+    boolean sawPoint = false;
+    boolean sticky = false;
+    for (int i = start; i < end; i++)
+      {
+        char c = str.charAt(i);
+        if (c == '.')
+          sawPoint = true;
+        else if (digits.length() < MAX_EXACT_DIGITS)
+          {
+            if (digits.length() > 0 || c != '0')
+              digits.append(c);
+            if (sawPoint)
+              exp10--;
+          }
+        else
+          {
+            sticky |= c != '0';
+            if (! sawPoint)
+              exp10++;
+          }
+      }
+    if (sticky)
+      {
+        // A non-zero digit one place below the kept ones stands for all
+        // of the dropped ones: it lies strictly between the neighbouring
+        // decimals without reaching any rounding boundary.
+        digits.append('1');
+        exp10--;
+      }
+
+    int length = digits.length();
+    if (exp10 + length > 310)
+      return isFloat ? 0x7f800000L : 0x7ff0000000000000L;
+    if (exp10 + length < -345)
+      return 0;
+    BigInteger num = new BigInteger(digits.toString());
+    BigInteger den = BigInteger.ONE;
+    if (exp10 >= 0)
+      num = num.multiply(BigInteger.TEN.pow(exp10));
+    else
+      den = BigInteger.TEN.pow(-exp10);
+    return roundExact(num, den, isFloat);
+  }
+
+  /**
+   * Parses the hexadecimal significand and binary exponent between
+   * start and end in str, and returns the bits of the nearest value.
+   */
+  private static long parseHex(String str, int start, int end,
+                               boolean isFloat)
+  {
+    CPStringBuilder digits = new CPStringBuilder(end - start);
+    int exp2 = 0;
+    boolean sawPoint = false;
+    int i = start;
+    for (; i < end; i++)
+      {
+        char c = str.charAt(i);
+        if (c == '.' && ! sawPoint)
+          sawPoint = true;
+        else if (Character.digit(c, 16) >= 0 && c < 128)
+          {
+            digits.append(c);
+            if (sawPoint)
+              exp2 -= 4;
+          }
+        else
+          break;
+      }
+    if (digits.length() == 0 || i == end
+        || (str.charAt(i) != 'p' && str.charAt(i) != 'P'))
+      throw new NumberFormatException("unable to parse " + str);
+    i++;
+    boolean negativeExponent = false;
+    if (i < end && (str.charAt(i) == '+' || str.charAt(i) == '-'))
+      negativeExponent = str.charAt(i++) == '-';
+    if (i == end)
+      throw new NumberFormatException("unable to parse " + str);
+    int explicitExponent = 0;
+    for (; i < end; i++)
+      {
+        char c = str.charAt(i);
+        if (c < '0' || c > '9')
+          throw new NumberFormatException("unable to parse " + str);
+        if (explicitExponent < 100000000)
+          explicitExponent = explicitExponent * 10 + (c - '0');
+      }
+    exp2 += negativeExponent ? -explicitExponent : explicitExponent;
+
+    BigInteger num = new BigInteger(digits.toString(), 16);
+    if (num.signum() == 0)
+      return 0;
+    int magnitude = num.bitLength() + exp2;
+    if (magnitude > 1100)
+      return isFloat ? 0x7f800000L : 0x7ff0000000000000L;
+    if (magnitude < -1100)
+      return 0;
+    BigInteger den = BigInteger.ONE;
+    if (exp2 >= 0)
+      num = num.shiftLeft(exp2);
+    else
+      den = den.shiftLeft(-exp2);
+    return roundExact(num, den, isFloat);
+  }
+
+  /**
+   * Returns the bits of the double or float nearest to num / den, both
+   * positive, rounding halfway cases to even.
+   */
+  private static long roundExact(BigInteger num, BigInteger den,
+                                 boolean isFloat)
+  {
+    int mantissaBits = isFloat ? 23 : 52;
+    int minExponent = isFloat ? -149 : -1074;
+    long infinite = isFloat ? 0x7f800000L : 0x7ff0000000000000L;
+
+    // Find e so that num / (den * 2^e) has mantissaBits + 1 bits, or
+    // fewer for subnormal values.
+    int e = num.bitLength() - den.bitLength() - (mantissaBits + 1);
+    if (e < minExponent)
+      e = minExponent;
+    for (;;)
+      {
+        BigInteger n = e < 0 ? num.shiftLeft(-e) : num;
+        BigInteger d = e > 0 ? den.shiftLeft(e) : den;
+        BigInteger[] qr = n.divideAndRemainder(d);
+        if (qr[0].bitLength() > mantissaBits + 1)
+          {
+            e++;
+            continue;
+          }
+        long m = qr[0].longValue();
+        int half = qr[1].shiftLeft(1).compareTo(d);
+        if (half > 0 || (half == 0 && (m & 1) != 0))
+          m++;
+        if (m == 1L << (mantissaBits + 1))
+          {
+            m >>= 1;
+            e++;
+          }
+        // For a normal value m includes the implicit bit, which carries
+        // into the exponent field.
+        long bits = ((long) (e - minExponent) << mantissaBits) + m;
+        return bits >= infinite ? infinite : bits;
+      }
+  }
+}
@@ -49,6 +49,27 @@ package gnu.java.math;
 
 public class MPN
 {
+  /** Operands with fewer words than this are multiplied by the schoolbook
+   * method; longer ones use Karatsuba's method. */
+  static final int KARATSUBA_THRESHOLD = 48;
+
+  /** Operands with at least this many words use Toom-3 multiplication. */
+  static final int TOOM3_THRESHOLD = 160;
+
+  /** Squares of fewer words than this use the schoolbook method. */
+  static final int KARATSUBA_SQUARE_THRESHOLD = 64;
+
+  /** Squares of at least this many words use Toom-3. */
+  static final int TOOM3_SQUARE_THRESHOLD = 200;
+
+  /** Divisors with at least this many words, giving a quotient of at least
+   * BURNIKEL_ZIEGLER_OFFSET more words, use Burnikel-Ziegler division.
+   * This is also the size below which its recursion stops. */
+  static final int BURNIKEL_ZIEGLER_THRESHOLD = 80;
+
+  /** See BURNIKEL_ZIEGLER_THRESHOLD. */
+  static final int BURNIKEL_ZIEGLER_OFFSET = 40;
+
   /** Add x[0:size-1] and y, and write the size least
    * significant words of the result to dest.
    * Return carry, either 0 or 1.
@@ -136,14 +157,57 @@ public class MPN
    * write the result to dest[0:xlen+ylen-1].
    * The destination has to have space for xlen+ylen words,
    * even if the result might be one limb smaller.
-   * This function requires that xlen >= ylen.
    * The destination must be distinct from either input operands.
    * All operands are unsigned.
+   * Large operands are multiplied by Karatsuba's or the Toom-3 method,
+   * and if x and y are the same array of the same length, the product
+   * is computed by sqr.
    * This function is basically the same gmp's mpn_mul. */
 
   public static void mul (int[] dest,
                           int[] x, int xlen,
                           int[] y, int ylen)
+  {
+    if (x == y && xlen == ylen)
+      {
+        sqr (dest, x, xlen);
+        return;
+      }
+    if (xlen < ylen)
+      {
+        int[] t = x;  x = y;  y = t;
+        int tlen = xlen;  xlen = ylen;  ylen = tlen;
+      }
+    if (ylen < KARATSUBA_THRESHOLD)
+      mulBasecase (dest, x, xlen, y, ylen);
+    else if (2 * ylen <= xlen + 1)
+      mulUnbalanced (dest, x, xlen, y, ylen);
+    else if (ylen >= TOOM3_THRESHOLD && ylen > 2 * ((xlen + 2) / 3))
+      mulToom3 (dest, x, xlen, y, ylen);
+    else
+      mulKaratsuba (dest, x, xlen, y, ylen);
+  }
+
+  /**
+   * Square x[0:len-1], and write the result to dest[0:2*len-1].
+   * The destination must be distinct from x.
+   */
+  public static void sqr (int[] dest, int[] x, int len)
+  {
+    if (len < KARATSUBA_SQUARE_THRESHOLD)
+      sqrBasecase (dest, x, len);
+    else if (len >= TOOM3_SQUARE_THRESHOLD)
+      mulToom3 (dest, x, len, x, len);
+    else
+      mulKaratsuba (dest, x, len, x, len);
+  }
+
+  /**
+   * The schoolbook method for mul, which requires xlen >= ylen.
+   */
+  private static void mulBasecase (int[] dest,
+                                   int[] x, int xlen,
+                                   int[] y, int ylen)
   {
     dest[xlen] = MPN.mul_1 (dest, x, xlen, y[0]);
 
@@ -162,6 +226,398 @@ public class MPN
       }
   }
 
+  /**
+   * The schoolbook method for sqr, which computes each cross product
+   * x[i]*x[j] only once and then doubles their sum.
+   */
+  private static void sqrBasecase (int[] dest, int[] x, int len)
+  {
+    for (int i = 0;  i < 2 * len;  i++)
+      dest[i] = 0;
+    for (int i = 0;  i < len - 1;  i++)
+      {
+        long xword = (long) x[i] & 0xffffffffL;
+        long carry = 0;
+        for (int j = i + 1;  j < len;  j++)
+          {
+            carry += ((long) x[j] & 0xffffffffL) * xword
+              + ((long) dest[i+j] & 0xffffffffL);
+            dest[i+j] = (int) carry;
+            carry >>>= 32;
+          }
+        dest[i+len] = (int) carry;
+      }
+    dest[2 * len - 1] = lshift (dest, 0, dest, 2 * len - 1, 1);
+    long carry = 0;
+    for (int i = 0;  i < len;  i++)
+      {
+        long xword = (long) x[i] & 0xffffffffL;
+        long prod = xword * xword;
+        carry += (prod & 0xffffffffL) + ((long) dest[2*i] & 0xffffffffL);
+        dest[2*i] = (int) carry;
+        carry >>>= 32;
+        carry += (prod >>> 32) + ((long) dest[2*i+1] & 0xffffffffL);
+        dest[2*i+1] = (int) carry;
+        carry >>>= 32;
+      }
+  }
+
+  /**
+   * Multiply when x is at least about twice as long as y, by multiplying
+   * y with pieces of x that are as long as y.
+   */
+  private static void mulUnbalanced (int[] dest,
+                                     int[] x, int xlen,
+                                     int[] y, int ylen)
+  {
+    int dlen = xlen + ylen;
+    for (int i = 0;  i < dlen;  i++)
+      dest[i] = 0;
+    int[] piece = new int[ylen];
+    int[] prod = new int[2 * ylen];
+    for (int off = 0;  off < xlen;  off += ylen)
+      {
+        int len = Math.min (ylen, xlen - off);
+        System.arraycopy (x, off, piece, 0, len);
+        mul (prod, piece, len, y, ylen);
+        addTo (dest, dlen, off, prod, len + ylen);
+      }
+  }
+
+  /**
+   * Karatsuba's method, which splits x and y in two and gets by with three
+   * half-size products instead of four.  Requires xlen >= ylen > (xlen +
+   * 1) / 2.
+   */
+  private static void mulKaratsuba (int[] dest,
+                                    int[] x, int xlen,
+                                    int[] y, int ylen)
+  {
+    boolean square = x == y && xlen == ylen;
+    int n = (xlen + 1) / 2;
+    int[] x0 = copy (x, 0, n);
+    int[] x1 = copy (x, n, xlen - n);
+    int[] y0 = square ? x0 : copy (y, 0, n);
+    int[] y1 = square ? x1 : copy (y, n, ylen - n);
+
+    // x*y = z2*B^2n + z1*B^n + z0, where z1 = (x0+x1)*(y0+y1) - z0 - z2.
+    int[] z0 = new int[2 * n];
+    mul (z0, x0, n, y0, n);
+    int z2len = xlen + ylen - 2 * n;
+    int[] z2 = new int[z2len];
+    mul (z2, x1, xlen - n, y1, ylen - n);
+    int[] sx = new int[n + 1];
+    sx[n] = add (sx, x0, n, x1, xlen - n);
+    int[] sy = sx;
+    if (! square)
+      {
+        sy = new int[n + 1];
+        sy[n] = add (sy, y0, n, y1, ylen - n);
+      }
+    int[] z1 = new int[2 * n + 2];
+    mul (z1, sx, n + 1, sy, n + 1);
+    sub (z1, 2 * n + 2, z0, 2 * n);
+    sub (z1, 2 * n + 2, z2, z2len);
+
+    System.arraycopy (z0, 0, dest, 0, 2 * n);
+    System.arraycopy (z2, 0, dest, 2 * n, z2len);
+    addTo (dest, xlen + ylen, n, z1, 2 * n + 2);
+  }
+
+  /**
+   * The Toom-3 method, which splits x and y in three and gets by with five
+   * third-size products instead of nine.  The products are of the values
+   * at 0, 1, -1, -2 and infinity of the polynomials whose coefficients are
+   * the pieces, and the coefficients of the product polynomial are
+   * interpolated back from them as in Bodrato's sequence.  Requires
+   * xlen >= ylen > 2 * ((xlen + 2) / 3).
+   */
+  private static void mulToom3 (int[] dest,
+                                int[] x, int xlen,
+                                int[] y, int ylen)
+  {
+    boolean square = x == y && xlen == ylen;
+    int k = (xlen + 2) / 3;
+    // The evaluated pieces are less than 7*B^k in magnitude, and the
+    // products and interpolated values less than 64*B^2k, so these widths
+    // leave room for the sign in two's complement.
+    int ew = k + 2;
+    int pw = 2 * k + 4;
+
+    int[][] xv = toom3Evaluate (x, xlen, k, ew);
+    int[][] yv = square ? xv : toom3Evaluate (y, ylen, k, ew);
+    int[] r0 = toom3Mul (xv[0], yv[0], ew, pw);
+    int[] r1 = toom3Mul (xv[1], yv[1], ew, pw);
+    int[] rm1 = toom3Mul (xv[2], yv[2], ew, pw);
+    int[] rm2 = toom3Mul (xv[3], yv[3], ew, pw);
+    int[] rinf = toom3Mul (xv[4], yv[4], ew, pw);
+
+    // r3 = (r(-2) - r(1)) / 3
+    int[] r3 = new int[pw];
+    sub_n (r3, rm2, r1, pw);
+    divexact_by3 (r3, pw);
+    // r1 = (r(1) - r(-1)) / 2
+    sub_n (r1, r1, rm1, pw);
+    rshiftSigned (r1, pw);
+    // r2 = r(-1) - r(0)
+    int[] r2 = rm1;
+    sub_n (r2, rm1, r0, pw);
+    // r3 = (r2 - r3) / 2 + 2*r(inf)
+    sub_n (r3, r2, r3, pw);
+    rshiftSigned (r3, pw);
+    add_n (r3, r3, rinf, pw);
+    add_n (r3, r3, rinf, pw);
+    // r2 = r2 + r1 - r(inf)
+    add_n (r2, r2, r1, pw);
+    sub_n (r2, r2, rinf, pw);
+    // r1 = r1 - r3
+    sub_n (r1, r1, r3, pw);
+
+    // All the coefficients are non-negative now.
+    int dlen = xlen + ylen;
+    for (int i = 0;  i < dlen;  i++)
+      dest[i] = 0;
+    addTo (dest, dlen, 0, r0, pw);
+    addTo (dest, dlen, k, r1, pw);
+    addTo (dest, dlen, 2 * k, r2, pw);
+    addTo (dest, dlen, 3 * k, r3, pw);
+    addTo (dest, dlen, 4 * k, rinf, pw);
+  }
+
+  /**
+   * Split x[0:len-1] into three pieces of k words, the last of which may
+   * be shorter, and return the values at 0, 1, -1, -2 and infinity of the
+   * polynomial whose coefficients they are, in two's complement of w words.
+   */
+  private static int[][] toom3Evaluate (int[] x, int len, int k, int w)
+  {
+    int[] x0 = copy (x, 0, k, w);
+    int[] x1 = copy (x, k, k, w);
+    int[] x2 = copy (x, 2 * k, len - 2 * k, w);
+    int[] t = new int[w];
+    add_n (t, x0, x2, w);
+    int[] p1 = new int[w];
+    add_n (p1, t, x1, w);
+    int[] pm1 = new int[w];
+    sub_n (pm1, t, x1, w);
+    // p(-2) = 2*(p(-1) + x2) - x0
+    int[] pm2 = new int[w];
+    add_n (pm2, pm1, x2, w);
+    add_n (pm2, pm2, pm2, w);
+    sub_n (pm2, pm2, x0, w);
+    return new int[][] { x0, p1, pm1, pm2, x2 };
+  }
+
+  /**
+   * Multiply two numbers in two's complement of w words, giving a result
+   * in two's complement of pw words.
+   */
+  private static int[] toom3Mul (int[] x, int[] y, int w, int pw)
+  {
+    boolean negative = (x[w - 1] ^ y[w - 1]) < 0;
+    boolean square = x == y;
+    if (x[w - 1] < 0)
+      x = negate (x, w);
+    y = square ? x : y[w - 1] < 0 ? negate (y, w) : y;
+    int xlen = length (x, w);
+    int ylen = length (y, w);
+    int[] result = new int[pw];
+    if (xlen == 0 || ylen == 0)
+      return result;
+    if (square)
+      sqr (result, x, xlen);
+    else
+      mul (result, x, xlen, y, ylen);
+    if (negative)
+      {
+        for (int i = 0;  i < pw;  i++)
+          result[i] = ~result[i];
+        add_1 (result, result, pw, 1);
+      }
+    return result;
+  }
+
+  /**
+   * Divide x[0:len-1], which must be a multiple of 3, by 3 in place.
+   * This works for numbers in two's complement as well as unsigned ones.
+   * This is basically the same as gmp's mpn_divexact_by3.
+   */
+  private static void divexact_by3 (int[] x, int len)
+  {
+    final int INVERSE_3 = 0xAAAAAAAB;  // 3 * INVERSE_3 == 1 (mod 2^32)
+    int c = 0;
+    for (int i = 0;  i < len;  i++)
+      {
+        long l = ((long) x[i] & 0xffffffffL) - c;
+        c = l < 0 ? 1 : 0;
+        int q = (int) l * INVERSE_3;
+        x[i] = q;
+        // Invert the high-order bit to compare as unsigned.
+        if ((q ^ 0x80000000) >= (0x55555556 ^ 0x80000000))
+          c++;
+        if ((q ^ 0x80000000) >= (0xAAAAAAAB ^ 0x80000000))
+          c++;
+      }
+  }
+
+  /**
+   * Shift x[0:len-1], in two's complement, one bit to the right in place.
+   */
+  private static void rshiftSigned (int[] x, int len)
+  {
+    for (int i = 0;  i < len - 1;  i++)
+      x[i] = (x[i] >>> 1) | (x[i+1] << 31);
+    x[len - 1] >>= 1;
+  }
+
+  /**
+   * Return the negation of x[0:len-1], in two's complement.
+   */
+  private static int[] negate (int[] x, int len)
+  {
+    int[] result = new int[len];
+    for (int i = 0;  i < len;  i++)
+      result[i] = ~x[i];
+    add_1 (result, result, len, 1);
+    return result;
+  }
+
+  /**
+   * Return a copy of x[off:off+len-1].
+   */
+  private static int[] copy (int[] x, int off, int len)
+  {
+    return copy (x, off, len, len);
+  }
+
+  /**
+   * Return a copy of x[off:off+len-1], padded with zeros to size words.
+   */
+  private static int[] copy (int[] x, int off, int len, int size)
+  {
+    int[] result = new int[size];
+    System.arraycopy (x, off, result, 0, len);
+    return result;
+  }
+
+  /**
+   * Return the length of x[0:len-1] without its most significant zero
+   * words.
+   */
+  private static int length (int[] x, int len)
+  {
+    while (len > 0 && x[len - 1] == 0)
+      len--;
+    return len;
+  }
+
+  /**
+   * Add x[0:xlen-1] and y[0:ylen-1], where xlen >= ylen, and write the
+   * xlen least significant words of the result to dest.
+   * @return the carry, either 0 or 1
+   */
+  private static int add (int[] dest, int[] x, int xlen, int[] y, int ylen)
+  {
+    int carry = add_n (dest, x, y, ylen);
+    for (int i = ylen;  i < xlen;  i++)
+      {
+        int w = x[i] + carry;
+        carry = carry != 0 && w == 0 ? 1 : 0;
+        dest[i] = w;
+      }
+    return carry;
+  }
+
+  /**
+   * Subtract y[0:ylen-1] from x[0:xlen-1] in place, where x is at
+   * least y.
+   */
+  private static void sub (int[] x, int xlen, int[] y, int ylen)
+  {
+    int borrow = sub_n (x, x, y, ylen);
+    for (int i = ylen;  borrow != 0 && i < xlen;  i++)
+      borrow = x[i]-- == 0 ? 1 : 0;
+  }
+
+  /**
+   * Add y[0:ylen-1] to dest[off:dlen-1] in place.  The sum must fit in
+   * dest[0:dlen-1], so any words of y that would not fit must be zero.
+   */
+  private static void addTo (int[] dest, int dlen, int off,
+                             int[] y, int ylen)
+  {
+    long carry = 0;
+    int i = off;
+    for (int j = 0;  j < ylen && i < dlen;  j++, i++)
+      {
+        carry += ((long) dest[i] & 0xffffffffL)
+          + ((long) y[j] & 0xffffffffL);
+        dest[i] = (int) carry;
+        carry >>>= 32;
+      }
+    for (;  carry != 0 && i < dlen;  i++)
+      carry = ++dest[i] == 0 ? 1 : 0;
+  }
+
+  /** Multiply x[0:len-1] by y, and add the len least significant words
+   * of the product to dest[offset:offset+len-1].
+   * All values are treated as if they were unsigned.
+   * @return the most significant word of the product, plus the carry-out
+   * from the addition.
+   * This function is basically the same as gmp's mpn_addmul_1.
+   */
+  public static int addmul_1 (int[] dest, int offset, int[] x, int len, int y)
+  {
+    long yword = (long) y & 0xffffffffL;
+    long carry = 0;
+    for (int j = 0;  j < len;  j++)
+      {
+        carry += ((long) x[j] & 0xffffffffL) * yword
+          + ((long) dest[offset+j] & 0xffffffffL);
+        dest[offset+j] = (int) carry;
+        carry >>>= 32;
+      }
+    return (int) carry;
+  }
+
+  /** Return -1/x (mod 2**32), for odd x, as needed by redc_1.
+   */
+  public static int montgomery_inverse (int x)
+  {
+    // x*x == 1 (mod 8), so x is its own inverse to 3 bits, and each
+    // Newton step doubles the number of correct bits.
+    int inv = x;
+    for (int i = 0;  i < 4;  i++)
+      inv *= 2 - x * inv;
+    return -inv;
+  }
+
+  /** Montgomery reduction: write t[0:2n-1] / 2**(32*n) (mod m) to
+   * dest[0:n-1], where m[0:n-1] is odd and t &lt; m * 2**(32*n).
+   * minv must be montgomery_inverse (m[0]).
+   * t needs space for 2n+1 words, and is destroyed.
+   * This function is basically the same as gmp's mpn_redc_1.
+   */
+  public static void redc_1 (int[] dest, int[] t, int[] m, int n, int minv)
+  {
+    t[2 * n] = 0;
+    for (int i = 0;  i < n;  i++)
+      {
+        // Adding u*m makes t[i] zero.
+        int carry = addmul_1 (t, i, m, n, t[i] * minv);
+        for (int j = i + n;  carry != 0;  j++)
+          {
+            int w = t[j] + carry;
+            carry = (w ^ 0x80000000) < (carry ^ 0x80000000) ? 1 : 0;
+            t[j] = w;
+          }
+      }
+    // The result is less than 2*m.
+    System.arraycopy (t, n, dest, 0, n);
+    if (t[2 * n] != 0 || cmp (dest, m, n) >= 0)
+      sub_n (dest, dest, m, n);
+  }
+
   /* Divide (unsigned long) N by (unsigned int) D.
    * Returns (remainder << 32)+(unsigned int)(quotient).
    * Assumes (unsigned int)(N>>32) < (unsigned int)D.
@@ -308,9 +764,153 @@ public class MPN
    * The quotient ends up in zds[ny:nx].
    * Assumes:  nx>ny.
    * (int)y[ny-1] < 0  (i.e. most significant bit set)
+   * Large divisions use Burnikel and Ziegler's recursive method.
    */
 
   public static void divide (int[] zds, int nx, int[] y, int ny)
+  {
+    if (ny >= BURNIKEL_ZIEGLER_THRESHOLD
+        && nx - ny >= BURNIKEL_ZIEGLER_OFFSET)
+      divideBZ (zds, nx, y, ny);
+    else
+      divideBasecase (zds, nx, y, ny);
+  }
+
+  /**
+   * Burnikel and Ziegler's recursive division, from "Fast Recursive
+   * Division" (MPI-I-98-1-022).  The divisor is padded with zero words
+   * at the bottom to n words, where n halves evenly down to about
+   * BURNIKEL_ZIEGLER_THRESHOLD, and the dividend is divided by it a
+   * block of n words at a time.  Same interface as divide.
+   */
+  private static void divideBZ (int[] zds, int nx, int[] y, int ny)
+  {
+    int m = 1 << (32 - count_leading_zeros (ny / BURNIKEL_ZIEGLER_THRESHOLD));
+    int n = (ny + m - 1) / m * m;
+    int shift = n - ny;
+    int[] b = new int[n];
+    System.arraycopy (y, 0, b, shift, ny);
+
+    // The top block must be less than b, so leave at least one zero word.
+    int alen = nx + 1 + shift;
+    int t = Math.max (2, (alen + n) / n);
+    int[] a = new int[t * n];
+    System.arraycopy (zds, 0, a, shift, nx + 1);
+
+    int[] q = new int[(t - 1) * n];
+    int[] z = copy (a, (t - 2) * n, 2 * n);
+    int[] qi = new int[n];
+    int[] r = new int[n];
+    for (int i = t - 2;  ;  i--)
+      {
+        divide2n1n (z, b, n, qi, r);
+        System.arraycopy (qi, 0, q, i * n, n);
+        if (i == 0)
+          break;
+        System.arraycopy (a, (i - 1) * n, z, 0, n);
+        System.arraycopy (r, 0, z, n, n);
+      }
+
+    System.arraycopy (r, shift, zds, 0, ny);
+    System.arraycopy (q, 0, zds, ny, nx - ny + 1);
+  }
+
+  /**
+   * Divide a[0:2n-1] by b[0:n-1], which has its most significant bit set,
+   * giving the quotient q[0:n-1] and remainder r[0:n-1].  Requires that
+   * a &lt; b*B^n.  This is algorithm 1 of Burnikel and Ziegler.
+   */
+  private static void divide2n1n (int[] a, int[] b, int n, int[] q, int[] r)
+  {
+    if ((n & 1) != 0 || n < BURNIKEL_ZIEGLER_THRESHOLD)
+      {
+        int[] zds = copy (a, 0, 2 * n, 2 * n + 1);
+        divideBasecase (zds, 2 * n, b, n);
+        System.arraycopy (zds, n, q, 0, n);
+        System.arraycopy (zds, 0, r, 0, n);
+        return;
+      }
+    int h = n / 2;
+    int[] b1 = copy (b, h, h);
+    int[] b2 = copy (b, 0, h);
+    int[] qh = new int[h];
+    int[] rh = new int[n];
+    // Divide the top three quarters of a, then the remainder and the
+    // bottom quarter.
+    divide3n2n (copy (a, h, 3 * h), b, b1, b2, h, qh, rh);
+    System.arraycopy (qh, 0, q, h, h);
+    int[] a2 = new int[3 * h];
+    System.arraycopy (a, 0, a2, 0, h);
+    System.arraycopy (rh, 0, a2, h, n);
+    divide3n2n (a2, b, b1, b2, h, qh, r);
+    System.arraycopy (qh, 0, q, 0, h);
+  }
+
+  /**
+   * Divide a[0:3h-1] by b[0:2h-1], which has its most significant bit set
+   * and is b1*B^h+b2, giving the quotient q[0:h-1] and remainder
+   * r[0:2h-1].  Requires that a &lt; b*B^h.  This is algorithm 2 of
+   * Burnikel and Ziegler.
+   */
+  private static void divide3n2n (int[] a, int[] b, int[] b1, int[] b2,
+                                  int h, int[] q, int[] r)
+  {
+    int n = 2 * h;
+    // rr = r1*B^h + a3, where q and r1 are the quotient and remainder of
+    // the top 2h words of a divided by b1, or B^h-1 and what that leaves
+    // if the top h words equal b1.
+    int[] rr = new int[n + 2];
+    if (cmp (a, 2 * h, b1, 0, h) < 0)
+      {
+        int[] r1 = new int[h];
+        divide2n1n (copy (a, h, n), b1, h, q, r1);
+        System.arraycopy (r1, 0, rr, h, h);
+      }
+    else
+      {
+        for (int i = 0;  i < h;  i++)
+          q[i] = -1;
+        // a12 - (B^h-1)*b1 = a2 + b1, as a1 == b1.
+        System.arraycopy (a, h, rr, h, h);
+        addTo (rr, n + 2, h, b1, h);
+      }
+    System.arraycopy (a, 0, rr, 0, h);
+
+    // Subtract q*b2, adding b back while that would go negative.
+    int[] d = new int[n];
+    mul (d, q, h, b2, h);
+    while (cmp (rr, length (rr, n + 2), d, length (d, n)) < 0)
+      {
+        sub (q, h, ONE, 1);
+        addTo (rr, n + 2, 0, b, n);
+      }
+    sub (rr, n + 2, d, n);
+    System.arraycopy (rr, 0, r, 0, n);
+  }
+
+  /** The number 1, for sub. */
+  private static final int[] ONE = { 1 };
+
+  /**
+   * Compare x[off:off+len-1] with y[0:len-1], treating them as unsigned
+   * integers.
+   */
+  private static int cmp (int[] x, int off, int[] y, int yoff, int len)
+  {
+    while (--len >= 0)
+      {
+        int x_word = x[off + len];
+        int y_word = y[yoff + len];
+        if (x_word != y_word)
+          return (x_word ^ 0x80000000) > (y_word ^ 0x80000000) ? 1 : -1;
+      }
+    return 0;
+  }
+
+  /**
+   * The classical division algorithm for divide.
+   */
+  private static void divideBasecase (int[] zds, int nx, int[] y, int ny)
   {
     // This is basically Knuth's formulation of the classical algorithm,
     // but translated from in scm_divbigbig in Jaffar's SCM implementation.
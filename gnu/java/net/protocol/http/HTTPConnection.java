@@ -42,6 +42,7 @@ import gnu.classpath.SystemProperties;
 
 import gnu.java.lang.CPStringBuilder;
 import gnu.java.net.EmptyX509TrustManager;
+import gnu.java.util.primitive.ObjectIntMap;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
@@ -53,12 +54,10 @@ import java.net.Socket;
 import java.net.SocketException;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
-import java.util.Map;
 
 import javax.net.ssl.HandshakeCompletedListener;
 import javax.net.ssl.SSLContext;
@@ -156,7 +155,7 @@ public class HTTPConnection
   /**
    * Nonce values seen by this connection.
    */
-  private Map<String, Integer> nonceCounts;
+  private ObjectIntMap<String> nonceCounts;
 
   /**
    * The cookie manager for this connection.
@@ -859,7 +858,7 @@ public class HTTPConnection
       {
         return 0;
       }
-    return nonceCounts.get(nonce).intValue();
+    return nonceCounts.get(nonce, 0);
   }
 
   /**
@@ -867,12 +866,11 @@ public class HTTPConnection
    */
   void incrementNonce(String nonce)
   {
-    int current = getNonceCount(nonce);
     if (nonceCounts == null)
       {
-        nonceCounts = new HashMap<String, Integer>();
+        nonceCounts = new ObjectIntMap<String>();
       }
-    nonceCounts.put(nonce, new Integer(current + 1));
+    nonceCounts.increment(nonce, 1);
   }
 
   // -- Events --
@@ -39,6 +39,8 @@ exception statement from your version. */
 
 package gnu.java.rmi.server;
 
+import gnu.java.util.primitive.LongObjectMap;
+
 import java.io.ObjectInputStream;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
@@ -55,7 +57,6 @@ import java.rmi.server.RemoteStub;
 import java.rmi.server.ServerNotActiveException;
 import java.rmi.server.Skeleton;
 import java.util.HashSet;
-import java.util.Hashtable;
 import java.util.Iterator;
 
 /**
@@ -95,7 +96,7 @@ public class UnicastServerRef
    * The method table (RMI hash code to method) of the methods of the
    * exported object.
    */
-  protected Hashtable methods = new Hashtable();
+  protected LongObjectMap<Method> methods = new LongObjectMap<Method>();
 
   /**
    * Used by serialization.
@@ -324,10 +325,13 @@ public class UnicastServerRef
             continue;
           }
         long hash = RMIHashes.getMethodHash(meths[i]);
-        if (build)
-          methods.put(new Long(hash), meths[i]);
-        else
-          methods.remove(new Long(hash));
+        synchronized (methods)
+          {
+            if (build)
+              methods.put(hash, meths[i]);
+            else
+              methods.remove(hash);
+          }
         // System.out.println("meth = " + meths[i] + ", hash = " + hash);
       }
   }
@@ -336,7 +340,11 @@ public class UnicastServerRef
   {
     if (method == - 1)
       {
-        Method meth = (Method) methods.get(new Long(hash));
+        Method meth;
+        synchronized (methods)
+          {
+            meth = methods.get(hash);
+          }
         return meth.getReturnType();
       }
     else
@@ -355,7 +363,11 @@ public class UnicastServerRef
     // to locate the method
     if (method == - 1)
       {
-        Method meth = (Method) methods.get(new Long(hash));
+        Method meth;
+        synchronized (methods)
+          {
+            meth = methods.get(hash);
+          }
         // System.out.println("class = " + myself.getClass() + ", meth = " +
         // meth);
         if (meth == null)
@@ -37,6 +37,7 @@ exception statement from your version. */
 package gnu.java.text;
 
 import gnu.java.lang.CPStringBuilder;
+import gnu.java.util.primitive.IntArrayList;
 
 import java.text.AttributedCharacterIterator;
 import java.util.ArrayList;
@@ -57,7 +58,7 @@ import static java.text.AttributedCharacterIterator.Attribute;
 public class AttributedFormatBuffer implements FormatBuffer
 {
   private final CPStringBuilder buffer;
-  private final ArrayList<Integer> ranges;
+  private final IntArrayList ranges;
   private final ArrayList<Map<Attribute,Object>> attributes;
   private int[] aRanges;
   private List<Map<Attribute,Object>> aAttributes;
@@ -71,7 +72,7 @@ public class AttributedFormatBuffer implements FormatBuffer
   public AttributedFormatBuffer(CPStringBuilder buffer)
   {
     this.buffer = new CPStringBuilder(buffer);
-    this.ranges = new ArrayList<Integer>();
+    this.ranges = new IntArrayList();
     this.attributes = new ArrayList<Map<Attribute,Object>>();
     this.defaultAttr = null;
     if (buffer.length() != 0)
@@ -114,7 +115,7 @@ public class AttributedFormatBuffer implements FormatBuffer
     else
       attributes.add(null);
 
-    ranges.add(Integer.valueOf(newRange));
+    ranges.add(newRange);
   }
 
   public void append(String s)
@@ -141,7 +142,7 @@ public class AttributedFormatBuffer implements FormatBuffer
       {
         for (int i = 0; i < ranges.length; i++)
           {
-            this.ranges.add(Integer.valueOf(ranges[i] + curPos));
+            this.ranges.add(ranges[i] + curPos);
             this.attributes.add(attrs.get(i));
           }
       }
@@ -213,9 +214,7 @@ public class AttributedFormatBuffer implements FormatBuffer
 
     addAttribute(buffer.length(), defaultAttr);
 
-    aRanges = new int[ranges.size()];
-    for (int i = 0; i < aRanges.length; i++)
-      aRanges[i] = ranges.get (i).intValue();
+    aRanges = ranges.toArray();
 
     aAttributes = new ArrayList<Map<Attribute,Object>>(attributes);
   }
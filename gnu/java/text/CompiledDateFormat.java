@@ -0,0 +1,610 @@
+/* CompiledDateFormat.java -- A thread-safe compiled date pattern
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package gnu.java.text;
+
+import gnu.java.lang.CPStringBuilder;
+
+import java.text.DateFormat;
+import java.text.DateFormatSymbols;
+import java.text.FieldPosition;
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * A {@link SimpleDateFormat} pattern compiled into a list of fields and
+ * literal text, together with the symbols, locale and time zone to
+ * format with.  Instances are immutable and may be shared between
+ * threads, and format directly into a caller supplied
+ * {@link StringBuilder}.  This is also the formatting engine used by
+ * SimpleDateFormat itself, through
+ * {@link #format(Calendar,DateFormatSymbols,FormatBuffer,FieldPosition)}.
+ *
+ * @since 0.99.1
+ */
+public final class CompiledDateFormat
+{
+  /**
+   * A run of one pattern character.  The field ID, size, and
+   * character used are stored for each sequence of pattern
+   * characters.
+   */
+  private static final class CompiledField
+  {
+    /**
+     * The ID of the field within the standard pattern characters.
+     */
+    final int field;
+
+    /**
+     * The size of the character sequence.
+     */
+    final int size;
+
+    /**
+     * The character used.
+     */
+    final char character;
+
+    CompiledField(int field, int size, char character)
+    {
+      this.field = field;
+      this.size = size;
+      this.character = character;
+    }
+
+    /**
+     * Returns a <code>String</code> representation
+     * of the compiled field, primarily for debugging
+     * purposes.
+     *
+     * @return a <code>String</code> representation.
+     */
+    public String toString()
+    {
+      CPStringBuilder builder;
+
+      builder = new CPStringBuilder(getClass().getName());
+      builder.append("[field=");
+      builder.append(field);
+      builder.append(", size=");
+      builder.append(size);
+      builder.append(", character=");
+      builder.append(character);
+      builder.append("]");
+
+      return builder.toString();
+    }
+  }
+
+  // This string is specified in the root of the CLDR.
+  private static final String standardChars = "GyMdkHmsSEDFwWahKzYeugAZvcL";
+
+  /**
+   * Represents the position of the RFC822 timezone pattern character
+   * in the array of localized pattern characters.  In the
+   * U.S. locale, this is 'Z'.  The value is the offset of the current
+   * time from GMT e.g. -0500 would be five hours prior to GMT.
+   */
+  private static final int RFC822_TIMEZONE_FIELD = 23;
+
+  /**
+   * The non-localized pattern string.
+   */
+  private final String pattern;
+
+  /**
+   * The <code>CompiledField</code>s and <code>String</code>s
+   * of the compiled pattern.
+   */
+  private final Object[] tokens;
+
+  /**
+   * The symbols used by the convenience methods; a private copy.
+   */
+  private final DateFormatSymbols formatData;
+
+  /**
+   * The locale of the calendars used by the convenience methods.
+   */
+  private final Locale locale;
+
+  /**
+   * The time zone used by the convenience methods; a private copy.
+   */
+  private final TimeZone zone;
+
+  /**
+   * A calendar for each thread that formats with this instance.
+   */
+  private final ThreadLocal<Calendar> calendars = new ThreadLocal<Calendar>()
+  {
+    protected Calendar initialValue()
+    {
+      return new GregorianCalendar(zone, locale);
+    }
+  };
+
+  /**
+   * A SimpleDateFormat for each thread that parses with this instance.
+   */
+  private final ThreadLocal<SimpleDateFormat> parsers
+    = new ThreadLocal<SimpleDateFormat>()
+  {
+    protected SimpleDateFormat initialValue()
+    {
+      DateFormatSymbols symbols = (DateFormatSymbols) formatData.clone();
+      SimpleDateFormat parser = new SimpleDateFormat(pattern, symbols);
+      parser.setCalendar(new GregorianCalendar(zone, locale));
+      return parser;
+    }
+  };
+
+  /**
+   * Compiles a non-localized pattern using the symbols of the default
+   * locale and the default time zone.
+   *
+   * @param pattern the non-localized pattern to compile.
+   * @throws NullPointerException if the pattern is null.
+   * @throws IllegalArgumentException if the pattern is invalid.
+   */
+  public CompiledDateFormat(String pattern)
+  {
+    this(pattern, Locale.getDefault());
+  }
+
+  /**
+   * Compiles a non-localized pattern using the symbols of the given
+   * locale and the default time zone.
+   *
+   * @param pattern the non-localized pattern to compile.
+   * @param locale the locale to use.
+   * @throws NullPointerException if the pattern or locale is null.
+   * @throws IllegalArgumentException if the pattern is invalid.
+   */
+  public CompiledDateFormat(String pattern, Locale locale)
+  {
+    this(pattern, new DateFormatSymbols(locale), locale,
+         TimeZone.getDefault());
+  }
+
+  /**
+   * Compiles a non-localized pattern.  The symbols and time zone are
+   * copied, so later changes to them do not affect this instance.
+   *
+   * @param pattern the non-localized pattern to compile.
+   * @param formatData the formatting symbols to use.
+   * @param locale the locale of the calendar to use.
+   * @param zone the time zone to use.
+   * @throws NullPointerException if any argument is null.
+   * @throws IllegalArgumentException if the pattern is invalid.
+   */
+  public CompiledDateFormat(String pattern, DateFormatSymbols formatData,
+                            Locale locale, TimeZone zone)
+  {
+    if (formatData == null)
+      throw new NullPointerException("formatData");
+    if (locale == null)
+      throw new NullPointerException("locale");
+    this.pattern = pattern;
+    this.tokens = compileFormat(pattern);
+    this.formatData = (DateFormatSymbols) formatData.clone();
+    this.locale = locale;
+    this.zone = (TimeZone) zone.clone();
+  }
+
+  /**
+   * Checks that a non-localized pattern is valid, without building a
+   * <code>CompiledDateFormat</code> for it.
+   *
+   * @param pattern the non-localized pattern to check.
+   * @throws NullPointerException if the pattern is null.
+   * @throws IllegalArgumentException if the pattern is invalid.
+   */
+  public static void checkPattern(String pattern)
+  {
+    compileFormat(pattern);
+  }
+
+  /**
+   * Compiles the supplied non-localized pattern into a form
+   * from which formatting can be performed.
+   *
+   * @param pattern the non-localized pattern to compile.
+   * @return the compiled tokens.
+   * @throws IllegalArgumentException if the pattern is invalid.
+   */
+  private static Object[] compileFormat(String pattern)
+  {
+    // Any alphabetical characters are treated as pattern characters
+    // unless enclosed in single quotes.
+
+    ArrayList<Object> tokens = new ArrayList<Object>();
+    char thisChar;
+    int pos;
+    int field;
+    CompiledField current = null;
+
+    for (int i = 0; i < pattern.length(); i++)
+      {
+        thisChar = pattern.charAt(i);
+        field = standardChars.indexOf(thisChar);
+        if (field == -1)
+          {
+            current = null;
+            if ((thisChar >= 'A' && thisChar <= 'Z')
+                || (thisChar >= 'a' && thisChar <= 'z'))
+              {
+                // Not a valid letter
+                throw new IllegalArgumentException("Invalid letter "
+                                                   + thisChar +
+                                                   " encountered at character "
+                                                   + i + ".");
+              }
+            else if (thisChar == '\'')
+              {
+                // Quoted text section; skip to next single quote
+                pos = pattern.indexOf('\'', i + 1);
+                // First look for '' -- meaning a single quote.
+                if (pos == i + 1)
+                  tokens.add("'");
+                else
+                  {
+                    // Look for the terminating quote.  However, if we
+                    // see a '', that represents a literal quote and
+                    // we must iterate.
+                    CPStringBuilder buf = new CPStringBuilder();
+                    int oldPos = i + 1;
+                    do
+                      {
+                        if (pos == -1)
+                          throw new IllegalArgumentException("Quotes starting at character "
+                                                             + i +
+                                                             " not closed.");
+                        buf.append(pattern.substring(oldPos, pos));
+                        if (pos + 1 >= pattern.length()
+                            || pattern.charAt(pos + 1) != '\'')
+                          break;
+                        buf.append('\'');
+                        oldPos = pos + 2;
+                        pos = pattern.indexOf('\'', pos + 2);
+                      }
+                    while (true);
+                    tokens.add(buf.toString());
+                  }
+                i = pos;
+              }
+            else
+              {
+                // A special character
+                tokens.add(String.valueOf(thisChar));
+              }
+          }
+        else
+          {
+            // A valid field
+            if ((current != null) && (field == current.field))
+              {
+                current = new CompiledField(field, current.size + 1,
+                                            thisChar);
+                tokens.set(tokens.size() - 1, current);
+              }
+            else
+              {
+                current = new CompiledField(field, 1, thisChar);
+                tokens.add(current);
+              }
+          }
+      }
+    return tokens.toArray();
+  }
+
+  /**
+   * Formats a time, given in milliseconds since the epoch, and appends
+   * it to the buffer.
+   *
+   * @param time the time to format.
+   * @param buffer the buffer to append to.
+   * @return <code>buffer</code>.
+   */
+  public StringBuilder format(long time, StringBuilder buffer)
+  {
+    Calendar calendar = calendars.get();
+    calendar.setTimeInMillis(time);
+    format(calendar, formatData, new StringBuilderFormatBuffer(buffer), null);
+    return buffer;
+  }
+
+  /**
+   * Formats a date and appends it to the buffer.
+   *
+   * @param date the date to format.
+   * @param buffer the buffer to append to.
+   * @return <code>buffer</code>.
+   */
+  public StringBuilder format(Date date, StringBuilder buffer)
+  {
+    return format(date.getTime(), buffer);
+  }
+
+  /**
+   * Formats a date.
+   *
+   * @param date the date to format.
+   * @return the formatted date.
+   */
+  public String format(Date date)
+  {
+    return format(date.getTime(), new StringBuilder()).toString();
+  }
+
+  /**
+   * Parses a date, starting at the index of <code>pos</code>.  This
+   * uses a SimpleDateFormat private to the calling thread.
+   *
+   * @param text the text to parse.
+   * @param pos the input and output parse position.
+   * @return the parsed date, or <code>null</code> if the text cannot be
+   *         parsed.
+   */
+  public Date parse(String text, ParsePosition pos)
+  {
+    return parsers.get().parse(text, pos);
+  }
+
+  /**
+   * Parses a date from the start of a string.
+   *
+   * @param text the text to parse.
+   * @return the parsed date.
+   * @throws ParseException if the text cannot be parsed.
+   */
+  public Date parse(String text)
+    throws ParseException
+  {
+    return parsers.get().parse(text);
+  }
+
+  /**
+   * Returns the non-localized pattern this was compiled from.
+   *
+   * @return the pattern.
+   */
+  public String toPattern()
+  {
+    return pattern;
+  }
+
+  /**
+   * Formats the time of a calendar according to the compiled pattern.
+   * This keeps no state between calls, so it may be used by several
+   * threads at once as long as each uses its own calendar.
+   *
+   * @param calendar the calendar, set to the time to format.
+   * @param formatData the symbols to format with.
+   * @param buffer the buffer to append to.
+   * @param pos the field position to update, or <code>null</code>.
+   */
+  public void format(Calendar calendar, DateFormatSymbols formatData,
+                     FormatBuffer buffer, FieldPosition pos)
+  {
+    for (int i = 0; i < tokens.length; i++)
+      {
+        Object o = tokens[i];
+        if (o instanceof CompiledField)
+          {
+            CompiledField cf = (CompiledField) o;
+            int beginIndex = buffer.length();
+
+            switch (cf.field)
+              {
+              case DateFormat.ERA_FIELD:
+                buffer.append (formatData.getEras()[calendar.get (Calendar.ERA)], DateFormat.Field.ERA);
+                break;
+              case DateFormat.YEAR_FIELD:
+                // If we have two digits, then we truncate.  Otherwise, we
+                // use the size of the pattern, and zero pad.
+                buffer.setDefaultAttribute (DateFormat.Field.YEAR);
+                if (cf.size == 2)
+                  withLeadingZeros (calendar.get (Calendar.YEAR) % 100, 2, buffer);
+                else
+                  withLeadingZeros (calendar.get (Calendar.YEAR), cf.size, buffer);
+                break;
+              case DateFormat.MONTH_FIELD:
+                buffer.setDefaultAttribute (DateFormat.Field.MONTH);
+                if (cf.size < 3)
+                  withLeadingZeros (calendar.get (Calendar.MONTH) + 1, cf.size, buffer);
+                else if (cf.size < 4)
+                  buffer.append (formatData.getShortMonths()[calendar.get (Calendar.MONTH)]);
+                else
+                  buffer.append (formatData.getMonths()[calendar.get (Calendar.MONTH)]);
+                break;
+              case DateFormat.DATE_FIELD:
+                buffer.setDefaultAttribute (DateFormat.Field.DAY_OF_MONTH);
+                withLeadingZeros (calendar.get (Calendar.DATE), cf.size, buffer);
+                break;
+              case DateFormat.HOUR_OF_DAY1_FIELD: // 1-24
+                buffer.setDefaultAttribute(DateFormat.Field.HOUR_OF_DAY1);
+                withLeadingZeros ( ((calendar.get (Calendar.HOUR_OF_DAY) + 23) % 24) + 1,
+                                   cf.size, buffer);
+                break;
+              case DateFormat.HOUR_OF_DAY0_FIELD: // 0-23
+                buffer.setDefaultAttribute (DateFormat.Field.HOUR_OF_DAY0);
+                withLeadingZeros (calendar.get (Calendar.HOUR_OF_DAY), cf.size, buffer);
+                break;
+              case DateFormat.MINUTE_FIELD:
+                buffer.setDefaultAttribute (DateFormat.Field.MINUTE);
+                withLeadingZeros (calendar.get (Calendar.MINUTE),
+                                  cf.size, buffer);
+                break;
+              case DateFormat.SECOND_FIELD:
+                buffer.setDefaultAttribute (DateFormat.Field.SECOND);
+                withLeadingZeros(calendar.get (Calendar.SECOND),
+                                 cf.size, buffer);
+                break;
+              case DateFormat.MILLISECOND_FIELD:
+                buffer.setDefaultAttribute (DateFormat.Field.MILLISECOND);
+                withLeadingZeros (calendar.get (Calendar.MILLISECOND), cf.size, buffer);
+                break;
+              case DateFormat.DAY_OF_WEEK_FIELD:
+                buffer.setDefaultAttribute (DateFormat.Field.DAY_OF_WEEK);
+                if (cf.size < 4)
+                  buffer.append (formatData.getShortWeekdays()[calendar.get (Calendar.DAY_OF_WEEK)]);
+                else
+                  buffer.append (formatData.getWeekdays()[calendar.get (Calendar.DAY_OF_WEEK)]);
+                break;
+              case DateFormat.DAY_OF_YEAR_FIELD:
+                buffer.setDefaultAttribute (DateFormat.Field.DAY_OF_YEAR);
+                withLeadingZeros (calendar.get (Calendar.DAY_OF_YEAR), cf.size, buffer);
+                break;
+              case DateFormat.DAY_OF_WEEK_IN_MONTH_FIELD:
+                buffer.setDefaultAttribute (DateFormat.Field.DAY_OF_WEEK_IN_MONTH);
+                withLeadingZeros (calendar.get (Calendar.DAY_OF_WEEK_IN_MONTH),
+                                 cf.size, buffer);
+                break;
+              case DateFormat.WEEK_OF_YEAR_FIELD:
+                buffer.setDefaultAttribute (DateFormat.Field.WEEK_OF_YEAR);
+                withLeadingZeros (calendar.get (Calendar.WEEK_OF_YEAR),
+                                  cf.size, buffer);
+                break;
+              case DateFormat.WEEK_OF_MONTH_FIELD:
+                buffer.setDefaultAttribute (DateFormat.Field.WEEK_OF_MONTH);
+                withLeadingZeros (calendar.get (Calendar.WEEK_OF_MONTH),
+                                  cf.size, buffer);
+                break;
+              case DateFormat.AM_PM_FIELD:
+                buffer.setDefaultAttribute (DateFormat.Field.AM_PM);
+                buffer.append (formatData.getAmPmStrings()[calendar.get (Calendar.AM_PM)]);
+                break;
+              case DateFormat.HOUR1_FIELD: // 1-12
+                buffer.setDefaultAttribute (DateFormat.Field.HOUR1);
+                withLeadingZeros (((calendar.get (Calendar.HOUR) + 11) % 12) + 1,
+                                  cf.size, buffer);
+                break;
+              case DateFormat.HOUR0_FIELD: // 0-11
+                buffer.setDefaultAttribute (DateFormat.Field.HOUR0);
+                withLeadingZeros (calendar.get (Calendar.HOUR), cf.size, buffer);
+                break;
+              case DateFormat.TIMEZONE_FIELD:
+                buffer.setDefaultAttribute (DateFormat.Field.TIME_ZONE);
+                TimeZone zone = calendar.getTimeZone();
+                boolean isDST = calendar.get (Calendar.DST_OFFSET) != 0;
+                // FIXME: XXX: This should be a localized time zone.
+                String zoneID = zone.getDisplayName
+                  (isDST, cf.size > 3 ? TimeZone.LONG : TimeZone.SHORT);
+                buffer.append (zoneID);
+                break;
+              case RFC822_TIMEZONE_FIELD:
+                buffer.setDefaultAttribute(DateFormat.Field.TIME_ZONE);
+                int pureMinutes = (calendar.get(Calendar.ZONE_OFFSET) +
+                                   calendar.get(Calendar.DST_OFFSET)) / (1000 * 60);
+                buffer.append(pureMinutes < 0 ? '-' : '+');
+                pureMinutes = Math.abs(pureMinutes);
+                withLeadingZeros(pureMinutes / 60, 2, buffer);
+                withLeadingZeros(pureMinutes % 60, 2, buffer);
+                break;
+              default:
+                throw new IllegalArgumentException ("Illegal pattern character " +
+                                                    cf.character);
+              }
+            if (pos != null && (buffer.getDefaultAttribute() == pos.getFieldAttribute()
+                                || cf.field == pos.getField()))
+              {
+                pos.setBeginIndex(beginIndex);
+                pos.setEndIndex(buffer.length());
+              }
+          }
+      else
+        {
+          buffer.append((String) o, null);
+        }
+      }
+  }
+
+  /**
+   * Appends a value, padded with zeros on the left to at least the
+   * given number of digits.  Non-negative values are written a digit
+   * at a time rather than through an intermediate string.
+   *
+   * @param value the value to append.
+   * @param length the minimum number of digits.
+   * @param buffer the buffer to append to.
+   */
+  private static void withLeadingZeros(int value, int length,
+                                       FormatBuffer buffer)
+  {
+    if (value < 0)
+      {
+        String valStr = String.valueOf(value);
+        for (length -= valStr.length(); length > 0; length--)
+          buffer.append('0');
+        buffer.append(valStr);
+        return;
+      }
+    int digits = 1;
+    for (int v = value; v >= 10; v /= 10)
+      digits++;
+    for (length -= digits; length > 0; length--)
+      buffer.append('0');
+    int divisor = 1;
+    while (--digits > 0)
+      divisor *= 10;
+    for (; divisor > 0; divisor /= 10)
+      buffer.append((char) ('0' + (value / divisor) % 10));
+  }
+
+  /**
+   * Returns a string representation of the compiled pattern,
+   * primarily for debugging purposes.
+   *
+   * @return a string representation.
+   */
+  public String toString()
+  {
+    return getClass().getName() + "[pattern=" + pattern + ", tokens="
+      + Arrays.toString(tokens) + "]";
+  }
+}
@@ -0,0 +1,256 @@
+/* CompiledDecimalFormat.java -- A thread-safe snapshot of a DecimalFormat
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package gnu.java.text;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.FieldPosition;
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.util.Locale;
+
+/**
+ * An immutable snapshot of the pattern and settings of a
+ * {@link DecimalFormat}.  Instances may be shared between threads, and
+ * append to a caller supplied {@link StringBuilder}.
+ *
+ * <p>The snapshot is a private copy of the DecimalFormat, which is
+ * never modified after construction; formatting and parsing do not
+ * modify a DecimalFormat, so the copy can be used by several threads
+ * at once.  The text is produced in a buffer kept for each thread and
+ * then copied, so formatting allocates no buffer or FieldPosition.</p>
+ *
+ * @since 0.99.1
+ */
+public final class CompiledDecimalFormat
+{
+  /**
+   * A field position that matches no field, so formatting never
+   * writes to it and it can be shared.
+   */
+  private static final FieldPosition NO_FIELD = new FieldPosition(-1);
+
+  /**
+   * The private copy of the format.
+   */
+  private final DecimalFormat format;
+
+  /**
+   * A scratch buffer for each thread that formats with this instance.
+   */
+  private final ThreadLocal<StringBuffer> buffers
+    = new ThreadLocal<StringBuffer>()
+  {
+    protected StringBuffer initialValue()
+    {
+      return new StringBuffer();
+    }
+  };
+
+  /**
+   * Compiles a pattern using the symbols of the default locale.
+   *
+   * @param pattern the non-localized pattern.
+   * @throws NullPointerException if the pattern is null.
+   * @throws IllegalArgumentException if the pattern is invalid.
+   */
+  public CompiledDecimalFormat(String pattern)
+  {
+    this(new DecimalFormat(pattern));
+  }
+
+  /**
+   * Compiles a pattern using the symbols of the given locale.
+   *
+   * @param pattern the non-localized pattern.
+   * @param locale the locale to use.
+   * @throws NullPointerException if the pattern or locale is null.
+   * @throws IllegalArgumentException if the pattern is invalid.
+   */
+  public CompiledDecimalFormat(String pattern, Locale locale)
+  {
+    this(new DecimalFormat(pattern, new DecimalFormatSymbols(locale)));
+  }
+
+  /**
+   * Takes a snapshot of a DecimalFormat, including any settings made
+   * after its pattern was applied.  Later changes to
+   * <code>format</code> do not affect this instance.
+   *
+   * @param format the format to copy.
+   * @throws NullPointerException if format is null.
+   */
+  public CompiledDecimalFormat(DecimalFormat format)
+  {
+    this.format = (DecimalFormat) format.clone();
+  }
+
+  /**
+   * Formats a long and appends it to the buffer.
+   *
+   * @param number the number to format.
+   * @param buffer the buffer to append to.
+   * @return <code>buffer</code>.
+   */
+  public StringBuilder format(long number, StringBuilder buffer)
+  {
+    StringBuffer scratch = scratch();
+    format.format(number, scratch, NO_FIELD);
+    return buffer.append(scratch);
+  }
+
+  /**
+   * Formats a double and appends it to the buffer.
+   *
+   * @param number the number to format.
+   * @param buffer the buffer to append to.
+   * @return <code>buffer</code>.
+   */
+  public StringBuilder format(double number, StringBuilder buffer)
+  {
+    StringBuffer scratch = scratch();
+    format.format(number, scratch, NO_FIELD);
+    return buffer.append(scratch);
+  }
+
+  /**
+   * Formats a number and appends it to the buffer.  BigDecimal and
+   * BigInteger values keep their full precision.
+   *
+   * @param number the number to format.
+   * @param buffer the buffer to append to.
+   * @return <code>buffer</code>.
+   * @throws IllegalArgumentException if number is not a Number.
+   */
+  public StringBuilder format(Object number, StringBuilder buffer)
+  {
+    StringBuffer scratch = scratch();
+    format.format(number, scratch, NO_FIELD);
+    return buffer.append(scratch);
+  }
+
+  /**
+   * Formats a long.
+   *
+   * @param number the number to format.
+   * @return the formatted number.
+   */
+  public String format(long number)
+  {
+    return format(number, new StringBuilder()).toString();
+  }
+
+  /**
+   * Formats a double.
+   *
+   * @param number the number to format.
+   * @return the formatted number.
+   */
+  public String format(double number)
+  {
+    return format(number, new StringBuilder()).toString();
+  }
+
+  /**
+   * Parses a number, starting at the index of <code>pos</code>.
+   *
+   * @param text the text to parse.
+   * @param pos the input and output parse position.
+   * @return the parsed number, or <code>null</code> if the text cannot
+   *         be parsed.
+   */
+  public Number parse(String text, ParsePosition pos)
+  {
+    return format.parse(text, pos);
+  }
+
+  /**
+   * Parses a number from the start of a string.
+   *
+   * @param text the text to parse.
+   * @return the parsed number.
+   * @throws ParseException if the text cannot be parsed.
+   */
+  public Number parse(String text)
+    throws ParseException
+  {
+    return format.parse(text);
+  }
+
+  /**
+   * Returns the non-localized pattern of this format.
+   *
+   * @return the pattern.
+   */
+  public String toPattern()
+  {
+    return format.toPattern();
+  }
+
+  /**
+   * Returns a new DecimalFormat with the same pattern and settings.
+   *
+   * @return a new DecimalFormat.
+   */
+  public DecimalFormat toDecimalFormat()
+  {
+    return (DecimalFormat) format.clone();
+  }
+
+  /**
+   * Returns the empty scratch buffer of the calling thread.
+   */
+  private StringBuffer scratch()
+  {
+    StringBuffer scratch = buffers.get();
+    scratch.setLength(0);
+    return scratch;
+  }
+
+  /**
+   * Returns a string representation of this format, primarily for
+   * debugging purposes.
+   *
+   * @return a string representation.
+   */
+  public String toString()
+  {
+    return getClass().getName() + "[pattern=" + toPattern() + "]";
+  }
+}
@@ -0,0 +1,524 @@
+/* FormatString.java -- A pre-parsed java.util.Formatter format string
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package gnu.java.util;
+
+import java.util.ArrayList;
+import java.util.DuplicateFormatFlagsException;
+import java.util.IllegalFormatException;
+import java.util.IllegalFormatFlagsException;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.UnknownFormatConversionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A format string for {@link java.util.Formatter}, parsed once into a
+ * sequence of literal text and conversion specifiers.  Instances are
+ * immutable and may be shared between threads.  Parsed format strings
+ * are kept in a bounded cache, so that formatting the same string
+ * again, as logging and <code>String.format</code> calls in a loop do,
+ * does not parse it again.
+ *
+ * @since 0.99.1
+ */
+public final class FormatString
+{
+
+  /**
+   * The conversion of a part that is literal text.
+   */
+  public static final char LITERAL = '\0';
+
+  /**
+   * One part of a format string: either literal text, or a single
+   * conversion specifier.
+   */
+  public static final class Specifier
+  {
+    /**
+     * The explicit argument index, starting at 1.  This is -1 if there
+     * was no index, and 0 if the previous argument is re-used.
+     */
+    public final int argumentIndex;
+
+    /**
+     * The flags, as a bit mask of values from
+     * {@link java.util.FormattableFlags} and the package private
+     * constants in {@link java.util.Formatter}.
+     */
+    public final int flags;
+
+    /**
+     * The width, or -1 if none was specified.
+     */
+    public final int width;
+
+    /**
+     * The precision, or -1 if none was specified.
+     */
+    public final int precision;
+
+    /**
+     * The conversion character as it appeared in the format, or
+     * {@link #LITERAL} for literal text.
+     */
+    public final char conversion;
+
+    /**
+     * The date/time conversion character following 't' or 'T', or
+     * {@link #LITERAL} for other conversions.
+     */
+    public final char dateTimeConversion;
+
+    /**
+     * For literal text, the text itself.  Otherwise, the specifier
+     * from the '%' up to but not including the conversion, as used
+     * in exception messages.
+     */
+    public final String text;
+
+    Specifier(int argumentIndex, int flags, int width, int precision,
+              char conversion, char dateTimeConversion, String text)
+    {
+      this.argumentIndex = argumentIndex;
+      this.flags = flags;
+      this.width = width;
+      this.precision = precision;
+      this.conversion = conversion;
+      this.dateTimeConversion = dateTimeConversion;
+      this.text = text;
+    }
+  }
+
+  // Note that we include '-' twice.  The flags are ordered to
+  // correspond to the values in FormattableFlags, and there is no
+  // flag (in the sense of this field used when parsing) for
+  // UPPERCASE; the second '-' serves as a placeholder.
+  /**
+   * A string used to index into the formattable flags.
+   */
+  private static final String FLAGS = "--#+ 0,(";
+
+  /**
+   * The maximum number of format strings kept in the cache.
+   */
+  private static final int CACHE_SIZE = 256;
+
+  /**
+   * Format strings longer than this are parsed but not cached.
+   */
+  private static final int MAX_CACHED_LENGTH = 1024;
+
+  /**
+   * The cache of parsed format strings.
+   */
+  private static final ConcurrentHashMap<String,FormatString> cache
+    = new ConcurrentHashMap<String,FormatString>();
+
+  /**
+   * Formats from parsed parts.  {@link java.util.Formatter} installs
+   * the only implementation when it is initialized.
+   */
+  public interface Formatting
+  {
+    /**
+     * Formats the arguments with a parsed format string.
+     *
+     * @param loc the locale to use, or <code>null</code> for none.
+     * @param compiled the parsed format string.
+     * @param args the arguments to apply to the format.
+     * @return the formatted string.
+     * @throws IllegalFormatException if there is a mismatch between
+     *                                the format and the arguments.
+     */
+    String format(Locale loc, FormatString compiled, Object[] args);
+  }
+
+  /**
+   * The formatting installed by java.util.Formatter, or null if that
+   * class has not been initialized yet.
+   */
+  private static volatile Formatting formatting;
+
+  /**
+   * The original format string.
+   */
+  private final String source;
+
+  /**
+   * The parts of the format string, in order.
+   */
+  private final Specifier[] parts;
+
+  /**
+   * Parses a format string.
+   *
+   * @param source the format string.
+   * @throws IllegalFormatException if the format string is invalid.
+   */
+  private FormatString(String source)
+  {
+    this.source = source;
+    this.parts = new Parser(source).parse();
+  }
+
+  /**
+   * Returns the parsed form of a format string, from the cache if it
+   * has been parsed before.
+   *
+   * @param format the format string.
+   * @return the parsed format string.
+   * @throws NullPointerException if the format string is null.
+   * @throws IllegalFormatException if the format string is invalid.
+   */
+  public static FormatString compile(String format)
+  {
+    FormatString result = cache.get(format);
+    if (result == null)
+      {
+        result = new FormatString(format);
+        if (format.length() <= MAX_CACHED_LENGTH)
+          {
+            // Evicting an arbitrary entry keeps the bound without
+            // tracking the order of use, which would need a lock.
+            if (cache.size() >= CACHE_SIZE)
+              {
+                Iterator<String> it = cache.keySet().iterator();
+                if (it.hasNext())
+                  {
+                    it.next();
+                    it.remove();
+                  }
+              }
+            cache.put(format, result);
+          }
+      }
+    return result;
+  }
+
+  /**
+   * Formats the arguments with this format string and the given locale.
+   * If the locale is <code>null</code>, then no localization is
+   * applied.
+   *
+   * @param loc the locale to use.
+   * @param args the arguments to apply to the format.
+   * @return the formatted string.
+   * @throws IllegalFormatException if there is a mismatch between the
+   *                                format and the arguments.
+   */
+  public String format(Locale loc, Object... args)
+  {
+    Formatting f = formatting;
+    if (f == null)
+      {
+        initFormatter();
+        f = formatting;
+      }
+    return f.format(loc, this, args);
+  }
+
+  /**
+   * Formats the arguments with this format string and the default
+   * locale.
+   *
+   * @param args the arguments to apply to the format.
+   * @return the formatted string.
+   * @throws IllegalFormatException if there is a mismatch between the
+   *                                format and the arguments.
+   */
+  public String format(Object... args)
+  {
+    return format(Locale.getDefault(), args);
+  }
+
+  /**
+   * Installs the formatting used by {@link #format(Locale,Object...)}.
+   * This is called by java.util.Formatter when it is initialized, and
+   * fails for any other caller.
+   *
+   * @param f the formatting.
+   * @throws IllegalStateException if the formatting is already set.
+   */
+  public static void setFormatting(Formatting f)
+  {
+    // Initializing Formatter sets the formatting, unless this is
+    // already that call.
+    initFormatter();
+    if (formatting != null)
+      throw new IllegalStateException("formatting already set");
+    formatting = f;
+  }
+
+  /**
+   * Makes sure that java.util.Formatter is initialized.
+   */
+  private static void initFormatter()
+  {
+    try
+      {
+        Class.forName("java.util.Formatter");
+      }
+    catch (ClassNotFoundException e)
+      {
+        throw (Error)
+          new InternalError("Could not load Formatter").initCause(e);
+      }
+  }
+
+  /**
+   * Returns the number of parts in this format string.
+   *
+   * @return the number of parts.
+   */
+  public int size()
+  {
+    return parts.length;
+  }
+
+  /**
+   * Returns a part of this format string.
+   *
+   * @param index the index of the part.
+   * @return the part.
+   * @throws ArrayIndexOutOfBoundsException if the index is out of range.
+   */
+  public Specifier get(int index)
+  {
+    return parts[index];
+  }
+
+  /**
+   * Returns the original format string.
+   *
+   * @return the format string.
+   */
+  public String toString()
+  {
+    return source;
+  }
+
+  /**
+   * The parsing state for a single format string.
+   */
+  private static final class Parser
+  {
+    /**
+     * The format string.
+     */
+    private final String format;
+
+    /**
+     * The length of the format string.
+     */
+    private final int length;
+
+    /**
+     * The current index into the string.
+     */
+    private int index;
+
+    Parser(String format)
+    {
+      this.format = format;
+      this.length = format.length();
+    }
+
+    /**
+     * Parse the whole format string.
+     *
+     * @return the parts of the format string.
+     */
+    Specifier[] parse()
+    {
+      ArrayList<Specifier> result = new ArrayList<Specifier>();
+      int literalStart = 0;
+      for (index = 0; index < length; ++index)
+        {
+          if (format.charAt(index) != '%')
+            continue;
+          if (index > literalStart)
+            result.add(new Specifier(-1, 0, -1, -1, LITERAL, LITERAL,
+                                     format.substring(literalStart,
+                                                      index)));
+
+          int start = index;
+          advance();
+
+          int argumentIndex = parseArgumentIndex();
+          int flags = parseFlags();
+          int width = parseInt();
+          int precision = parsePrecision();
+          char conversion = format.charAt(index);
+          String text = format.substring(start, index);
+          char dateTimeConversion = LITERAL;
+          switch (conversion)
+            {
+            case '%':
+            case 'n':
+            case 'N':
+              // These take no argument, so an index is ignored, but
+              // there is no previous argument to refer to.
+              if (argumentIndex == 0)
+                throw new IllegalFormatFlagsException("<");
+              argumentIndex = -1;
+              break;
+            case 't':
+            case 'T':
+              advance();
+              dateTimeConversion = format.charAt(index);
+              break;
+            }
+          result.add(new Specifier(argumentIndex, flags, width, precision,
+                                   conversion, dateTimeConversion, text));
+          literalStart = index + 1;
+        }
+      if (length > literalStart)
+        result.add(new Specifier(-1, 0, -1, -1, LITERAL, LITERAL,
+                                 format.substring(literalStart)));
+      return result.toArray(new Specifier[result.size()]);
+    }
+
+    /**
+     * Advance the internal parsing index, and throw an exception
+     * on overrun.
+     *
+     * @throws UnknownFormatConversionException on overrun, since the
+     *                                          specifier has no
+     *                                          conversion.
+     */
+    private void advance()
+    {
+      ++index;
+      if (index >= length)
+        throw new UnknownFormatConversionException
+          (String.valueOf(format.charAt(length - 1)));
+    }
+
+    /**
+     * Parse an integer appearing in the format string.  Will return -1
+     * if no integer was found.
+     *
+     * @return the parsed integer.
+     */
+    private int parseInt()
+    {
+      int start = index;
+      while (Character.isDigit(format.charAt(index)))
+        advance();
+      if (start == index)
+        return -1;
+      return Integer.parseInt(format.substring(start, index));
+    }
+
+    /**
+     * Parse the argument index.  Returns -1 if there was no index, 0 if
+     * we should re-use the previous index, and a positive integer to
+     * indicate an absolute index.
+     *
+     * @return the parsed argument index.
+     */
+    private int parseArgumentIndex()
+    {
+      int result = -1;
+      int start = index;
+      if (format.charAt(index) == '<')
+        {
+          result = 0;
+          advance();
+        }
+      else if (Character.isDigit(format.charAt(index)))
+        {
+          result = parseInt();
+          if (format.charAt(index) == '$')
+            advance();
+          else
+            {
+              // Reset.
+              index = start;
+              result = -1;
+            }
+        }
+      return result;
+    }
+
+    /**
+     * Parse a set of flags and return a bit mask of values from
+     * FormattableFlags.  Will throw an exception if a flag is
+     * duplicated.
+     *
+     * @return the parsed flags.
+     */
+    private int parseFlags()
+    {
+      int value = 0;
+      int start = index;
+      while (true)
+        {
+          int x = FLAGS.indexOf(format.charAt(index));
+          if (x == -1)
+            break;
+          int newValue = 1 << x;
+          if ((value & newValue) != 0)
+            throw new DuplicateFormatFlagsException(format.substring
+                                                    (start, index + 1));
+          value |= newValue;
+          advance();
+        }
+      return value;
+    }
+
+    /**
+     * If the current character is '.', parses the precision part of a
+     * format string.  Returns -1 if no precision was specified.
+     *
+     * @return the parsed precision.
+     */
+    private int parsePrecision()
+    {
+      if (format.charAt(index) != '.')
+        return -1;
+      advance();
+      int precision = parseInt();
+      if (precision == -1)
+        throw new UnknownFormatConversionException(".");
+      return precision;
+    }
+  }
+}
@@ -0,0 +1,367 @@
+/* TimingWheel.java -- hierarchical hashed timing wheel
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package gnu.java.util;
+
+/**
+ * A hierarchical hashed timing wheel.  Entries are kept in
+ * doubly linked lists hanging off the slots of several wheels,
+ * so adding and removing an entry takes constant time regardless
+ * of how many entries there are.  Time is counted in ticks of a
+ * configurable number of milliseconds; the first wheel has a slot
+ * per tick, and each further wheel has a slot per rotation of the
+ * wheel below it.  When the first wheel wraps around, the current
+ * slot of the next wheel is cascaded down into the lower wheels.
+ * Deadlines beyond the range of the top wheel are parked in its
+ * furthest slot and reinserted when that slot is cascaded.
+ * <p>
+ * An entry never expires before its deadline, but may expire up
+ * to one tick after it.
+ * <p>
+ * This class is not synchronized.
+ *
+ * @see Entry
+ */
+public class TimingWheel
+{
+  /** Number of bits of the tick count covered by each wheel. */
+  private static final int WHEEL_BITS = 6;
+  private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+  private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+  /** Number of wheels, together covering 2^36 ticks. */
+  private static final int LEVELS = 6;
+
+  /** Largest number of ticks an entry can be placed ahead. */
+  private static final long MAX_TICKS = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+  /** Index of the list of expired entries in slots. */
+  private static final int EXPIRED = LEVELS * WHEEL_SIZE;
+
+  /**
+   * An entry in a timing wheel.  Subclasses add whatever should
+   * happen when the entry expires.  An entry can be in at most
+   * one wheel at a time.
+   */
+  public static class Entry
+  {
+    /** The deadline in milliseconds. */
+    long deadline;
+
+    /** The deadline in ticks, rounded up. */
+    long expires;
+
+    /** The slot this entry is linked into, or -1. */
+    int slot = -1;
+
+    Entry prev;
+    Entry next;
+
+    /**
+     * Returns the deadline this entry was last added with.
+     */
+    public final long getDeadline()
+    {
+      return deadline;
+    }
+
+    /**
+     * Returns true if this entry is in a wheel, including when
+     * it has expired but was not yet returned by poll().
+     */
+    public final boolean isScheduled()
+    {
+      return slot >= 0;
+    }
+  }
+
+  /** Length of a tick in milliseconds. */
+  private final long tick;
+
+  /** The heads of the slot lists of all wheels, and the expired list. */
+  private final Entry[] slots;
+
+  /** The next tick to process. */
+  private long current;
+
+  /** Number of entries in this wheel. */
+  private int size;
+
+  /** Number of entries in each wheel and in the expired list. */
+  private final int[] counts;
+
+  /**
+   * Creates an empty timing wheel.
+   *
+   * @param tick the length of a tick in milliseconds.
+   * @param now the current time in milliseconds, in the same time
+   * base as the deadlines that will be added.
+   * @throws IllegalArgumentException if tick is not positive.
+   */
+  public TimingWheel(long tick, long now)
+  {
+    if (tick <= 0)
+      throw new IllegalArgumentException("tick must be positive");
+    this.tick = tick;
+    this.slots = new Entry[EXPIRED + 1];
+    this.counts = new int[LEVELS + 1];
+    this.current = floorDiv(now, tick);
+  }
+
+  /**
+   * Returns the length of a tick in milliseconds.
+   */
+  public long getTick()
+  {
+    return tick;
+  }
+
+  /**
+   * Returns the number of entries in this wheel.
+   */
+  public int size()
+  {
+    return size;
+  }
+
+  /**
+   * Adds an entry that should expire at the given deadline.  A
+   * deadline that has already passed makes the entry expire on the
+   * next call to poll().
+   *
+   * @param e the entry.
+   * @param deadline the deadline in milliseconds.
+   * @throws IllegalStateException if the entry is already in a wheel.
+   */
+  public void add(Entry e, long deadline)
+  {
+    if (e.slot >= 0)
+      throw new IllegalStateException("entry already scheduled");
+    e.deadline = deadline;
+    e.expires = -floorDiv(-deadline, tick);
+    insert(e);
+    size++;
+  }
+
+  /**
+   * Removes an entry from this wheel.
+   *
+   * @param e the entry.
+   * @return true if the entry was in this wheel.
+   */
+  public boolean remove(Entry e)
+  {
+    if (e.slot < 0)
+      return false;
+    unlink(e);
+    size--;
+    return true;
+  }
+
+  /**
+   * Removes and returns an expired entry, advancing the wheel up to
+   * the given time.  Entries that expire in the same tick are
+   * returned in no particular order.
+   *
+   * @param now the current time in milliseconds.
+   * @return an expired entry or null if none has expired by now.
+   */
+  public Entry poll(long now)
+  {
+    long last = floorDiv(now, tick);
+    while (slots[EXPIRED] == null && current <= last)
+      {
+        long next = nextEvent();
+        if (next > last)
+          {
+            current = last + 1;
+            break;
+          }
+        current = next;
+        advance();
+      }
+
+    Entry e = slots[EXPIRED];
+    if (e != null)
+      {
+        unlink(e);
+        size--;
+      }
+    return e;
+  }
+
+  /**
+   * Returns the earliest time at which poll() may return an entry.
+   * This is the start of the next tick in which either an entry
+   * expires or an upper wheel has entries to cascade.
+   *
+   * @return the time in milliseconds, Long.MIN_VALUE if an entry has
+   * already expired, or Long.MAX_VALUE if this wheel is empty.
+   */
+  public long nextExpiry()
+  {
+    if (slots[EXPIRED] != null)
+      return Long.MIN_VALUE;
+    long next = nextEvent();
+    return next == Long.MAX_VALUE ? next : next * tick;
+  }
+
+  /**
+   * Returns the first tick on or after the current one in which
+   * advance() has something to do, or Long.MAX_VALUE if the wheels
+   * are empty.  Nothing happens in the ticks in between, so poll()
+   * skips them.  A slot of wheel n is processed in the ticks that are
+   * a multiple of 2^(n * WHEEL_BITS) and map to it, so looking one
+   * rotation ahead in each wheel is enough.
+   */
+  private long nextEvent()
+  {
+    long next = Long.MAX_VALUE;
+    for (int level = 0; level < LEVELS; level++)
+      {
+        if (counts[level] == 0)
+          continue;
+        int shift = WHEEL_BITS * level;
+        long u = (current + (1L << shift) - 1) >> shift;
+        for (int i = 0; i < WHEEL_SIZE && (u << shift) < next; i++, u++)
+          if (slots[level * WHEEL_SIZE + (int) (u & WHEEL_MASK)] != null)
+            next = u << shift;
+      }
+    return next;
+  }
+
+  /**
+   * Processes the current tick: cascades the upper wheels if the
+   * first wheel wrapped around and moves the entries due in this
+   * tick to the expired list.
+   */
+  private void advance()
+  {
+    int index = (int) (current & WHEEL_MASK);
+    if (index == 0)
+      for (int level = 1; level < LEVELS; level++)
+        {
+          int i = (int) ((current >> (WHEEL_BITS * level)) & WHEEL_MASK);
+          Entry e = slots[level * WHEEL_SIZE + i];
+          slots[level * WHEEL_SIZE + i] = null;
+          while (e != null)
+            {
+              Entry next = e.next;
+              counts[level]--;
+              insert(e);
+              e = next;
+            }
+          if (i != 0)
+            break;
+        }
+
+    Entry e = slots[index];
+    if (e != null)
+      {
+        slots[index] = null;
+        Entry tail = e;
+        while (true)
+          {
+            tail.slot = EXPIRED;
+            counts[0]--;
+            counts[LEVELS]++;
+            if (tail.next == null)
+              break;
+            tail = tail.next;
+          }
+        tail.next = slots[EXPIRED];
+        if (tail.next != null)
+          tail.next.prev = tail;
+        slots[EXPIRED] = e;
+      }
+    current++;
+  }
+
+  /**
+   * Links an entry into the slot for its expiry tick.
+   */
+  private void insert(Entry e)
+  {
+    long expires = e.expires;
+    long ticks = expires - current;
+    int slot;
+    if (ticks < 0)
+      slot = EXPIRED;
+    else
+      {
+        if (ticks > MAX_TICKS)
+          expires = current + MAX_TICKS;
+        int level = 0;
+        while (ticks >= 1L << (WHEEL_BITS * (level + 1))
+               && level < LEVELS - 1)
+          level++;
+        slot = level * WHEEL_SIZE
+               + (int) ((expires >> (WHEEL_BITS * level)) & WHEEL_MASK);
+      }
+
+    e.slot = slot;
+    counts[slot / WHEEL_SIZE]++;
+    e.prev = null;
+    e.next = slots[slot];
+    if (e.next != null)
+      e.next.prev = e;
+    slots[slot] = e;
+  }
+
+  private void unlink(Entry e)
+  {
+    if (e.prev == null)
+      slots[e.slot] = e.next;
+    else
+      e.prev.next = e.next;
+    if (e.next != null)
+      e.next.prev = e.prev;
+    counts[e.slot / WHEEL_SIZE]--;
+    e.prev = null;
+    e.next = null;
+    e.slot = -1;
+  }
+
+  private static long floorDiv(long a, long b)
+  {
+    long q = a / b;
+    if ((a % b) != 0 && ((a ^ b) < 0))
+      q--;
+    return q;
+  }
+}
@@ -0,0 +1,237 @@
+/* WheelScheduler.java -- scheduler backed by a timing wheel
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package gnu.java.util;
+
+/**
+ * A scheduler that runs tasks after a delay on its own thread,
+ * keeping them in a <code>TimingWheel</code>.  Scheduling and
+ * cancelling a task take constant time, and a cancelled task is
+ * dropped at once, which makes this suited to large numbers of
+ * timeouts that mostly get cancelled before they expire.  Tasks
+ * run at most one tick after their delay has elapsed.
+ * <p>
+ * An exception thrown by a task is ignored and does not stop the
+ * scheduler.
+ *
+ * @see TimingWheel
+ */
+public class WheelScheduler
+{
+  /**
+   * A scheduled task, which can be cancelled until it has run.
+   */
+  public static final class Timeout extends TimingWheel.Entry
+  {
+    private final WheelScheduler scheduler;
+    private final Runnable task;
+
+    Timeout(WheelScheduler scheduler, Runnable task)
+    {
+      this.scheduler = scheduler;
+      this.task = task;
+    }
+
+    /**
+     * Returns the task run by this timeout.
+     */
+    public Runnable getTask()
+    {
+      return task;
+    }
+
+    /**
+     * Cancels this timeout.
+     *
+     * @return true if the task had not yet been started and now
+     * never will be.
+     */
+    public boolean cancel()
+    {
+      synchronized (scheduler)
+        {
+          return scheduler.wheel.remove(this);
+        }
+    }
+  }
+
+  /** Number of schedulers created, used to name their threads. */
+  private static int nr;
+
+  private final TimingWheel wheel;
+  private final Thread thread;
+  private boolean shutdown;
+
+  /**
+   * Creates a scheduler with a daemon thread and a default name.
+   *
+   * @param tick the scheduling resolution in milliseconds.
+   * @throws IllegalArgumentException if tick is not positive.
+   */
+  public WheelScheduler(long tick)
+  {
+    this(nextName(), tick, true);
+  }
+
+  /**
+   * Creates a scheduler whose thread has the given name.
+   *
+   * @param name the name of the thread.
+   * @param tick the scheduling resolution in milliseconds.
+   * @param daemon true if the thread should be a daemon thread.
+   * @throws IllegalArgumentException if tick is not positive.
+   */
+  public WheelScheduler(String name, long tick, boolean daemon)
+  {
+    wheel = new TimingWheel(tick, now());
+    thread = new Thread(new Runnable()
+      {
+        public void run()
+        {
+          serve();
+        }
+      }, name);
+    thread.setDaemon(daemon);
+    thread.start();
+  }
+
+  private static synchronized String nextName()
+  {
+    return "WheelScheduler-" + (++nr);
+  }
+
+  /**
+   * Returns the current time in milliseconds on a clock that is not
+   * affected by changes to the system time.
+   */
+  private static long now()
+  {
+    return System.nanoTime() / 1000000;
+  }
+
+  /**
+   * Schedules a task to run once after the given delay.
+   *
+   * @param task the task to run.
+   * @param delay the delay in milliseconds.
+   * @return a timeout that can be used to cancel the task.
+   * @throws IllegalArgumentException if delay is negative.
+   * @throws IllegalStateException if this scheduler was shut down.
+   */
+  public synchronized Timeout schedule(Runnable task, long delay)
+  {
+    if (task == null)
+      throw new NullPointerException();
+    if (delay < 0)
+      throw new IllegalArgumentException("delay is negative");
+    if (shutdown)
+      throw new IllegalStateException("scheduler was shut down");
+
+    Timeout t = new Timeout(this, task);
+    long now = now();
+    wheel.add(t, delay > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + delay);
+    notify();
+    return t;
+  }
+
+  /**
+   * Returns the number of tasks waiting to run.
+   */
+  public synchronized int size()
+  {
+    return wheel.size();
+  }
+
+  /**
+   * Stops the scheduler.  Tasks that have not yet been started are
+   * dropped; a running task is allowed to finish.
+   */
+  public synchronized void shutdown()
+  {
+    shutdown = true;
+    notify();
+  }
+
+  /**
+   * Runs expired tasks until the scheduler is shut down.
+   */
+  private void serve()
+  {
+    while (true)
+      {
+        Timeout t;
+        synchronized (this)
+          {
+            while (true)
+              {
+                if (shutdown)
+                  return;
+                long now = now();
+                t = (Timeout) wheel.poll(now);
+                if (t != null)
+                  break;
+                long next = wheel.nextExpiry();
+                try
+                  {
+                    if (next == Long.MAX_VALUE)
+                      wait();
+                    else
+                      wait(Math.max(next - now, 1));
+                  }
+                catch (InterruptedException ie)
+                  {
+                    // Check shutdown and the wheel again.
+                  }
+              }
+          }
+
+        try
+          {
+            t.task.run();
+          }
+        catch (ThreadDeath death)
+          {
+            throw death;
+          }
+        catch (Throwable ignore)
+          {
+            // A failing task does not stop the scheduler.
+          }
+      }
+  }
+}
@@ -112,10 +112,12 @@ public class ZoneInfo extends TimeZone
   private SimpleTimeZone lastRule;
 
   /**
-   * Cached GMT SimpleTimeZone object for internal use in
-   * getOffset method.
+   * Index of the transition found by the last lookup.  Lookups
+   * tend to cluster around the same date, so findTransition tries
+   * this index before falling back to a binary search.  The
+   * transitions array never changes, so a stale value is harmless.
    */
-  private static SimpleTimeZone gmtZone = null;
+  private transient int lastIndex;
 
   static final long serialVersionUID = -3740626706860383657L;
 
@@ -168,9 +170,6 @@ public class ZoneInfo extends TimeZone
   public int getOffset(int era, int year, int month, int day, int dayOfWeek,
                        int millis)
   {
-    if (gmtZone == null)
-      gmtZone = new SimpleTimeZone(0, "GMT");
-
     if (dayOfWeek < Calendar.SUNDAY || dayOfWeek > Calendar.SATURDAY)
       throw new IllegalArgumentException("dayOfWeek out of range");
     if (month < Calendar.JANUARY || month > Calendar.DECEMBER)
@@ -179,12 +178,34 @@ public class ZoneInfo extends TimeZone
     if (era != GregorianCalendar.AD)
       return (int) (((transitions[0] << OFFSET_SHIFT) >> OFFSET_SHIFT) * 1000);
 
-    GregorianCalendar cal = new GregorianCalendar((TimeZone) gmtZone);
-    cal.set(year, month, day, 0, 0, 0);
-    if (cal.get(Calendar.DAY_OF_MONTH) != day)
+    // Before the Gregorian change every fourth year is a leap year.
+    boolean leap = (year & 3) == 0
+                   && (year <= 1582 || year % 100 != 0 || year % 400 == 0);
+    int monthLength = month == Calendar.FEBRUARY ? (leap ? 29 : 28)
+                      : 30 + ((month + 1 + ((month + 1) >> 3)) & 1);
+    if (day < 1 || day > monthLength
+        || (year == 1582 && month == Calendar.OCTOBER && day > 4 && day < 15))
       throw new IllegalArgumentException("day out of range");
 
-    return getOffset(cal.getTimeInMillis() - rawOffset + millis);
+    return getOffset(daysFromCivil(year, month + 1, day) * (86400L * 1000)
+                     - rawOffset + millis);
+  }
+
+  /**
+   * Returns the number of days from 1970-01-01 to the given date
+   * in the proleptic Gregorian calendar.  The month is 1 based.
+   * Transition tables never reach back before the Gregorian change,
+   * so the Julian calendar need not be considered here.
+   */
+  private static long daysFromCivil(long year, int month, int day)
+  {
+    if (month <= 2)
+      year--;
+    long era = (year >= 0 ? year : year - 399) / 400;
+    long yoe = year - era * 400;
+    long doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+    return era * 146097 + doe - 719468;
   }
 
   private long findTransition(long secs)
@@ -196,6 +217,12 @@ public class ZoneInfo extends TimeZone
       return Long.MAX_VALUE;
 
     long val = (secs + 1) << SECS_SHIFT;
+
+    // Try the transition found by the previous lookup first.
+    int last = lastIndex;
+    if (last > 0 && val > transitions[last-1] && val <= transitions[last])
+      return transitions[last];
+
     int lo = 1;
     int hi = transitions.length;
     int mid = 1;
@@ -211,6 +238,7 @@ public class ZoneInfo extends TimeZone
         else
           break;
       }
+    lastIndex = mid;
     return transitions[mid];
   }
 
@@ -385,13 +413,30 @@ public class ZoneInfo extends TimeZone
    * it can be described by SimpleTimeZone rule or not.
    */
   public static TimeZone readTZFile(String id, String file)
+  {
+    InputStream is;
+    try
+      {
+        is = new BufferedInputStream(new FileInputStream(file));
+      }
+    catch (IOException ioe)
+      {
+        return null;
+      }
+    return readTZFile(id, is);
+  }
+
+  /**
+   * Reads zic(8) compiled timezone data from the given stream,
+   * like <code>readTZFile(String, String)</code>.  The stream
+   * is closed when this method returns.
+   */
+  public static TimeZone readTZFile(String id, InputStream is)
   {
     DataInputStream dis = null;
     try
       {
-        FileInputStream fis = new FileInputStream(file);
-        BufferedInputStream bis = new BufferedInputStream(fis);
-        dis = new DataInputStream(bis);
+        dis = new DataInputStream(is);
 
         // Make sure we are reading a tzfile.
         byte[] tzif = new byte[5];
@@ -0,0 +1,387 @@
+/* ZoneInfoDatabase.java -- precompiled time zone database
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package gnu.java.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.TimeZone;
+
+/**
+ * A precompiled database holding all zic(8) compiled time zones in
+ * a single file.  Opening the database only reads the index; each
+ * zone is read and parsed by <code>ZoneInfo.readTZFile</code> the
+ * first time it is requested.  This avoids walking and opening
+ * hundreds of files in a zoneinfo tree at startup.
+ *
+ * The file starts with the magic <code>GCZI</code>, a version number
+ * and the number of zones, followed by an index sorted by zone ID
+ * with the position and length of each zone's data, all big endian.
+ * The zone data follows the index.  Zones that are links to the same
+ * data share one record, and for version 2 and later tzfiles the
+ * redundant 32-bit section is dropped.
+ *
+ * A database is built from a zoneinfo tree with
+ * <pre>
+ * java gnu.java.util.ZoneInfoDatabase /usr/share/zoneinfo zoneinfo.db
+ * </pre>
+ * and selected with the <code>gnu.java.util.zoneinfo.db</code>
+ * system property.
+ *
+ * @see ZoneInfo
+ */
+public final class ZoneInfoDatabase
+{
+  private static final int MAGIC = 0x47435a49;  // "GCZI"
+  private static final int VERSION = 1;
+
+  /**
+   * Size of the tzfile header: magic, version, reserved bytes and
+   * six counts.
+   */
+  private static final int TZIF_HEADER = 44;
+
+  private final String file;
+  private final String[] ids;
+  private final int[] positions;
+  private final int[] lengths;
+
+  private ZoneInfoDatabase(String file, String[] ids, int[] positions,
+                           int[] lengths)
+  {
+    this.file = file;
+    this.ids = ids;
+    this.positions = positions;
+    this.lengths = lengths;
+  }
+
+  /**
+   * Opens the database in the given file and reads its index.
+   *
+   * @param file the database file.
+   * @return the database, or null if the file does not exist or
+   * is not a zone database.
+   */
+  public static ZoneInfoDatabase open(String file)
+  {
+    DataInputStream dis = null;
+    try
+      {
+        dis = new DataInputStream(new BufferedInputStream
+                                  (new FileInputStream(file)));
+        if (dis.readInt() != MAGIC || dis.readInt() != VERSION)
+          return null;
+        int count = dis.readInt();
+        if (count < 0)
+          return null;
+        String[] ids = new String[count];
+        int[] positions = new int[count];
+        int[] lengths = new int[count];
+        for (int i = 0; i < count; i++)
+          {
+            ids[i] = dis.readUTF();
+            positions[i] = dis.readInt();
+            lengths[i] = dis.readInt();
+            if (positions[i] < 0 || lengths[i] < 0
+                || (i > 0 && ids[i - 1].compareTo(ids[i]) >= 0))
+              return null;
+          }
+        return new ZoneInfoDatabase(file, ids, positions, lengths);
+      }
+    catch (IOException ioe)
+      {
+        return null;
+      }
+    finally
+      {
+        try
+          {
+            if (dis != null)
+              dis.close();
+          }
+        catch (IOException ioe)
+          {
+            // Error while close, nothing we can do.
+          }
+      }
+  }
+
+  /**
+   * Returns the IDs of all zones in this database, sorted.
+   */
+  public String[] getIDs()
+  {
+    return ids.clone();
+  }
+
+  /**
+   * Reads the zone stored under the given name and returns it
+   * with the given ID.
+   *
+   * @param id the ID of the returned time zone.
+   * @param name the name of the zone in this database, which
+   * differs from id for aliases.
+   * @return the time zone, or null if there is no such zone or
+   * its data cannot be read.
+   */
+  public TimeZone getTimeZone(String id, String name)
+  {
+    int i = Arrays.binarySearch(ids, name);
+    if (i < 0)
+      return null;
+
+    byte[] data = new byte[lengths[i]];
+    RandomAccessFile raf = null;
+    try
+      {
+        raf = new RandomAccessFile(file, "r");
+        raf.seek(positions[i]);
+        raf.readFully(data);
+      }
+    catch (IOException ioe)
+      {
+        return null;
+      }
+    finally
+      {
+        try
+          {
+            if (raf != null)
+              raf.close();
+          }
+        catch (IOException ioe)
+          {
+            // Error while close, nothing we can do.
+          }
+      }
+    return ZoneInfo.readTZFile(id, new ByteArrayInputStream(data));
+  }
+
+  /**
+   * Builds a database from the tzfiles in a zoneinfo tree.
+   * The posix and right subtrees and files which are not tzfiles
+   * are skipped.
+   *
+   * @param dir the root of the zoneinfo tree.
+   * @param file the database file to write.
+   * @throws IOException if reading the tree or writing the
+   * database fails.
+   */
+  public static void write(String dir, String file) throws IOException
+  {
+    ArrayList<String> names = new ArrayList<String>();
+    ArrayList<byte[]> contents = new ArrayList<byte[]>();
+    collect(new File(dir), "", names, contents);
+
+    String[] ids = names.toArray(new String[names.size()]);
+    Arrays.sort(ids);
+    HashMap<String,byte[]> byName = new HashMap<String,byte[]>();
+    for (int i = 0; i < names.size(); i++)
+      byName.put(names.get(i), contents.get(i));
+
+    // Lay out the data, sharing identical records between links.
+    int indexSize = 12;
+    for (int i = 0; i < ids.length; i++)
+      indexSize += 2 + utfLength(ids[i]) + 8;
+    ByteArrayOutputStream data = new ByteArrayOutputStream();
+    HashMap<String,Integer> shared = new HashMap<String,Integer>();
+    int[] positions = new int[ids.length];
+    int[] lengths = new int[ids.length];
+    for (int i = 0; i < ids.length; i++)
+      {
+        byte[] b = compact(byName.get(ids[i]));
+        String key = new String(b, "ISO-8859-1");
+        Integer pos = shared.get(key);
+        if (pos == null)
+          {
+            pos = Integer.valueOf(indexSize + data.size());
+            shared.put(key, pos);
+            data.write(b);
+          }
+        positions[i] = pos.intValue();
+        lengths[i] = b.length;
+      }
+
+    DataOutputStream dos = new DataOutputStream(new BufferedOutputStream
+                                                (new FileOutputStream(file)));
+    try
+      {
+        dos.writeInt(MAGIC);
+        dos.writeInt(VERSION);
+        dos.writeInt(ids.length);
+        for (int i = 0; i < ids.length; i++)
+          {
+            dos.writeUTF(ids[i]);
+            dos.writeInt(positions[i]);
+            dos.writeInt(lengths[i]);
+          }
+        data.writeTo(dos);
+      }
+    finally
+      {
+        dos.close();
+      }
+  }
+
+  /**
+   * Recursively collects the tzfiles below the given directory.
+   */
+  private static void collect(File d, String prefix, ArrayList<String> names,
+                              ArrayList<byte[]> contents)
+    throws IOException
+  {
+    String[] files = d.list();
+    if (files == null)
+      throw new IOException("cannot list " + d);
+    boolean top = prefix.length() == 0;
+    for (int i = 0; i < files.length; i++)
+      {
+        if (top && (files[i].equals("posix") || files[i].equals("right")))
+          continue;
+
+        File f = new File(d, files[i]);
+        if (f.isDirectory())
+          collect(f, prefix + files[i] + '/', names, contents);
+        else
+          {
+            byte[] b = readFile(f);
+            if (b.length >= TZIF_HEADER && b[0] == 'T' && b[1] == 'Z'
+                && b[2] == 'i' && b[3] == 'f')
+              {
+                names.add(prefix + files[i]);
+                contents.add(b);
+              }
+          }
+      }
+  }
+
+  /**
+   * Drops the 32-bit section of a version 2 or later tzfile, which
+   * <code>ZoneInfo.readTZFile</code> skips anyway, by clearing its
+   * counts in the first header.
+   */
+  private static byte[] compact(byte[] b)
+  {
+    if (b[4] < '2')
+      return b;
+
+    int[] counts = new int[6];
+    for (int i = 0; i < 6; i++)
+      counts[i] = ((b[20 + 4 * i] & 0xff) << 24)
+                  | ((b[21 + 4 * i] & 0xff) << 16)
+                  | ((b[22 + 4 * i] & 0xff) << 8)
+                  | (b[23 + 4 * i] & 0xff);
+    // ttisgmtcnt, ttisstdcnt, leapcnt, timecnt, typecnt, charcnt
+    int skip = counts[3] * (4 + 1) + counts[4] * (4 + 1 + 1) + counts[5]
+               + counts[2] * (4 + 4) + counts[0] + counts[1];
+    if (skip < 0 || TZIF_HEADER + skip > b.length)
+      return b;
+
+    byte[] c = new byte[b.length - skip];
+    System.arraycopy(b, 0, c, 0, 20);
+    System.arraycopy(b, TZIF_HEADER + skip, c, TZIF_HEADER,
+                     b.length - TZIF_HEADER - skip);
+    return c;
+  }
+
+  private static byte[] readFile(File f) throws IOException
+  {
+    InputStream is = new FileInputStream(f);
+    try
+      {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        int n;
+        while ((n = is.read(buf)) > 0)
+          bos.write(buf, 0, n);
+        return bos.toByteArray();
+      }
+    finally
+      {
+        is.close();
+      }
+  }
+
+  /**
+   * Returns the length of the modified UTF-8 encoding of s, as
+   * written by <code>DataOutputStream.writeUTF</code>.
+   */
+  private static int utfLength(String s)
+  {
+    int len = 0;
+    for (int i = 0; i < s.length(); i++)
+      {
+        char c = s.charAt(i);
+        if (c >= 0x0001 && c <= 0x007f)
+          len++;
+        else if (c <= 0x07ff)
+          len += 2;
+        else
+          len += 3;
+      }
+    return len;
+  }
+
+  /**
+   * Builds a database from the command line, given the root of a
+   * zoneinfo tree and the database file to write.
+   */
+  public static void main(String[] args) throws IOException
+  {
+    if (args.length != 2)
+      {
+        System.err.println("usage: java gnu.java.util.ZoneInfoDatabase "
+                           + "ZONEINFO-DIR DATABASE-FILE");
+        System.exit(1);
+      }
+    write(args[0], args[1]);
+  }
+}
@@ -0,0 +1,111 @@
+/* HashSupport.java -- Hashing helpers for the primitive maps
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package gnu.java.util.primitive;
+
+/**
+ * Helpers shared by the open-addressed maps of this package.
+ */
+final class HashSupport
+{
+  /** The smallest table length. */
+  static final int MIN_CAPACITY = 8;
+
+  /** The largest table length. */
+  static final int MAX_CAPACITY = 1 << 30;
+
+  private HashSupport()
+  {
+  }
+
+  /**
+   * Spreads the bits of a hash code.  The tables are indexed by the low
+   * bits of the result, and keys such as consecutive ids or multiples
+   * of a power of two would otherwise crowd into a few slots.
+   *
+   * @param h the hash code
+   * @return the mixed hash code
+   */
+  static int mix(int h)
+  {
+    h *= 0x9e3779b9;
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Spreads the bits of a long key.
+   *
+   * @param key the key
+   * @return the mixed hash code
+   */
+  static int mix(long key)
+  {
+    return mix((int) (key ^ (key >>> 32)));
+  }
+
+  /**
+   * Returns the table length which holds the given number of mappings
+   * without growing.
+   *
+   * @param expected the expected number of mappings
+   * @return a power of two
+   * @throws IllegalArgumentException if expected is negative
+   */
+  static int tableLength(int expected)
+  {
+    if (expected < 0)
+      throw new IllegalArgumentException("Illegal size: " + expected);
+    long needed = (long) expected * 4 / 3 + 1;
+    int length = MIN_CAPACITY;
+    while (length < needed && length < MAX_CAPACITY)
+      length <<= 1;
+    return length;
+  }
+
+  /**
+   * Returns the number of used slots at which a table of the given
+   * length must grow: three quarters of it.
+   *
+   * @param length the table length
+   * @return the limit
+   */
+  static int limit(int length)
+  {
+    return length - (length >>> 2);
+  }
+}
@@ -0,0 +1,405 @@
+/* IntIntMap.java -- A map from int keys to int values
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package gnu.java.util.primitive;
+
+import java.io.Serializable;
+
+import java.util.Arrays;
+
+/**
+ * A map from <code>int</code> keys to <code>int</code> values, which
+ * keeps both in <code>int</code> arrays instead of boxing them in
+ * <code>Integer</code>s and entry objects as <code>HashMap</code> does.
+ * <p>
+ *
+ * The table is organized as in {@link IntObjectMap}: open addressing
+ * with linear probing, key 0 marking a free slot, and removal by moving
+ * later keys back.  Methods which look up a key take the value to
+ * return when the key is not mapped.
+ * <p>
+ *
+ * This class is not synchronized.
+ */
+public class IntIntMap
+  implements Serializable
+{
+  private static final long serialVersionUID = 7906183476128846532L;
+
+  /** The keys, with 0 in the free slots; the length is a power of two. */
+  private int[] keys;
+
+  /** The values, at the indices of their keys. */
+  private int[] values;
+
+  /** The number of keys in the table, which excludes key 0. */
+  private int used;
+
+  /** The table grows when used reaches this. */
+  private int limit;
+
+  /** Whether there is a mapping for key 0. */
+  private boolean hasZeroKey;
+
+  /** The value for key 0. */
+  private int zeroValue;
+
+  /**
+   * Constructs an empty map.
+   */
+  public IntIntMap()
+  {
+    allocate(HashSupport.MIN_CAPACITY);
+  }
+
+  /**
+   * Constructs an empty map which holds the given number of mappings
+   * without growing.
+   *
+   * @param expectedSize the expected number of mappings
+   * @throws IllegalArgumentException if expectedSize is negative
+   */
+  public IntIntMap(int expectedSize)
+  {
+    allocate(HashSupport.tableLength(expectedSize));
+  }
+
+  /**
+   * Returns the number of mappings in this map.
+   *
+   * @return the size
+   */
+  public int size()
+  {
+    return hasZeroKey ? used + 1 : used;
+  }
+
+  /**
+   * Returns true if this map has no mappings.
+   *
+   * @return true if the map is empty
+   */
+  public boolean isEmpty()
+  {
+    return used == 0 && ! hasZeroKey;
+  }
+
+  /**
+   * Returns true if this map has a mapping for the key.
+   *
+   * @param key the key
+   * @return true if the key is mapped
+   */
+  public boolean containsKey(int key)
+  {
+    if (key == 0)
+      return hasZeroKey;
+    return indexOf(key) >= 0;
+  }
+
+  /**
+   * Returns the value mapped to the key.
+   *
+   * @param key the key
+   * @param missing the value to return if the key is not mapped
+   * @return the value, or <code>missing</code>
+   */
+  public int get(int key, int missing)
+  {
+    if (key == 0)
+      return hasZeroKey ? zeroValue : missing;
+    int[] k = keys;
+    int mask = k.length - 1;
+    int i = HashSupport.mix(key) & mask;
+    for (;;)
+      {
+        int ki = k[i];
+        if (ki == key)
+          return values[i];
+        if (ki == 0)
+          return missing;
+        i = (i + 1) & mask;
+      }
+  }
+
+  /**
+   * Maps the key to the value.
+   *
+   * @param key the key
+   * @param value the value
+   */
+  public void put(int key, int value)
+  {
+    if (key == 0)
+      {
+        zeroValue = value;
+        hasZeroKey = true;
+      }
+    else
+      {
+        // Find the slot first, since adding the key may grow the table.
+        int i = slotFor(key);
+        values[i] = value;
+      }
+  }
+
+  /**
+   * Adds to the value mapped to the key, treating a key which is not
+   * mapped as mapped to 0.  This suits maps used as counters.
+   *
+   * @param key the key
+   * @param delta the amount to add
+   * @return the new value
+   */
+  public int increment(int key, int delta)
+  {
+    if (key == 0)
+      {
+        zeroValue = hasZeroKey ? zeroValue + delta : delta;
+        hasZeroKey = true;
+        return zeroValue;
+      }
+    int i = slotFor(key);
+    return values[i] += delta;
+  }
+
+  /**
+   * Removes the mapping for the key, if any.
+   *
+   * @param key the key
+   * @param missing the value to return if the key is not mapped
+   * @return the value the key was mapped to, or <code>missing</code>
+   */
+  public int remove(int key, int missing)
+  {
+    if (key == 0)
+      {
+        if (! hasZeroKey)
+          return missing;
+        hasZeroKey = false;
+        return zeroValue;
+      }
+    int i = indexOf(key);
+    if (i < 0)
+      return missing;
+    int old = values[i];
+    removeSlot(i);
+    return old;
+  }
+
+  /**
+   * Removes all mappings.
+   */
+  public void clear()
+  {
+    if (used > 0)
+      {
+        Arrays.fill(keys, 0);
+        used = 0;
+      }
+    hasZeroKey = false;
+  }
+
+  /**
+   * Returns the keys of this map, in no particular order.
+   *
+   * @return a new array of the keys
+   */
+  public int[] keys()
+  {
+    int[] result = new int[size()];
+    int n = 0;
+    if (hasZeroKey)
+      result[n++] = 0;
+    int[] k = keys;
+    for (int i = 0; i < k.length; i++)
+      if (k[i] != 0)
+        result[n++] = k[i];
+    return result;
+  }
+
+  /**
+   * Returns the values of this map, in the same order as {@link
+   * #keys()}.
+   *
+   * @return a new array of the values
+   */
+  public int[] values()
+  {
+    int[] result = new int[size()];
+    int n = 0;
+    if (hasZeroKey)
+      result[n++] = zeroValue;
+    int[] k = keys;
+    for (int i = 0; i < k.length; i++)
+      if (k[i] != 0)
+        result[n++] = values[i];
+    return result;
+  }
+
+  /**
+   * Returns a string of the form <code>{key=value, ...}</code>.
+   *
+   * @return a string representation of this map
+   */
+  public String toString()
+  {
+    StringBuilder sb = new StringBuilder("{");
+    if (hasZeroKey)
+      sb.append("0=").append(zeroValue);
+    int[] k = keys;
+    for (int i = 0; i < k.length; i++)
+      if (k[i] != 0)
+        {
+          if (sb.length() > 1)
+            sb.append(", ");
+          sb.append(k[i]).append('=').append(values[i]);
+        }
+    return sb.append('}').toString();
+  }
+
+  private void allocate(int length)
+  {
+    keys = new int[length];
+    values = new int[length];
+    limit = HashSupport.limit(length);
+  }
+
+  /**
+   * Returns the slot of a key other than 0, or -1 if it is not in the
+   * table.
+   */
+  private int indexOf(int key)
+  {
+    int[] k = keys;
+    int mask = k.length - 1;
+    int i = HashSupport.mix(key) & mask;
+    for (;;)
+      {
+        int ki = k[i];
+        if (ki == key)
+          return i;
+        if (ki == 0)
+          return -1;
+        i = (i + 1) & mask;
+      }
+  }
+
+  /**
+   * Returns the slot holding a key other than 0, adding the key with
+   * value 0 if it is not mapped.
+   */
+  private int slotFor(int key)
+  {
+    int[] k = keys;
+    int mask = k.length - 1;
+    int i = HashSupport.mix(key) & mask;
+    for (;;)
+      {
+        int ki = k[i];
+        if (ki == key)
+          return i;
+        if (ki == 0)
+          {
+            k[i] = key;
+            values[i] = 0;
+            if (++used >= limit)
+              {
+                rehash();
+                return indexOf(key);
+              }
+            return i;
+          }
+        i = (i + 1) & mask;
+      }
+  }
+
+  /**
+   * Empties a slot, moving back any later keys of the probe sequence
+   * which could not be found past the gap otherwise.
+   */
+  private void removeSlot(int gap)
+  {
+    int[] k = keys;
+    int[] v = values;
+    int mask = k.length - 1;
+    int j = gap;
+    for (;;)
+      {
+        j = (j + 1) & mask;
+        int kj = k[j];
+        if (kj == 0)
+          break;
+        // The key at j stays if its home slot lies cyclically in
+        // (gap, j]; otherwise the gap is on its probe sequence.
+        int home = HashSupport.mix(kj) & mask;
+        if (gap < j ? (home <= gap || home > j) : (home <= gap && home > j))
+          {
+            k[gap] = kj;
+            v[gap] = v[j];
+            gap = j;
+          }
+      }
+    k[gap] = 0;
+    used--;
+  }
+
+  private void rehash()
+  {
+    int[] oldKeys = keys;
+    int[] oldValues = values;
+    if (oldKeys.length == HashSupport.MAX_CAPACITY)
+      throw new InternalError("Hash table size overflow");
+    allocate(oldKeys.length << 1);
+    int[] k = keys;
+    int[] v = values;
+    int mask = k.length - 1;
+    for (int j = 0; j < oldKeys.length; j++)
+      {
+        int key = oldKeys[j];
+        if (key != 0)
+          {
+            int i = HashSupport.mix(key) & mask;
+            while (k[i] != 0)
+              i = (i + 1) & mask;
+            k[i] = key;
+            v[i] = oldValues[j];
+          }
+      }
+  }
+}
@@ -0,0 +1,290 @@
+/* LongArrayList.java -- A growable list of long values
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package gnu.java.util.primitive;
+
+import java.io.Serializable;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of <code>long</code> values, kept in a
+ * <code>long</code> array instead of boxed in <code>Long</code>s as
+ * an <code>ArrayList</code> would keep them.  The array grows by half
+ * when it is full.
+ * <p>
+ *
+ * This class is not synchronized.
+ */
+public class LongArrayList
+  implements Serializable
+{
+  private static final long serialVersionUID = 5720935142286431043L;
+
+  /** The initial capacity used by the default constructor. */
+  private static final int DEFAULT_CAPACITY = 10;
+
+  /** The elements; only the first size are in use. */
+  private long[] data;
+
+  /** The number of elements. */
+  private int size;
+
+  /**
+   * Constructs an empty list.
+   */
+  public LongArrayList()
+  {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructs an empty list with room for the given number of elements.
+   *
+   * @param capacity the initial capacity
+   * @throws IllegalArgumentException if capacity is negative
+   */
+  public LongArrayList(int capacity)
+  {
+    if (capacity < 0)
+      throw new IllegalArgumentException("Illegal capacity: " + capacity);
+    data = new long[capacity];
+  }
+
+  /**
+   * Returns the number of elements in this list.
+   *
+   * @return the size
+   */
+  public int size()
+  {
+    return size;
+  }
+
+  /**
+   * Returns true if this list has no elements.
+   *
+   * @return true if the list is empty
+   */
+  public boolean isEmpty()
+  {
+    return size == 0;
+  }
+
+  /**
+   * Returns the element at the index.
+   *
+   * @param index the index
+   * @return the element
+   * @throws IndexOutOfBoundsException if index &lt; 0 || index &gt;= size()
+   */
+  public long get(int index)
+  {
+    checkIndex(index);
+    return data[index];
+  }
+
+  /**
+   * Replaces the element at the index.
+   *
+   * @param index the index
+   * @param value the new element
+   * @return the element which was replaced
+   * @throws IndexOutOfBoundsException if index &lt; 0 || index &gt;= size()
+   */
+  public long set(int index, long value)
+  {
+    checkIndex(index);
+    long old = data[index];
+    data[index] = value;
+    return old;
+  }
+
+  /**
+   * Appends an element to this list.
+   *
+   * @param value the element
+   */
+  public void add(long value)
+  {
+    if (size == data.length)
+      ensureCapacity(size + 1);
+    data[size++] = value;
+  }
+
+  /**
+   * Inserts an element at the index, moving later elements up.
+   *
+   * @param index the index
+   * @param value the element
+   * @throws IndexOutOfBoundsException if index &lt; 0 || index &gt; size()
+   */
+  public void add(int index, long value)
+  {
+    if (index < 0 || index > size)
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+                                          + size);
+    if (size == data.length)
+      ensureCapacity(size + 1);
+    System.arraycopy(data, index, data, index + 1, size - index);
+    data[index] = value;
+    size++;
+  }
+
+  /**
+   * Appends all the elements of an array to this list.
+   *
+   * @param values the elements
+   */
+  public void addAll(long[] values)
+  {
+    ensureCapacity(size + values.length);
+    System.arraycopy(values, 0, data, size, values.length);
+    size += values.length;
+  }
+
+  /**
+   * Removes the element at the index, moving later elements down.
+   *
+   * @param index the index
+   * @return the element which was removed
+   * @throws IndexOutOfBoundsException if index &lt; 0 || index &gt;= size()
+   */
+  public long removeAt(int index)
+  {
+    checkIndex(index);
+    long old = data[index];
+    System.arraycopy(data, index + 1, data, index, size - index - 1);
+    size--;
+    return old;
+  }
+
+  /**
+   * Returns the index of the first occurrence of the value, or -1.
+   *
+   * @param value the value to look for
+   * @return the index, or -1 if the list does not contain the value
+   */
+  public int indexOf(long value)
+  {
+    for (int i = 0; i < size; i++)
+      if (data[i] == value)
+        return i;
+    return -1;
+  }
+
+  /**
+   * Returns true if the list contains the value.
+   *
+   * @param value the value to look for
+   * @return true if the value is in the list
+   */
+  public boolean contains(long value)
+  {
+    return indexOf(value) >= 0;
+  }
+
+  /**
+   * Removes all elements.  The capacity is kept.
+   */
+  public void clear()
+  {
+    size = 0;
+  }
+
+  /**
+   * Makes sure the list can hold the given number of elements without
+   * growing again.
+   *
+   * @param minCapacity the capacity needed
+   */
+  public void ensureCapacity(int minCapacity)
+  {
+    int current = data.length;
+    if (minCapacity > current)
+      {
+        int newCapacity = current + (current >> 1) + 1;
+        if (newCapacity < minCapacity || newCapacity < 0)
+          newCapacity = minCapacity;
+        data = Arrays.copyOf(data, newCapacity);
+      }
+  }
+
+  /**
+   * Shrinks the array to the size of the list.
+   */
+  public void trimToSize()
+  {
+    if (size < data.length)
+      data = Arrays.copyOf(data, size);
+  }
+
+  /**
+   * Returns the elements of this list in a new array.
+   *
+   * @return an array of the elements, in order
+   */
+  public long[] toArray()
+  {
+    return Arrays.copyOf(data, size);
+  }
+
+  /**
+   * Returns a string of the form <code>[a, b, ...]</code>.
+   *
+   * @return a string representation of this list
+   */
+  public String toString()
+  {
+    StringBuilder sb = new StringBuilder("[");
+    for (int i = 0; i < size; i++)
+      {
+        if (i > 0)
+          sb.append(", ");
+        sb.append(data[i]);
+      }
+    return sb.append(']').toString();
+  }
+
+  private void checkIndex(int index)
+  {
+    if (index < 0 || index >= size)
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+                                          + size);
+  }
+}
@@ -0,0 +1,382 @@
+/* LongObjectMap.java -- A map from long keys to objects
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package gnu.java.util.primitive;
+
+import java.io.Serializable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A map from <code>long</code> keys to objects, which keeps its keys in
+ * a <code>long</code> array instead of boxing each one in a
+ * <code>Long</code> and an entry object as <code>HashMap</code> does.
+ * <p>
+ *
+ * The table is open addressed with linear probing, and is at most three
+ * quarters full.  Key 0 marks a free slot, so a mapping for 0 is kept
+ * in fields of its own.  Removing a key moves the later keys of its
+ * probe sequence back into the gap, so lookups never have to step over
+ * deleted slots.
+ * <p>
+ *
+ * Like <code>HashMap</code>, this class is not synchronized, and it
+ * allows null values; {@link #get(long)} cannot tell a null value from a
+ * missing key, but {@link #containsKey(long)} can.
+ *
+ * @param <V> the type of the values
+ */
+public class LongObjectMap<V>
+  implements Serializable
+{
+  private static final long serialVersionUID = -2297120456139482645L;
+
+  /** The keys, with 0 in the free slots; the length is a power of two. */
+  private long[] keys;
+
+  /** The values, at the indices of their keys. */
+  private Object[] values;
+
+  /** The number of keys in the table, which excludes key 0. */
+  private int used;
+
+  /** The table grows when used reaches this. */
+  private int limit;
+
+  /** Whether there is a mapping for key 0. */
+  private boolean hasZeroKey;
+
+  /** The value for key 0. */
+  private Object zeroValue;
+
+  /**
+   * Constructs an empty map.
+   */
+  public LongObjectMap()
+  {
+    allocate(HashSupport.MIN_CAPACITY);
+  }
+
+  /**
+   * Constructs an empty map which holds the given number of mappings
+   * without growing.
+   *
+   * @param expectedSize the expected number of mappings
+   * @throws IllegalArgumentException if expectedSize is negative
+   */
+  public LongObjectMap(int expectedSize)
+  {
+    allocate(HashSupport.tableLength(expectedSize));
+  }
+
+  /**
+   * Returns the number of mappings in this map.
+   *
+   * @return the size
+   */
+  public int size()
+  {
+    return hasZeroKey ? used + 1 : used;
+  }
+
+  /**
+   * Returns true if this map has no mappings.
+   *
+   * @return true if the map is empty
+   */
+  public boolean isEmpty()
+  {
+    return used == 0 && ! hasZeroKey;
+  }
+
+  /**
+   * Returns true if this map has a mapping for the key.
+   *
+   * @param key the key
+   * @return true if the key is mapped
+   */
+  public boolean containsKey(long key)
+  {
+    if (key == 0)
+      return hasZeroKey;
+    return indexOf(key) >= 0;
+  }
+
+  /**
+   * Returns the value mapped to the key.
+   *
+   * @param key the key
+   * @return the value, or null if the key is not mapped
+   */
+  @SuppressWarnings("unchecked")
+  public V get(long key)
+  {
+    if (key == 0)
+      return (V) zeroValue;
+    long[] k = keys;
+    int mask = k.length - 1;
+    int i = HashSupport.mix(key) & mask;
+    for (;;)
+      {
+        long ki = k[i];
+        if (ki == key)
+          return (V) values[i];
+        if (ki == 0)
+          return null;
+        i = (i + 1) & mask;
+      }
+  }
+
+  /**
+   * Maps the key to the value.
+   *
+   * @param key the key
+   * @param value the value
+   */
+  public void put(long key, V value)
+  {
+    if (key == 0)
+      {
+        zeroValue = value;
+        hasZeroKey = true;
+        return;
+      }
+    long[] k = keys;
+    int mask = k.length - 1;
+    int i = HashSupport.mix(key) & mask;
+    for (;;)
+      {
+        long ki = k[i];
+        if (ki == key)
+          {
+            values[i] = value;
+            return;
+          }
+        if (ki == 0)
+          {
+            k[i] = key;
+            values[i] = value;
+            if (++used >= limit)
+              rehash();
+            return;
+          }
+        i = (i + 1) & mask;
+      }
+  }
+
+  /**
+   * Removes the mapping for the key, if any.
+   *
+   * @param key the key
+   * @return the value the key was mapped to, or null if none
+   */
+  @SuppressWarnings("unchecked")
+  public V remove(long key)
+  {
+    if (key == 0)
+      {
+        Object old = zeroValue;
+        zeroValue = null;
+        hasZeroKey = false;
+        return (V) old;
+      }
+    int i = indexOf(key);
+    if (i < 0)
+      return null;
+    Object old = values[i];
+    removeSlot(i);
+    return (V) old;
+  }
+
+  /**
+   * Removes all mappings.
+   */
+  public void clear()
+  {
+    if (used > 0)
+      {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        used = 0;
+      }
+    hasZeroKey = false;
+    zeroValue = null;
+  }
+
+  /**
+   * Returns the keys of this map, in no particular order.
+   *
+   * @return a new array of the keys
+   */
+  public long[] keys()
+  {
+    long[] result = new long[size()];
+    int n = 0;
+    if (hasZeroKey)
+      result[n++] = 0;
+    long[] k = keys;
+    for (int i = 0; i < k.length; i++)
+      if (k[i] != 0)
+        result[n++] = k[i];
+    return result;
+  }
+
+  /**
+   * Returns the values of this map, in the same order as {@link
+   * #keys()}.
+   *
+   * @return a new list of the values
+   */
+  @SuppressWarnings("unchecked")
+  public List<V> values()
+  {
+    List<V> result = new ArrayList<V>(size());
+    if (hasZeroKey)
+      result.add((V) zeroValue);
+    long[] k = keys;
+    for (int i = 0; i < k.length; i++)
+      if (k[i] != 0)
+        result.add((V) values[i]);
+    return result;
+  }
+
+  /**
+   * Returns a string of the form <code>{key=value, ...}</code>.
+   *
+   * @return a string representation of this map
+   */
+  public String toString()
+  {
+    StringBuilder sb = new StringBuilder("{");
+    if (hasZeroKey)
+      sb.append("0=").append(zeroValue);
+    long[] k = keys;
+    for (int i = 0; i < k.length; i++)
+      if (k[i] != 0)
+        {
+          if (sb.length() > 1)
+            sb.append(", ");
+          sb.append(k[i]).append('=').append(values[i]);
+        }
+    return sb.append('}').toString();
+  }
+
+  private void allocate(int length)
+  {
+    keys = new long[length];
+    values = new Object[length];
+    limit = HashSupport.limit(length);
+  }
+
+  /**
+   * Returns the slot of a key other than 0, or -1 if it is not in the
+   * table.
+   */
+  private int indexOf(long key)
+  {
+    long[] k = keys;
+    int mask = k.length - 1;
+    int i = HashSupport.mix(key) & mask;
+    for (;;)
+      {
+        long ki = k[i];
+        if (ki == key)
+          return i;
+        if (ki == 0)
+          return -1;
+        i = (i + 1) & mask;
+      }
+  }
+
+  /**
+   * Empties a slot, moving back any later keys of the probe sequence
+   * which could not be found past the gap otherwise.
+   */
+  private void removeSlot(int gap)
+  {
+    long[] k = keys;
+    Object[] v = values;
+    int mask = k.length - 1;
+    int j = gap;
+    for (;;)
+      {
+        j = (j + 1) & mask;
+        long kj = k[j];
+        if (kj == 0)
+          break;
+        // The key at j stays if its home slot lies cyclically in
+        // (gap, j]; otherwise the gap is on its probe sequence.
+        int home = HashSupport.mix(kj) & mask;
+        if (gap < j ? (home <= gap || home > j) : (home <= gap && home > j))
+          {
+            k[gap] = kj;
+            v[gap] = v[j];
+            gap = j;
+          }
+      }
+    k[gap] = 0;
+    v[gap] = null;
+    used--;
+  }
+
+  private void rehash()
+  {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    if (oldKeys.length == HashSupport.MAX_CAPACITY)
+      throw new InternalError("Hash table size overflow");
+    allocate(oldKeys.length << 1);
+    long[] k = keys;
+    Object[] v = values;
+    int mask = k.length - 1;
+    for (int j = 0; j < oldKeys.length; j++)
+      {
+        long key = oldKeys[j];
+        if (key != 0)
+          {
+            int i = HashSupport.mix(key) & mask;
+            while (k[i] != 0)
+              i = (i + 1) & mask;
+            k[i] = key;
+            v[i] = oldValues[j];
+          }
+      }
+  }
+}
@@ -0,0 +1,399 @@
+/* ObjectIntMap.java -- A map from objects to int values
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package gnu.java.util.primitive;
+
+import java.io.Serializable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A map from objects to <code>int</code> values, which keeps its values
+ * in an <code>int</code> array instead of boxing each one in an
+ * <code>Integer</code> and an entry object as <code>HashMap</code> does.
+ * Keys are compared with <code>equals</code>.
+ * <p>
+ *
+ * The table is organized as in {@link IntObjectMap}, with null marking
+ * a free slot and a null key kept in fields of its own.  Methods which
+ * look up a key take the value to return when the key is not mapped.
+ * <p>
+ *
+ * This class is not synchronized.
+ *
+ * @param <K> the type of the keys
+ */
+public class ObjectIntMap<K>
+  implements Serializable
+{
+  private static final long serialVersionUID = -1483225867315279094L;
+
+  /** The keys, with null in the free slots; the length is a power of two. */
+  private Object[] keys;
+
+  /** The values, at the indices of their keys. */
+  private int[] values;
+
+  /** The number of keys in the table, which excludes the null key. */
+  private int used;
+
+  /** The table grows when used reaches this. */
+  private int limit;
+
+  /** Whether there is a mapping for the null key. */
+  private boolean hasNullKey;
+
+  /** The value for the null key. */
+  private int nullValue;
+
+  /**
+   * Constructs an empty map.
+   */
+  public ObjectIntMap()
+  {
+    allocate(HashSupport.MIN_CAPACITY);
+  }
+
+  /**
+   * Constructs an empty map which holds the given number of mappings
+   * without growing.
+   *
+   * @param expectedSize the expected number of mappings
+   * @throws IllegalArgumentException if expectedSize is negative
+   */
+  public ObjectIntMap(int expectedSize)
+  {
+    allocate(HashSupport.tableLength(expectedSize));
+  }
+
+  /**
+   * Returns the number of mappings in this map.
+   *
+   * @return the size
+   */
+  public int size()
+  {
+    return hasNullKey ? used + 1 : used;
+  }
+
+  /**
+   * Returns true if this map has no mappings.
+   *
+   * @return true if the map is empty
+   */
+  public boolean isEmpty()
+  {
+    return used == 0 && ! hasNullKey;
+  }
+
+  /**
+   * Returns true if this map has a mapping for the key.
+   *
+   * @param key the key
+   * @return true if the key is mapped
+   */
+  public boolean containsKey(Object key)
+  {
+    if (key == null)
+      return hasNullKey;
+    return indexOf(key) >= 0;
+  }
+
+  /**
+   * Returns the value mapped to the key.
+   *
+   * @param key the key
+   * @param missing the value to return if the key is not mapped
+   * @return the value, or <code>missing</code>
+   */
+  public int get(Object key, int missing)
+  {
+    if (key == null)
+      return hasNullKey ? nullValue : missing;
+    int i = indexOf(key);
+    return i < 0 ? missing : values[i];
+  }
+
+  /**
+   * Maps the key to the value.
+   *
+   * @param key the key
+   * @param value the value
+   */
+  public void put(K key, int value)
+  {
+    if (key == null)
+      {
+        nullValue = value;
+        hasNullKey = true;
+      }
+    else
+      {
+        // Find the slot first, since adding the key may grow the table.
+        int i = slotFor(key);
+        values[i] = value;
+      }
+  }
+
+  /**
+   * Adds to the value mapped to the key, treating a key which is not
+   * mapped as mapped to 0.  This suits maps used as counters.
+   *
+   * @param key the key
+   * @param delta the amount to add
+   * @return the new value
+   */
+  public int increment(K key, int delta)
+  {
+    if (key == null)
+      {
+        nullValue = hasNullKey ? nullValue + delta : delta;
+        hasNullKey = true;
+        return nullValue;
+      }
+    int i = slotFor(key);
+    return values[i] += delta;
+  }
+
+  /**
+   * Removes the mapping for the key, if any.
+   *
+   * @param key the key
+   * @param missing the value to return if the key is not mapped
+   * @return the value the key was mapped to, or <code>missing</code>
+   */
+  public int remove(Object key, int missing)
+  {
+    if (key == null)
+      {
+        if (! hasNullKey)
+          return missing;
+        hasNullKey = false;
+        return nullValue;
+      }
+    int i = indexOf(key);
+    if (i < 0)
+      return missing;
+    int old = values[i];
+    removeSlot(i);
+    return old;
+  }
+
+  /**
+   * Removes all mappings.
+   */
+  public void clear()
+  {
+    if (used > 0)
+      {
+        Arrays.fill(keys, null);
+        used = 0;
+      }
+    hasNullKey = false;
+  }
+
+  /**
+   * Returns the keys of this map, in no particular order.
+   *
+   * @return a new list of the keys
+   */
+  @SuppressWarnings("unchecked")
+  public List<K> keys()
+  {
+    List<K> result = new ArrayList<K>(size());
+    if (hasNullKey)
+      result.add(null);
+    Object[] k = keys;
+    for (int i = 0; i < k.length; i++)
+      if (k[i] != null)
+        result.add((K) k[i]);
+    return result;
+  }
+
+  /**
+   * Returns the values of this map, in the same order as {@link
+   * #keys()}.
+   *
+   * @return a new array of the values
+   */
+  public int[] values()
+  {
+    int[] result = new int[size()];
+    int n = 0;
+    if (hasNullKey)
+      result[n++] = nullValue;
+    Object[] k = keys;
+    for (int i = 0; i < k.length; i++)
+      if (k[i] != null)
+        result[n++] = values[i];
+    return result;
+  }
+
+  /**
+   * Returns a string of the form <code>{key=value, ...}</code>.
+   *
+   * @return a string representation of this map
+   */
+  public String toString()
+  {
+    StringBuilder sb = new StringBuilder("{");
+    if (hasNullKey)
+      sb.append("null=").append(nullValue);
+    Object[] k = keys;
+    for (int i = 0; i < k.length; i++)
+      if (k[i] != null)
+        {
+          if (sb.length() > 1)
+            sb.append(", ");
+          sb.append(k[i]).append('=').append(values[i]);
+        }
+    return sb.append('}').toString();
+  }
+
+  private void allocate(int length)
+  {
+    keys = new Object[length];
+    values = new int[length];
+    limit = HashSupport.limit(length);
+  }
+
+  /**
+   * Returns the slot of a key other than null, or -1 if it is not in
+   * the table.
+   */
+  private int indexOf(Object key)
+  {
+    Object[] k = keys;
+    int mask = k.length - 1;
+    int i = HashSupport.mix(key.hashCode()) & mask;
+    for (;;)
+      {
+        Object ki = k[i];
+        if (ki == null)
+          return -1;
+        if (ki == key || ki.equals(key))
+          return i;
+        i = (i + 1) & mask;
+      }
+  }
+
+  /**
+   * Returns the slot holding a key other than null, adding the key with
+   * value 0 if it is not mapped.
+   */
+  private int slotFor(Object key)
+  {
+    Object[] k = keys;
+    int mask = k.length - 1;
+    int i = HashSupport.mix(key.hashCode()) & mask;
+    for (;;)
+      {
+        Object ki = k[i];
+        if (ki == null)
+          {
+            k[i] = key;
+            values[i] = 0;
+            if (++used >= limit)
+              {
+                rehash();
+                return indexOf(key);
+              }
+            return i;
+          }
+        if (ki == key || ki.equals(key))
+          return i;
+        i = (i + 1) & mask;
+      }
+  }
+
+  /**
+   * Empties a slot, moving back any later keys of the probe sequence
+   * which could not be found past the gap otherwise.
+   */
+  private void removeSlot(int gap)
+  {
+    Object[] k = keys;
+    int[] v = values;
+    int mask = k.length - 1;
+    int j = gap;
+    for (;;)
+      {
+        j = (j + 1) & mask;
+        Object kj = k[j];
+        if (kj == null)
+          break;
+        // The key at j stays if its home slot lies cyclically in
+        // (gap, j]; otherwise the gap is on its probe sequence.
+        int home = HashSupport.mix(kj.hashCode()) & mask;
+        if (gap < j ? (home <= gap || home > j) : (home <= gap && home > j))
+          {
+            k[gap] = kj;
+            v[gap] = v[j];
+            gap = j;
+          }
+      }
+    k[gap] = null;
+    used--;
+  }
+
+  private void rehash()
+  {
+    Object[] oldKeys = keys;
+    int[] oldValues = values;
+    if (oldKeys.length == HashSupport.MAX_CAPACITY)
+      throw new InternalError("Hash table size overflow");
+    allocate(oldKeys.length << 1);
+    Object[] k = keys;
+    int[] v = values;
+    int mask = k.length - 1;
+    for (int j = 0; j < oldKeys.length; j++)
+      {
+        Object key = oldKeys[j];
+        if (key != null)
+          {
+            int i = HashSupport.mix(key.hashCode()) & mask;
+            while (k[i] != null)
+              i = (i + 1) & mask;
+            k[i] = key;
+            v[i] = oldValues[j];
+          }
+      }
+  }
+}
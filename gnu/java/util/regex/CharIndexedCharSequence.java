@@ -84,10 +84,21 @@ class CharIndexedCharSequence implements CharIndexed, Serializable
     return len - anchor;
   }
 
+  /** Returns the character sequence this object gives access to. */
+  CharSequence getCharSequence ()
+  {
+    return s;
+  }
+
   private REMatch lastMatch;
   public void setLastMatch (REMatch match)
   {
-    lastMatch = (REMatch) match.clone ();
+    // Only the end of the last match is needed, for \G, so the copy
+    // made for the previous match is reused where possible.
+    if (lastMatch == null || lastMatch.start.length != match.start.length)
+      lastMatch = (REMatch) match.clone ();
+    else
+      lastMatch.copyFrom (match);
     lastMatch.anchor = anchor;
   }
   public REMatch getLastMatch ()
@@ -155,6 +155,15 @@ public class RE extends REToken
   private int minimumLength;
   private int maximumLength;
 
+  // Automata used by getMatchImpl instead of backtracking, compiled on
+  // first use.  Null if this expression needs the backtracking matcher.
+  private transient RENFA nfa, nfaEntireMatch;
+
+  // Literal text that every match must start with, and literal text
+  // that every match must contain, found on first use.  Null if none.
+  private transient RELiteral prefix, required;
+  private transient boolean prepared;
+
   /**
    * Compilation flag. Do  not  differentiate  case.   Subsequent
    * searches  using  this  RE will be case insensitive.
@@ -1990,6 +1999,87 @@ public class RE extends REToken
       super.setUncle (uncle);   // to deal with empty subexpressions
   }
 
+  // Overrides REToken.compile
+  boolean compile (RENFA.Builder prog)
+  {
+    if (firstToken != null && !prog.open (subIndex))
+      return false;
+    for (REToken t = firstToken; t != null; t = t.next)
+      {
+        if (!t.compile (prog))
+          return false;
+      }
+    return true;
+  }
+
+  /**
+   * Compiles the automata and looks for the literals used to skip
+   * impossible start positions, unless that has already been done.
+   */
+  private void prepare ()
+  {
+    // Racing threads may prepare twice, which is harmless, and may see
+    // prepared before the other fields, which only means the slow path.
+    if (prepared)
+      return;
+    nfa = RENFA.compile (this, false);
+    if (nfa != null)
+      nfaEntireMatch = RENFA.compile (this, true);
+    char[] text = literalPrefix (firstToken);
+    if (text != null)
+      prefix = new RELiteral (text);
+    else
+      {
+        text = requiredLiteral (firstToken, null);
+        if (text != null)
+          required = new RELiteral (text);
+      }
+    prepared = true;
+  }
+
+  /**
+   * Returns the case sensitive literal text that every match of the
+   * chain starting at token begins with, or null if there is none.
+   * Zero width assertions before the literal are looked through.
+   */
+  private static char[] literalPrefix (REToken token)
+  {
+    for (; token != null; token = token.next)
+      {
+        if (token instanceof RETokenChar)
+          return ((RETokenChar) token).getLiteral ();
+        // A subexpression in the chain is a plain group; alternation,
+        // repetition and lookaround are wrapped in other tokens.
+        if (token instanceof RE)
+          return literalPrefix (((RE) token).firstToken);
+        if (!(token instanceof RETokenStart || token instanceof RETokenEnd
+              || token instanceof RETokenWordBoundary))
+          return null;
+      }
+    return null;
+  }
+
+  /**
+   * Returns the longest case sensitive literal text that every match
+   * of the chain starting at token contains, or best if there is none
+   * longer.
+   */
+  private static char[] requiredLiteral (REToken token, char[] best)
+  {
+    for (; token != null; token = token.next)
+      {
+        if (token instanceof RETokenChar)
+          {
+            char[] text = ((RETokenChar) token).getLiteral ();
+            if (text != null && (best == null || text.length > best.length))
+              best = text;
+          }
+        else if (token instanceof RE)
+          best = requiredLiteral (((RE) token).firstToken, best);
+      }
+    return best;
+  }
+
   // Overrides REToken.chain
 
   boolean chain (REToken next)
@@ -2174,11 +2264,98 @@ public class RE extends REToken
                          buffer);
   }
 
+  /**
+   * Returns the first match found in the input, like
+   * {@link #getMatch(Object,int,int)}, reusing an REMatch returned by an
+   * earlier call of this method on this expression where possible, so
+   * that a search repeated over and over need not allocate.  The
+   * previous contents of reuse are lost.
+   *
+   * @param input The input text.
+   * @param index The offset index at which the search should be begin.
+   * @param eflags The logical OR of any execution flags above.
+   * @param reuse A match to reuse, or null.
+   * @return An REMatch instance referencing the match, which may be
+   *   reuse, or null if none.
+   */
+  public REMatch getMatchReusing (Object input, int index, int eflags,
+                                  REMatch reuse)
+  {
+    return getMatchImpl (makeCharIndexed (input, index), index, eflags, null,
+                         reuse);
+  }
+
   REMatch getMatchImpl (CharIndexed input, int anchor, int eflags,
                         CPStringBuilder buffer)
   {
+    return getMatchImpl (input, anchor, eflags, buffer, null);
+  }
+
+  private REMatch getMatchImpl (CharIndexed input, int anchor, int eflags,
+                                CPStringBuilder buffer, REMatch reuse)
+  {
+    // A match for another expression is no use here.
+    if (reuse != null && reuse.start.length != numSubs + 1)
+      reuse = null;
     boolean tryEntireMatch = ((eflags & REG_TRY_ENTIRE_MATCH) != 0);
     boolean doMove = ((eflags & REG_FIX_STARTING_POSITION) == 0);
+
+    // Expressions without back references or lookaround are run by an
+    // automaton in linear time.  Both the automaton and the search for
+    // literals need random access to the input.
+    RENFA automaton = null;
+    RELiteral skip = null;
+    if (input instanceof CharIndexedCharSequence)
+      {
+        prepare ();
+        automaton = tryEntireMatch ? nfaEntireMatch : nfa;
+        // No match can start anywhere if a literal that every match
+        // contains is missing from the rest of the input.  More input
+        // could supply it, so Matcher#hitEnd() must say so.
+        if (doMove && required != null && required.indexIn (input, 0) < 0)
+          {
+            int rest = input.length ();
+            REMatch mymatch = newMatch (anchor, eflags, reuse);
+            mymatch.index = rest;
+            input.setHitEnd (mymatch);
+            if (buffer != null)
+              for (int i = 0; i < rest; i++)
+                buffer.append (input.charAt (i));
+            input.move1 (rest + 1);
+            return null;
+          }
+        if (doMove)
+          skip = prefix;
+      }
+    if (automaton != null)
+      {
+        int rest = input.length ();
+        REMatch best = automaton.getMatch (input, anchor, eflags, doMove,
+                                           skip, buffer, reuse);
+        if (best != null)
+          {
+            best.end[0] = best.index;
+            best.finish (input);
+            input.setLastMatch (best);
+            return best;
+          }
+        // The automaton has tried every position, including the end of
+        // input, so only "$" and friends past the end remain to be tried.
+        if (tryEntireMatch)
+          return null;
+        // Leave the input where the backtracking loop below would.
+        REMatch mymatch = newMatch (anchor, eflags, reuse);
+        if (doMove)
+          {
+            anchor += rest + 1;
+            input.move1 (rest + 1);
+          }
+        else
+          anchor++;
+        mymatch.clear (anchor);
+        return matchAtEnd (input, mymatch);
+      }
+
     RE re = (tryEntireMatch ? (RE) this.clone () : this);
     if (tryEntireMatch)
       {
@@ -2187,9 +2364,22 @@ public class RE extends REToken
         re.chain (reEnd);
       }
     // Create a new REMatch to hold results
-    REMatch mymatch = new REMatch (numSubs, anchor, eflags);
+    REMatch mymatch = newMatch (anchor, eflags, reuse);
     do
       {
+        // Go straight to the next place the literal prefix occurs.
+        if (skip != null)
+          {
+            int n = skip.skipTo (input, 0);
+            if (n > 0)
+              {
+                if (buffer != null)
+                  for (int i = 0; i < n; i++)
+                    buffer.append (input.charAt (i));
+                mymatch.clear (anchor += n);
+                input.move1 (n);
+              }
+          }
         /* The following potimization is commented out because
            the matching should be tried even if the length of
            input is obviously too short in order that
@@ -2232,6 +2422,20 @@ public class RE extends REToken
       }
     while (doMove && input.move1 (1));
 
+    return matchAtEnd (input, mymatch);
+  }
+
+  /** Returns reuse made ready for a search, or a new REMatch if null. */
+  private REMatch newMatch (int anchor, int eflags, REMatch reuse)
+  {
+    if (reuse == null)
+      return new REMatch (numSubs, anchor, eflags);
+    reuse.reset (anchor, eflags);
+    return reuse;
+  }
+
+  private REMatch matchAtEnd (CharIndexed input, REMatch mymatch)
+  {
     // Special handling at end of input for e.g. "$"
     if (minimumLength == 0)
       {
@@ -2417,8 +2621,10 @@ public class RE extends REToken
                                     int index, int eflags)
   {
     CPStringBuilder buffer = new CPStringBuilder ();
-    REMatch m;
-    while ((m = getMatchImpl (input, index, eflags, buffer)) != null)
+    REMatch m = null;
+    // Each match is finished with before the next search, so one
+    // REMatch does for all of them.
+    while ((m = getMatchImpl (input, index, eflags, buffer, m)) != null)
       {
         buffer.append (getReplacement (replace, m, eflags));
         index = m.getEndIndex ();
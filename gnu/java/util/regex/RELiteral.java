@@ -0,0 +1,116 @@
+/* gnu/java/util/regex/RELiteral.java
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+
+package gnu.java.util.regex;
+
+/**
+ * A run of literal characters that every match of an expression must
+ * contain, searched for with the Boyer-Moore-Horspool algorithm.  The
+ * matcher uses it to skip start positions at which no match can begin
+ * without entering the token graph at all.
+ * <P>
+ * The bad character table is indexed by the low eight bits of a
+ * character.  Characters that share a slot get the smallest of their
+ * shifts, which is always safe.  A one character literal degenerates
+ * into a plain scan for that character.
+ */
+final class RELiteral
+{
+  private final char[] text;
+  private final int[] shift;
+
+  RELiteral (char[] text)
+  {
+    this.text = text;
+    int m = text.length;
+    shift = new int[256];
+    for (int i = 0; i < 256; i++)
+      shift[i] = m;
+    for (int i = 0; i < m - 1; i++)
+      shift[text[i] & 0xff] = m - 1 - i;
+  }
+
+  /** Returns the number of characters in this literal. */
+  int length ()
+  {
+    return text.length;
+  }
+
+  /**
+   * Returns the smallest index, relative to the current position of the
+   * input and not less than from, at which this literal occurs, or -1 if
+   * it does not occur in the rest of the input.
+   */
+  int indexIn (CharIndexed input, int from)
+  {
+    int m = text.length;
+    char last = text[m - 1];
+    int limit = input.length () - m;
+    int i = from;
+    while (i <= limit)
+      {
+        char c = input.charAt (i + m - 1);
+        if (c == last)
+          {
+            int j = m - 2;
+            while (j >= 0 && input.charAt (i + j) == text[j])
+              j--;
+            if (j < 0)
+              return i;
+          }
+        i += shift[c & 0xff];
+      }
+    return -1;
+  }
+
+  /**
+   * Returns the first position, relative to the current position of the
+   * input and not less than from, at which a match beginning with this
+   * literal may start.  Positions too close to the end of the input to
+   * hold the whole literal are never skipped, so that a partial match
+   * there is still seen by Matcher#hitEnd().
+   */
+  int skipTo (CharIndexed input, int from)
+  {
+    int i = indexIn (input, from);
+    if (i < 0)
+      i = Math.max (from, input.length () - text.length + 1);
+    return i;
+  }
+}
@@ -40,6 +40,8 @@ package gnu.java.util.regex;
 
 import gnu.java.lang.CPStringBuilder;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 
 /**
@@ -54,6 +56,10 @@ public final class REMatch implements Serializable, Cloneable
 {
   private String matchedText;
   private CharIndexed matchedCharIndexed;
+  // When matching a CharSequence, the text is only copied out of it on
+  // demand.  matchedStart is the index in it at which the match begins.
+  private transient CharSequence matchedSequence;
+  private transient int matchedStart;
 
   // These variables are package scope for fast access within the engine
   int eflags;                   // execution flags this match was made using
@@ -85,6 +91,10 @@ public final class REMatch implements Serializable, Cloneable
 
   BacktrackStack backtrackStack;
 
+  // Work space of the automaton that made this match, kept so that a
+  // later search reusing this REMatch need not allocate its own.
+  transient RENFA.State nfaState;
+
   public Object clone ()
   {
     try
@@ -94,6 +104,7 @@ public final class REMatch implements Serializable, Cloneable
         copy.start = (int[]) start.clone ();
         copy.start1 = (int[]) start1.clone ();
         copy.end = (int[]) end.clone ();
+        copy.nfaState = null;
 
         return copy;
     }
@@ -122,14 +133,60 @@ public final class REMatch implements Serializable, Cloneable
     clear (anchor);
   }
 
+  /**
+   * Makes this match ready for another search, as if it had just been
+   * constructed with the same number of subexpressions.
+   */
+  void reset (int anchor, int eflags)
+  {
+    this.anchor = anchor;
+    this.eflags = eflags;
+    matchedText = null;
+    matchedSequence = null;
+    matchedCharIndexed = null;
+    empty = false;
+    clear (anchor);
+  }
+
+  /**
+   * Makes this match a copy of other, which must have the same number
+   * of subexpressions, reusing the arrays of this match.
+   */
+  void copyFrom (REMatch other)
+  {
+    System.arraycopy (other.start, 0, start, 0, start.length);
+    System.arraycopy (other.start1, 0, start1, 0, start1.length);
+    System.arraycopy (other.end, 0, end, 0, end.length);
+    matchedText = other.matchedText;
+    matchedCharIndexed = other.matchedCharIndexed;
+    matchedSequence = other.matchedSequence;
+    matchedStart = other.matchedStart;
+    eflags = other.eflags;
+    offset = other.offset;
+    anchor = other.anchor;
+    index = other.index;
+    empty = other.empty;
+    backtrackStack = other.backtrackStack;
+  }
+
   void finish (CharIndexed text)
   {
     start[0] = 0;
-    CPStringBuilder sb = new CPStringBuilder ();
     int i;
-    for (i = 0; i < end[0]; i++)
-      sb.append (text.charAt (i));
-    matchedText = sb.toString ();
+    if (text instanceof CharIndexedCharSequence)
+      {
+        matchedText = null;
+        matchedSequence = ((CharIndexedCharSequence) text).getCharSequence ();
+        matchedStart = text.getAnchor ();
+      }
+    else
+      {
+        CPStringBuilder sb = new CPStringBuilder ();
+        for (i = 0; i < end[0]; i++)
+          sb.append (text.charAt (i));
+        matchedText = sb.toString ();
+        matchedSequence = null;
+      }
     matchedCharIndexed = text;
     for (i = 0; i < start.length; i++)
       {
@@ -167,6 +224,10 @@ public final class REMatch implements Serializable, Cloneable
      */
   public String toString ()
   {
+    if (matchedText == null && matchedSequence != null)
+      matchedText = matchedSequence.subSequence (matchedStart,
+                                                 matchedStart + end[0]).
+        toString ();
     return matchedText;
   }
 
@@ -215,6 +276,19 @@ public final class REMatch implements Serializable, Cloneable
       throw new IndexOutOfBoundsException ("No group " + sub);
     if (start[sub] == -1)
       return null;
+    if (matchedSequence != null)
+      {
+        // Positions of subexpressions in a RETokenLookAhead or
+        // RETokenLookBehind may lie outside the match; see below.
+        int s = start[sub];
+        int e = end[sub];
+        if (s < 0)
+          s += 1;
+        if (e < 0)
+          e += 1;
+        return matchedSequence.subSequence (matchedStart + s,
+                                            matchedStart + e).toString ();
+      }
     if (start[sub] >= 0 && end[sub] <= matchedText.length ())
       return (matchedText.substring (start[sub], end[sub]));
     else
@@ -344,6 +418,13 @@ public final class REMatch implements Serializable, Cloneable
     return output.toString ();
   }
 
+  private void writeObject (ObjectOutputStream out) throws IOException
+  {
+    // The text matched cannot be looked up again after reading back.
+    toString ();
+    out.defaultWriteObject ();
+  }
+
 /*  The following are used for debugging purpose
     public static String d(REMatch m) {
         if (m == null) return "null";
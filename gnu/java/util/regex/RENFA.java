@@ -0,0 +1,615 @@
+/* gnu/java/util/regex/RENFA.java
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package gnu.java.util.regex;
+
+import gnu.java.lang.CPStringBuilder;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A non-backtracking matcher for regular expressions.  The token graph
+ * of an {@link RE} is compiled into a small instruction program which
+ * is then run as a Thompson NFA, keeping all live threads in priority
+ * order (the "Pike VM" technique).  Because every thread is advanced in
+ * lock step over the input, a search takes time proportional to the
+ * length of the input times the size of the program, whatever the
+ * pattern.
+ * <P>
+ * Threads are kept in the order in which the backtracking matcher would
+ * have tried them, so the match found, including the subexpression
+ * positions, is the same one that {@link RE#getMatchImpl} would have
+ * found.  Tokens that cannot be expressed this way (back references,
+ * lookahead and lookbehind, independent subexpressions, possessive or
+ * possibly empty repetitions) make {@link #compile} return null, in
+ * which case RE keeps using the backtracking matcher.
+ * <P>
+ * Instances of this class are immutable apart from a per-instruction
+ * cache of character tests, and may be shared between threads.
+ */
+final class RENFA
+{
+
+  /** Consume one character equal to a literal. */
+  private static final int LITERAL = 0;
+  /** Consume one character accepted by a single-character REToken. */
+  private static final int CHAR = 1;
+  /** Test a zero-width REToken at the current position. */
+  private static final int ASSERT = 2;
+  /** Fork; the first branch has priority over the second. */
+  private static final int SPLIT = 3;
+  private static final int JMP = 4;
+  /** Note the start of a subexpression. */
+  private static final int OPEN = 5;
+  /** Note the end of a subexpression, as RETokenEndSub does. */
+  private static final int CLOSE = 6;
+  private static final int MATCH = 7;
+
+  /** Flags of LITERAL instructions, kept in arg2. */
+  private static final int INSENS = 1;
+  private static final int UNICODE_AWARE = 2;
+
+  /** Flag of ASSERT instructions, kept in arg1. */
+  private static final int NO_HIT_END = 1;
+
+  /**
+   * Upper bound on the size of a program.  Counted repetitions are
+   * unrolled, so "a{1000,2000}" and the like are left to the
+   * backtracking matcher rather than growing without limit.
+   */
+  private static final int MAX_INSTRUCTIONS = 4096;
+
+  private final int[] op;
+  private final int[] arg1;
+  private final int[] arg2;
+  private final REToken[] token;
+  // Results of CHAR instructions for the characters below 256:
+  // 0 is unknown, 1 accepted, 2 rejected.  Filling them in from several
+  // threads at once is harmless since every thread computes the same value.
+  private final byte[][] charCache;
+  private final int numSubs;
+
+  private RENFA (Builder b, int numSubs)
+  {
+    int n = b.size;
+    op = Arrays.copyOf (b.op, n);
+    arg1 = Arrays.copyOf (b.arg1, n);
+    arg2 = Arrays.copyOf (b.arg2, n);
+    token = Arrays.copyOf (b.token, n);
+    charCache = new byte[n][];
+    for (int i = 0; i < n; i++)
+      if (op[i] == CHAR)
+        charCache[i] = new byte[256];
+    this.numSubs = numSubs;
+  }
+
+  /**
+   * Compiles the given expression.  Returns null if it uses a feature
+   * that needs backtracking.
+   *
+   * @param re the top-level expression.
+   * @param tryEntireMatch true if the match must end at the end of input,
+   *   as requested by RE.REG_TRY_ENTIRE_MATCH.
+   */
+  static RENFA compile (RE re, boolean tryEntireMatch)
+  {
+    Builder b = new Builder ();
+    if (!re.compile (b))
+      return null;
+    if (tryEntireMatch)
+      {
+        // The fake end does not count for Matcher#hitEnd(), see RETokenEnd.
+        RETokenEnd reEnd = new RETokenEnd (0, null);
+        reEnd.setFake (true);
+        if (b.emit (ASSERT, NO_HIT_END, 0, reEnd) < 0)
+          return null;
+      }
+    if (b.emit (MATCH, 0, 0, null) < 0)
+      return null;
+    return new RENFA (b, re.getNumSubs ());
+  }
+
+  /**
+   * Collects the instructions of a program.  The compile method of
+   * each REToken appends the instructions matching that token alone.
+   * Every method returns false once the program has grown too large.
+   */
+  static final class Builder
+  {
+    int[] op = new int[16];
+    int[] arg1 = new int[16];
+    int[] arg2 = new int[16];
+    REToken[] token = new REToken[16];
+    int size;
+
+    private int emit (int o, int a1, int a2, REToken t)
+    {
+      if (size >= MAX_INSTRUCTIONS)
+        return -1;
+      if (size == op.length)
+        {
+          int n = size * 2;
+          op = Arrays.copyOf (op, n);
+          arg1 = Arrays.copyOf (arg1, n);
+          arg2 = Arrays.copyOf (arg2, n);
+          token = Arrays.copyOf (token, n);
+        }
+      op[size] = o;
+      arg1[size] = a1;
+      arg2[size] = a2;
+      token[size] = t;
+      return size++;
+    }
+
+    /** Matches the character c, as RETokenChar does. */
+    boolean literal (char c, boolean insens, boolean unicodeAware)
+    {
+      int flags = (insens ? INSENS : 0) | (unicodeAware ? UNICODE_AWARE : 0);
+      return emit (LITERAL, c, flags, null) >= 0;
+    }
+
+    /**
+     * Matches any character accepted by the given token, which must
+     * always consume exactly one character.
+     */
+    boolean oneChar (REToken t)
+    {
+      return emit (CHAR, 0, 0, detach (t)) >= 0;
+    }
+
+    /** Tests the given zero-width token without consuming input. */
+    boolean assertion (REToken t)
+    {
+      return emit (ASSERT, 0, 0, detach (t)) >= 0;
+    }
+
+    /** Marks the start of subexpression sub. */
+    boolean open (int sub)
+    {
+      if (sub == 0)
+        return true;
+      return emit (OPEN, sub, 0, null) >= 0;
+    }
+
+    /** Marks the end of subexpression sub. */
+    boolean close (int sub)
+    {
+      if (sub == 0)
+        return true;
+      return emit (CLOSE, sub, 0, null) >= 0;
+    }
+
+    /**
+     * Matches one of the given alternatives, trying them in order.
+     */
+    boolean alternation (List < REToken > options)
+    {
+      int n = options.size ();
+      int[] jumps = new int[n];
+      for (int i = 0; i < n; i++)
+        {
+          int split = -1;
+          if (i + 1 < n)
+            {
+              split = emit (SPLIT, 0, 0, null);
+              if (split < 0)
+                return false;
+              arg1[split] = size;
+            }
+          if (!options.get (i).compile (this))
+            return false;
+          jumps[i] = emit (JMP, 0, 0, null);
+          if (jumps[i] < 0)
+            return false;
+          if (split >= 0)
+            arg2[split] = size;
+        }
+      for (int i = 0; i < n; i++)
+        arg1[jumps[i]] = size;
+      return true;
+    }
+
+    /**
+     * Matches body between min and max times, preferring fewer
+     * repetitions if stingy is true.  The body must not be able to
+     * match the empty string.
+     */
+    boolean repeat (REToken body, int min, int max, boolean stingy)
+    {
+      for (int i = 0; i < min; i++)
+        if (!body.compile (this))
+          return false;
+      if (max == Integer.MAX_VALUE)
+        {
+          int split = emit (SPLIT, 0, 0, null);
+          if (split < 0 || !body.compile (this)
+              || emit (JMP, split, 0, null) < 0)
+            return false;
+          setSplit (split, split + 1, size, stingy);
+          return true;
+        }
+      if (max - min > MAX_INSTRUCTIONS)
+        return false;
+      int[] splits = new int[max - min];
+      for (int i = 0; i < splits.length; i++)
+        {
+          splits[i] = emit (SPLIT, 0, 0, null);
+          if (splits[i] < 0 || !body.compile (this))
+            return false;
+        }
+      for (int i = 0; i < splits.length; i++)
+        setSplit (splits[i], splits[i] + 1, size, stingy);
+      return true;
+    }
+
+    private void setSplit (int split, int more, int done, boolean stingy)
+    {
+      arg1[split] = stingy ? done : more;
+      arg2[split] = stingy ? more : done;
+    }
+
+    private static REToken detach (REToken t)
+    {
+      REToken copy = (REToken) t.clone ();
+      copy.next = null;
+      copy.uncle = null;
+      return copy;
+    }
+  }
+
+  /**
+   * The threads alive at one position of the input, in priority order.
+   * Each thread has a program counter and a row of positions: the
+   * position at which its match started, followed by the start1, start
+   * and end positions of every subexpression, just like REMatch.  The
+   * row of a thread that reached MATCH has the end of the match as well.
+   */
+  private static final class ThreadList
+  {
+    final int[] pc;
+    final int[][] slots;
+    // onList[pc] == generation if pc has been reached at this position.
+    final int[] onList;
+    int generation;
+    int size;
+
+    ThreadList (int n, int nslots)
+    {
+      pc = new int[n];
+      slots = new int[n][nslots + 1];
+      onList = new int[n];
+    }
+
+    void clear ()
+    {
+      size = 0;
+      if (++generation == 0)
+        {
+          Arrays.fill (onList, 0);
+          generation = 1;
+        }
+    }
+  }
+
+  /**
+   * Everything a search needs besides the program, sized for one
+   * program.  A search allocates nothing when it is handed the State of
+   * an earlier search with the same program, which RE does for an
+   * REMatch that is being reused.
+   */
+  static final class State
+  {
+    final RENFA program;
+    ThreadList clist, nlist;
+    // Pending work of addThread.  A pc >= 0 is an instruction to visit;
+    // a pc < 0 means that slot -1 - pc must be set back to val.
+    final int[] stackPc, stackVal;
+    // The positions of the thread being followed by addThread.
+    final int[] slots;
+    // The row of the thread that reached MATCH.
+    final int[] matched;
+    final REMatch scratch;
+
+    State (RENFA program)
+    {
+      this.program = program;
+      int n = program.op.length;
+      int nslots = 1 + 3 * program.numSubs;
+      clist = new ThreadList (n, nslots);
+      nlist = new ThreadList (n, nslots);
+      // Every instruction is visited once per call of addThread, and
+      // leaves at most three entries behind.
+      stackPc = new int[3 * n + 1];
+      stackVal = new int[3 * n + 1];
+      slots = new int[nslots + 1];
+      matched = new int[nslots + 1];
+      scratch = new REMatch (program.numSubs, 0, 0);
+    }
+  }
+
+  /**
+   * Searches the input for the first match, in the same way as
+   * RE#getMatchImpl does, and leaves the cursor of the input at the
+   * start of the match.  Returns null, with the cursor where it was, if
+   * no match was found.
+   *
+   * @param input the input, positioned at the start of the search.
+   * @param anchor the index of the input at which the search starts.
+   * @param eflags the execution flags.
+   * @param doMove false if the match must start at the anchor.
+   * @param skip if not null, literal text every match starts with.
+   * @param buffer if not null, receives the text skipped before the match.
+   * @param reuse if not null, an REMatch for this expression to return
+   *   the match in, instead of a new one.
+   */
+  REMatch getMatch (CharIndexed input, int anchor, int eflags,
+                    boolean doMove, RELiteral skip, CPStringBuilder buffer,
+                    REMatch reuse)
+  {
+    State state = (reuse == null) ? null : reuse.nfaState;
+    if (state == null || state.program != this)
+      state = new State (this);
+    int base = input.getAnchor ();
+    int len = input.length ();
+    int nslots = 1 + 3 * numSubs;
+    ThreadList clist = state.clist;
+    ThreadList nlist = state.nlist;
+    int[] work = state.slots;
+    REMatch scratch = state.scratch;
+    scratch.anchor = anchor;
+    scratch.eflags = eflags;
+    scratch.clear (anchor);
+    boolean found = false;
+    int maxPos = 0;
+
+    clist.clear ();
+    for (int p = 0; p <= len; p++)
+      {
+        // With no thread alive, go straight to the next place the
+        // literal prefix occurs.
+        if (skip != null && clist.size == 0 && !found)
+          p = skip.skipTo (input, p);
+        char c = (p < len) ? input.charAt (p) : CharIndexed.OUT_OF_BOUNDS;
+        boolean mayStart = (!found && (doMove || p == 0));
+        nlist.clear ();
+        for (int i = 0;; i++)
+          {
+            if (i == clist.size)
+              {
+                // A match starting at p comes after every thread
+                // started before, so it is tried last.
+                if (!mayStart)
+                  break;
+                mayStart = false;
+                Arrays.fill (work, -1);
+                work[0] = p;
+                if (p > maxPos)
+                  maxPos = p;
+                maxPos = addThread (state, clist, 0, p, input, base, anchor,
+                                    maxPos);
+                if (i == clist.size)
+                  break;
+              }
+            int pc = clist.pc[i];
+            int[] row = clist.slots[i];
+            if (op[pc] == MATCH)
+              {
+                System.arraycopy (row, 0, state.matched, 0, nslots + 1);
+                found = true;
+                // Threads of lower priority are cut off.
+                break;
+              }
+            if (p > maxPos)
+              maxPos = p;
+            if (p < len && accepts (pc, c, input, p, scratch))
+              {
+                System.arraycopy (row, 0, work, 0, nslots);
+                maxPos = addThread (state, nlist, pc + 1, p + 1, input, base,
+                                    anchor, maxPos);
+              }
+          }
+        if (nlist.size == 0 && (found || !doMove))
+          break;
+        ThreadList t = clist;
+        clist = nlist;
+        nlist = t;
+      }
+    state.clist = clist;
+    state.nlist = nlist;
+
+    // Let Matcher#hitEnd() know how far the input has been examined.
+    input.setAnchor (base);
+    scratch.index = maxPos;
+    input.setHitEnd (scratch);
+
+    if (!found)
+      {
+        if (buffer != null)
+          for (int i = 0; i < (doMove ? len : Math.min (len, 1)); i++)
+            buffer.append (input.charAt (i));
+        if (reuse != null)
+          reuse.nfaState = state;
+        return null;
+      }
+
+    int[] matched = state.matched;
+    int start = matched[0];
+    if (buffer != null)
+      for (int i = 0; i < start; i++)
+        buffer.append (input.charAt (i));
+    REMatch m = reuse;
+    if (m == null || m.start.length != numSubs + 1)
+      m = new REMatch (numSubs, anchor, eflags);
+    m.anchor = anchor;
+    m.eflags = eflags;
+    m.clear (anchor + start);
+    m.nfaState = state;
+    for (int sub = 1; sub <= numSubs; sub++)
+      {
+        int k = 1 + 3 * (sub - 1);
+        m.start1[sub] = (matched[k] == -1) ? -1 : matched[k] - start;
+        m.start[sub] = (matched[k + 1] == -1) ? -1 : matched[k + 1] - start;
+        m.end[sub] = (matched[k + 2] == -1) ? -1 : matched[k + 2] - start;
+      }
+    // addThread puts the end of the match after the positions of a
+    // thread reaching MATCH.
+    m.index = matched[nslots] - start;
+    input.setAnchor (base + start);
+    return m;
+  }
+
+  /**
+   * Adds the thread at pc, whose positions are in state.slots, and every
+   * thread reachable from it without consuming input, to the list, in
+   * priority order.  Returns the new rightmost examined position.
+   */
+  private int addThread (State state, ThreadList list, int pc0, int p,
+                         CharIndexed input, int base, int anchor, int maxPos)
+  {
+    int[] stackPc = state.stackPc;
+    int[] stackVal = state.stackVal;
+    int[] slots = state.slots;
+    int nslots = 1 + 3 * numSubs;
+    int sp = 0;
+    stackPc[sp++] = pc0;
+    while (sp > 0)
+      {
+        int pc = stackPc[--sp];
+        if (pc < 0)
+          {
+            slots[-1 - pc] = stackVal[sp];
+            continue;
+          }
+        if (list.onList[pc] == list.generation)
+          continue;
+        list.onList[pc] = list.generation;
+        switch (op[pc])
+          {
+          case JMP:
+            stackPc[sp++] = arg1[pc];
+            break;
+          case SPLIT:
+            stackPc[sp++] = arg2[pc];
+            stackPc[sp++] = arg1[pc];
+            break;
+          case OPEN:
+            {
+              if (p > maxPos)
+                maxPos = p;
+              int k = 1 + 3 * (arg1[pc] - 1);
+              stackPc[sp] = -1 - k;
+              stackVal[sp++] = slots[k];
+              slots[k] = p;
+              stackPc[sp++] = pc + 1;
+            }
+            break;
+          case CLOSE:
+            {
+              int k = 1 + 3 * (arg1[pc] - 1);
+              stackPc[sp] = -1 - (k + 1);
+              stackVal[sp++] = slots[k + 1];
+              stackPc[sp] = -1 - (k + 2);
+              stackVal[sp++] = slots[k + 2];
+              slots[k + 1] = slots[k];
+              slots[k + 2] = p;
+              stackPc[sp++] = pc + 1;
+            }
+            break;
+          case ASSERT:
+            {
+              REToken t = token[pc];
+              if (arg1[pc] != NO_HIT_END && p > maxPos)
+                maxPos = p;
+              // The token sees the input as the backtracking matcher
+              // would when trying a match that starts at slots[0].
+              int start = slots[0];
+              REMatch scratch = state.scratch;
+              input.setAnchor (base + start);
+              scratch.offset = anchor + start;
+              scratch.index = p - start;
+              boolean ok = (t.matchThis (input, scratch) != null);
+              input.setAnchor (base);
+              if (ok)
+                stackPc[sp++] = pc + 1;
+            }
+            break;
+          case MATCH:
+            {
+              int[] row = list.slots[list.size];
+              System.arraycopy (slots, 0, row, 0, nslots);
+              row[nslots] = p;
+              list.pc[list.size++] = pc;
+            }
+            break;
+          default:
+            System.arraycopy (slots, 0, list.slots[list.size], 0, nslots);
+            list.pc[list.size++] = pc;
+            break;
+          }
+      }
+    return maxPos;
+  }
+
+  /** Returns true if the consuming instruction at pc accepts c. */
+  private boolean accepts (int pc, char c, CharIndexed input, int p,
+                           REMatch scratch)
+  {
+    if (op[pc] == LITERAL)
+      {
+        char lit = (char) arg1[pc];
+        if (c == lit)
+          return true;
+        int flags = arg2[pc];
+        if ((flags & INSENS) == 0)
+          return false;
+        boolean unicodeAware = ((flags & UNICODE_AWARE) != 0);
+        return REToken.toLowerCase (c, unicodeAware) == lit
+          || REToken.toUpperCase (c, unicodeAware) == lit;
+      }
+    byte[] cache = charCache[pc];
+    if (c < 256 && cache[c] != 0)
+      return cache[c] == 1;
+    scratch.index = p;
+    REToken t = token[pc];
+    boolean ok = t.match (input, scratch) && scratch.index == p + 1;
+    if (c < 256)
+      cache[c] = (byte) (ok ? 1 : 2);
+    return ok;
+  }
+}
@@ -185,6 +185,20 @@ abstract class REToken implements Serializable, Cloneable
     throw new IllegalStateException ("This token cannot be backtracked to");
   }
 
+  /**
+    * Appends to the given program the instructions matching this token
+    * alone, not the tokens chained to it, so that the expression can be
+    * run by RENFA instead of by backtracking.
+    * By default, a token cannot be compiled.
+    * @param prog the program being built.
+    * @return true if the token was compiled, false if the expression
+    * needs the backtracking matcher.
+    */
+  boolean compile (RENFA.Builder prog)
+  {
+    return false;
+  }
+
   boolean chain (REToken token)
   {
     next = token;
@@ -87,6 +87,11 @@ final class RETokenAny extends REToken
     return true;
   }
 
+  boolean compile (RENFA.Builder prog)
+  {
+    return prog.oneChar (this);
+  }
+
   boolean returnsFixedLengthMatches ()
   {
     return true;
@@ -108,6 +108,23 @@ final class RETokenChar extends REToken
     return false;
   }
 
+  /**
+   * Returns the characters matched by this token, or null if they are
+   * matched regardless of case.
+   */
+  char[] getLiteral ()
+  {
+    return insens ? null : ch;
+  }
+
+  boolean compile (RENFA.Builder prog)
+  {
+    for (int i = 0; i < ch.length; i++)
+      if (!prog.literal (ch[i], insens, unicodeAware))
+        return false;
+    return true;
+  }
+
   boolean returnsFixedLengthMatches ()
   {
     return true;
@@ -128,6 +128,11 @@ final class RETokenEnd extends REToken
     return null;
   }
 
+  boolean compile (RENFA.Builder prog)
+  {
+    return prog.assertion (this);
+  }
+
   boolean returnsFixedLengthMatches ()
   {
     return true;
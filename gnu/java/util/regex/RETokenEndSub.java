@@ -65,6 +65,11 @@ final class RETokenEndSub extends REToken
     return super.findMatch (input, mymatch);
   }
 
+  boolean compile (RENFA.Builder prog)
+  {
+    return prog.close (subIndex);
+  }
+
   void setHitEnd (CharIndexed input, REMatch mymatch)
   {
     // Do nothing
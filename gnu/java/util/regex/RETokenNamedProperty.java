@@ -145,6 +145,11 @@ final class RETokenNamedProperty extends REToken
     return retval;
   }
 
+  boolean compile (RENFA.Builder prog)
+  {
+    return prog.oneChar (this);
+  }
+
   boolean returnsFixedLengthMatches ()
   {
     return true;
@@ -318,6 +318,27 @@ final class RETokenOneOf extends REToken
     return numRepeats;
   }
 
+  boolean compile (RENFA.Builder prog)
+  {
+    if (matchesOneChar)
+      return prog.oneChar (this);
+    // A list of single characters, such as [a-z_], can be tested in one
+    // step too since every option consumes exactly one character.
+    boolean oneChar = true;
+  for (REToken t:options)
+      {
+        if (t instanceof RE || t instanceof RETokenRepeated
+            || t.getMinimumLength () != 1 || t.getMaximumLength () != 1)
+          {
+            oneChar = false;
+            break;
+          }
+      }
+    if (oneChar)
+      return prog.oneChar (this);
+    return prog.alternation (options);
+  }
+
   void dump (CPStringBuilder os)
   {
     os.append (negative ? "[^" : "(?:");
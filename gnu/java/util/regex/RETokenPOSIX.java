@@ -165,6 +165,11 @@ final class RETokenPOSIX extends REToken
     return retval;
   }
 
+  boolean compile (RENFA.Builder prog)
+  {
+    return prog.oneChar (this);
+  }
+
   boolean returnsFixedLengthMatches ()
   {
     return true;
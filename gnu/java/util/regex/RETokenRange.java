@@ -91,6 +91,11 @@ final class RETokenRange extends REToken
     return matches;
   }
 
+  boolean compile (RENFA.Builder prog)
+  {
+    return prog.oneChar (this);
+  }
+
   boolean returnsFixedLengthMatches ()
   {
     return true;
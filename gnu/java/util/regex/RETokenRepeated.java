@@ -613,6 +613,16 @@ final class RETokenRepeated extends REToken
       }
   }
 
+  boolean compile (RENFA.Builder prog)
+  {
+    // An automaton cannot give up what it has matched, and the rules for
+    // repetitions of the empty string are those of the backtracking loop
+    // above.
+    if (possessive || token.getMinimumLength () == 0)
+      return false;
+    return prog.repeat (token, min, max, stingy);
+  }
+
   void dump (CPStringBuilder os)
   {
     os.append ("(?:");
@@ -130,6 +130,12 @@ class RETokenStart extends REToken
       return ((mymatch.index == 0) && (mymatch.offset == 0)) ? mymatch : null;
   }
 
+  @Override
+    boolean compile (RENFA.Builder prog)
+  {
+    return prog.assertion (this);
+  }
+
   @Override
     boolean returnsFixedLengthMatches ()
   {
@@ -110,6 +110,11 @@ final class RETokenWordBoundary extends REToken
     return (doNext ? mymatch : null);
   }
 
+  boolean compile (RENFA.Builder prog)
+  {
+    return prog.assertion (this);
+  }
+
   boolean returnsFixedLengthMatches ()
   {
     return true;
@@ -0,0 +1,143 @@
+/* CRC32Combine.java -- Merges the CRC-32 checksums of adjacent data
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package gnu.java.util.zip;
+
+/**
+ * Computes the CRC-32 of two adjacent pieces of data from the CRC-32
+ * of each piece, as returned by <code>java.util.zip.CRC32</code>, and
+ * the length of the second piece.  This lets pieces of a stream be
+ * checksummed independently, for instance on different threads, and
+ * the results be merged afterwards at a cost that only grows with the
+ * logarithm of the length.
+ * <p>
+ * Appending n zero bytes to a message multiplies its CRC by x^(8n)
+ * modulo the CRC polynomial, so the combined CRC is that product for
+ * the first CRC, xor the second CRC.  The powers x^(2^k) are
+ * precomputed, as in zlib.
+ */
+public final class CRC32Combine
+{
+  /** The reflected CRC-32 polynomial. */
+  private static final int POLY = 0xedb88320;
+
+  /** x^(2^k) modulo the polynomial, for k = 0..31. */
+  private static final int[] X2N = new int[32];
+
+  static
+  {
+    int p = 1 << 30;            // x^1
+    X2N[0] = p;
+    for (int k = 1; k < 32; k++)
+      X2N[k] = p = multModP(p, p);
+  }
+
+  private CRC32Combine()
+  {
+  }
+
+  /**
+   * Returns the CRC-32 of the concatenation of two pieces of data.
+   *
+   * @param crc1 the CRC-32 of the first piece
+   * @param crc2 the CRC-32 of the second piece
+   * @param len2 the length of the second piece in bytes
+   * @return the CRC-32 of both pieces, as a value of
+   * <code>CRC32.getValue()</code>
+   * @exception IllegalArgumentException if len2 is negative
+   */
+  public static long combine(long crc1, long crc2, long len2)
+  {
+    return combine((int) crc1, (int) crc2, len2) & 0xffffffffL;
+  }
+
+  /**
+   * Returns the CRC-32 of the concatenation of two pieces of data,
+   * with the checksums as int values.
+   *
+   * @param crc1 the CRC-32 of the first piece
+   * @param crc2 the CRC-32 of the second piece
+   * @param len2 the length of the second piece in bytes
+   * @return the CRC-32 of both pieces
+   * @exception IllegalArgumentException if len2 is negative
+   */
+  public static int combine(int crc1, int crc2, long len2)
+  {
+    if (len2 < 0)
+      throw new IllegalArgumentException("negative length");
+    if (len2 == 0)
+      return crc1 ^ crc2;
+    return multModP(x2nModP(len2, 3), crc1) ^ crc2;
+  }
+
+  /**
+   * Multiplies a and b modulo the polynomial, in the reflected bit
+   * order of the CRC; a must not be zero.
+   */
+  private static int multModP(int a, int b)
+  {
+    int m = 1 << 31;
+    int p = 0;
+    for (;;)
+      {
+        if ((a & m) != 0)
+          {
+            p ^= b;
+            if ((a & (m - 1)) == 0)
+              break;
+          }
+        m >>>= 1;
+        b = (b & 1) != 0 ? (b >>> 1) ^ POLY : b >>> 1;
+      }
+    return p;
+  }
+
+  /** Returns x^(n * 2^k) modulo the polynomial. */
+  private static int x2nModP(long n, int k)
+  {
+    int p = 1 << 31;            // x^0
+    while (n != 0)
+      {
+        if ((n & 1) != 0)
+          p = multModP(X2N[k & 31], p);
+        n >>>= 1;
+        k++;
+      }
+    return p;
+  }
+}
@@ -0,0 +1,380 @@
+/* ParallelGZIPOutputStream.java -- Compresses a GZIP stream on several threads
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package gnu.java.util.zip;
+
+import gnu.classpath.toolkit.DefaultDaemonThreadFactory;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * An output stream that writes a GZIP stream like
+ * <code>java.util.zip.GZIPOutputStream</code>, but compresses on
+ * several threads.  The data is cut into blocks that are deflated
+ * independently, each with the end of the previous block as preset
+ * dictionary, so the compression ratio is close to that of a single
+ * deflater.  All blocks but the last end with a sync flush, which
+ * makes their concatenation one ordinary deflate stream, and the
+ * CRC-32 of the blocks, computed along with the compression, is
+ * combined into the CRC of the whole stream.  The result is a single
+ * GZIP member that any GZIP reader accepts.
+ * <p>
+ * Compressed blocks are written by the thread that writes to this
+ * stream, in order.  At most two blocks per thread are in progress at
+ * any time; writing waits for the oldest block if necessary.
+ * <p>
+ * This class is not thread safe.
+ */
+public class ParallelGZIPOutputStream extends FilterOutputStream
+{
+  /** The default block size. */
+  public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+  /** The largest dictionary a deflater can make use of. */
+  private static final int DICTIONARY_SIZE = 32 * 1024;
+
+  /**
+   * A block of input and, once compressed, its output.
+   */
+  private final class Block implements Runnable
+  {
+    final byte[] data;
+    final int length;
+    final boolean last;
+    Block previous;
+    byte[] output;
+    int outputLength;
+    int crc;
+
+    Block(byte[] data, int length, Block previous, boolean last)
+    {
+      this.data = data;
+      this.length = length;
+      this.previous = previous;
+      this.last = last;
+    }
+
+    public void run()
+    {
+      CRC32 checksum = new CRC32();
+      checksum.update(data, 0, length);
+      crc = (int) checksum.getValue();
+
+      Deflater def = deflaters.get();
+      def.reset();
+      if (previous != null)
+        {
+          int dictLength = Math.min(previous.length, DICTIONARY_SIZE);
+          def.setDictionary(previous.data, previous.length - dictLength,
+                            dictLength);
+          previous = null;
+        }
+      def.setInput(data, 0, length);
+      if (last)
+        def.finish();
+
+      byte[] buf = new byte[length + (length >> 3) + 64];
+      int len = 0;
+      for (;;)
+        {
+          if (len == buf.length)
+            {
+              byte[] newBuf = new byte[buf.length * 2];
+              System.arraycopy(buf, 0, newBuf, 0, len);
+              buf = newBuf;
+            }
+          int space = buf.length - len;
+          int count = def.deflate(buf, len, space,
+                                  last ? Deflater.NO_FLUSH
+                                  : Deflater.SYNC_FLUSH);
+          len += count;
+          if (last ? def.finished() : count < space)
+            break;
+        }
+      output = buf;
+      outputLength = len;
+    }
+  }
+
+  /** The compression level. */
+  private final int level;
+
+  /** The deflater of each compressing thread. */
+  private final ThreadLocal<Deflater> deflaters = new ThreadLocal<Deflater>()
+  {
+    protected Deflater initialValue()
+    {
+      return new Deflater(level, true);
+    }
+  };
+
+  private final ExecutorService executor;
+  private final int maxPending;
+
+  /** The blocks being compressed, in stream order. */
+  private final LinkedList<Future<Block>> pending
+    = new LinkedList<Future<Block>>();
+
+  /** The block being filled. */
+  private byte[] buf;
+  private int count;
+
+  /** The last block handed to the executor. */
+  private Block previous;
+
+  /** The CRC-32 and the length of all blocks written so far. */
+  private int crc;
+  private long totalIn;
+
+  private boolean finished;
+
+  /**
+   * Creates a stream with the default compression level and block
+   * size that uses one thread per available processor.
+   *
+   * @param out the stream to write the GZIP data to
+   * @exception IOException if the header cannot be written
+   */
+  public ParallelGZIPOutputStream(OutputStream out) throws IOException
+  {
+    this(out, Deflater.DEFAULT_COMPRESSION, DEFAULT_BLOCK_SIZE,
+         Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates a stream with the given compression level, block size and
+   * number of threads.  The threads are daemon threads that are
+   * stopped by close().
+   *
+   * @param out the stream to write the GZIP data to
+   * @param level the compression level, as for Deflater
+   * @param blockSize the number of input bytes in each block
+   * @param threads the number of compressing threads
+   * @exception IllegalArgumentException if blockSize or threads is
+   * not positive, or the level is invalid
+   * @exception IOException if the header cannot be written
+   */
+  public ParallelGZIPOutputStream(OutputStream out, int level,
+                                  int blockSize, int threads)
+    throws IOException
+  {
+    super(out);
+    if (blockSize <= 0 || threads <= 0)
+      throw new IllegalArgumentException();
+    if (level != Deflater.DEFAULT_COMPRESSION
+        && (level < Deflater.NO_COMPRESSION
+            || level > Deflater.BEST_COMPRESSION))
+      throw new IllegalArgumentException("Illegal level: " + level);
+    this.level = level;
+    buf = new byte[blockSize];
+    maxPending = 2 * threads;
+    executor = Executors.newFixedThreadPool(threads,
+                                            new DefaultDaemonThreadFactory());
+
+    int mod_time = (int) (System.currentTimeMillis() / 1000L);
+    byte[] gzipHeader =
+      {
+        /* The two magic bytes */
+        (byte) GZIPInputStream.GZIP_MAGIC,
+        (byte) (GZIPInputStream.GZIP_MAGIC >> 8),
+
+        /* The compression type */
+        (byte) Deflater.DEFLATED,
+
+        /* The flags (not set) */
+        0,
+
+        /* The modification time */
+        (byte) mod_time, (byte) (mod_time >> 8),
+        (byte) (mod_time >> 16), (byte) (mod_time >> 24),
+
+        /* The extra flags */
+        0,
+
+        /* The OS type (unknown) */
+        (byte) 255
+      };
+    out.write(gzipHeader);
+  }
+
+  public void write(int b) throws IOException
+  {
+    if (finished)
+      throw new IOException("stream finished");
+    buf[count++] = (byte) b;
+    if (count == buf.length)
+      submit(false);
+  }
+
+  public void write(byte[] b, int off, int len) throws IOException
+  {
+    if (off < 0 || len < 0 || off + len > b.length || off + len < 0)
+      throw new IndexOutOfBoundsException();
+    if (finished)
+      throw new IOException("stream finished");
+    while (len > 0)
+      {
+        int n = Math.min(len, buf.length - count);
+        System.arraycopy(b, off, buf, count, n);
+        count += n;
+        off += n;
+        len -= n;
+        if (count == buf.length)
+          submit(false);
+      }
+  }
+
+  /**
+   * Compresses the data written so far and writes it to the
+   * underlying stream, ending it on a byte boundary.  Everything
+   * written before can then be decompressed.
+   */
+  public void flush() throws IOException
+  {
+    if (!finished)
+      {
+        if (count > 0)
+          submit(false);
+        writeBlocks(0);
+      }
+    out.flush();
+  }
+
+  /**
+   * Compresses the remaining data and writes the GZIP trailer,
+   * without closing the underlying stream.
+   */
+  public void finish() throws IOException
+  {
+    if (finished)
+      return;
+    submit(true);
+    writeBlocks(0);
+    finished = true;
+    buf = null;
+    previous = null;
+
+    byte[] gzipFooter =
+      {
+        (byte) crc, (byte) (crc >> 8),
+        (byte) (crc >> 16), (byte) (crc >> 24),
+
+        (byte) totalIn, (byte) (totalIn >> 8),
+        (byte) (totalIn >> 16), (byte) (totalIn >> 24)
+      };
+    out.write(gzipFooter);
+    out.flush();
+  }
+
+  /**
+   * Finishes the GZIP stream, stops the compressing threads and
+   * closes the underlying stream.
+   */
+  public void close() throws IOException
+  {
+    try
+      {
+        finish();
+      }
+    finally
+      {
+        executor.shutdownNow();
+        out.close();
+      }
+  }
+
+  /**
+   * Hands the current block to the executor and starts a new one.
+   * Writes the oldest blocks first if too many are pending.
+   */
+  private void submit(boolean last) throws IOException
+  {
+    Block block = new Block(buf, count, previous, last);
+    pending.add(executor.submit(block, block));
+    previous = block;
+    if (!last)
+      buf = new byte[buf.length];
+    count = 0;
+    writeBlocks(maxPending);
+  }
+
+  /**
+   * Writes compressed blocks in order, until at most max are pending
+   * and the oldest one is not ready yet.
+   */
+  private void writeBlocks(int max) throws IOException
+  {
+    while (!pending.isEmpty())
+      {
+        Future<Block> future = pending.getFirst();
+        if (pending.size() <= max && !future.isDone())
+          break;
+        Block block;
+        try
+          {
+            block = future.get();
+          }
+        catch (InterruptedException ex)
+          {
+            throw new InterruptedIOException();
+          }
+        catch (ExecutionException ex)
+          {
+            IOException ioe = new IOException("compression failed");
+            ioe.initCause(ex.getCause());
+            throw ioe;
+          }
+        pending.removeFirst();
+        out.write(block.output, 0, block.outputLength);
+        block.output = null;
+        crc = CRC32Combine.combine(crc, block.crc, block.length);
+        totalIn += block.length;
+      }
+  }
+}
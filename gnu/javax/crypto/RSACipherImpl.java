@@ -262,6 +262,26 @@ public class RSACipherImpl
     return result.length;
   }
 
+  /**
+   * Computes c^d mod n from the Chinese Remainder Theorem form of the key,
+   * as in RFC 3447, section 5.1.2.  The two exponentiations modulo p and q
+   * take about a quarter of the time of one modulo n.
+   */
+  private static BigInteger crtModPow(BigInteger c, RSAPrivateCrtKey key)
+  {
+    BigInteger p = key.getPrimeP();
+    BigInteger q = key.getPrimeQ();
+    BigInteger dP = key.getPrimeExponentP();
+    BigInteger dQ = key.getPrimeExponentQ();
+    BigInteger qInv = key.getCrtCoefficient();
+    if (p == null || q == null || dP == null || dQ == null || qInv == null)
+      return c.modPow(key.getPrivateExponent(), key.getModulus());
+    BigInteger m1 = c.modPow(dP, p);
+    BigInteger m2 = c.modPow(dQ, q);
+    BigInteger h = m1.subtract(m2).multiply(qInv).mod(p);
+    return m2.add(q.multiply(h));
+  }
+
   /**
    * Decrypts the ciphertext, employing RSA blinding if possible.
    */
@@ -281,7 +301,11 @@ public class RSACipherImpl
         r = new BigInteger(n.bitLength() - 1, random);
         enc = r.modPow(pubExp, n).multiply(enc).mod(n);
       }
-    BigInteger dec = enc.modPow(decipherKey.getPrivateExponent(), n);
+    BigInteger dec;
+    if (decipherKey instanceof RSAPrivateCrtKey)
+      dec = crtModPow(enc, (RSAPrivateCrtKey) decipherKey);
+    else
+      dec = enc.modPow(decipherKey.getPrivateExponent(), n);
     if (pubExp != null)
       {
         dec = dec.multiply (r.modInverse (n)).mod (n);
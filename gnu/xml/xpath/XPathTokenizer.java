@@ -38,13 +38,12 @@ exception statement from your version. */
 package gnu.xml.xpath;
 
 import gnu.java.lang.CPStringBuilder;
+import gnu.java.util.primitive.ObjectIntMap;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
-import java.util.Map;
-import java.util.TreeMap;
 
 /*import antlr.Token;
 import antlr.TokenStream;
@@ -92,30 +91,30 @@ implements XPathParser.yyInput
 
   }
 
-  static final Map<String,Integer> keywords = new TreeMap<String,Integer> ();
+  static final ObjectIntMap<String> keywords = new ObjectIntMap<String> ();
   static
   {
-    keywords.put ("ancestor", new Integer (XPathParser.ANCESTOR));
-    keywords.put ("ancestor-or-self", new Integer (XPathParser.ANCESTOR_OR_SELF));
-    keywords.put ("attribute", new Integer (XPathParser.ATTRIBUTE));
-    keywords.put ("child", new Integer (XPathParser.CHILD));
-    keywords.put ("descendant", new Integer (XPathParser.DESCENDANT));
-    keywords.put ("descendant-or-self", new Integer (XPathParser.DESCENDANT_OR_SELF));
-    keywords.put ("following", new Integer (XPathParser.FOLLOWING));
-    keywords.put ("following-sibling", new Integer (XPathParser.FOLLOWING_SIBLING));
-    keywords.put ("namespace", new Integer (XPathParser.NAMESPACE));
-    keywords.put ("parent", new Integer (XPathParser.PARENT));
-    keywords.put ("preceding", new Integer (XPathParser.PRECEDING));
-    keywords.put ("preceding-sibling", new Integer (XPathParser.PRECEDING_SIBLING));
-    keywords.put ("self", new Integer (XPathParser.SELF));
-    keywords.put ("div", new Integer (XPathParser.DIV));
-    keywords.put ("mod", new Integer (XPathParser.MOD));
-    keywords.put ("or", new Integer (XPathParser.OR));
-    keywords.put ("and", new Integer (XPathParser.AND));
-    keywords.put ("comment", new Integer (XPathParser.COMMENT));
-    keywords.put ("processing-instruction", new Integer (XPathParser.PROCESSING_INSTRUCTION));
-    keywords.put ("text", new Integer (XPathParser.TEXT));
-    keywords.put ("node", new Integer (XPathParser.NODE));
+    keywords.put ("ancestor", XPathParser.ANCESTOR);
+    keywords.put ("ancestor-or-self", XPathParser.ANCESTOR_OR_SELF);
+    keywords.put ("attribute", XPathParser.ATTRIBUTE);
+    keywords.put ("child", XPathParser.CHILD);
+    keywords.put ("descendant", XPathParser.DESCENDANT);
+    keywords.put ("descendant-or-self", XPathParser.DESCENDANT_OR_SELF);
+    keywords.put ("following", XPathParser.FOLLOWING);
+    keywords.put ("following-sibling", XPathParser.FOLLOWING_SIBLING);
+    keywords.put ("namespace", XPathParser.NAMESPACE);
+    keywords.put ("parent", XPathParser.PARENT);
+    keywords.put ("preceding", XPathParser.PRECEDING);
+    keywords.put ("preceding-sibling", XPathParser.PRECEDING_SIBLING);
+    keywords.put ("self", XPathParser.SELF);
+    keywords.put ("div", XPathParser.DIV);
+    keywords.put ("mod", XPathParser.MOD);
+    keywords.put ("or", XPathParser.OR);
+    keywords.put ("and", XPathParser.AND);
+    keywords.put ("comment", XPathParser.COMMENT);
+    keywords.put ("processing-instruction", XPathParser.PROCESSING_INSTRUCTION);
+    keywords.put ("text", XPathParser.TEXT);
+    keywords.put ("node", XPathParser.NODE);
   }
 
   Reader in;
@@ -373,14 +372,13 @@ implements XPathParser.yyInput
           {
             in.reset ();
             String name = buf.toString ();
-            Integer keyword = (Integer) keywords.get (name);
-            if (keyword == null)
+            int val = keywords.get (name, -1);
+            if (val == -1)
               {
                 return new XPathToken (XPathParser.NAME, name);
               }
             else
               {
-                int val = keyword.intValue ();
                 switch (val)
                   {
                   case XPathParser.NODE:
@@ -41,6 +41,7 @@ package java.io;
 
 import gnu.classpath.Pair;
 import gnu.classpath.VMStackWalker;
+import gnu.java.util.primitive.IntObjectMap;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
@@ -51,10 +52,8 @@ import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
-import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
-import java.util.Map;
 import java.util.TreeSet;
 
 /**
@@ -106,7 +105,7 @@ public class ObjectInputStream extends InputStream
     this.blockDataInput = new DataInputStream(this);
     this.realInputStream = new DataInputStream(in);
     this.nextOID = baseWireHandle;
-    handles = new HashMap<Integer,Pair<Boolean,Object>>();
+    handles = new IntObjectMap<Pair<Boolean,Object>>();
     this.classLookupTable = new Hashtable<Class,ObjectStreamClass>();
     setBlockDataMode(true);
     readStreamHeader();
@@ -2064,7 +2063,7 @@ public class ObjectInputStream extends InputStream
   private boolean useSubclassMethod;
   private int nextOID;
   private boolean resolveEnabled;
-  private Map<Integer,Pair<Boolean,Object>> handles;
+  private IntObjectMap<Pair<Boolean,Object>> handles;
   private Object currentObject;
   private ObjectStreamClass currentObjectStreamClass;
   private TreeSet<ValidatorAndPriority> currentObjectValidators;
@@ -1027,9 +1027,8 @@ abstract class AbstractStringBuffer
   private boolean regionMatches(int toffset, String other)
   {
     int len = other.count;
-    int index = other.offset;
-    while (--len >= 0)
-      if (value[toffset++] != other.value[index++])
+    for (int index = 0; index < len; index++)
+      if (value[toffset++] != other.charAt(index))
         return false;
     return true;
   }
@@ -39,6 +39,7 @@ exception statement from your version. */
 package java.lang;
 
 import gnu.java.lang.CPStringBuilder;
+import gnu.java.lang.FloatingDecimal;
 
 /**
  * Instances of class <code>Double</code> represent primitive
@@ -182,7 +183,7 @@ public final class Double extends Number implements Comparable<Double>
    */
   public static String toString(double d)
   {
-    return VMDouble.toString(d, false);
+    return FloatingDecimal.toString(d);
   }
 
   /**
@@ -345,7 +346,7 @@ public final class Double extends Number implements Comparable<Double>
    */
   public static double parseDouble(String str)
   {
-    return VMDouble.parseDouble(str);
+    return FloatingDecimal.parseDouble(str);
   }
 
   /**
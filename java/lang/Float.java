@@ -40,6 +40,7 @@ exception statement from your version. */
 package java.lang;
 
 import gnu.java.lang.CPStringBuilder;
+import gnu.java.lang.FloatingDecimal;
 
 /**
  * Instances of class <code>Float</code> represent primitive
@@ -193,7 +194,7 @@ public final class Float extends Number implements Comparable<Float>
    */
   public static String toString(float f)
   {
-    return VMFloat.toString(f);
+    return FloatingDecimal.toString(f);
   }
 
   /**
@@ -358,7 +359,7 @@ public final class Float extends Number implements Comparable<Float>
    */
   public static float parseFloat(String str)
   {
-    return VMFloat.parseFloat(str);
+    return FloatingDecimal.parseFloat(str);
   }
 
   /**
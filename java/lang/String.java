@@ -39,6 +39,8 @@ exception statement from your version. */
 
 package java.lang;
 
+import gnu.classpath.Configuration;
+
 import gnu.java.lang.CharData;
 import gnu.java.lang.CPStringBuilder;
 
@@ -81,6 +83,11 @@ import java.util.regex.PatternSyntaxException;
  * listing the fields of this class, a String object is converted to a string
  * literal in the object stream.
  *
+ * <p>When the library is configured with compact strings, a String whose
+ * characters all fit in Latin-1 keeps them one byte each in
+ * <code>latin1</code> instead of in <code>value</code>, halving the space
+ * they take.
+ *
  * @author Paul N. Fisher
  * @author Eric Blake (ebb9@email.byu.edu)
  * @author Per Bothner (bothner@cygnus.com)
@@ -118,11 +125,46 @@ public final class String
           = zeroBasedStringValue(CharData.UPPER_SPECIAL);
 
   /**
-   * Characters which make up the String.
+   * Whether Strings whose characters all fit in Latin-1 are stored one byte
+   * per character.  This is fixed when the library is configured, as the VM
+   * must also understand the compact form.
+   * @see Configuration#COMPACT_STRINGS
+   */
+  static final boolean COMPACT_STRINGS = Configuration.COMPACT_STRINGS;
+
+  /**
+   * The coder of a String whose characters are in <code>value</code>.
+   * This is zero, so that a String which the VM allocates without
+   * setting <code>coder</code> is read from <code>value</code>.
+   */
+  static final byte UTF16 = 0;
+
+  /**
+   * The coder of a String whose characters are in <code>latin1</code>.
+   */
+  static final byte LATIN1 = 1;
+
+  /**
+   * Characters which make up the String, or null if the String is compact.
    * Package access is granted for use by StringBuffer.
    */
   final char[] value;
 
+  /**
+   * Characters which make up a compact String, one byte each, or null if
+   * the String is not compact.  Offset and count apply to this array just
+   * as they do to value.
+   */
+  final byte[] latin1;
+
+  /**
+   * {@link #LATIN1} if the characters are in latin1, {@link #UTF16} if they
+   * are in value.  Without {@link #COMPACT_STRINGS}, this is always UTF16.
+   * VMs which create Strings themselves may leave it zero, which is
+   * UTF16, as long as they fill in value.
+   */
+  final byte coder;
+
   /**
    * Holds the number of characters in value.  This number is generally
    * the same as value.length, but can be smaller because substrings and
@@ -197,6 +239,8 @@ public final class String
   public String()
   {
     value = "".value;
+    latin1 = "".latin1;
+    coder = "".coder;
     offset = 0;
     count = 0;
   }
@@ -211,6 +255,8 @@ public final class String
   public String(String str)
   {
     value = str.value;
+    latin1 = str.latin1;
+    coder = str.coder;
     offset = str.offset;
     count = str.count;
     cachedHashCode = str.cachedHashCode;
@@ -273,6 +319,16 @@ public final class String
    *             correct encoding
    */
   public String(byte[] ascii, int hibyte, int offset, int count)
+  {
+    this(hibyteToChars(ascii, hibyte, offset, count), 0, count, true);
+  }
+
+  /**
+   * Helper for {@link #String(byte[], int, int, int)}, that checks the
+   * bounds and combines the bytes with the top byte.
+   */
+  private static char[] hibyteToChars(byte[] ascii, int hibyte, int offset,
+                                      int count)
   {
     if (offset < 0)
       throw new StringIndexOutOfBoundsException("offset: " + offset);
@@ -282,13 +338,12 @@ public final class String
     if (ascii.length - offset < count)
       throw new StringIndexOutOfBoundsException("offset + count: "
                                                 + (offset + count));
-    value = new char[count];
-    this.offset = 0;
-    this.count = count;
+    char[] value = new char[count];
     hibyte <<= 8;
     offset += count;
     while (--count >= 0)
       value[count] = (char) (hibyte | (ascii[--offset] & 0xff));
+    return value;
   }
 
   /**
@@ -389,6 +444,20 @@ public final class String
    * @since 1.6
    */
   public String(byte[] data, int offset, int count, Charset encoding)
+  {
+    this(decode(data, offset, count, encoding), data, offset, count);
+  }
+
+  /**
+   * Helper for the decoding constructors, that checks the bounds and
+   * decodes the bytes.  The result always has a backing array.
+   *
+   * @return the decoded characters, or null if each byte decodes to the
+   *         char with the same value, so that the bytes can be used as
+   *         they are
+   */
+  private static CharBuffer decode(byte[] data, int offset, int count,
+                                   Charset encoding)
   {
     if (offset < 0)
       throw new StringIndexOutOfBoundsException("offset: " + offset);
@@ -398,6 +467,8 @@ public final class String
     if (data.length - offset < count)
       throw new StringIndexOutOfBoundsException("offset + count: "
                                                 + (offset + count));
+    if (COMPACT_STRINGS && isLatin1Compatible(encoding, data, offset, count))
+      return null;
     try
       {
         CharsetDecoder csd = encoding.newDecoder();
@@ -405,17 +476,11 @@ public final class String
         csd.onUnmappableCharacter(CodingErrorAction.REPLACE);
         CharBuffer cbuf = csd.decode(ByteBuffer.wrap(data, offset, count));
         if(cbuf.hasArray())
-          {
-            value = cbuf.array();
-            this.offset = cbuf.position();
-            this.count = cbuf.remaining();
-          } else {
-            // Doubt this will happen. But just in case.
-            value = new char[cbuf.remaining()];
-            cbuf.get(value);
-            this.offset = 0;
-            this.count = value.length;
-          }
+          return cbuf;
+        // Doubt this will happen. But just in case.
+        char[] value = new char[cbuf.remaining()];
+        cbuf.get(value);
+        return CharBuffer.wrap(value);
       }
     catch(CharacterCodingException e)
       {
@@ -424,6 +489,67 @@ public final class String
       }
   }
 
+  /**
+   * Returns true if the given bytes decode to the chars with the same
+   * values in the given charset: any bytes in ISO-8859-1, and ASCII bytes
+   * in US-ASCII and UTF-8.
+   */
+  private static boolean isLatin1Compatible(Charset encoding, byte[] data,
+                                            int offset, int count)
+  {
+    String name = encoding.name();
+    if (name.equals("ISO-8859-1"))
+      return true;
+    if (! name.equals("UTF-8") && ! name.equals("US-ASCII"))
+      return false;
+    int limit = offset + count;
+    for (int i = offset; i < limit; i++)
+      if (data[i] < 0)
+        return false;
+    return true;
+  }
+
+  /**
+   * Helper for the decoding constructors, that takes the result of
+   * {@link #decode(byte[], int, int, Charset)}.
+   *
+   * @param cbuf the decoded characters
+   * @param data the bytes, used if cbuf is null
+   * @param offset the offset of the bytes
+   * @param count the number of bytes
+   */
+  private String(CharBuffer cbuf, byte[] data, int offset, int count)
+  {
+    if (cbuf == null)
+      {
+        value = null;
+        latin1 = new byte[count];
+        VMSystem.arraycopy(data, offset, latin1, 0, count);
+        coder = LATIN1;
+        this.offset = 0;
+        this.count = count;
+        return;
+      }
+    char[] chars = cbuf.array();
+    int start = cbuf.arrayOffset() + cbuf.position();
+    int len = cbuf.remaining();
+    if (COMPACT_STRINGS && canCompress(chars, start, len))
+      {
+        value = null;
+        latin1 = compress(chars, start, len);
+        coder = LATIN1;
+        this.offset = 0;
+      }
+    else
+      {
+        value = chars;
+        latin1 = null;
+        coder = UTF16;
+        this.offset = start;
+      }
+    this.count = len;
+  }
+
   /**
    * Creates a new String using the byte array. Uses the specified encoding
    * type to decode the byte array, so the resulting string may be longer or
@@ -486,6 +612,16 @@ public final class String
    * @since 1.1
    */
   public String(byte[] data, int offset, int count)
+  {
+    this(decode(data, offset, count), data, offset, count);
+  }
+
+  /**
+   * Helper for {@link #String(byte[], int, int)}, that decodes the bytes
+   * with the default charset, like
+   * {@link #decode(byte[], int, int, Charset)}.
+   */
+  private static CharBuffer decode(byte[] data, int offset, int count)
   {
     if (offset < 0)
       throw new StringIndexOutOfBoundsException("offset: " + offset);
@@ -495,41 +631,21 @@ public final class String
     if (data.length - offset < count)
       throw new StringIndexOutOfBoundsException("offset + count: "
                                                 + (offset + count));
-    int o, c;
-    char[] v;
-    String encoding;
     try
         {
-          encoding = System.getProperty("file.encoding");
-          CharsetDecoder csd = Charset.forName(encoding).newDecoder();
-          csd.onMalformedInput(CodingErrorAction.REPLACE);
-          csd.onUnmappableCharacter(CodingErrorAction.REPLACE);
-          CharBuffer cbuf = csd.decode(ByteBuffer.wrap(data, offset, count));
-          if(cbuf.hasArray())
-            {
-              v = cbuf.array();
-              o = cbuf.position();
-              c = cbuf.remaining();
-            } else {
-              // Doubt this will happen. But just in case.
-              v = new char[cbuf.remaining()];
-              cbuf.get(v);
-              o = 0;
-              c = v.length;
-            }
+          String encoding = System.getProperty("file.encoding");
+          return decode(data, offset, count, Charset.forName(encoding));
         } catch(Exception ex){
             // If anything goes wrong (System property not set,
             // NIO provider not available, etc)
             // Default to the 'safe' encoding ISO8859_1
-            v = new char[count];
-            o = 0;
-            c = count;
+            if (COMPACT_STRINGS)
+              return null;
+            char[] v = new char[count];
             for (int i=0;i<count;i++)
-              v[i] = (char)data[offset+i];
+              v[i] = (char) (data[offset+i] & 0xff);
+            return CharBuffer.wrap(v);
         }
-    this.value = v;
-    this.offset = o;
-    this.count = c;
   }
 
   /**
@@ -565,16 +681,26 @@ public final class String
       {
         offset = 0;
         count = buffer.count;
+        if (COMPACT_STRINGS && canCompress(buffer.value, 0, count))
+          {
+            value = null;
+            latin1 = compress(buffer.value, 0, count);
+            coder = LATIN1;
+          }
         // Share unless buffer is 3/4 empty.
-        if ((count << 2) < buffer.value.length)
+        else if ((count << 2) < buffer.value.length)
           {
             value = new char[count];
             VMSystem.arraycopy(buffer.value, 0, value, 0, count);
+            latin1 = null;
+            coder = UTF16;
           }
         else
           {
             buffer.shared = true;
             value = buffer.value;
+            latin1 = null;
+            coder = UTF16;
           }
       }
   }
@@ -611,20 +737,154 @@ public final class String
     if (data.length - offset < count)
       throw new StringIndexOutOfBoundsException("offset + count: "
                                                 + (offset + count));
-    if (dont_copy)
+    if (COMPACT_STRINGS && canCompress(data, offset, count))
+      {
+        value = null;
+        latin1 = compress(data, offset, count);
+        coder = LATIN1;
+        this.offset = 0;
+      }
+    else if (dont_copy)
       {
         value = data;
+        latin1 = null;
+        coder = UTF16;
         this.offset = offset;
       }
     else
       {
         value = new char[count];
         VMSystem.arraycopy(data, offset, value, 0, count);
+        latin1 = null;
+        coder = UTF16;
+        this.offset = 0;
+      }
+    this.count = count;
+  }
+
+  /**
+   * Special constructor for compact Strings, which can share an array when
+   * safe to do so.  Only used when {@link #COMPACT_STRINGS} is true.
+   *
+   * @param data the Latin-1 characters to copy
+   * @param offset the location to start from
+   * @param count the number of characters to use
+   * @param dont_copy true if the array is trusted, and need not be copied
+   */
+  private String(byte[] data, int offset, int count, boolean dont_copy)
+  {
+    value = null;
+    coder = LATIN1;
+    if (dont_copy)
+      {
+        latin1 = data;
+        this.offset = offset;
+      }
+    else
+      {
+        latin1 = new byte[count];
+        VMSystem.arraycopy(data, offset, latin1, 0, count);
         this.offset = 0;
       }
     this.count = count;
   }
 
+  /**
+   * Returns true if the given characters all fit in Latin-1.
+   */
+  private static boolean canCompress(char[] data, int offset, int count)
+  {
+    int limit = offset + count;
+    for (int i = offset; i < limit; i++)
+      if (data[i] > 0xff)
+        return false;
+    return true;
+  }
+
+  /**
+   * Copies characters that all fit in Latin-1 into a byte array.
+   */
+  private static byte[] compress(char[] data, int offset, int count)
+  {
+    byte[] bytes = new byte[count];
+    for (int i = 0; i < count; i++)
+      bytes[i] = (byte) data[offset + i];
+    return bytes;
+  }
+
+  /**
+   * Returns true if this String keeps its characters in latin1.
+   */
+  private boolean isLatin1()
+  {
+    return COMPACT_STRINGS && coder == LATIN1;
+  }
+
+  /**
+   * Returns the character at an index, which must be in bounds, whichever
+   * array holds it.
+   *
+   * @param index the index, relative to offset
+   * @return the character
+   */
+  private char at(int index)
+  {
+    if (COMPACT_STRINGS && coder == LATIN1)
+      return (char) (latin1[offset + index] & 0xff);
+    return value[offset + index];
+  }
+
+  /**
+   * Compares regions of two Strings, which must be in bounds, for equality.
+   * The loops work on the arrays directly for each pair of coders.
+   *
+   * @param a the first String
+   * @param ai the start of the region of a
+   * @param b the second String
+   * @param bi the start of the region of b
+   * @param len the length of the regions
+   * @return true if the regions hold the same characters
+   */
+  private static boolean regionEquals(String a, int ai, String b, int bi,
+                                      int len)
+  {
+    ai += a.offset;
+    bi += b.offset;
+    if (COMPACT_STRINGS && a.coder == LATIN1)
+      {
+        byte[] av = a.latin1;
+        if (b.coder == LATIN1)
+          {
+            byte[] bv = b.latin1;
+            while (--len >= 0)
+              if (av[ai++] != bv[bi++])
+                return false;
+          }
+        else
+          {
+            char[] bv = b.value;
+            while (--len >= 0)
+              if ((av[ai++] & 0xff) != bv[bi++])
+                return false;
+          }
+        return true;
+      }
+    char[] av = a.value;
+    if (COMPACT_STRINGS && b.coder == LATIN1)
+      {
+        byte[] bv = b.latin1;
+        while (--len >= 0)
+          if (av[ai++] != (bv[bi++] & 0xff))
+            return false;
+        return true;
+      }
+    char[] bv = b.value;
+    while (--len >= 0)
+      if (av[ai++] != bv[bi++])
+        return false;
+    return true;
+  }
+
   /**
    * Creates a new String containing the characters represented in the
    * given subarray of Unicode code points.
@@ -662,9 +922,20 @@ public final class String
       {
         pos += Character.toChars(codePoints[i], temp, pos);
       }
+    if (COMPACT_STRINGS && canCompress(temp, 0, pos))
+      {
+        this.value = null;
+        this.latin1 = compress(temp, 0, pos);
+        this.coder = LATIN1;
+      }
+    else
+      {
+        this.value = new char[pos];
+        System.arraycopy(temp, 0, value, 0, pos);
+        this.latin1 = null;
+        this.coder = UTF16;
+      }
     this.count = pos;
-    this.value = new char[pos];
-    System.arraycopy(temp, 0, value, 0, pos);
     this.offset = 0;
   }
 
@@ -690,6 +961,8 @@ public final class String
   {
     if (index < 0 || index >= count)
       throw new StringIndexOutOfBoundsException(index);
+    if (COMPACT_STRINGS && coder == LATIN1)
+      return (char) (latin1[offset + index] & 0xff);
     return value[offset + index];
   }
 
@@ -750,6 +1023,18 @@ public final class String
   {
     if (srcBegin < 0 || srcBegin > srcEnd || srcEnd > count)
       throw new StringIndexOutOfBoundsException();
+    if (COMPACT_STRINGS && coder == LATIN1)
+      {
+        int len = srcEnd - srcBegin;
+        if (dstBegin < 0 || dstBegin > dst.length - len)
+          throw new ArrayIndexOutOfBoundsException();
+        byte[] src = latin1;
+        int i = srcBegin + offset;
+        int limit = srcEnd + offset;
+        while (i < limit)
+          dst[dstBegin++] = (char) (src[i++] & 0xff);
+        return;
+      }
     VMSystem.arraycopy(value, srcBegin + offset,
                      dst, dstBegin, srcEnd - srcBegin);
   }
@@ -778,6 +1063,11 @@ public final class String
       throw new StringIndexOutOfBoundsException();
     int i = srcEnd - srcBegin;
     srcBegin += offset;
+    if (COMPACT_STRINGS && coder == LATIN1)
+      {
+        VMSystem.arraycopy(latin1, srcBegin, dst, dstBegin, i);
+        return;
+      }
     while (--i >= 0)
       dst[dstBegin++] = (byte) value[srcBegin++];
   }
@@ -817,12 +1107,23 @@ public final class String
    */
   public byte[] getBytes(Charset enc)
   {
+    if (COMPACT_STRINGS && coder == LATIN1)
+      {
+        byte[] bytes = encodeLatin1(enc);
+        if (bytes != null)
+          return bytes;
+      }
     try
       {
         CharsetEncoder cse = enc.newEncoder();
         cse.onMalformedInput(CodingErrorAction.REPLACE);
         cse.onUnmappableCharacter(CodingErrorAction.REPLACE);
-        ByteBuffer bbuf = cse.encode(CharBuffer.wrap(value, offset, count));
+        CharBuffer cbuf;
+        if (COMPACT_STRINGS && coder == LATIN1)
+          cbuf = CharBuffer.wrap(toCharArray());
+        else
+          cbuf = CharBuffer.wrap(value, offset, count);
+        ByteBuffer bbuf = cse.encode(cbuf);
         if(bbuf.hasArray())
           return bbuf.array();
 
@@ -850,6 +1151,13 @@ public final class String
    */
   public byte[] getBytes()
   {
+      if (COMPACT_STRINGS && coder == LATIN1)
+        {
+          Charset cs = defaultCharset();
+          byte[] bytes = cs == null ? null : encodeLatin1(cs);
+          if (bytes != null)
+            return bytes;
+        }
       try
           {
               return getBytes(System.getProperty("file.encoding"));
@@ -858,12 +1166,78 @@ public final class String
               // For now, default to the 'safe' encoding.
               byte[] bytes = new byte[count];
               for(int i=0;i<count;i++)
-                  bytes[i] = (byte)((value[offset+i] <= 0xFF)?
-                                    value[offset+i]:'?');
+                  bytes[i] = (byte)((at(i) <= 0xFF)? at(i):'?');
               return bytes;
       }
   }
 
+  /**
+   * Helper for getBytes(), that looks up the default charset.
+   *
+   * @return the charset, or null if it is not available
+   */
+  private static Charset defaultCharset()
+  {
+    try
+      {
+        return Charset.forName(System.getProperty("file.encoding"));
+      }
+    catch (Exception e)
+      {
+        return null;
+      }
+  }
+
+  /**
+   * Encodes a compact String without going through a CharsetEncoder, for
+   * the charsets where that is simple: ISO-8859-1 is a copy of latin1,
+   * US-ASCII is too if every character is ASCII, and UTF-8 takes one or
+   * two bytes per character.
+   *
+   * @param enc the charset
+   * @return the encoded bytes, or null if enc is another charset
+   */
+  private byte[] encodeLatin1(Charset enc)
+  {
+    String name = enc.name();
+    int limit = offset + count;
+    if (name.equals("ISO-8859-1"))
+      {
+        byte[] bytes = new byte[count];
+        VMSystem.arraycopy(latin1, offset, bytes, 0, count);
+        return bytes;
+      }
+    boolean ascii = name.equals("US-ASCII");
+    if (! ascii && ! name.equals("UTF-8"))
+      return null;
+    int high = 0;
+    for (int i = offset; i < limit; i++)
+      if (latin1[i] < 0)
+        high++;
+    if (high == 0)
+      {
+        byte[] bytes = new byte[count];
+        VMSystem.arraycopy(latin1, offset, bytes, 0, count);
+        return bytes;
+      }
+    if (ascii)
+      return null;
+    byte[] bytes = new byte[count + high];
+    int j = 0;
+    for (int i = offset; i < limit; i++)
+      {
+        int c = latin1[i] & 0xff;
+        if (c < 0x80)
+          bytes[j++] = (byte) c;
+        else
+          {
+            bytes[j++] = (byte) (0xc0 | (c >> 6));
+            bytes[j++] = (byte) (0x80 | (c & 0x3f));
+          }
+      }
+    return bytes;
+  }
+
   /**
    * Predicate which compares anObject to this. This is true only for Strings
    * with the same character sequence.
@@ -880,15 +1254,10 @@ public final class String
     String str2 = (String) anObject;
     if (count != str2.count)
       return false;
-    if (value == str2.value && offset == str2.offset)
+    if (value == str2.value && latin1 == str2.latin1
+        && offset == str2.offset)
       return true;
-    int i = count;
-    int x = offset;
-    int y = str2.offset;
-    while (--i >= 0)
-      if (value[x++] != str2.value[y++])
-        return false;
-    return true;
+    return regionEquals(this, 0, str2, 0, count);
   }
 
   /**
@@ -909,9 +1278,8 @@ public final class String
         if (value == buffer.value)
           return true; // Possible if shared.
         int i = count;
-        int x = offset + count;
         while (--i >= 0)
-          if (value[--x] != buffer.value[i])
+          if (at(i) != buffer.value[i])
             return false;
         return true;
       }
@@ -932,7 +1300,7 @@ public final class String
     if (seq.length() != count)
       return false;
     for (int i = 0; i < count; ++i)
-      if (value[offset + i] != seq.charAt(i))
+      if (at(i) != seq.charAt(i))
         return false;
     return true;
   }
@@ -959,12 +1327,11 @@ public final class String
     if (anotherString == null || count != anotherString.count)
       return false;
     int i = count;
-    int x = offset;
-    int y = anotherString.offset;
+    int x = 0;
     while (--i >= 0)
       {
-        char c1 = value[x++];
-        char c2 = anotherString.value[y++];
+        char c1 = at(x);
+        char c2 = anotherString.at(x++);
         // Note that checking c1 != c2 is redundant, but avoids method calls.
         if (c1 != c2
             && Character.toUpperCase(c1) != Character.toUpperCase(c2)
@@ -993,11 +1360,35 @@ public final class String
     int i = Math.min(count, anotherString.count);
     int x = offset;
     int y = anotherString.offset;
-    while (--i >= 0)
+    if (COMPACT_STRINGS && coder == LATIN1 && anotherString.coder == LATIN1)
       {
-        int result = value[x++] - anotherString.value[y++];
-        if (result != 0)
-          return result;
+        byte[] v1 = latin1;
+        byte[] v2 = anotherString.latin1;
+        while (--i >= 0)
+          {
+            int result = (v1[x++] & 0xff) - (v2[y++] & 0xff);
+            if (result != 0)
+              return result;
+          }
+      }
+    else if (COMPACT_STRINGS
+             && (coder == LATIN1 || anotherString.coder == LATIN1))
+      {
+        for (int k = 0; k < i; k++)
+          {
+            int result = at(k) - anotherString.at(k);
+            if (result != 0)
+              return result;
+          }
+      }
+    else
+      {
+        while (--i >= 0)
+          {
+            int result = value[x++] - anotherString.value[y++];
+            if (result != 0)
+              return result;
+          }
       }
     return count - anotherString.count;
   }
@@ -1019,12 +1410,11 @@ public final class String
   public int compareToIgnoreCase(String str)
   {
     int i = Math.min(count, str.count);
-    int x = offset;
-    int y = str.offset;
+    int x = 0;
     while (--i >= 0)
       {
-        int result = Character.toLowerCase(Character.toUpperCase(value[x++]))
-          - Character.toLowerCase(Character.toUpperCase(str.value[y++]));
+        int result = Character.toLowerCase(Character.toUpperCase(at(x)))
+          - Character.toLowerCase(Character.toUpperCase(str.at(x++)));
         if (result != 0)
           return result;
       }
@@ -1072,19 +1462,17 @@ public final class String
     if (toffset < 0 || ooffset < 0 || toffset + len > count
         || ooffset + len > other.count)
       return false;
-    toffset += offset;
-    ooffset += other.offset;
+    if (! ignoreCase)
+      return regionEquals(this, toffset, other, ooffset, len);
     while (--len >= 0)
       {
-        char c1 = value[toffset++];
-        char c2 = other.value[ooffset++];
-        // Note that checking c1 != c2 is redundant when ignoreCase is true,
-        // but it avoids method calls.
+        char c1 = at(toffset++);
+        char c2 = other.at(ooffset++);
+        // Note that checking c1 != c2 is redundant, but it avoids method
+        // calls.
         if (c1 != c2
-            && (! ignoreCase
-                || (Character.toLowerCase(c1) != Character.toLowerCase(c2)
-                    && (Character.toUpperCase(c1)
-                        != Character.toUpperCase(c2)))))
+            && Character.toLowerCase(c1) != Character.toLowerCase(c2)
+            && Character.toUpperCase(c1) != Character.toUpperCase(c2))
           return false;
       }
     return true;
@@ -1150,8 +1538,15 @@ public final class String
     // Compute the hash code using a local variable to be reentrant.
     int hashCode = 0;
     int limit = count + offset;
-    for (int i = offset; i < limit; i++)
-      hashCode = hashCode * 31 + value[i];
+    if (COMPACT_STRINGS && coder == LATIN1)
+      {
+        byte[] bytes = latin1;
+        for (int i = offset; i < limit; i++)
+          hashCode = hashCode * 31 + (bytes[i] & 0xff);
+      }
+    else
+      for (int i = offset; i < limit; i++)
+        hashCode = hashCode * 31 + value[i];
     return cachedHashCode = hashCode;
   }
 
@@ -1183,6 +1578,17 @@ public final class String
     if (fromIndex < 0)
       fromIndex = 0;
     int i = fromIndex + offset;
+    if (COMPACT_STRINGS && coder == LATIN1)
+      {
+        if (ch > 0xff)
+          return -1;
+        byte b = (byte) ch;
+        byte[] bytes = latin1;
+        for ( ; fromIndex < count; fromIndex++)
+          if (bytes[i++] == b)
+            return fromIndex;
+        return -1;
+      }
     for ( ; fromIndex < count; fromIndex++)
       if (value[i++] == ch)
         return fromIndex;
@@ -1217,6 +1623,17 @@ public final class String
     if (fromIndex >= count)
       fromIndex = count - 1;
     int i = fromIndex + offset;
+    if (COMPACT_STRINGS && coder == LATIN1)
+      {
+        if (ch > 0xff)
+          return -1;
+        byte b = (byte) ch;
+        byte[] bytes = latin1;
+        for ( ; fromIndex >= 0; fromIndex--)
+          if (bytes[i--] == b)
+            return fromIndex;
+        return -1;
+      }
     for ( ; fromIndex >= 0; fromIndex--)
       if (value[i--] == ch)
         return fromIndex;
@@ -1250,10 +1667,21 @@ public final class String
   {
     if (fromIndex < 0)
       fromIndex = 0;
-    int limit = count - str.count;
-    for ( ; fromIndex <= limit; fromIndex++)
-      if (regionMatches(fromIndex, str, 0, str.count))
-        return fromIndex;
+    int len = str.count;
+    int limit = count - len;
+    if (len == 0)
+      return fromIndex <= limit ? fromIndex : -1;
+    // Find each occurrence of the first character, then check the rest.
+    char first = str.at(0);
+    while (fromIndex <= limit)
+      {
+        fromIndex = indexOf(first, fromIndex);
+        if (fromIndex < 0 || fromIndex > limit)
+          return -1;
+        if (regionEquals(this, fromIndex + 1, str, 1, len - 1))
+          return fromIndex;
+        fromIndex++;
+      }
     return -1;
   }
 
@@ -1321,6 +1749,9 @@ public final class String
     if (beginIndex == 0 && endIndex == count)
       return this;
     int len = endIndex - beginIndex;
+    if (COMPACT_STRINGS && coder == LATIN1)
+      return new String(latin1, beginIndex + offset, len,
+                        (len << 2) >= latin1.length);
     // Package constructor avoids an array copy.
     return new String(value, beginIndex + offset, len,
                       (len << 2) >= value.length);
@@ -1357,9 +1788,16 @@ public final class String
       return this;
     if (count == 0)
       return str;
+    if (COMPACT_STRINGS && coder == LATIN1 && str.coder == LATIN1)
+      {
+        byte[] bytes = new byte[count + str.count];
+        VMSystem.arraycopy(latin1, offset, bytes, 0, count);
+        VMSystem.arraycopy(str.latin1, str.offset, bytes, count, str.count);
+        return new String(bytes, 0, bytes.length, true);
+      }
     char[] newStr = new char[count + str.count];
-    VMSystem.arraycopy(value, offset, newStr, 0, count);
-    VMSystem.arraycopy(str.value, str.offset, newStr, count, str.count);
+    getChars(0, count, newStr, 0);
+    str.getChars(0, str.count, newStr, count);
     // Package constructor avoids an array copy.
     return new String(newStr, 0, newStr.length, true);
   }
@@ -1376,18 +1814,23 @@ public final class String
   {
     if (oldChar == newChar)
       return this;
-    int i = count;
-    int x = offset - 1;
-    while (--i >= 0)
-      if (value[++x] == oldChar)
-        break;
-    if (i < 0)
+    int x = indexOf(oldChar, 0);
+    if (x < 0)
       return this;
+    if (COMPACT_STRINGS && coder == LATIN1 && newChar <= 0xff)
+      {
+        byte[] bytes = new byte[count];
+        VMSystem.arraycopy(latin1, offset, bytes, 0, count);
+        byte b = (byte) oldChar;
+        for ( ; x < count; x++)
+          if (bytes[x] == b)
+            bytes[x] = (byte) newChar;
+        return new String(bytes, 0, count, true);
+      }
     char[] newStr = toCharArray();
-    newStr[x - offset] = newChar;
-    while (--i >= 0)
-      if (value[++x] == oldChar)
-        newStr[x - offset] = newChar;
+    for ( ; x < count; x++)
+      if (newStr[x] == oldChar)
+        newStr[x] = newChar;
     // Package constructor avoids an array copy.
     return new String(newStr, 0, count, true);
   }
@@ -1518,10 +1961,10 @@ public final class String
   {
     // First, see if the current string is already lower case.
     int i = count;
-    int x = offset - 1;
+    int x = -1;
     while (--i >= 0)
       {
-        char ch = value[++x];
+        char ch = at(++x);
         if ((ch == '\u0049') || ch != Character.toLowerCase(ch))
           break;
       }
@@ -1531,18 +1974,18 @@ public final class String
     // Now we perform the conversion. Fortunately, there are no multi-character
     // lowercase expansions in Unicode 3.0.0.
     char[] newStr = new char[count];
-    VMSystem.arraycopy(value, offset, newStr, 0, x - offset);
+    getChars(0, x, newStr, 0);
     do
       {
-        char ch = value[x];
+        char ch = at(x);
         // Hardcoded special case.
         if (ch != '\u0049')
           {
-            newStr[x - offset] = Character.toLowerCase(ch);
+            newStr[x] = Character.toLowerCase(ch);
           }
         else
           {
-            newStr[x - offset] = '\u0131';
+            newStr[x] = '\u0131';
           }
         x++;
       }
@@ -1574,10 +2017,10 @@ public final class String
     else
       {
         int i = count;
-        int x = offset - 1;
+        int x = -1;
         while (--i >= 0)
           {
-            char ch = value[++x];
+            char ch = at(++x);
             if (ch != Character.toLowerCase(ch))
               break;
           }
@@ -1587,12 +2030,12 @@ public final class String
         // Now we perform the conversion. Fortunately, there are no
         // multi-character lowercase expansions in Unicode 3.0.0.
         char[] newStr = new char[count];
-        VMSystem.arraycopy(value, offset, newStr, 0, x - offset);
+        getChars(0, x, newStr, 0);
         do
           {
-            char ch = value[x];
+            char ch = at(x);
             // Hardcoded special case.
-            newStr[x - offset] = Character.toLowerCase(ch);
+            newStr[x] = Character.toLowerCase(ch);
             x++;
           }
         while (--i >= 0);
@@ -1625,10 +2068,10 @@ public final class String
     int expand = 0;
     boolean unchanged = true;
     int i = count;
-    int x = i + offset;
+    int x = i;
     while (--i >= 0)
       {
-        char ch = value[--x];
+        char ch = at(--x);
         expand += upperCaseExpansion(ch);
         unchanged = (unchanged && expand == 0
                      && ch != '\u0069'
@@ -1642,18 +2085,18 @@ public final class String
     if (expand == 0)
       {
         char[] newStr = new char[count];
-        VMSystem.arraycopy(value, offset, newStr, 0, count - (x - offset));
+        getChars(0, count - x, newStr, 0);
         while (--i >= 0)
           {
-            char ch = value[x];
+            char ch = at(x);
             // Hardcoded special case.
             if (ch != '\u0069')
               {
-                newStr[x - offset] = Character.toUpperCase(ch);
+                newStr[x] = Character.toUpperCase(ch);
               }
             else
               {
-                newStr[x - offset] = '\u0130';
+                newStr[x] = '\u0130';
               }
             x++;
           }
@@ -1666,7 +2109,7 @@ public final class String
     int j = 0;
     while (--i >= 0)
       {
-        char ch = value[x++];
+        char ch = at(x++);
         // Hardcoded special case.
         if (ch == '\u0069')
           {
@@ -1713,10 +2156,10 @@ public final class String
         int expand = 0;
         boolean unchanged = true;
         int i = count;
-        int x = i + offset;
+        int x = i;
         while (--i >= 0)
           {
-            char ch = value[--x];
+            char ch = at(--x);
             expand += upperCaseExpansion(ch);
             unchanged = (unchanged && expand == 0
                          && ch == Character.toUpperCase(ch));
@@ -1729,11 +2172,11 @@ public final class String
         if (expand == 0)
           {
             char[] newStr = new char[count];
-            VMSystem.arraycopy(value, offset, newStr, 0, count - (x - offset));
+            getChars(0, count - x, newStr, 0);
             while (--i >= 0)
               {
-                char ch = value[x];
-                newStr[x - offset] = Character.toUpperCase(ch);
+                char ch = at(x);
+                newStr[x] = Character.toUpperCase(ch);
                 x++;
               }
             // Package constructor avoids an array copy.
@@ -1745,7 +2188,7 @@ public final class String
         int j = 0;
         while (--i >= 0)
           {
-            char ch = value[x++];
+            char ch = at(x++);
             expand = upperCaseExpansion(ch);
             if (expand > 0)
               {
@@ -1784,20 +2227,19 @@ public final class String
    */
   public String trim()
   {
-    int limit = count + offset;
-    if (count == 0 || (value[offset] > '\u0020'
-                       && value[limit - 1] > '\u0020'))
+    int limit = count;
+    if (count == 0 || (at(0) > '\u0020' && at(limit - 1) > '\u0020'))
       return this;
-    int begin = offset;
+    int begin = 0;
     do
       if (begin == limit)
         return "";
-    while (value[begin++] <= '\u0020');
+    while (at(begin++) <= '\u0020');
 
     int end = limit;
-    while (value[--end] <= '\u0020')
+    while (at(--end) <= '\u0020')
       ;
-    return substring(begin - offset - 1, end - offset + 1);
+    return substring(begin - 1, end + 1);
   }
 
   /**
@@ -1819,7 +2261,7 @@ public final class String
   public char[] toCharArray()
   {
     char[] copy = new char[count];
-    VMSystem.arraycopy(value, offset, copy, 0, count);
+    getChars(0, count, copy, 0);
     return copy;
   }
 
@@ -2024,6 +2466,8 @@ public final class String
   {
     if (start < 0 || end > count || start > end)
       throw new StringIndexOutOfBoundsException();
+    if (COMPACT_STRINGS && coder == LATIN1)
+      return end - start;
 
     start += offset;
     end += offset;
@@ -2111,7 +2555,9 @@ public final class String
   {
     char[] value;
 
-    if (s.offset == 0 && s.count == s.value.length)
+    if (COMPACT_STRINGS && s.coder == LATIN1)
+      value = s.toCharArray();
+    else if (s.offset == 0 && s.count == s.value.length)
       value = s.value;
     else
       {
@@ -2184,6 +2630,14 @@ public final class String
   {
     if (index < 0 || index > count)
       throw new IndexOutOfBoundsException();
+    if (COMPACT_STRINGS && coder == LATIN1)
+      {
+        // Every character is a code point of its own.
+        int result = index + codePointOffset;
+        if (result < 0 || result > count)
+          throw new IndexOutOfBoundsException();
+        return result;
+      }
 
     return Character.offsetByCodePoints(value, offset, count, offset + index,
                                         codePointOffset);
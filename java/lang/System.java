@@ -369,6 +369,10 @@ public final class System
    * <dt>gnu.java.io.encoding_scheme_alias.latin?</dt>       <dd>8859_?</dd>
    * <dt>gnu.java.io.encoding_scheme_alias.utf-8</dt>        <dd>UTF8</dd>
    * <dt>gnu.java.util.zoneinfo.dir</dt>        <dd>Root of zoneinfo tree</dd>
+   * <dt>gnu.java.util.zoneinfo.db</dt>         <dd>Precompiled zone
+   *     database, used instead of the zoneinfo tree</dd>
+   * <dt>gnu.java.util.timer.tick</dt>          <dd>Tick in milliseconds
+   *     of the timing wheel used by java.util.Timer</dd>
    * <dt>gnu.javax.print.server</dt>     <dd>Hostname of external CUPS server.</dd>
    * </dl>
    *
@@ -47,6 +47,8 @@ import gnu.java.lang.management.MemoryMXBeanImpl;
 import gnu.java.lang.management.MemoryManagerMXBeanImpl;
 import gnu.java.lang.management.MemoryPoolMXBeanImpl;
 import gnu.java.lang.management.RuntimeMXBeanImpl;
+import gnu.java.lang.management.StringInternMXBean;
+import gnu.java.lang.management.StringInternMXBeanImpl;
 import gnu.java.lang.management.ThreadMXBeanImpl;
 
 import java.io.IOException;
@@ -536,6 +538,9 @@ public class ManagementFactory
               }
             platformServer.registerMBean(LogManager.getLoggingMXBean(),
                                          new ObjectName(LogManager.LOGGING_MXBEAN_NAME));
+            if (StringInternMXBeanImpl.isSupported())
+              platformServer.registerMBean(new StringInternMXBeanImpl(),
+                                           new ObjectName(StringInternMXBean.STRING_INTERN_MXBEAN_NAME));
           }
         catch (InstanceAlreadyExistsException e)
           {
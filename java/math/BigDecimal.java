@@ -39,13 +39,56 @@ package java.math;
 
 import gnu.java.lang.CPStringBuilder;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+
 public class BigDecimal extends Number implements Comparable<BigDecimal>
 {
+  /**
+   * The unscaled value.  This may be null while the value is held in
+   * compactVal; use inflated() to read it.
+   */
   private BigInteger intVal;
+
+  /**
+   * The unscaled value if it fits in a long, or INFLATED if it does
+   * not.  Most arithmetic on such values is done with long arithmetic
+   * and only falls back to intVal when an operation overflows.
+   */
+  private transient long compactVal;
+
   private int scale;
   private int precision = 0;
   private static final long serialVersionUID = 6108874887143696463L;
 
+  /** Marks a compactVal that does not hold the unscaled value. */
+  private static final long INFLATED = Long.MIN_VALUE;
+
+  /** The powers of ten that fit in a long. */
+  private static final long[] LONG_TEN_POWERS =
+  {
+    1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L,
+    100000000L, 1000000000L, 10000000000L, 100000000000L,
+    1000000000000L, 10000000000000L, 100000000000000L,
+    1000000000000000L, 10000000000000000L, 100000000000000000L,
+    1000000000000000000L
+  };
+
+  /**
+   * The largest magnitude that can be multiplied by the corresponding
+   * entry of LONG_TEN_POWERS without overflow.
+   */
+  private static final long[] LONG_TEN_POWER_LIMITS =
+    new long[LONG_TEN_POWERS.length];
+
+  static
+  {
+    for (int i = 0; i < LONG_TEN_POWERS.length; i++)
+      LONG_TEN_POWER_LIMITS[i] = Long.MAX_VALUE / LONG_TEN_POWERS[i];
+  }
+
   /**
    * The constant zero as a BigDecimal with scale zero.
    * @since 1.5
@@ -84,7 +127,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
    */
   public BigDecimal (int val)
   {
-    this.intVal = BigInteger.valueOf(val);
+    this.compactVal = val;
     this.scale = 0;
   }
 
@@ -104,6 +147,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
       {
         BigDecimal result = this.round(mc);
         this.intVal = result.intVal;
+        this.compactVal = result.compactVal;
         this.scale = result.scale;
         this.precision = result.precision;
       }
@@ -116,8 +160,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
    */
   public BigDecimal (long val)
   {
-    this.intVal = BigInteger.valueOf(val);
-    this.scale = 0;
+    this (val, 0);
   }
 
   /**
@@ -136,6 +179,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
       {
         BigDecimal result = this.round(mc);
         this.intVal = result.intVal;
+        this.compactVal = result.compactVal;
         this.scale = result.scale;
         this.precision = result.precision;
       }
@@ -159,6 +203,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
       {
         BigDecimal result = this.round(mc);
         this.intVal = result.intVal;
+        this.compactVal = result.compactVal;
         this.scale = result.scale;
         this.precision = result.precision;
       }
@@ -181,6 +226,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
       {
         BigDecimal result = this.round(mc);
         this.intVal = result.intVal;
+        this.compactVal = result.compactVal;
         this.scale = result.scale;
         this.precision = result.precision;
       }
@@ -205,6 +251,19 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
   public BigDecimal (BigInteger num, int scale)
   {
     this.intVal = num;
+    this.compactVal = compactValue (num);
+    this.scale = scale;
+  }
+
+  /**
+   * Constructs a BigDecimal whose unscaled value is val and whose scale
+   * is scale, without creating a BigInteger unless val is INFLATED.
+   */
+  private BigDecimal (long val, int scale)
+  {
+    if (val == INFLATED)
+      this.intVal = BigInteger.valueOf (val);
+    this.compactVal = val;
     this.scale = scale;
   }
 
@@ -225,6 +284,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
       {
         BigDecimal result = this.round(mc);
         this.intVal = result.intVal;
+        this.compactVal = result.compactVal;
         this.scale = result.scale;
         this.precision = result.precision;
       }
@@ -246,6 +306,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
       {
         BigDecimal result = this.round(mc);
         this.intVal = result.intVal;
+        this.compactVal = result.compactVal;
         this.scale = result.scale;
         this.precision = result.precision;
       }
@@ -301,6 +362,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
         intVal = intVal.shiftLeft ((int) exponent);
         scale = 0;
       }
+    compactVal = compactValue (intVal);
   }
 
   /**
@@ -324,6 +386,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
       {
         BigDecimal temp = this.round(mc);
         this.intVal = temp.intVal;
+        this.compactVal = temp.compactVal;
         this.scale = temp.scale;
         this.precision = temp.precision;
       }
@@ -348,6 +411,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
       {
         BigDecimal temp = this.round(mc);
         this.intVal = temp.intVal;
+        this.compactVal = temp.compactVal;
         this.scale = temp.scale;
         this.precision = temp.precision;
       }
@@ -475,7 +539,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
     // Prepend a negative sign if necessary.
     if (negative)
       val.insert(0, '-');
-    intVal = new BigInteger(val.toString());
+    setUnscaledValue(val.toString());
 
     // Now parse exponent.
     // If point < end that means we broke out of the previous loop when we
@@ -556,7 +620,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
 
     if (negative)
       val = "-" + val;
-    intVal = new BigInteger (val);
+    setUnscaledValue (val);
 
     // Now parse exponent.
     if (point < len)
@@ -596,7 +660,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
           return ONE;
         }
 
-    return new BigDecimal (BigInteger.valueOf (val), scale);
+    return new BigDecimal (val, scale);
   }
 
   public BigDecimal add (BigDecimal val)
@@ -604,8 +668,26 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
     // For addition, need to line up decimals.  Note that the movePointRight
     // method cannot be used for this as it might return a BigDecimal with
     // scale == 0 instead of the scale we need.
-    BigInteger op1 = intVal;
-    BigInteger op2 = val.intVal;
+    if (compactVal != INFLATED && val.compactVal != INFLATED)
+      {
+        long x = compactVal;
+        long y = val.compactVal;
+        if (scale < val.scale)
+          x = multiplyPowerOfTen (x, val.scale - scale);
+        else if (scale > val.scale)
+          y = multiplyPowerOfTen (y, scale - val.scale);
+        if (x != INFLATED && y != INFLATED)
+          {
+            long sum = x + y;
+            // The sum overflowed if it has a different sign to both
+            // operands.
+            if (((x ^ sum) & (y ^ sum)) >= 0)
+              return new BigDecimal (sum, Math.max (scale, val.scale));
+          }
+      }
+
+    BigInteger op1 = inflated();
+    BigInteger op2 = val.inflated();
     if (scale < val.scale)
       op1 = op1.multiply (BigInteger.TEN.pow (val.scale - scale));
     else if (scale > val.scale)
@@ -651,7 +733,19 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
 
   public BigDecimal multiply (BigDecimal val)
   {
-    return new BigDecimal (intVal.multiply (val.intVal), scale + val.scale);
+    if (compactVal != INFLATED && val.compactVal != INFLATED)
+      {
+        long x = compactVal;
+        long y = val.compactVal;
+        long product = x * y;
+        // The product cannot overflow if both operands fit in 31 bits;
+        // otherwise check it by dividing back.
+        if (((Math.abs (x) | Math.abs (y)) >>> 31) == 0
+            || (y != 0 && product / y == x && product != INFLATED))
+          return new BigDecimal (product, scale + val.scale);
+      }
+    return new BigDecimal (inflated ().multiply (val.inflated ()),
+                           scale + val.scale);
   }
 
   /**
@@ -713,12 +807,24 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
       throw
         new IllegalArgumentException("illegal rounding mode: " + roundingMode);
 
-    if (intVal.signum () == 0)  // handle special case of 0.0/0.0
-      return newScale == 0 ? ZERO : new BigDecimal (ZERO.intVal, newScale);
+    if (signum () == 0)  // handle special case of 0.0/0.0
+      return newScale == 0 ? ZERO : new BigDecimal (0L, newScale);
 
-    // Ensure that pow gets a non-negative value.
-    BigInteger valIntVal = val.intVal;
     int power = newScale - (scale - val.scale);
+    if (compactVal != INFLATED && val.compactVal != INFLATED)
+      {
+        long dividend = compactVal;
+        long divisor = val.compactVal;
+        if (power < 0)
+          divisor = multiplyPowerOfTen (divisor, -power);
+        else
+          dividend = multiplyPowerOfTen (dividend, power);
+        if (dividend != INFLATED && divisor != INFLATED)
+          return divide (dividend, divisor, newScale, roundingMode);
+      }
+
+    // Ensure that pow gets a non-negative value.
+    BigInteger valIntVal = val.inflated ();
     if (power < 0)
       {
         // Effectively increase the scale of val to avoid an
@@ -727,7 +833,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
         power = 0;
       }
 
-    BigInteger dividend = intVal.multiply (BigInteger.TEN.pow (power));
+    BigInteger dividend = inflated ().multiply (BigInteger.TEN.pow (power));
 
     BigInteger parts[] = dividend.divideAndRemainder (valIntVal);
 
@@ -738,7 +844,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
     if (roundingMode == ROUND_UNNECESSARY)
       throw new ArithmeticException ("Rounding necessary");
 
-    int sign = intVal.signum () * valIntVal.signum ();
+    int sign = signum () * valIntVal.signum ();
 
     if (roundingMode == ROUND_CEILING)
       roundingMode = (sign > 0) ? ROUND_UP : ROUND_DOWN;
@@ -782,6 +888,67 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
     return new BigDecimal (unrounded, newScale);
   }
 
+  /**
+   * The long arithmetic version of divide(BigDecimal, int, int), used when
+   * both the scaled dividend and the scaled divisor fit in a long.  The
+   * rounding follows that of the BigInteger version exactly.
+   */
+  private static BigDecimal divide (long dividend, long divisor,
+                                    int newScale, int roundingMode)
+  {
+    long unrounded = dividend / divisor;
+    long remainder = dividend % divisor;
+    if (remainder == 0) // no remainder, no rounding necessary
+      return new BigDecimal (unrounded, newScale);
+
+    if (roundingMode == ROUND_UNNECESSARY)
+      throw new ArithmeticException ("Rounding necessary");
+
+    int sign = (dividend < 0) == (divisor < 0) ? 1 : -1;
+
+    if (roundingMode == ROUND_CEILING)
+      roundingMode = (sign > 0) ? ROUND_UP : ROUND_DOWN;
+    else if (roundingMode == ROUND_FLOOR)
+      roundingMode = (sign < 0) ? ROUND_UP : ROUND_DOWN;
+    else
+      {
+        // Compare the remainder with divisor - remainder rather than
+        // doubling it, which could overflow.
+        long posRemainder = Math.abs (remainder);
+        long rest = Math.abs (divisor) - posRemainder;
+        int half = posRemainder < rest ? -1
+          : (posRemainder == rest ? 0 : 1);
+
+        switch(roundingMode)
+          {
+          case ROUND_HALF_UP:
+            roundingMode = (half < 0) ? ROUND_DOWN : ROUND_UP;
+            break;
+          case ROUND_HALF_DOWN:
+            roundingMode = (half > 0) ? ROUND_UP : ROUND_DOWN;
+            break;
+          case ROUND_HALF_EVEN:
+            if (half < 0)
+              roundingMode = ROUND_DOWN;
+            else if (half > 0)
+              roundingMode = ROUND_UP;
+            else if ((unrounded & 1) != 0) // odd, then ROUND_HALF_UP
+              roundingMode = ROUND_UP;
+            else                           // even, ROUND_HALF_DOWN
+              roundingMode = ROUND_DOWN;
+            break;
+          }
+      }
+
+    // The quotient cannot be at the edge of the long range here, since
+    // a non-zero remainder means |divisor| > 1.
+    if (roundingMode == ROUND_UP)
+      unrounded += sign > 0 ? 1 : -1;
+
+    // roundingMode == ROUND_DOWN
+    return new BigDecimal (unrounded, newScale);
+  }
+
   /**
    * Performs division, if the resulting quotient requires rounding
    * (has a nonterminating decimal expansion),
@@ -850,38 +1017,43 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
   {
     if (scale <= 0)
       return this;
-    String intValStr = intVal.toString();
+    if (compactVal != INFLATED && scale < LONG_TEN_POWERS.length)
+      {
+        long pow = LONG_TEN_POWERS[scale];
+        compactVal = compactVal / pow * pow;
+        intVal = null;
+        return this;
+      }
+    String intValStr = unscaledString();
     intValStr = intValStr.substring(0, intValStr.length() - scale);
     intVal = new BigInteger(intValStr).multiply(BigInteger.TEN.pow(scale));
+    compactVal = compactValue(intVal);
     return this;
   }
 
   public int compareTo (BigDecimal val)
   {
-    if (scale == val.scale)
-      return intVal.compareTo (val.intVal);
-
-    BigInteger thisParts[] =
-      intVal.divideAndRemainder (BigInteger.TEN.pow (scale));
-    BigInteger valParts[] =
-      val.intVal.divideAndRemainder (BigInteger.TEN.pow (val.scale));
-
-    int compare;
-    if ((compare = thisParts[0].compareTo (valParts[0])) != 0)
-      return compare;
-
-    // quotients are the same, so compare remainders
+    if (compactVal != INFLATED && val.compactVal != INFLATED)
+      {
+        long x = compactVal;
+        long y = val.compactVal;
+        if (scale < val.scale)
+          x = multiplyPowerOfTen (x, val.scale - scale);
+        else if (scale > val.scale)
+          y = multiplyPowerOfTen (y, scale - val.scale);
+        if (x != INFLATED && y != INFLATED)
+          return x < y ? -1 : (x == y ? 0 : 1);
+      }
 
-    // Add some trailing zeros to the remainder with the smallest scale
+    // Line up the decimals as add does; unlike splitting off the
+    // integer parts, this also works for negative scales.
+    BigInteger op1 = inflated ();
+    BigInteger op2 = val.inflated ();
     if (scale < val.scale)
-      thisParts[1] = thisParts[1].multiply
-                        (BigInteger.valueOf (10).pow (val.scale - scale));
+      op1 = op1.multiply (BigInteger.TEN.pow (val.scale - scale));
     else if (scale > val.scale)
-      valParts[1] = valParts[1].multiply
-                        (BigInteger.valueOf (10).pow (scale - val.scale));
-
-    // and compare them
-    return thisParts[1].compareTo (valParts[1]);
+      op2 = op2.multiply (BigInteger.TEN.pow (scale - val.scale));
+    return op1.compareTo (op2);
   }
 
   public boolean equals (Object o)
@@ -920,7 +1092,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
 
   public BigDecimal movePointLeft (int n)
   {
-    return (n < 0) ? movePointRight (-n) : new BigDecimal (intVal, scale + n);
+    return (n < 0) ? movePointRight (-n) : withScale (scale + n);
   }
 
   public BigDecimal movePointRight (int n)
@@ -929,14 +1101,22 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
       return movePointLeft (-n);
 
     if (scale >= n)
-      return new BigDecimal (intVal, scale - n);
+      return withScale (scale - n);
 
-    return new BigDecimal (intVal.multiply
+    if (compactVal != INFLATED)
+      {
+        long val = multiplyPowerOfTen (compactVal, n - scale);
+        if (val != INFLATED)
+          return new BigDecimal (val, 0);
+      }
+    return new BigDecimal (inflated ().multiply
                            (BigInteger.TEN.pow (n - scale)), 0);
   }
 
   public int signum ()
   {
+    if (compactVal != INFLATED)
+      return compactVal < 0 ? -1 : (compactVal == 0 ? 0 : 1);
     return intVal.signum ();
   }
 
@@ -947,16 +1127,19 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
 
   public BigInteger unscaledValue()
   {
-    return intVal;
+    return inflated ();
   }
 
   public BigDecimal abs ()
   {
-    return new BigDecimal (intVal.abs (), scale);
+    return signum () < 0 ? negate () : this;
   }
 
   public BigDecimal negate ()
   {
+    // INFLATED is the only long whose negation overflows.
+    if (compactVal != INFLATED)
+      return new BigDecimal (- compactVal, scale);
     return new BigDecimal (intVal.negate (), scale);
   }
 
@@ -1037,8 +1220,20 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
   {
     if (precision == 0)
       {
-        String s = intVal.toString();
-        precision = s.length() - (( s.charAt(0) == '-' ) ? 1 : 0);
+        if (compactVal != INFLATED)
+          {
+            long val = Math.abs(compactVal);
+            int digits = 1;
+            while (digits < LONG_TEN_POWERS.length
+                   && val >= LONG_TEN_POWERS[digits])
+              digits++;
+            precision = digits;
+          }
+        else
+          {
+            String s = intVal.toString();
+            precision = s.length() - (( s.charAt(0) == '-' ) ? 1 : 0);
+          }
       }
     return precision;
   }
@@ -1065,7 +1260,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
   {
     // bigStr is the String representation of the unscaled value.  If
     // scale is zero we simply return this.
-    String bigStr = intVal.toString();
+    String bigStr = unscaledString();
     if (scale == 0)
       return bigStr;
 
@@ -1130,7 +1325,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
   {
     // bigStr is the String representation of the unscaled value.  If
     // scale is zero we simply return this.
-    String bigStr = intVal.toString();
+    String bigStr = unscaledString();
     if (scale == 0)
       return bigStr;
 
@@ -1235,7 +1430,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
   {
     // If the scale is zero we simply return the String representation of the
     // unscaled value.
-    String bigStr = intVal.toString();
+    String bigStr = unscaledString();
     if (scale == 0)
       return bigStr;
 
@@ -1286,10 +1481,10 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
     // If scale > 0 then we must divide, if scale > 0 then we must multiply,
     // and if scale is zero then we just return intVal;
     if (scale > 0)
-      return intVal.divide (BigInteger.TEN.pow (scale));
+      return inflated ().divide (BigInteger.TEN.pow (scale));
     else if (scale < 0)
-      return intVal.multiply(BigInteger.TEN.pow(-scale));
-    return intVal;
+      return inflated().multiply(BigInteger.TEN.pow(-scale));
+    return inflated();
   }
 
   /**
@@ -1304,21 +1499,21 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
       {
         // If we have to divide, we must check if the result is exact.
         BigInteger[] result =
-          intVal.divideAndRemainder(BigInteger.TEN.pow(scale));
+          inflated().divideAndRemainder(BigInteger.TEN.pow(scale));
         if (result[1].equals(BigInteger.ZERO))
           return result[0];
         throw new ArithmeticException("No exact BigInteger representation");
       }
     else if (scale < 0)
       // If we're multiplying instead, then we needn't check for exactness.
-      return intVal.multiply(BigInteger.TEN.pow(-scale));
+      return inflated().multiply(BigInteger.TEN.pow(-scale));
     // If the scale is zero we can simply return intVal.
-    return intVal;
+    return inflated();
   }
 
   public int intValue ()
   {
-    return toBigInteger ().intValue ();
+    return (int) longValue ();
   }
 
   /**
@@ -1331,7 +1526,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
    */
   public BigDecimal stripTrailingZeros()
   {
-    String intValStr = intVal.toString();
+    String intValStr = unscaledString();
     int newScale = scale;
     int pointer = intValStr.length() - 1;
     // This loop adjusts pointer which will be used to give us the substring
@@ -1351,6 +1546,10 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
 
   public long longValue ()
   {
+    // A positive scale of 19 or more leaves no integer part of a long.
+    if (compactVal != INFLATED && scale >= 0)
+      return scale < LONG_TEN_POWERS.length
+        ? compactVal / LONG_TEN_POWERS[scale] : 0;
     return toBigInteger().longValue();
   }
 
@@ -1421,7 +1620,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
    */
   public BigDecimal scaleByPowerOfTen(int n)
   {
-    BigDecimal result = new BigDecimal(intVal, scale - n);
+    BigDecimal result = withScale(scale - n);
     result.precision = precision;
     return result;
   }
@@ -1437,7 +1636,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
   {
     if (n < 0 || n > 999999999)
       throw new ArithmeticException("n must be between 0 and 999999999");
-    BigDecimal result = new BigDecimal(intVal.pow(n), scale * n);
+    BigDecimal result = new BigDecimal(inflated().pow(n), scale * n);
     return result;
   }
 
@@ -1492,15 +1691,15 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
   {
     // Set scale will throw an exception if rounding occurs.
     BigDecimal temp = setScale(0, ROUND_UNNECESSARY);
-    BigInteger tempVal = temp.intVal;
+    BigInteger tempVal = temp.inflated();
     // Check for overflow.
-    long result = intVal.longValue();
+    long result = inflated().longValue();
     if (tempVal.compareTo(BigInteger.valueOf(Long.MAX_VALUE)) > 1
         || (result < 0 && signum() == 1) || (result > 0 && signum() == -1))
       throw new ArithmeticException("this BigDecimal is too " +
             "large to fit into the return type");
 
-    return intVal.longValue();
+    return inflated().longValue();
   }
 
   /**
@@ -1556,4 +1755,98 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>
       throw new ArithmeticException ("this BigDecimal cannot fit into a short");
     return result;
   }
+
+  /**
+   * Returns the unscaled value as a BigInteger, creating it from
+   * compactVal the first time it is needed.
+   */
+  private BigInteger inflated()
+  {
+    BigInteger val = intVal;
+    if (val == null)
+      intVal = val = BigInteger.valueOf(compactVal);
+    return val;
+  }
+
+  /**
+   * Returns the unscaled value as a String, without creating a
+   * BigInteger if the value is compact.
+   */
+  private String unscaledString()
+  {
+    if (compactVal != INFLATED)
+      return Long.toString(compactVal);
+    return intVal.toString();
+  }
+
+  /**
+   * Sets the unscaled value from a String of decimal digits with an
+   * optional leading minus sign.  Up to 18 characters always fit in a
+   * long, so those are parsed without a BigInteger.
+   */
+  private void setUnscaledValue(String digits)
+  {
+    if (digits.length() < LONG_TEN_POWERS.length)
+      {
+        intVal = null;
+        compactVal = Long.parseLong(digits);
+      }
+    else
+      {
+        intVal = new BigInteger(digits);
+        compactVal = compactValue(intVal);
+      }
+  }
+
+  /**
+   * Returns a BigDecimal with the same unscaled value as this one and the
+   * given scale, sharing whichever representation this one has.
+   */
+  private BigDecimal withScale(int newScale)
+  {
+    if (compactVal != INFLATED)
+      return new BigDecimal(compactVal, newScale);
+    return new BigDecimal(intVal, newScale);
+  }
+
+  /**
+   * Returns val as a long if it fits in one (and is not INFLATED), or
+   * INFLATED if it does not.
+   */
+  private static long compactValue(BigInteger val)
+  {
+    return val.bitLength() < 64 ? val.longValue() : INFLATED;
+  }
+
+  /**
+   * Returns val * 10^n, or INFLATED if the result does not fit in a long.
+   * @param val the value, which must not be INFLATED
+   * @param n the power of ten, which must be non-negative
+   */
+  private static long multiplyPowerOfTen(long val, int n)
+  {
+    if (val == 0 || n == 0)
+      return val;
+    if (n >= LONG_TEN_POWERS.length
+        || Math.abs(val) > LONG_TEN_POWER_LIMITS[n])
+      return INFLATED;
+    return val * LONG_TEN_POWERS[n];
+  }
+
+  private void readObject(ObjectInputStream s)
+    throws IOException, ClassNotFoundException
+  {
+    s.defaultReadObject();
+    if (intVal == null)
+      throw new StreamCorruptedException("null unscaled value");
+    compactVal = compactValue(intVal);
+  }
+
+  private void writeObject(ObjectOutputStream s)
+    throws IOException
+  {
+    // Only intVal is serialized, so make sure it exists.
+    inflated();
+    s.defaultWriteObject();
+  }
 }
@@ -159,6 +159,21 @@ public class BigInteger extends Number implements Comparable<BigInteger>
   private static final int[] t =
       { 27, 18, 15, 12,  9,  8,  7,  6,  5,  4,   3, 2};
 
+  /** Numbers of at least this many words are converted to strings by
+   * dividing them by a power of the radix and converting the quotient
+   * and remainder separately. */
+  private static final int TO_STRING_THRESHOLD = 24;
+
+  /** Strings of at least this many digits are parsed by splitting them in
+   * two and combining the values of the halves with a power of the
+   * radix. */
+  private static final int FROM_STRING_THRESHOLD = 320;
+
+  /** radixPowers[radix][k] caches radix**(MPN.chars_per_word(radix)<<k),
+   * for the recursive conversions. */
+  private static final BigInteger[][] radixPowers =
+    new BigInteger[Character.MAX_RADIX + 1][];
+
   private BigInteger()
   {
     super();
@@ -824,7 +839,13 @@ public class BigInteger extends Number implements Comparable<BigInteger>
         negative = false;
         xwords = x.words;
       }
-    if (y.isNegative())
+    if (y == x)
+      {
+        // MPN.mul squares when given the same array twice.
+        negative = false;
+        ywords = xwords;
+      }
+    else if (y.isNegative())
       {
         negative = !negative;
         ywords = new int[ylen];
@@ -1438,6 +1459,8 @@ public class BigInteger extends Number implements Comparable<BigInteger>
       return modInverse(m).modPow(exponent.negate(), m);
     if (exponent.isOne())
       return mod(m);
+    if (((m.words == null ? m.ival : m.words[0]) & 1) != 0 && ! m.isOne())
+      return montgomeryModPow(exponent, m);
 
     // To do this naively by first raising this to the power of exponent
     // and then performing modulo m would be extremely expensive, especially
@@ -1461,6 +1484,132 @@ public class BigInteger extends Number implements Comparable<BigInteger>
     return s;
   }
 
+  /**
+   * modPow for an odd modulus m greater than one and a non-negative
+   * exponent.  This uses Montgomery multiplication, which replaces the
+   * divisions by m with cheaper reductions, and a sliding window over the
+   * bits of the exponent, which saves most of the multiplications.
+   */
+  private BigInteger montgomeryModPow(BigInteger exponent, BigInteger m)
+  {
+    int n = m.words == null ? 1 : m.ival;
+    int[] mwords = new int[n];
+    m.getAbsolute(mwords);
+    while (mwords[n - 1] == 0)
+      n--;
+    int minv = MPN.montgomery_inverse(mwords[0]);
+
+    int ebits = exponent.bitLength();
+    int[] ewords = new int[(ebits >> 5) + 1];
+    exponent.getAbsolute(ewords);
+    int wbits = 1;
+    while (wbits <= modPowWindowLimits.length
+           && ebits > modPowWindowLimits[wbits - 1])
+      wbits++;
+
+    // The powers this**(2*i+1), times 2**(32*n) (mod m).
+    int[][] table = new int[1 << (wbits - 1)][];
+    table[0] = montgomeryWords(shift(mod(m), 32 * n).mod(m), n);
+    int[] prod = new int[2 * n + 1];
+    if (table.length > 1)
+      {
+        int[] square = new int[n];
+        montgomeryMultiply(square, table[0], table[0], mwords, n, minv,
+                           prod);
+        for (int i = 1;  i < table.length;  i++)
+          {
+            table[i] = new int[n];
+            montgomeryMultiply(table[i], table[i - 1], square, mwords, n,
+                               minv, prod);
+          }
+      }
+
+    // Scan the exponent from the top, squaring for each bit and
+    // multiplying in windows of up to wbits bits that end with a one.
+    int[] result = montgomeryWords(shift(ONE, 32 * n).mod(m), n);
+    int[] work = new int[n];
+    boolean started = false;
+    for (int i = ebits - 1;  i >= 0; )
+      {
+        if ((ewords[i >> 5] & (1 << i)) == 0)
+          {
+            if (started)
+              {
+                montgomeryMultiply(work, result, result, mwords, n, minv,
+                                   prod);
+                int[] t = work;  work = result;  result = t;
+              }
+            i--;
+            continue;
+          }
+        int low = Math.max(i - wbits + 1, 0);
+        while ((ewords[low >> 5] & (1 << low)) == 0)
+          low++;
+        int window = 0;
+        for (int j = i;  j >= low;  j--)
+          {
+            window = (window << 1) | ((ewords[j >> 5] >>> j) & 1);
+            if (started)
+              {
+                montgomeryMultiply(work, result, result, mwords, n, minv,
+                                   prod);
+                int[] t = work;  work = result;  result = t;
+              }
+          }
+        if (started)
+          {
+            montgomeryMultiply(work, result, table[window >> 1], mwords, n,
+                               minv, prod);
+            int[] t = work;  work = result;  result = t;
+          }
+        else
+          {
+            System.arraycopy(table[window >> 1], 0, result, 0, n);
+            started = true;
+          }
+        i = low - 1;
+      }
+
+    // Multiplying by 1 takes the result out of Montgomery form.
+    System.arraycopy(result, 0, prod, 0, n);
+    for (int i = n;  i < 2 * n;  i++)
+      prod[i] = 0;
+    int[] words = new int[n + 1];
+    MPN.redc_1(words, prod, mwords, n, minv);
+    return make(words, n + 1);
+  }
+
+  /** The largest exponent lengths in bits for each window size of
+   * montgomeryModPow; longer exponents use windows of
+   * modPowWindowLimits.length + 1 bits. */
+  private static final int[] modPowWindowLimits = { 7, 25, 81, 241, 673 };
+
+  /**
+   * Return the n low words of the non-negative x.
+   */
+  private static int[] montgomeryWords(BigInteger x, int n)
+  {
+    int[] words = new int[Math.max(n, x.words == null ? 1 : x.ival)];
+    x.getAbsolute(words);
+    if (words.length == n)
+      return words;
+    int[] result = new int[n];
+    System.arraycopy(words, 0, result, 0, n);
+    return result;
+  }
+
+  /**
+   * Set dest[0:n-1] to x * y / 2**(32*n) (mod m), using prod, of 2n+1
+   * words, as scratch space.
+   */
+  private static void montgomeryMultiply(int[] dest, int[] x, int[] y,
+                                         int[] m, int n, int minv,
+                                         int[] prod)
+  {
+    MPN.mul(prod, x, n, y, n);
+    MPN.redc_1(dest, prod, m, n, minv);
+  }
+
   /** Calculate Greatest Common Divisor for non-negative ints. */
   private static int gcd(int a, int b)
   {
@@ -1767,6 +1916,12 @@ public class BigInteger extends Number implements Comparable<BigInteger>
       buffer.append(Integer.toString(ival, radix));
     else if (ival <= 2)
       buffer.append(Long.toString(longValue(), radix));
+    else if (radix != 16 && ival >= TO_STRING_THRESHOLD)
+      {
+        if (isNegative())
+          buffer.append('-');
+        formatRecursive(abs(this), radix, buffer, 0);
+      }
     else
       {
         boolean neg = isNegative();
@@ -1919,6 +2074,11 @@ public class BigInteger extends Number implements Comparable<BigInteger>
   private static BigInteger valueOf(byte[] digits, int byte_len,
                                     boolean negative, int radix)
   {
+    if (byte_len >= FROM_STRING_THRESHOLD)
+      {
+        BigInteger result = valueOf(digits, 0, byte_len, radix);
+        return negative ? neg(result) : result;
+      }
     int chars_per_word = MPN.chars_per_word(radix);
     int[] words = new int[byte_len / chars_per_word + 1];
     int size = MPN.set_str(words, digits, byte_len, radix);
@@ -1931,6 +2091,90 @@ public class BigInteger extends Number implements Comparable<BigInteger>
     return make(words, size);
   }
 
+  /**
+   * Parse digits[start:end-1] by splitting off the low digits that make
+   * up the largest suitable power of the radix, and parsing both parts
+   * recursively.
+   */
+  private static BigInteger valueOf(byte[] digits, int start, int end,
+                                    int radix)
+  {
+    int len = end - start;
+    if (len < FROM_STRING_THRESHOLD)
+      {
+        byte[] part = new byte[len];
+        System.arraycopy(digits, start, part, 0, len);
+        return valueOf(part, len, false, radix);
+      }
+    int k = 0;
+    int chars_per_word = MPN.chars_per_word(radix);
+    while ((chars_per_word << (k + 1)) <= len / 2)
+      k++;
+    int mid = end - (chars_per_word << k);
+    BigInteger high = valueOf(digits, start, mid, radix);
+    BigInteger low = valueOf(digits, mid, end, radix);
+    return add(times(high, radixPower(radix, k)), low, 1);
+  }
+
+  /**
+   * Return radix**(MPN.chars_per_word(radix)<<k), from radixPowers.
+   */
+  private static BigInteger radixPower(int radix, int k)
+  {
+    synchronized (radixPowers)
+      {
+        BigInteger[] powers = radixPowers[radix];
+        if (powers == null || powers.length <= k)
+          {
+            BigInteger[] grown = new BigInteger[k + 1];
+            int have = 0;
+            if (powers != null)
+              {
+                have = powers.length;
+                System.arraycopy(powers, 0, grown, 0, have);
+              }
+            else
+              {
+                grown[0] = valueOf(radix).pow(MPN.chars_per_word(radix));
+                have = 1;
+              }
+            for (int i = have;  i <= k;  i++)
+              grown[i] = times(grown[i - 1], grown[i - 1]);
+            radixPowers[radix] = powers = grown;
+          }
+        return powers[k];
+      }
+  }
+
+  /**
+   * Append the digits of x, which is not negative, to buffer, padded with
+   * leading zeros to at least digits characters.  Large numbers are
+   * divided by a power of the radix near their square root, and the
+   * quotient and remainder converted recursively.
+   */
+  private static void formatRecursive(BigInteger x, int radix,
+                                      CPStringBuilder buffer, int digits)
+  {
+    if (x.words == null || x.ival < TO_STRING_THRESHOLD)
+      {
+        String s = x.toString(radix);
+        for (int i = s.length();  i < digits;  i++)
+          buffer.append('0');
+        buffer.append(s);
+        return;
+      }
+    int bits = x.bitLength();
+    int k = 0;
+    while (2 * radixPower(radix, k + 1).bitLength() <= bits + 1)
+      k++;
+    BigInteger quot = new BigInteger();
+    BigInteger rem = new BigInteger();
+    divide(x, radixPower(radix, k), quot, rem, TRUNCATE);
+    int low_digits = MPN.chars_per_word(radix) << k;
+    formatRecursive(quot.canonicalize(), radix, buffer, digits - low_digits);
+    formatRecursive(rem.canonicalize(), radix, buffer, low_digits);
+  }
+
   public double doubleValue()
   {
     if (USING_NATIVE)
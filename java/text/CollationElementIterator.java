@@ -39,6 +39,7 @@ exception statement from your version. */
 package java.text;
 
 import gnu.java.lang.CPStringBuilder;
+import gnu.java.util.primitive.IntArrayList;
 
 import java.util.ArrayList;
 
@@ -269,7 +270,7 @@ public final class CollationElementIterator
     String work_text = text.intern();
 
     ArrayList<RuleBasedCollator.CollationElement> aElement = new ArrayList<RuleBasedCollator.CollationElement>();
-    ArrayList<Integer> aIdx = new ArrayList<Integer>();
+    IntArrayList aIdx = new IntArrayList();
 
     // Build element collection ordered as they come in "text".
     while (idx < work_text.length())
@@ -323,7 +324,7 @@ public final class CollationElementIterator
                   collator.getDefaultAccentedElement (work_text.charAt (idx));
 
                 aElement.add (e);
-                aIdx.add (Integer.valueOf(idx_idx));
+                aIdx.add (idx_idx);
                 idx++;
                 alreadyExpanded--;
                 if (alreadyExpanded == 0)
@@ -342,15 +343,14 @@ public final class CollationElementIterator
                 /* This is a normal character. */
                 RuleBasedCollator.CollationElement e =
                   collator.getDefaultElement (work_text.charAt (idx));
-                Integer iRef = Integer.valueOf(idx_idx);
 
                 /* Don't forget to mark it as a special sequence so the
                  * string can be ordered.
                  */
                 aElement.add (RuleBasedCollator.SPECIAL_UNKNOWN_SEQ);
-                aIdx.add (iRef);
+                aIdx.add (idx_idx);
                 aElement.add (e);
-                aIdx.add (iRef);
+                aIdx.add (idx_idx);
                 idx_idx++;
                 idx++;
               }
@@ -368,7 +368,7 @@ public final class CollationElementIterator
               + work_text.substring (idx+prefix.key.length());
             idx = 0;
             aElement.add (prefix);
-            aIdx.add (Integer.valueOf(idx_idx));
+            aIdx.add (idx_idx);
             if (alreadyExpanded == 0)
               idxToMove = prefix.key.length();
             alreadyExpanded += prefix.expansion.length()-prefix.key.length();
@@ -379,7 +379,7 @@ public final class CollationElementIterator
              * has not to be expanded.
              */
             aElement.add (prefix);
-            aIdx.add (Integer.valueOf(idx_idx));
+            aIdx.add (idx_idx);
             idx += prefix.key.length();
             /* If the sequence is in an expansion, we must decrease the
              * counter.
@@ -399,12 +399,8 @@ public final class CollationElementIterator
       }
 
     textDecomposition = aElement.toArray(new RuleBasedCollator.CollationElement[aElement.size()]);
-    textIndexes = new int[aIdx.size()+1];
-    for (int i = 0; i < aIdx.size(); i++)
-      {
-        textIndexes[i] = aIdx.get(i).intValue();
-      }
-    textIndexes[aIdx.size()] = text.length();
+    aIdx.add (text.length());
+    textIndexes = aIdx.toArray();
   }
 
   /**
@@ -44,6 +44,7 @@ exception statement from your version. */
 package java.text;
 
 import gnu.java.lang.CPStringBuilder;
+import gnu.java.lang.FloatingDecimal;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -176,8 +177,12 @@ public class DecimalFormat extends NumberFormat
   /** Defines if the format string has a fractional pattern or not. */
   private boolean hasFractionalPattern;
 
-  /** Stores a list of attributes for use by formatToCharacterIterator. */
-  private ArrayList<FieldPosition> attributes = new ArrayList<FieldPosition>();
+  /**
+   * Collects the attributes while formatToCharacterIterator is running,
+   * and is null otherwise, so that plain formatting does not modify
+   * this object.
+   */
+  private transient ArrayList<FieldPosition> attributes;
 
   /**
    * Constructs a <code>DecimalFormat</code> which uses the default
@@ -382,8 +387,9 @@ public class DecimalFormat extends NumberFormat
       }
     else
       {
-        // get the number as a BigDecimal
-        BigDecimal bigDecimal = new BigDecimal(String.valueOf(number));
+        // get the number as a BigDecimal, using the same shortest
+        // decimal as Double.toString but without going through a String
+        BigDecimal bigDecimal = FloatingDecimal.toBigDecimal(number);
         formatInternal(bigDecimal, false, dest, fieldPos);
       }
 
@@ -402,7 +408,7 @@ public class DecimalFormat extends NumberFormat
   public StringBuffer format(long number, StringBuffer dest,
                              FieldPosition fieldPos)
   {
-    BigDecimal bigDecimal = new BigDecimal(String.valueOf(number));
+    BigDecimal bigDecimal = BigDecimal.valueOf(number);
     formatInternal(bigDecimal, true, dest, fieldPos);
     return dest;
   }
@@ -430,8 +436,16 @@ public class DecimalFormat extends NumberFormat
       IllegalArgumentException("Cannot format given Object as a Number");
 
     StringBuffer text = new StringBuffer();
-    attributes.clear();
-    super.format(value, text, new FieldPosition(0));
+    ArrayList<FieldPosition> attributes = new ArrayList<FieldPosition>();
+    this.attributes = attributes;
+    try
+      {
+        super.format(value, text, new FieldPosition(0));
+      }
+    finally
+      {
+        this.attributes = null;
+      }
 
     AttributedString as = new AttributedString(text.toString());
 
@@ -1817,11 +1831,13 @@ public class DecimalFormat extends NumberFormat
     // XXX: special case, not sure if it belongs here or if it is
     // correct at all. There may be other special cases as well
     // these should be handled in the format string parser.
-    if (this.maximumIntegerDigits == 0 && this.maximumFractionDigits == 0)
+    int minimumIntegerDigits = this.minimumIntegerDigits;
+    int maximumIntegerDigits = this.maximumIntegerDigits;
+    if (maximumIntegerDigits == 0 && this.maximumFractionDigits == 0)
       {
         number = BigDecimal.ZERO;
-        this.maximumIntegerDigits = 1;
-        this.minimumIntegerDigits = 1;
+        maximumIntegerDigits = 1;
+        minimumIntegerDigits = 1;
       }
 
     //  get the absolute number
@@ -1910,7 +1926,7 @@ public class DecimalFormat extends NumberFormat
       {
         // non exponential notation
         intPartLen = intPart.length();
-        int canary = Math.min(intPartLen, this.maximumIntegerDigits);
+        int canary = Math.min(intPartLen, maximumIntegerDigits);
 
         // remove from the string the number in excess
         // use only latest digits
@@ -1919,7 +1935,7 @@ public class DecimalFormat extends NumberFormat
 
         // append it
         if (maximumIntegerDigits > 0 &&
-            !(this.minimumIntegerDigits == 0 &&
+            !(minimumIntegerDigits == 0 &&
              intPart.compareTo(String.valueOf(symbols.getZeroDigit())) == 0))
           {
             if (attributeStart < 0)
@@ -2217,7 +2233,8 @@ public class DecimalFormat extends NumberFormat
   }
 
   /**
-   * Adds an attribute to the attributes list.
+   * Adds an attribute to the attributes list, if formatToCharacterIterator
+   * is collecting them.
    *
    * @param field
    * @param begin
@@ -2230,6 +2247,9 @@ public class DecimalFormat extends NumberFormat
      * ICU4J (http://icu.sourceforge.net/) library, distributed under MIT/X.
      */
 
+    if (attributes == null)
+      return;
+
     FieldPosition pos = new FieldPosition(field);
     pos.setBeginIndex(begin);
     pos.setEndIndex(end);
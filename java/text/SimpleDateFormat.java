@@ -43,6 +43,7 @@ package java.text;
 import gnu.java.lang.CPStringBuilder;
 
 import gnu.java.text.AttributedFormatBuffer;
+import gnu.java.text.CompiledDateFormat;
 import gnu.java.text.FormatBuffer;
 import gnu.java.text.FormatCharacterIterator;
 import gnu.java.text.StringFormatBuffer;
@@ -50,11 +51,9 @@ import gnu.java.text.StringFormatBuffer;
 import java.io.IOException;
 import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
-import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
-import java.util.Iterator;
 import java.util.Locale;
 import java.util.TimeZone;
 import java.util.regex.Matcher;
@@ -69,103 +68,13 @@ import java.util.regex.Pattern;
 public class SimpleDateFormat extends DateFormat
 {
   /**
-   * This class is used by <code>SimpleDateFormat</code> as a
-   * compiled representation of a format string.  The field
-   * ID, size, and character used are stored for each sequence
-   * of pattern characters.
-   */
-  private class CompiledField
-  {
-    /**
-     * The ID of the field within the local pattern characters.
-     * Package private for use in out class.
-     */
-    int field;
-
-    /**
-     * The size of the character sequence.
-     * Package private for use in out class.
-     */
-    int size;
-
-    /**
-     * The character used.
-     */
-    private char character;
-
-    /**
-     * Constructs a compiled field using the
-     * the given field ID, size and character
-     * values.
-     *
-     * @param f the field ID.
-     * @param s the size of the field.
-     * @param c the character used.
-     */
-    public CompiledField(int f, int s, char c)
-    {
-      field = f;
-      size = s;
-      character = c;
-    }
-
-    /**
-     * Retrieves the ID of the field relative to
-     * the local pattern characters.
-     */
-    public int getField()
-    {
-      return field;
-    }
-
-    /**
-     * Retrieves the size of the character sequence.
-     */
-    public int getSize()
-    {
-      return size;
-    }
-
-    /**
-     * Retrieves the character used in the sequence.
-     */
-    public char getCharacter()
-    {
-      return character;
-    }
-
-    /**
-     * Returns a <code>String</code> representation
-     * of the compiled field, primarily for debugging
-     * purposes.
-     *
-     * @return a <code>String</code> representation.
-     */
-    public String toString()
-    {
-      CPStringBuilder builder;
-
-      builder = new CPStringBuilder(getClass().getName());
-      builder.append("[field=");
-      builder.append(field);
-      builder.append(", size=");
-      builder.append(size);
-      builder.append(", character=");
-      builder.append(character);
-      builder.append("]");
-
-      return builder.toString();
-    }
-  }
-
-  /**
-   * A list of <code>CompiledField</code>s and {@code String}s
-   * representing the compiled version of the pattern.
+   * The compiled version of the pattern, or null if it has not been
+   * needed since the pattern was set.
    *
-   * @see CompiledField
+   * @see CompiledDateFormat
    * @serial Ignored.
    */
-  private transient ArrayList<Object> tokens;
+  private transient CompiledDateFormat compiled;
 
   /**
    * The localised data used in formatting,
@@ -238,20 +147,12 @@ public class SimpleDateFormat extends DateFormat
   // This string is specified in the root of the CLDR.
   private static final String standardChars = "GyMdkHmsSEDFwWahKzYeugAZvcL";
 
-  /**
-   * Represents the position of the RFC822 timezone pattern character
-   * in the array of localized pattern characters.  In the
-   * U.S. locale, this is 'Z'.  The value is the offset of the current
-   * time from GMT e.g. -0500 would be five hours prior to GMT.
-   */
-  private static final int RFC822_TIMEZONE_FIELD = 23;
-
   /**
    * Reads the serialized version of this object.
    * If the serialized data is only version 0,
    * then the date for the start of the century
    * for interpreting two digit years is computed.
-   * The pattern is parsed and compiled following the process
+   * The pattern is checked following the process
    * of reading in the serialized data.
    *
    * @param stream the object stream to read the data from.
@@ -274,7 +175,6 @@ public class SimpleDateFormat extends DateFormat
       set2DigitYearStart(defaultCenturyStart);
 
     // Set up items normally taken care of by the constructor.
-    tokens = new ArrayList<Object>();
     try
       {
         compileFormat(pattern);
@@ -286,91 +186,33 @@ public class SimpleDateFormat extends DateFormat
   }
 
   /**
-   * Compiles the supplied non-localized pattern into a form
-   * from which formatting and parsing can be performed.
-   * This also detects errors in the pattern, which will
-   * be raised on later use of the compiled data.
+   * Checks the supplied non-localized pattern and drops the compiled
+   * form of the previous one.  The pattern is compiled again when it
+   * is first used.
    *
    * @param pattern the non-localized pattern to compile.
    * @throws IllegalArgumentException if the pattern is invalid.
    */
   private void compileFormat(String pattern)
   {
-    // Any alphabetical characters are treated as pattern characters
-    // unless enclosed in single quotes.
-
-    char thisChar;
-    int pos;
-    int field;
-    CompiledField current = null;
+    CompiledDateFormat.checkPattern(pattern);
+    compiled = null;
+  }
 
-    for (int i = 0; i < pattern.length(); i++)
-      {
-        thisChar = pattern.charAt(i);
-        field = standardChars.indexOf(thisChar);
-        if (field == -1)
-          {
-            current = null;
-            if ((thisChar >= 'A' && thisChar <= 'Z')
-                || (thisChar >= 'a' && thisChar <= 'z'))
-              {
-                // Not a valid letter
-                throw new IllegalArgumentException("Invalid letter "
-                                                   + thisChar +
-                                                   " encountered at character "
-                                                   + i + ".");
-              }
-            else if (thisChar == '\'')
-              {
-                // Quoted text section; skip to next single quote
-                pos = pattern.indexOf('\'', i + 1);
-                // First look for '' -- meaning a single quote.
-                if (pos == i + 1)
-                  tokens.add("'");
-                else
-                  {
-                    // Look for the terminating quote.  However, if we
-                    // see a '', that represents a literal quote and
-                    // we must iterate.
-                    CPStringBuilder buf = new CPStringBuilder();
-                    int oldPos = i + 1;
-                    do
-                      {
-                        if (pos == -1)
-                          throw new IllegalArgumentException("Quotes starting at character "
-                                                             + i +
-                                                             " not closed.");
-                        buf.append(pattern.substring(oldPos, pos));
-                        if (pos + 1 >= pattern.length()
-                            || pattern.charAt(pos + 1) != '\'')
-                          break;
-                        buf.append('\'');
-                        oldPos = pos + 2;
-                        pos = pattern.indexOf('\'', pos + 2);
-                      }
-                    while (true);
-                    tokens.add(buf.toString());
-                  }
-                i = pos;
-              }
-            else
-              {
-                // A special character
-                tokens.add(Character.valueOf(thisChar));
-              }
-          }
-        else
-          {
-            // A valid field
-            if ((current != null) && (field == current.field))
-              current.size++;
-            else
-              {
-                current = new CompiledField(field, 1, thisChar);
-                tokens.add(current);
-              }
-          }
-      }
+  /**
+   * Returns the compiled form of the pattern, compiling it if needed.
+   *
+   * @return the compiled pattern.
+   */
+  private CompiledDateFormat getCompiled()
+  {
+    // Only the compiled tokens are used here; the symbols and
+    // calendar of this object are passed in on each call.
+    if (compiled == null)
+      compiled = new CompiledDateFormat(pattern, formatData,
+                                        Locale.getDefault(),
+                                        calendar.getTimeZone());
+    return compiled;
   }
 
   /**
@@ -383,8 +225,8 @@ public class SimpleDateFormat extends DateFormat
   public String toString()
   {
     CPStringBuilder output = new CPStringBuilder(getClass().getName());
-    output.append("[tokens=");
-    output.append(tokens);
+    output.append("[compiled=");
+    output.append(getCompiled());
     output.append(", formatData=");
     output.append(formatData);
     output.append(", defaultCenturyStart=");
@@ -416,7 +258,6 @@ public class SimpleDateFormat extends DateFormat
     Locale locale = Locale.getDefault();
     calendar = new GregorianCalendar(locale);
     computeCenturyStart();
-    tokens = new ArrayList<Object>();
     formatData = new DateFormatSymbols(locale);
     pattern = (formatData.dateFormats[DEFAULT] + ' '
                + formatData.timeFormats[DEFAULT]);
@@ -454,7 +295,6 @@ public class SimpleDateFormat extends DateFormat
     super();
     calendar = new GregorianCalendar(locale);
     computeCenturyStart();
-    tokens = new ArrayList<Object>();
     formatData = new DateFormatSymbols(locale);
     compileFormat(pattern);
     this.pattern = pattern;
@@ -479,7 +319,6 @@ public class SimpleDateFormat extends DateFormat
     super();
     calendar = new GregorianCalendar();
     computeCenturyStart ();
-    tokens = new ArrayList<Object>();
     if (formatData == null)
       throw new NullPointerException("formatData");
     this.formatData = formatData;
@@ -524,7 +363,6 @@ public class SimpleDateFormat extends DateFormat
    */
   public void applyPattern(String pattern)
   {
-    tokens.clear();
     compileFormat(pattern);
     this.pattern = pattern;
   }
@@ -696,148 +534,8 @@ public class SimpleDateFormat extends DateFormat
    */
   private void formatWithAttribute(Date date, FormatBuffer buffer, FieldPosition pos)
   {
-    String temp;
     calendar.setTime(date);
-
-    // go through vector, filling in fields where applicable, else toString
-    Iterator<Object> iter = tokens.iterator();
-    while (iter.hasNext())
-      {
-        Object o = iter.next();
-        if (o instanceof CompiledField)
-          {
-            CompiledField cf = (CompiledField) o;
-            int beginIndex = buffer.length();
-
-            switch (cf.getField())
-              {
-              case ERA_FIELD:
-                buffer.append (formatData.eras[calendar.get (Calendar.ERA)], DateFormat.Field.ERA);
-                break;
-              case YEAR_FIELD:
-                // If we have two digits, then we truncate.  Otherwise, we
-                // use the size of the pattern, and zero pad.
-                buffer.setDefaultAttribute (DateFormat.Field.YEAR);
-                if (cf.getSize() == 2)
-                  {
-                    temp = "00"+String.valueOf (calendar.get (Calendar.YEAR));
-                    buffer.append (temp.substring (temp.length() - 2));
-                  }
-                else
-                  withLeadingZeros (calendar.get (Calendar.YEAR), cf.getSize(), buffer);
-                break;
-              case MONTH_FIELD:
-                buffer.setDefaultAttribute (DateFormat.Field.MONTH);
-                if (cf.getSize() < 3)
-                  withLeadingZeros (calendar.get (Calendar.MONTH) + 1, cf.getSize(), buffer);
-                else if (cf.getSize() < 4)
-                  buffer.append (formatData.shortMonths[calendar.get (Calendar.MONTH)]);
-                else
-                  buffer.append (formatData.months[calendar.get (Calendar.MONTH)]);
-                break;
-              case DATE_FIELD:
-                buffer.setDefaultAttribute (DateFormat.Field.DAY_OF_MONTH);
-                withLeadingZeros (calendar.get (Calendar.DATE), cf.getSize(), buffer);
-                break;
-              case HOUR_OF_DAY1_FIELD: // 1-24
-                buffer.setDefaultAttribute(DateFormat.Field.HOUR_OF_DAY1);
-                withLeadingZeros ( ((calendar.get (Calendar.HOUR_OF_DAY) + 23) % 24) + 1,
-                                   cf.getSize(), buffer);
-                break;
-              case HOUR_OF_DAY0_FIELD: // 0-23
-                buffer.setDefaultAttribute (DateFormat.Field.HOUR_OF_DAY0);
-                withLeadingZeros (calendar.get (Calendar.HOUR_OF_DAY), cf.getSize(), buffer);
-                break;
-              case MINUTE_FIELD:
-                buffer.setDefaultAttribute (DateFormat.Field.MINUTE);
-                withLeadingZeros (calendar.get (Calendar.MINUTE),
-                                  cf.getSize(), buffer);
-                break;
-              case SECOND_FIELD:
-                buffer.setDefaultAttribute (DateFormat.Field.SECOND);
-                withLeadingZeros(calendar.get (Calendar.SECOND),
-                                 cf.getSize(), buffer);
-                break;
-              case MILLISECOND_FIELD:
-                buffer.setDefaultAttribute (DateFormat.Field.MILLISECOND);
-                withLeadingZeros (calendar.get (Calendar.MILLISECOND), cf.getSize(), buffer);
-                break;
-              case DAY_OF_WEEK_FIELD:
-                buffer.setDefaultAttribute (DateFormat.Field.DAY_OF_WEEK);
-                if (cf.getSize() < 4)
-                  buffer.append (formatData.shortWeekdays[calendar.get (Calendar.DAY_OF_WEEK)]);
-                else
-                  buffer.append (formatData.weekdays[calendar.get (Calendar.DAY_OF_WEEK)]);
-                break;
-              case DAY_OF_YEAR_FIELD:
-                buffer.setDefaultAttribute (DateFormat.Field.DAY_OF_YEAR);
-                withLeadingZeros (calendar.get (Calendar.DAY_OF_YEAR), cf.getSize(), buffer);
-                break;
-              case DAY_OF_WEEK_IN_MONTH_FIELD:
-                buffer.setDefaultAttribute (DateFormat.Field.DAY_OF_WEEK_IN_MONTH);
-                withLeadingZeros (calendar.get (Calendar.DAY_OF_WEEK_IN_MONTH),
-                                 cf.getSize(), buffer);
-                break;
-              case WEEK_OF_YEAR_FIELD:
-                buffer.setDefaultAttribute (DateFormat.Field.WEEK_OF_YEAR);
-                withLeadingZeros (calendar.get (Calendar.WEEK_OF_YEAR),
-                                  cf.getSize(), buffer);
-                break;
-              case WEEK_OF_MONTH_FIELD:
-                buffer.setDefaultAttribute (DateFormat.Field.WEEK_OF_MONTH);
-                withLeadingZeros (calendar.get (Calendar.WEEK_OF_MONTH),
-                                  cf.getSize(), buffer);
-                break;
-              case AM_PM_FIELD:
-                buffer.setDefaultAttribute (DateFormat.Field.AM_PM);
-                buffer.append (formatData.ampms[calendar.get (Calendar.AM_PM)]);
-                break;
-              case HOUR1_FIELD: // 1-12
-                buffer.setDefaultAttribute (DateFormat.Field.HOUR1);
-                withLeadingZeros (((calendar.get (Calendar.HOUR) + 11) % 12) + 1,
-                                  cf.getSize(), buffer);
-                break;
-              case HOUR0_FIELD: // 0-11
-                buffer.setDefaultAttribute (DateFormat.Field.HOUR0);
-                withLeadingZeros (calendar.get (Calendar.HOUR), cf.getSize(), buffer);
-                break;
-              case TIMEZONE_FIELD:
-                buffer.setDefaultAttribute (DateFormat.Field.TIME_ZONE);
-                TimeZone zone = calendar.getTimeZone();
-                boolean isDST = calendar.get (Calendar.DST_OFFSET) != 0;
-                // FIXME: XXX: This should be a localized time zone.
-                String zoneID = zone.getDisplayName
-                  (isDST, cf.getSize() > 3 ? TimeZone.LONG : TimeZone.SHORT);
-                buffer.append (zoneID);
-                break;
-              case RFC822_TIMEZONE_FIELD:
-                buffer.setDefaultAttribute(DateFormat.Field.TIME_ZONE);
-                int pureMinutes = (calendar.get(Calendar.ZONE_OFFSET) +
-                                   calendar.get(Calendar.DST_OFFSET)) / (1000 * 60);
-                String sign = (pureMinutes < 0) ? "-" : "+";
-                pureMinutes = Math.abs(pureMinutes);
-                int hours = pureMinutes / 60;
-                int minutes = pureMinutes % 60;
-                buffer.append(sign);
-                withLeadingZeros(hours, 2, buffer);
-                withLeadingZeros(minutes, 2, buffer);
-                break;
-              default:
-                throw new IllegalArgumentException ("Illegal pattern character " +
-                                                    cf.getCharacter());
-              }
-            if (pos != null && (buffer.getDefaultAttribute() == pos.getFieldAttribute()
-                                || cf.getField() == pos.getField()))
-              {
-                pos.setBeginIndex(beginIndex);
-                pos.setEndIndex(buffer.length());
-              }
-          }
-      else
-        {
-          buffer.append(o.toString(), null);
-        }
-      }
+    getCompiled().format(calendar, formatData, buffer, pos);
   }
 
   public StringBuffer format(Date date, StringBuffer buffer, FieldPosition pos)
@@ -865,14 +563,6 @@ public class SimpleDateFormat extends DateFormat
                                        buf.getAttributes());
   }
 
-  private void withLeadingZeros(int value, int length, FormatBuffer buffer)
-  {
-    String valStr = String.valueOf(value);
-    for (length -= valStr.length(); length > 0; length--)
-      buffer.append('0');
-    buffer.append(valStr);
-  }
-
   private boolean expect(String source, ParsePosition pos, char ch)
   {
     int x = pos.getIndex();
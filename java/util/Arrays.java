@@ -43,6 +43,15 @@ import gnu.java.lang.CPStringBuilder;
 
 import java.io.Serializable;
 import java.lang.reflect.Array;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BinaryOperator;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntFunction;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongBinaryOperator;
 
 /**
  * This class contains various static utility methods performing operations on
@@ -53,11 +62,12 @@ import java.lang.reflect.Array;
  *
  * Implementations may use their own algorithms, but must obey the general
  * properties; for example, the sort must be stable and n*log(n) complexity.
- * Sun's implementation of sort, and therefore ours, is a tuned quicksort,
- * adapted from Jon L. Bentley and M. Douglas McIlroy's "Engineering a Sort
- * Function", Software-Practice and Experience, Vol. 23(11) P. 1249-1265
- * (November 1993). This algorithm offers n*log(n) performance on many data
- * sets that cause other quicksorts to degrade to quadratic performance.
+ * Arrays of primitive values are sorted with Vladimir Yaroslavskiy's
+ * dual-pivot quicksort, which offers n*log(n) performance on many data
+ * sets that cause other quicksorts to degrade to quadratic performance,
+ * and large arrays of bytes, shorts and chars by counting sort.  Arrays
+ * of objects are sorted with TimSort, a stable merge sort that takes
+ * advantage of runs already in order.
  *
  * @author Original author unknown
  * @author Bryce McKinlay
@@ -1209,13 +1219,9 @@ public class Arrays
 
 
 // sort
-  // Thanks to Paul Fisher (rao@gnu.org) for finding this quicksort algorithm
-  // as specified by Sun and porting it to Java. The algorithm is an optimised
-  // quicksort, as described in Jon L. Bentley and M. Douglas McIlroy's
-  // "Engineering a Sort Function", Software-Practice and Experience, Vol.
-  // 23(11) P. 1249-1265 (November 1993). This algorithm gives n*log(n)
-  // performance on many arrays that would take quadratic time with a standard
-  // quicksort.
+  // Arrays of primitive values are sorted by DualPivotQuicksort, with
+  // counting sort for large byte, short and char ranges.  Arrays of
+  // objects are sorted by TimSort, which is stable.
 
   /**
    * Performs a stable sort on the elements, arranging them according to their
@@ -1225,7 +1231,7 @@ public class Arrays
    */
   public static void sort(byte[] a)
   {
-    qsort(a, 0, a.length);
+    DualPivotQuicksort.sort(a, 0, a.length);
   }
 
   /**
@@ -1243,662 +1249,475 @@ public class Arrays
   {
     if (fromIndex > toIndex)
       throw new IllegalArgumentException();
-    if (fromIndex < 0)
+    if (fromIndex < 0 || toIndex > a.length)
       throw new ArrayIndexOutOfBoundsException();
-    qsort(a, fromIndex, toIndex - fromIndex);
+    DualPivotQuicksort.sort(a, fromIndex, toIndex);
   }
 
   /**
-   * Finds the index of the median of three array elements.
+   * Performs a stable sort on the elements, arranging them according to their
+   * natural order.
    *
-   * @param a the first index
-   * @param b the second index
-   * @param c the third index
-   * @param d the array
-   * @return the index (a, b, or c) which has the middle value of the three
+   * @param a the char array to sort
    */
-  private static int med3(int a, int b, int c, byte[] d)
+  public static void sort(char[] a)
   {
-    return (d[a] < d[b]
-            ? (d[b] < d[c] ? b : d[a] < d[c] ? c : a)
-            : (d[b] > d[c] ? b : d[a] > d[c] ? c : a));
+    DualPivotQuicksort.sort(a, 0, a.length);
   }
 
   /**
-   * Swaps the elements at two locations of an array
+   * Performs a stable sort on the elements, arranging them according to their
+   * natural order.
    *
-   * @param i the first index
-   * @param j the second index
-   * @param a the array
+   * @param a the char array to sort
+   * @param fromIndex the first index to sort (inclusive)
+   * @param toIndex the last index to sort (exclusive)
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
+   *         || toIndex &gt; a.length
    */
-  private static void swap(int i, int j, byte[] a)
+  public static void sort(char[] a, int fromIndex, int toIndex)
   {
-    byte c = a[i];
-    a[i] = a[j];
-    a[j] = c;
+    if (fromIndex > toIndex)
+      throw new IllegalArgumentException();
+    if (fromIndex < 0 || toIndex > a.length)
+      throw new ArrayIndexOutOfBoundsException();
+    DualPivotQuicksort.sort(a, fromIndex, toIndex);
   }
 
   /**
-   * Swaps two ranges of an array.
+   * Performs a stable sort on the elements, arranging them according to their
+   * natural order.
    *
-   * @param i the first range start
-   * @param j the second range start
-   * @param n the element count
-   * @param a the array
+   * @param a the short array to sort
    */
-  private static void vecswap(int i, int j, int n, byte[] a)
+  public static void sort(short[] a)
   {
-    for ( ; n > 0; i++, j++, n--)
-      swap(i, j, a);
+    DualPivotQuicksort.sort(a, 0, a.length);
   }
 
   /**
-   * Performs a recursive modified quicksort.
+   * Performs a stable sort on the elements, arranging them according to their
+   * natural order.
    *
-   * @param array the array to sort
-   * @param from the start index (inclusive)
-   * @param count the number of elements to sort
+   * @param a the short array to sort
+   * @param fromIndex the first index to sort (inclusive)
+   * @param toIndex the last index to sort (exclusive)
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
+   *         || toIndex &gt; a.length
    */
-  private static void qsort(byte[] array, int from, int count)
+  public static void sort(short[] a, int fromIndex, int toIndex)
   {
-    // Use an insertion sort on small arrays.
-    if (count <= 7)
-      {
-        for (int i = from + 1; i < from + count; i++)
-          for (int j = i; j > from && array[j - 1] > array[j]; j--)
-            swap(j, j - 1, array);
-        return;
-      }
-
-    // Determine a good median element.
-    int mid = from + count / 2;
-    int lo = from;
-    int hi = from + count - 1;
-
-    if (count > 40)
-      { // big arrays, pseudomedian of 9
-        int s = count / 8;
-        lo = med3(lo, lo + s, lo + 2 * s, array);
-        mid = med3(mid - s, mid, mid + s, array);
-        hi = med3(hi - 2 * s, hi - s, hi, array);
-      }
-    mid = med3(lo, mid, hi, array);
-
-    int a, b, c, d;
-    int comp;
-
-    // Pull the median element out of the fray, and use it as a pivot.
-    swap(from, mid, array);
-    a = b = from;
-    c = d = from + count - 1;
-
-    // Repeatedly move b and c to each other, swapping elements so
-    // that all elements before index b are less than the pivot, and all
-    // elements after index c are greater than the pivot. a and b track
-    // the elements equal to the pivot.
-    while (true)
-      {
-        while (b <= c && (comp = array[b] - array[from]) <= 0)
-          {
-            if (comp == 0)
-              {
-                swap(a, b, array);
-                a++;
-              }
-            b++;
-          }
-        while (c >= b && (comp = array[c] - array[from]) >= 0)
-          {
-            if (comp == 0)
-              {
-                swap(c, d, array);
-                d--;
-              }
-            c--;
-          }
-        if (b > c)
-          break;
-        swap(b, c, array);
-        b++;
-        c--;
-      }
-
-    // Swap pivot(s) back in place, the recurse on left and right sections.
-    hi = from + count;
-    int span;
-    span = Math.min(a - from, b - a);
-    vecswap(from, b - span, span, array);
-
-    span = Math.min(d - c, hi - d - 1);
-    vecswap(b, hi - span, span, array);
-
-    span = b - a;
-    if (span > 1)
-      qsort(array, from, span);
-
-    span = d - c;
-    if (span > 1)
-      qsort(array, hi - span, span);
+    if (fromIndex > toIndex)
+      throw new IllegalArgumentException();
+    if (fromIndex < 0 || toIndex > a.length)
+      throw new ArrayIndexOutOfBoundsException();
+    DualPivotQuicksort.sort(a, fromIndex, toIndex);
   }
 
   /**
    * Performs a stable sort on the elements, arranging them according to their
    * natural order.
    *
-   * @param a the char array to sort
+   * @param a the int array to sort
    */
-  public static void sort(char[] a)
+  public static void sort(int[] a)
   {
-    qsort(a, 0, a.length);
+    DualPivotQuicksort.sort(a, 0, a.length);
   }
 
   /**
    * Performs a stable sort on the elements, arranging them according to their
    * natural order.
    *
-   * @param a the char array to sort
+   * @param a the int array to sort
    * @param fromIndex the first index to sort (inclusive)
    * @param toIndex the last index to sort (exclusive)
    * @throws IllegalArgumentException if fromIndex &gt; toIndex
    * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
    *         || toIndex &gt; a.length
    */
-  public static void sort(char[] a, int fromIndex, int toIndex)
+  public static void sort(int[] a, int fromIndex, int toIndex)
   {
     if (fromIndex > toIndex)
       throw new IllegalArgumentException();
-    if (fromIndex < 0)
+    if (fromIndex < 0 || toIndex > a.length)
       throw new ArrayIndexOutOfBoundsException();
-    qsort(a, fromIndex, toIndex - fromIndex);
+    DualPivotQuicksort.sort(a, fromIndex, toIndex);
   }
 
   /**
-   * Finds the index of the median of three array elements.
+   * Performs a stable sort on the elements, arranging them according to their
+   * natural order.
    *
-   * @param a the first index
-   * @param b the second index
-   * @param c the third index
-   * @param d the array
-   * @return the index (a, b, or c) which has the middle value of the three
+   * @param a the long array to sort
    */
-  private static int med3(int a, int b, int c, char[] d)
+  public static void sort(long[] a)
   {
-    return (d[a] < d[b]
-            ? (d[b] < d[c] ? b : d[a] < d[c] ? c : a)
-            : (d[b] > d[c] ? b : d[a] > d[c] ? c : a));
+    DualPivotQuicksort.sort(a, 0, a.length);
   }
 
   /**
-   * Swaps the elements at two locations of an array
+   * Performs a stable sort on the elements, arranging them according to their
+   * natural order.
    *
-   * @param i the first index
-   * @param j the second index
-   * @param a the array
+   * @param a the long array to sort
+   * @param fromIndex the first index to sort (inclusive)
+   * @param toIndex the last index to sort (exclusive)
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
+   *         || toIndex &gt; a.length
    */
-  private static void swap(int i, int j, char[] a)
+  public static void sort(long[] a, int fromIndex, int toIndex)
   {
-    char c = a[i];
-    a[i] = a[j];
-    a[j] = c;
+    if (fromIndex > toIndex)
+      throw new IllegalArgumentException();
+    if (fromIndex < 0 || toIndex > a.length)
+      throw new ArrayIndexOutOfBoundsException();
+    DualPivotQuicksort.sort(a, fromIndex, toIndex);
   }
 
   /**
-   * Swaps two ranges of an array.
+   * Performs a stable sort on the elements, arranging them according to their
+   * natural order.
    *
-   * @param i the first range start
-   * @param j the second range start
-   * @param n the element count
-   * @param a the array
+   * @param a the float array to sort
    */
-  private static void vecswap(int i, int j, int n, char[] a)
+  public static void sort(float[] a)
   {
-    for ( ; n > 0; i++, j++, n--)
-      swap(i, j, a);
+    DualPivotQuicksort.sort(a, 0, a.length);
   }
 
   /**
-   * Performs a recursive modified quicksort.
+   * Performs a stable sort on the elements, arranging them according to their
+   * natural order.
    *
-   * @param array the array to sort
-   * @param from the start index (inclusive)
-   * @param count the number of elements to sort
+   * @param a the float array to sort
+   * @param fromIndex the first index to sort (inclusive)
+   * @param toIndex the last index to sort (exclusive)
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
+   *         || toIndex &gt; a.length
    */
-  private static void qsort(char[] array, int from, int count)
+  public static void sort(float[] a, int fromIndex, int toIndex)
   {
-    // Use an insertion sort on small arrays.
-    if (count <= 7)
-      {
-        for (int i = from + 1; i < from + count; i++)
-          for (int j = i; j > from && array[j - 1] > array[j]; j--)
-            swap(j, j - 1, array);
-        return;
-      }
-
-    // Determine a good median element.
-    int mid = from + count / 2;
-    int lo = from;
-    int hi = from + count - 1;
-
-    if (count > 40)
-      { // big arrays, pseudomedian of 9
-        int s = count / 8;
-        lo = med3(lo, lo + s, lo + 2 * s, array);
-        mid = med3(mid - s, mid, mid + s, array);
-        hi = med3(hi - 2 * s, hi - s, hi, array);
-      }
-    mid = med3(lo, mid, hi, array);
-
-    int a, b, c, d;
-    int comp;
-
-    // Pull the median element out of the fray, and use it as a pivot.
-    swap(from, mid, array);
-    a = b = from;
-    c = d = from + count - 1;
-
-    // Repeatedly move b and c to each other, swapping elements so
-    // that all elements before index b are less than the pivot, and all
-    // elements after index c are greater than the pivot. a and b track
-    // the elements equal to the pivot.
-    while (true)
-      {
-        while (b <= c && (comp = array[b] - array[from]) <= 0)
-          {
-            if (comp == 0)
-              {
-                swap(a, b, array);
-                a++;
-              }
-            b++;
-          }
-        while (c >= b && (comp = array[c] - array[from]) >= 0)
-          {
-            if (comp == 0)
-              {
-                swap(c, d, array);
-                d--;
-              }
-            c--;
-          }
-        if (b > c)
-          break;
-        swap(b, c, array);
-        b++;
-        c--;
-      }
-
-    // Swap pivot(s) back in place, the recurse on left and right sections.
-    hi = from + count;
-    int span;
-    span = Math.min(a - from, b - a);
-    vecswap(from, b - span, span, array);
-
-    span = Math.min(d - c, hi - d - 1);
-    vecswap(b, hi - span, span, array);
-
-    span = b - a;
-    if (span > 1)
-      qsort(array, from, span);
-
-    span = d - c;
-    if (span > 1)
-      qsort(array, hi - span, span);
+    if (fromIndex > toIndex)
+      throw new IllegalArgumentException();
+    if (fromIndex < 0 || toIndex > a.length)
+      throw new ArrayIndexOutOfBoundsException();
+    DualPivotQuicksort.sort(a, fromIndex, toIndex);
   }
 
   /**
    * Performs a stable sort on the elements, arranging them according to their
    * natural order.
    *
-   * @param a the short array to sort
+   * @param a the double array to sort
    */
-  public static void sort(short[] a)
+  public static void sort(double[] a)
   {
-    qsort(a, 0, a.length);
+    DualPivotQuicksort.sort(a, 0, a.length);
   }
 
   /**
    * Performs a stable sort on the elements, arranging them according to their
    * natural order.
    *
-   * @param a the short array to sort
+   * @param a the double array to sort
    * @param fromIndex the first index to sort (inclusive)
    * @param toIndex the last index to sort (exclusive)
    * @throws IllegalArgumentException if fromIndex &gt; toIndex
    * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
    *         || toIndex &gt; a.length
    */
-  public static void sort(short[] a, int fromIndex, int toIndex)
+  public static void sort(double[] a, int fromIndex, int toIndex)
   {
     if (fromIndex > toIndex)
       throw new IllegalArgumentException();
-    if (fromIndex < 0)
+    if (fromIndex < 0 || toIndex > a.length)
       throw new ArrayIndexOutOfBoundsException();
-    qsort(a, fromIndex, toIndex - fromIndex);
+    DualPivotQuicksort.sort(a, fromIndex, toIndex);
   }
 
   /**
-   * Finds the index of the median of three array elements.
+   * Sort an array of Objects according to their natural ordering. The sort is
+   * guaranteed to be stable, that is, equal elements will not be reordered.
+   * The sort algorithm is a merge sort which finds the runs of elements
+   * already in order and merges them, galloping through long stretches of
+   * one run that all belong before the next element of the other (TimSort).
+   * This algorithm gives guaranteed O(n*log(n)) time and takes only n - 1
+   * comparisons if the array is already sorted, at the expense of a buffer
+   * of at most half the length of the array.
    *
-   * @param a the first index
-   * @param b the second index
-   * @param c the third index
-   * @param d the array
-   * @return the index (a, b, or c) which has the middle value of the three
+   * @param a the array to be sorted
+   * @throws ClassCastException if any two elements are not mutually
+   *         comparable
+   * @throws NullPointerException if an element is null (since
+   *         null.compareTo cannot work)
+   * @see Comparable
    */
-  private static int med3(int a, int b, int c, short[] d)
+  public static void sort(Object[] a)
   {
-    return (d[a] < d[b]
-            ? (d[b] < d[c] ? b : d[a] < d[c] ? c : a)
-            : (d[b] > d[c] ? b : d[a] > d[c] ? c : a));
+    sort(a, 0, a.length, null);
   }
 
   /**
-   * Swaps the elements at two locations of an array
+   * Sort an array of Objects according to a Comparator. The sort is
+   * guaranteed to be stable, that is, equal elements will not be reordered.
+   * The sort algorithm is a merge sort which finds the runs of elements
+   * already in order and merges them, galloping through long stretches of
+   * one run that all belong before the next element of the other (TimSort).
+   * This algorithm gives guaranteed O(n*log(n)) time and takes only n - 1
+   * comparisons if the array is already sorted, at the expense of a buffer
+   * of at most half the length of the array.
    *
-   * @param i the first index
-   * @param j the second index
-   * @param a the array
+   * @param a the array to be sorted
+   * @param c a Comparator to use in sorting the array; or null to indicate
+   *        the elements' natural order
+   * @throws ClassCastException if any two elements are not mutually
+   *         comparable by the Comparator provided
+   * @throws NullPointerException if a null element is compared with natural
+   *         ordering (only possible when c is null)
    */
-  private static void swap(int i, int j, short[] a)
+  public static <T> void sort(T[] a, Comparator<? super T> c)
   {
-    short c = a[i];
-    a[i] = a[j];
-    a[j] = c;
+    sort(a, 0, a.length, c);
   }
 
   /**
-   * Swaps two ranges of an array.
+   * Sort an array of Objects according to their natural ordering. The sort is
+   * guaranteed to be stable, that is, equal elements will not be reordered.
+   * The sort algorithm is a merge sort which finds the runs of elements
+   * already in order and merges them, galloping through long stretches of
+   * one run that all belong before the next element of the other (TimSort).
+   * This algorithm gives guaranteed O(n*log(n)) time and takes only n - 1
+   * comparisons if the array is already sorted, at the expense of a buffer
+   * of at most half the length of the array.
    *
-   * @param i the first range start
-   * @param j the second range start
-   * @param n the element count
-   * @param a the array
+   * @param a the array to be sorted
+   * @param fromIndex the index of the first element to be sorted
+   * @param toIndex the index of the last element to be sorted plus one
+   * @throws ClassCastException if any two elements are not mutually
+   *         comparable
+   * @throws NullPointerException if an element is null (since
+   *         null.compareTo cannot work)
+   * @throws ArrayIndexOutOfBoundsException if fromIndex and toIndex
+   *         are not in range.
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
    */
-  private static void vecswap(int i, int j, int n, short[] a)
+  public static void sort(Object[] a, int fromIndex, int toIndex)
   {
-    for ( ; n > 0; i++, j++, n--)
-      swap(i, j, a);
+    sort(a, fromIndex, toIndex, null);
   }
 
   /**
-   * Performs a recursive modified quicksort.
+   * Sort an array of Objects according to a Comparator. The sort is
+   * guaranteed to be stable, that is, equal elements will not be reordered.
+   * The sort algorithm is a merge sort which finds the runs of elements
+   * already in order and merges them, galloping through long stretches of
+   * one run that all belong before the next element of the other (TimSort).
+   * This algorithm gives guaranteed O(n*log(n)) time and takes only n - 1
+   * comparisons if the array is already sorted, at the expense of a buffer
+   * of at most half the length of the array.
    *
-   * @param array the array to sort
-   * @param from the start index (inclusive)
-   * @param count the number of elements to sort
+   * @param a the array to be sorted
+   * @param fromIndex the index of the first element to be sorted
+   * @param toIndex the index of the last element to be sorted plus one
+   * @param c a Comparator to use in sorting the array; or null to indicate
+   *        the elements' natural order
+   * @throws ClassCastException if any two elements are not mutually
+   *         comparable by the Comparator provided
+   * @throws ArrayIndexOutOfBoundsException if fromIndex and toIndex
+   *         are not in range.
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @throws NullPointerException if a null element is compared with natural
+   *         ordering (only possible when c is null)
+   * @throws IllegalArgumentException if the Comparator is found not to be
+   *         consistent (it is not always detected)
    */
-  private static void qsort(short[] array, int from, int count)
+  public static <T> void sort(T[] a, int fromIndex, int toIndex,
+                              Comparator<? super T> c)
   {
-    // Use an insertion sort on small arrays.
-    if (count <= 7)
-      {
-        for (int i = from + 1; i < from + count; i++)
-          for (int j = i; j > from && array[j - 1] > array[j]; j--)
-            swap(j, j - 1, array);
-        return;
-      }
-
-    // Determine a good median element.
-    int mid = from + count / 2;
-    int lo = from;
-    int hi = from + count - 1;
-
-    if (count > 40)
-      { // big arrays, pseudomedian of 9
-        int s = count / 8;
-        lo = med3(lo, lo + s, lo + 2 * s, array);
-        mid = med3(mid - s, mid, mid + s, array);
-        hi = med3(hi - 2 * s, hi - s, hi, array);
-      }
-    mid = med3(lo, mid, hi, array);
-
-    int a, b, c, d;
-    int comp;
-
-    // Pull the median element out of the fray, and use it as a pivot.
-    swap(from, mid, array);
-    a = b = from;
-    c = d = from + count - 1;
-
-    // Repeatedly move b and c to each other, swapping elements so
-    // that all elements before index b are less than the pivot, and all
-    // elements after index c are greater than the pivot. a and b track
-    // the elements equal to the pivot.
-    while (true)
-      {
-        while (b <= c && (comp = array[b] - array[from]) <= 0)
-          {
-            if (comp == 0)
-              {
-                swap(a, b, array);
-                a++;
-              }
-            b++;
-          }
-        while (c >= b && (comp = array[c] - array[from]) >= 0)
-          {
-            if (comp == 0)
-              {
-                swap(c, d, array);
-                d--;
-              }
-            c--;
-          }
-        if (b > c)
-          break;
-        swap(b, c, array);
-        b++;
-        c--;
-      }
-
-    // Swap pivot(s) back in place, the recurse on left and right sections.
-    hi = from + count;
-    int span;
-    span = Math.min(a - from, b - a);
-    vecswap(from, b - span, span, array);
-
-    span = Math.min(d - c, hi - d - 1);
-    vecswap(b, hi - span, span, array);
-
-    span = b - a;
-    if (span > 1)
-      qsort(array, from, span);
+    if (fromIndex > toIndex)
+      throw new IllegalArgumentException("fromIndex " + fromIndex
+                                         + " > toIndex " + toIndex);
+    if (fromIndex < 0 || toIndex > a.length)
+      throw new ArrayIndexOutOfBoundsException();
 
-    span = d - c;
-    if (span > 1)
-      qsort(array, hi - span, span);
+    TimSort.sort(a, fromIndex, toIndex, c);
   }
 
+// parallelSort
+  // Large arrays of int, long, float, double and objects are merge sorted
+  // in parallel by the common ForkJoinPool, using the sequential sorts
+  // for the pieces; see ArraysParallelHelpers.  Small arrays, and all
+  // arrays when the pool has a single thread, are sorted sequentially.
+  // Arrays of byte, short and char are always sorted sequentially, since
+  // counting sort already sorts large ones in linear time.
+
   /**
-   * Performs a stable sort on the elements, arranging them according to their
-   * natural order.
+   * Sorts the array into ascending numerical order.  This is the same
+   * as {@link #sort(byte[])}; arrays of byte are not worth sorting in
+   * parallel.
    *
-   * @param a the int array to sort
+   * @param a the byte array to sort
+   * @since 1.8
    */
-  public static void sort(int[] a)
+  public static void parallelSort(byte[] a)
   {
-    qsort(a, 0, a.length);
+    DualPivotQuicksort.sort(a, 0, a.length);
   }
 
   /**
-   * Performs a stable sort on the elements, arranging them according to their
-   * natural order.
+   * Sorts a range of the array into ascending numerical order.  This is
+   * the same as {@link #sort(byte[], int, int)}.
    *
-   * @param a the int array to sort
+   * @param a the byte array to sort
    * @param fromIndex the first index to sort (inclusive)
    * @param toIndex the last index to sort (exclusive)
    * @throws IllegalArgumentException if fromIndex &gt; toIndex
    * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
    *         || toIndex &gt; a.length
+   * @since 1.8
    */
-  public static void sort(int[] a, int fromIndex, int toIndex)
+  public static void parallelSort(byte[] a, int fromIndex, int toIndex)
   {
     if (fromIndex > toIndex)
-      throw new IllegalArgumentException();
-    if (fromIndex < 0)
+      throw new IllegalArgumentException("fromIndex " + fromIndex
+                                         + " > toIndex " + toIndex);
+    if (fromIndex < 0 || toIndex > a.length)
       throw new ArrayIndexOutOfBoundsException();
-    qsort(a, fromIndex, toIndex - fromIndex);
+    DualPivotQuicksort.sort(a, fromIndex, toIndex);
   }
 
   /**
-   * Finds the index of the median of three array elements.
+   * Sorts the array into ascending numerical order.  This is the same
+   * as {@link #sort(char[])}; arrays of char are not worth sorting in
+   * parallel.
    *
-   * @param a the first index
-   * @param b the second index
-   * @param c the third index
-   * @param d the array
-   * @return the index (a, b, or c) which has the middle value of the three
+   * @param a the char array to sort
+   * @since 1.8
    */
-  private static int med3(int a, int b, int c, int[] d)
+  public static void parallelSort(char[] a)
   {
-    return (d[a] < d[b]
-            ? (d[b] < d[c] ? b : d[a] < d[c] ? c : a)
-            : (d[b] > d[c] ? b : d[a] > d[c] ? c : a));
+    DualPivotQuicksort.sort(a, 0, a.length);
   }
 
   /**
-   * Swaps the elements at two locations of an array
+   * Sorts a range of the array into ascending numerical order.  This is
+   * the same as {@link #sort(char[], int, int)}.
    *
-   * @param i the first index
-   * @param j the second index
-   * @param a the array
+   * @param a the char array to sort
+   * @param fromIndex the first index to sort (inclusive)
+   * @param toIndex the last index to sort (exclusive)
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
+   *         || toIndex &gt; a.length
+   * @since 1.8
    */
-  private static void swap(int i, int j, int[] a)
+  public static void parallelSort(char[] a, int fromIndex, int toIndex)
   {
-    int c = a[i];
-    a[i] = a[j];
-    a[j] = c;
+    if (fromIndex > toIndex)
+      throw new IllegalArgumentException("fromIndex " + fromIndex
+                                         + " > toIndex " + toIndex);
+    if (fromIndex < 0 || toIndex > a.length)
+      throw new ArrayIndexOutOfBoundsException();
+    DualPivotQuicksort.sort(a, fromIndex, toIndex);
   }
 
   /**
-   * Swaps two ranges of an array.
+   * Sorts the array into ascending numerical order.  This is the same
+   * as {@link #sort(short[])}; arrays of short are not worth sorting in
+   * parallel.
    *
-   * @param i the first range start
-   * @param j the second range start
-   * @param n the element count
-   * @param a the array
+   * @param a the short array to sort
+   * @since 1.8
    */
-  private static void vecswap(int i, int j, int n, int[] a)
+  public static void parallelSort(short[] a)
   {
-    for ( ; n > 0; i++, j++, n--)
-      swap(i, j, a);
+    DualPivotQuicksort.sort(a, 0, a.length);
   }
 
   /**
-   * Compares two integers in natural order, since a - b is inadequate.
+   * Sorts a range of the array into ascending numerical order.  This is
+   * the same as {@link #sort(short[], int, int)}.
    *
-   * @param a the first int
-   * @param b the second int
-   * @return &lt; 0, 0, or &gt; 0 accorting to the comparison
+   * @param a the short array to sort
+   * @param fromIndex the first index to sort (inclusive)
+   * @param toIndex the last index to sort (exclusive)
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
+   *         || toIndex &gt; a.length
+   * @since 1.8
    */
-  private static int compare(int a, int b)
+  public static void parallelSort(short[] a, int fromIndex, int toIndex)
   {
-    return a < b ? -1 : a == b ? 0 : 1;
+    if (fromIndex > toIndex)
+      throw new IllegalArgumentException("fromIndex " + fromIndex
+                                         + " > toIndex " + toIndex);
+    if (fromIndex < 0 || toIndex > a.length)
+      throw new ArrayIndexOutOfBoundsException();
+    DualPivotQuicksort.sort(a, fromIndex, toIndex);
   }
 
   /**
-   * Performs a recursive modified quicksort.
+   * Sorts the array into ascending numerical order.  A large array is
+   * cut into pieces which are sorted in parallel and then merged, using
+   * the common {@link ForkJoinPool} and a workspace as large as the
+   * array.
    *
-   * @param array the array to sort
-   * @param from the start index (inclusive)
-   * @param count the number of elements to sort
+   * @param a the int array to sort
+   * @since 1.8
    */
-  private static void qsort(int[] array, int from, int count)
+  public static void parallelSort(int[] a)
   {
-    // Use an insertion sort on small arrays.
-    if (count <= 7)
-      {
-        for (int i = from + 1; i < from + count; i++)
-          for (int j = i; j > from && array[j - 1] > array[j]; j--)
-            swap(j, j - 1, array);
-        return;
-      }
-
-    // Determine a good median element.
-    int mid = from + count / 2;
-    int lo = from;
-    int hi = from + count - 1;
-
-    if (count > 40)
-      { // big arrays, pseudomedian of 9
-        int s = count / 8;
-        lo = med3(lo, lo + s, lo + 2 * s, array);
-        mid = med3(mid - s, mid, mid + s, array);
-        hi = med3(hi - 2 * s, hi - s, hi, array);
-      }
-    mid = med3(lo, mid, hi, array);
-
-    int a, b, c, d;
-    int comp;
-
-    // Pull the median element out of the fray, and use it as a pivot.
-    swap(from, mid, array);
-    a = b = from;
-    c = d = from + count - 1;
+    ArraysParallelHelpers.sort(a, 0, a.length);
+  }
 
-    // Repeatedly move b and c to each other, swapping elements so
-    // that all elements before index b are less than the pivot, and all
-    // elements after index c are greater than the pivot. a and b track
-    // the elements equal to the pivot.
-    while (true)
-      {
-        while (b <= c && (comp = compare(array[b], array[from])) <= 0)
-          {
-            if (comp == 0)
-              {
-                swap(a, b, array);
-                a++;
-              }
-            b++;
-          }
-        while (c >= b && (comp = compare(array[c], array[from])) >= 0)
-          {
-            if (comp == 0)
-              {
-                swap(c, d, array);
-                d--;
-              }
-            c--;
-          }
-        if (b > c)
-          break;
-        swap(b, c, array);
-        b++;
-        c--;
-      }
-
-    // Swap pivot(s) back in place, the recurse on left and right sections.
-    hi = from + count;
-    int span;
-    span = Math.min(a - from, b - a);
-    vecswap(from, b - span, span, array);
-
-    span = Math.min(d - c, hi - d - 1);
-    vecswap(b, hi - span, span, array);
-
-    span = b - a;
-    if (span > 1)
-      qsort(array, from, span);
-
-    span = d - c;
-    if (span > 1)
-      qsort(array, hi - span, span);
+  /**
+   * Sorts a range of the array into ascending numerical order.  A large
+   * range is cut into pieces which are sorted in parallel and then
+   * merged, using the common {@link ForkJoinPool} and a workspace as
+   * large as the range.
+   *
+   * @param a the int array to sort
+   * @param fromIndex the first index to sort (inclusive)
+   * @param toIndex the last index to sort (exclusive)
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
+   *         || toIndex &gt; a.length
+   * @since 1.8
+   */
+  public static void parallelSort(int[] a, int fromIndex, int toIndex)
+  {
+    if (fromIndex > toIndex)
+      throw new IllegalArgumentException("fromIndex " + fromIndex
+                                         + " > toIndex " + toIndex);
+    if (fromIndex < 0 || toIndex > a.length)
+      throw new ArrayIndexOutOfBoundsException();
+    ArraysParallelHelpers.sort(a, fromIndex, toIndex);
   }
 
   /**
-   * Performs a stable sort on the elements, arranging them according to their
-   * natural order.
+   * Sorts the array into ascending numerical order.  A large array is
+   * cut into pieces which are sorted in parallel and then merged, using
+   * the common {@link ForkJoinPool} and a workspace as large as the
+   * array.
    *
    * @param a the long array to sort
+   * @since 1.8
    */
-  public static void sort(long[] a)
+  public static void parallelSort(long[] a)
   {
-    qsort(a, 0, a.length);
+    ArraysParallelHelpers.sort(a, 0, a.length);
   }
 
   /**
-   * Performs a stable sort on the elements, arranging them according to their
-   * natural order.
+   * Sorts a range of the array into ascending numerical order.  A large
+   * range is cut into pieces which are sorted in parallel and then
+   * merged, using the common {@link ForkJoinPool} and a workspace as
+   * large as the range.
    *
    * @param a the long array to sort
    * @param fromIndex the first index to sort (inclusive)
@@ -1906,706 +1725,452 @@ public class Arrays
    * @throws IllegalArgumentException if fromIndex &gt; toIndex
    * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
    *         || toIndex &gt; a.length
+   * @since 1.8
    */
-  public static void sort(long[] a, int fromIndex, int toIndex)
+  public static void parallelSort(long[] a, int fromIndex, int toIndex)
   {
     if (fromIndex > toIndex)
-      throw new IllegalArgumentException();
-    if (fromIndex < 0)
+      throw new IllegalArgumentException("fromIndex " + fromIndex
+                                         + " > toIndex " + toIndex);
+    if (fromIndex < 0 || toIndex > a.length)
       throw new ArrayIndexOutOfBoundsException();
-    qsort(a, fromIndex, toIndex - fromIndex);
+    ArraysParallelHelpers.sort(a, fromIndex, toIndex);
   }
 
   /**
-   * Finds the index of the median of three array elements.
+   * Sorts the array into ascending numerical order.  A large array is
+   * cut into pieces which are sorted in parallel and then merged, using
+   * the common {@link ForkJoinPool} and a workspace as large as the
+   * array.
+   * The order is that of {@link Float#compare}: -0.0 sorts before 0.0,
+   * and NaN after every other value.
    *
-   * @param a the first index
-   * @param b the second index
-   * @param c the third index
-   * @param d the array
-   * @return the index (a, b, or c) which has the middle value of the three
-   */
-  private static int med3(int a, int b, int c, long[] d)
-  {
-    return (d[a] < d[b]
-            ? (d[b] < d[c] ? b : d[a] < d[c] ? c : a)
-            : (d[b] > d[c] ? b : d[a] > d[c] ? c : a));
-  }
-
-  /**
-   * Swaps the elements at two locations of an array
-   *
-   * @param i the first index
-   * @param j the second index
-   * @param a the array
+   * @param a the float array to sort
+   * @since 1.8
    */
-  private static void swap(int i, int j, long[] a)
+  public static void parallelSort(float[] a)
   {
-    long c = a[i];
-    a[i] = a[j];
-    a[j] = c;
+    ArraysParallelHelpers.sort(a, 0, a.length);
   }
 
   /**
-   * Swaps two ranges of an array.
+   * Sorts a range of the array into ascending numerical order.  A large
+   * range is cut into pieces which are sorted in parallel and then
+   * merged, using the common {@link ForkJoinPool} and a workspace as
+   * large as the range.
+   * The order is that of {@link Float#compare}: -0.0 sorts before 0.0,
+   * and NaN after every other value.
    *
-   * @param i the first range start
-   * @param j the second range start
-   * @param n the element count
-   * @param a the array
+   * @param a the float array to sort
+   * @param fromIndex the first index to sort (inclusive)
+   * @param toIndex the last index to sort (exclusive)
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
+   *         || toIndex &gt; a.length
+   * @since 1.8
    */
-  private static void vecswap(int i, int j, int n, long[] a)
+  public static void parallelSort(float[] a, int fromIndex, int toIndex)
   {
-    for ( ; n > 0; i++, j++, n--)
-      swap(i, j, a);
+    if (fromIndex > toIndex)
+      throw new IllegalArgumentException("fromIndex " + fromIndex
+                                         + " > toIndex " + toIndex);
+    if (fromIndex < 0 || toIndex > a.length)
+      throw new ArrayIndexOutOfBoundsException();
+    ArraysParallelHelpers.sort(a, fromIndex, toIndex);
   }
 
   /**
-   * Compares two longs in natural order, since a - b is inadequate.
+   * Sorts the array into ascending numerical order.  A large array is
+   * cut into pieces which are sorted in parallel and then merged, using
+   * the common {@link ForkJoinPool} and a workspace as large as the
+   * array.
+   * The order is that of {@link Double#compare}: -0.0 sorts before 0.0,
+   * and NaN after every other value.
    *
-   * @param a the first long
-   * @param b the second long
-   * @return &lt; 0, 0, or &gt; 0 accorting to the comparison
+   * @param a the double array to sort
+   * @since 1.8
    */
-  private static int compare(long a, long b)
+  public static void parallelSort(double[] a)
   {
-    return a < b ? -1 : a == b ? 0 : 1;
+    ArraysParallelHelpers.sort(a, 0, a.length);
   }
 
   /**
-   * Performs a recursive modified quicksort.
+   * Sorts a range of the array into ascending numerical order.  A large
+   * range is cut into pieces which are sorted in parallel and then
+   * merged, using the common {@link ForkJoinPool} and a workspace as
+   * large as the range.
+   * The order is that of {@link Double#compare}: -0.0 sorts before 0.0,
+   * and NaN after every other value.
    *
-   * @param array the array to sort
-   * @param from the start index (inclusive)
-   * @param count the number of elements to sort
+   * @param a the double array to sort
+   * @param fromIndex the first index to sort (inclusive)
+   * @param toIndex the last index to sort (exclusive)
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
+   *         || toIndex &gt; a.length
+   * @since 1.8
    */
-  private static void qsort(long[] array, int from, int count)
+  public static void parallelSort(double[] a, int fromIndex, int toIndex)
   {
-    // Use an insertion sort on small arrays.
-    if (count <= 7)
-      {
-        for (int i = from + 1; i < from + count; i++)
-          for (int j = i; j > from && array[j - 1] > array[j]; j--)
-            swap(j, j - 1, array);
-        return;
-      }
-
-    // Determine a good median element.
-    int mid = from + count / 2;
-    int lo = from;
-    int hi = from + count - 1;
-
-    if (count > 40)
-      { // big arrays, pseudomedian of 9
-        int s = count / 8;
-        lo = med3(lo, lo + s, lo + 2 * s, array);
-        mid = med3(mid - s, mid, mid + s, array);
-        hi = med3(hi - 2 * s, hi - s, hi, array);
-      }
-    mid = med3(lo, mid, hi, array);
-
-    int a, b, c, d;
-    int comp;
-
-    // Pull the median element out of the fray, and use it as a pivot.
-    swap(from, mid, array);
-    a = b = from;
-    c = d = from + count - 1;
-
-    // Repeatedly move b and c to each other, swapping elements so
-    // that all elements before index b are less than the pivot, and all
-    // elements after index c are greater than the pivot. a and b track
-    // the elements equal to the pivot.
-    while (true)
-      {
-        while (b <= c && (comp = compare(array[b], array[from])) <= 0)
-          {
-            if (comp == 0)
-              {
-                swap(a, b, array);
-                a++;
-              }
-            b++;
-          }
-        while (c >= b && (comp = compare(array[c], array[from])) >= 0)
-          {
-            if (comp == 0)
-              {
-                swap(c, d, array);
-                d--;
-              }
-            c--;
-          }
-        if (b > c)
-          break;
-        swap(b, c, array);
-        b++;
-        c--;
-      }
-
-    // Swap pivot(s) back in place, the recurse on left and right sections.
-    hi = from + count;
-    int span;
-    span = Math.min(a - from, b - a);
-    vecswap(from, b - span, span, array);
-
-    span = Math.min(d - c, hi - d - 1);
-    vecswap(b, hi - span, span, array);
-
-    span = b - a;
-    if (span > 1)
-      qsort(array, from, span);
-
-    span = d - c;
-    if (span > 1)
-      qsort(array, hi - span, span);
+    if (fromIndex > toIndex)
+      throw new IllegalArgumentException("fromIndex " + fromIndex
+                                         + " > toIndex " + toIndex);
+    if (fromIndex < 0 || toIndex > a.length)
+      throw new ArrayIndexOutOfBoundsException();
+    ArraysParallelHelpers.sort(a, fromIndex, toIndex);
   }
 
   /**
-   * Performs a stable sort on the elements, arranging them according to their
-   * natural order.
+   * Sorts an array of Objects according to their natural ordering.  The
+   * sort is stable.  A large array is cut into pieces which are sorted
+   * in parallel and then merged, using the common {@link ForkJoinPool}
+   * and a workspace as large as the array.
    *
-   * @param a the float array to sort
+   * @param a the array to be sorted
+   * @throws ClassCastException if any two elements are not mutually
+   *         comparable
+   * @throws NullPointerException if an element is null
+   * @since 1.8
    */
-  public static void sort(float[] a)
+  public static <T extends Comparable<? super T>> void parallelSort(T[] a)
   {
-    qsort(a, 0, a.length);
+    ArraysParallelHelpers.sort(a, 0, a.length, null);
   }
 
   /**
-   * Performs a stable sort on the elements, arranging them according to their
-   * natural order.
+   * Sorts a range of an array of Objects according to their natural
+   * ordering.  The sort is stable.  A large range is cut into pieces
+   * which are sorted in parallel and then merged.
    *
-   * @param a the float array to sort
-   * @param fromIndex the first index to sort (inclusive)
-   * @param toIndex the last index to sort (exclusive)
+   * @param a the array to be sorted
+   * @param fromIndex the index of the first element to be sorted
+   * @param toIndex the index of the last element to be sorted plus one
+   * @throws ClassCastException if any two elements are not mutually
+   *         comparable
+   * @throws NullPointerException if an element is null
+   * @throws ArrayIndexOutOfBoundsException if fromIndex and toIndex
+   *         are not in range.
    * @throws IllegalArgumentException if fromIndex &gt; toIndex
-   * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
-   *         || toIndex &gt; a.length
+   * @since 1.8
    */
-  public static void sort(float[] a, int fromIndex, int toIndex)
+  public static <T extends Comparable<? super T>> void
+    parallelSort(T[] a, int fromIndex, int toIndex)
   {
     if (fromIndex > toIndex)
-      throw new IllegalArgumentException();
-    if (fromIndex < 0)
+      throw new IllegalArgumentException("fromIndex " + fromIndex
+                                         + " > toIndex " + toIndex);
+    if (fromIndex < 0 || toIndex > a.length)
       throw new ArrayIndexOutOfBoundsException();
-    qsort(a, fromIndex, toIndex - fromIndex);
+    ArraysParallelHelpers.sort(a, fromIndex, toIndex, null);
   }
 
   /**
-   * Finds the index of the median of three array elements.
+   * Sorts an array of Objects according to a Comparator.  The sort is
+   * stable.  A large array is cut into pieces which are sorted in
+   * parallel and then merged, using the common {@link ForkJoinPool} and
+   * a workspace as large as the array.
    *
-   * @param a the first index
-   * @param b the second index
-   * @param c the third index
-   * @param d the array
-   * @return the index (a, b, or c) which has the middle value of the three
+   * @param a the array to be sorted
+   * @param c a Comparator to use in sorting the array; or null to indicate
+   *        the elements' natural order
+   * @throws ClassCastException if any two elements are not mutually
+   *         comparable by the Comparator provided
+   * @throws NullPointerException if a null element is compared with natural
+   *         ordering (only possible when c is null)
+   * @since 1.8
    */
-  private static int med3(int a, int b, int c, float[] d)
+  public static <T> void parallelSort(T[] a, Comparator<? super T> c)
   {
-    return (Float.compare(d[a], d[b]) < 0
-            ? (Float.compare(d[b], d[c]) < 0 ? b
-               : Float.compare(d[a], d[c]) < 0 ? c : a)
-            : (Float.compare(d[b], d[c]) > 0 ? b
-               : Float.compare(d[a], d[c]) > 0 ? c : a));
+    ArraysParallelHelpers.sort(a, 0, a.length, c);
   }
 
   /**
-   * Swaps the elements at two locations of an array
+   * Sorts a range of an array of Objects according to a Comparator.  The
+   * sort is stable.  A large range is cut into pieces which are sorted
+   * in parallel and then merged.
    *
-   * @param i the first index
-   * @param j the second index
-   * @param a the array
+   * @param a the array to be sorted
+   * @param fromIndex the index of the first element to be sorted
+   * @param toIndex the index of the last element to be sorted plus one
+   * @param c a Comparator to use in sorting the array; or null to indicate
+   *        the elements' natural order
+   * @throws ClassCastException if any two elements are not mutually
+   *         comparable by the Comparator provided
+   * @throws ArrayIndexOutOfBoundsException if fromIndex and toIndex
+   *         are not in range.
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @throws NullPointerException if a null element is compared with natural
+   *         ordering (only possible when c is null)
+   * @since 1.8
    */
-  private static void swap(int i, int j, float[] a)
+  public static <T> void parallelSort(T[] a, int fromIndex, int toIndex,
+                                      Comparator<? super T> c)
   {
-    float c = a[i];
-    a[i] = a[j];
-    a[j] = c;
+    if (fromIndex > toIndex)
+      throw new IllegalArgumentException("fromIndex " + fromIndex
+                                         + " > toIndex " + toIndex);
+    if (fromIndex < 0 || toIndex > a.length)
+      throw new ArrayIndexOutOfBoundsException();
+    ArraysParallelHelpers.sort(a, fromIndex, toIndex, c);
   }
 
+// parallelPrefix
+  // The prefix is computed in two parallel passes over blocks of the
+  // range, so it takes about twice as many applications of the operation
+  // as a sequential loop; it pays off with three or more processors.
+
   /**
-   * Swaps two ranges of an array.
+   * Replaces each element of the array by the result of combining it with
+   * all the elements before it, in parallel.  That is, afterwards
+   * <code>a[i]</code> is <code>op.apply(a[i - 1], a[i])</code> for
+   * the original value of <code>a[i]</code>.  The operation must be
+   * associative and free of side effects, since it is applied to the
+   * elements in some other order and grouping as well.
    *
-   * @param i the first range start
-   * @param j the second range start
-   * @param n the element count
    * @param a the array
+   * @param op the associative operation
+   * @throws NullPointerException if the operation is null and the array
+   *         has more than one element
+   * @since 1.8
    */
-  private static void vecswap(int i, int j, int n, float[] a)
+  public static <T> void parallelPrefix(T[] a, BinaryOperator<T> op)
   {
-    for ( ; n > 0; i++, j++, n--)
-      swap(i, j, a);
+    ArraysParallelHelpers.prefix(a, 0, a.length, op);
   }
 
   /**
-   * Performs a recursive modified quicksort.
+   * Replaces each element of a range of the array by the result of
+   * combining it with all the elements of the range before it, in
+   * parallel, as {@link #parallelPrefix(Object[], BinaryOperator)}
+   * does for a whole array.
    *
-   * @param array the array to sort
-   * @param from the start index (inclusive)
-   * @param count the number of elements to sort
+   * @param a the array
+   * @param fromIndex the first index of the range (inclusive)
+   * @param toIndex the last index of the range (exclusive)
+   * @param op the associative operation
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
+   *         || toIndex &gt; a.length
+   * @since 1.8
    */
-  private static void qsort(float[] array, int from, int count)
+  public static <T> void parallelPrefix(T[] a, int fromIndex, int toIndex,
+                                        BinaryOperator<T> op)
   {
-    // Use an insertion sort on small arrays.
-    if (count <= 7)
-      {
-        for (int i = from + 1; i < from + count; i++)
-          for (int j = i;
-               j > from && Float.compare(array[j - 1], array[j]) > 0;
-               j--)
-            {
-              swap(j, j - 1, array);
-            }
-        return;
-      }
-
-    // Determine a good median element.
-    int mid = from + count / 2;
-    int lo = from;
-    int hi = from + count - 1;
-
-    if (count > 40)
-      { // big arrays, pseudomedian of 9
-        int s = count / 8;
-        lo = med3(lo, lo + s, lo + 2 * s, array);
-        mid = med3(mid - s, mid, mid + s, array);
-        hi = med3(hi - 2 * s, hi - s, hi, array);
-      }
-    mid = med3(lo, mid, hi, array);
-
-    int a, b, c, d;
-    int comp;
-
-    // Pull the median element out of the fray, and use it as a pivot.
-    swap(from, mid, array);
-    a = b = from;
-    c = d = from + count - 1;
-
-    // Repeatedly move b and c to each other, swapping elements so
-    // that all elements before index b are less than the pivot, and all
-    // elements after index c are greater than the pivot. a and b track
-    // the elements equal to the pivot.
-    while (true)
-      {
-        while (b <= c && (comp = Float.compare(array[b], array[from])) <= 0)
-          {
-            if (comp == 0)
-              {
-                swap(a, b, array);
-                a++;
-              }
-            b++;
-          }
-        while (c >= b && (comp = Float.compare(array[c], array[from])) >= 0)
-          {
-            if (comp == 0)
-              {
-                swap(c, d, array);
-                d--;
-              }
-            c--;
-          }
-        if (b > c)
-          break;
-        swap(b, c, array);
-        b++;
-        c--;
-      }
-
-    // Swap pivot(s) back in place, the recurse on left and right sections.
-    hi = from + count;
-    int span;
-    span = Math.min(a - from, b - a);
-    vecswap(from, b - span, span, array);
-
-    span = Math.min(d - c, hi - d - 1);
-    vecswap(b, hi - span, span, array);
-
-    span = b - a;
-    if (span > 1)
-      qsort(array, from, span);
-
-    span = d - c;
-    if (span > 1)
-      qsort(array, hi - span, span);
+    if (fromIndex > toIndex)
+      throw new IllegalArgumentException("fromIndex " + fromIndex
+                                         + " > toIndex " + toIndex);
+    if (fromIndex < 0 || toIndex > a.length)
+      throw new ArrayIndexOutOfBoundsException();
+    ArraysParallelHelpers.prefix(a, fromIndex, toIndex, op);
   }
 
   /**
-   * Performs a stable sort on the elements, arranging them according to their
-   * natural order.
+   * Replaces each element of the array by the result of combining it with
+   * all the elements before it, in parallel.  That is, afterwards
+   * <code>a[i]</code> is <code>op.applyAsInt(a[i - 1], a[i])</code> for
+   * the original value of <code>a[i]</code>.  The operation must be
+   * associative and free of side effects, since it is applied to the
+   * elements in some other order and grouping as well.
    *
-   * @param a the double array to sort
+   * @param a the array
+   * @param op the associative operation
+   * @throws NullPointerException if the operation is null and the array
+   *         has more than one element
+   * @since 1.8
    */
-  public static void sort(double[] a)
+  public static void parallelPrefix(int[] a, IntBinaryOperator op)
   {
-    qsort(a, 0, a.length);
+    ArraysParallelHelpers.prefix(a, 0, a.length, op);
   }
 
   /**
-   * Performs a stable sort on the elements, arranging them according to their
-   * natural order.
+   * Replaces each element of a range of the array by the result of
+   * combining it with all the elements of the range before it, in
+   * parallel, as {@link #parallelPrefix(int[], IntBinaryOperator)}
+   * does for a whole array.
    *
-   * @param a the double array to sort
-   * @param fromIndex the first index to sort (inclusive)
-   * @param toIndex the last index to sort (exclusive)
+   * @param a the array
+   * @param fromIndex the first index of the range (inclusive)
+   * @param toIndex the last index of the range (exclusive)
+   * @param op the associative operation
    * @throws IllegalArgumentException if fromIndex &gt; toIndex
    * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
    *         || toIndex &gt; a.length
+   * @since 1.8
    */
-  public static void sort(double[] a, int fromIndex, int toIndex)
+  public static void parallelPrefix(int[] a, int fromIndex, int toIndex,
+                                    IntBinaryOperator op)
   {
     if (fromIndex > toIndex)
-      throw new IllegalArgumentException();
-    if (fromIndex < 0)
+      throw new IllegalArgumentException("fromIndex " + fromIndex
+                                         + " > toIndex " + toIndex);
+    if (fromIndex < 0 || toIndex > a.length)
       throw new ArrayIndexOutOfBoundsException();
-    qsort(a, fromIndex, toIndex - fromIndex);
+    ArraysParallelHelpers.prefix(a, fromIndex, toIndex, op);
   }
 
   /**
-   * Finds the index of the median of three array elements.
+   * Replaces each element of the array by the result of combining it with
+   * all the elements before it, in parallel.  That is, afterwards
+   * <code>a[i]</code> is <code>op.applyAsLong(a[i - 1], a[i])</code> for
+   * the original value of <code>a[i]</code>.  The operation must be
+   * associative and free of side effects, since it is applied to the
+   * elements in some other order and grouping as well.
    *
-   * @param a the first index
-   * @param b the second index
-   * @param c the third index
-   * @param d the array
-   * @return the index (a, b, or c) which has the middle value of the three
+   * @param a the array
+   * @param op the associative operation
+   * @throws NullPointerException if the operation is null and the array
+   *         has more than one element
+   * @since 1.8
    */
-  private static int med3(int a, int b, int c, double[] d)
+  public static void parallelPrefix(long[] a, LongBinaryOperator op)
   {
-    return (Double.compare(d[a], d[b]) < 0
-            ? (Double.compare(d[b], d[c]) < 0 ? b
-               : Double.compare(d[a], d[c]) < 0 ? c : a)
-            : (Double.compare(d[b], d[c]) > 0 ? b
-               : Double.compare(d[a], d[c]) > 0 ? c : a));
+    ArraysParallelHelpers.prefix(a, 0, a.length, op);
   }
 
   /**
-   * Swaps the elements at two locations of an array
+   * Replaces each element of a range of the array by the result of
+   * combining it with all the elements of the range before it, in
+   * parallel, as {@link #parallelPrefix(long[], LongBinaryOperator)}
+   * does for a whole array.
    *
-   * @param i the first index
-   * @param j the second index
    * @param a the array
+   * @param fromIndex the first index of the range (inclusive)
+   * @param toIndex the last index of the range (exclusive)
+   * @param op the associative operation
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
+   *         || toIndex &gt; a.length
+   * @since 1.8
    */
-  private static void swap(int i, int j, double[] a)
+  public static void parallelPrefix(long[] a, int fromIndex, int toIndex,
+                                    LongBinaryOperator op)
   {
-    double c = a[i];
-    a[i] = a[j];
-    a[j] = c;
+    if (fromIndex > toIndex)
+      throw new IllegalArgumentException("fromIndex " + fromIndex
+                                         + " > toIndex " + toIndex);
+    if (fromIndex < 0 || toIndex > a.length)
+      throw new ArrayIndexOutOfBoundsException();
+    ArraysParallelHelpers.prefix(a, fromIndex, toIndex, op);
   }
 
   /**
-   * Swaps two ranges of an array.
+   * Replaces each element of the array by the result of combining it with
+   * all the elements before it, in parallel.  That is, afterwards
+   * <code>a[i]</code> is <code>op.applyAsDouble(a[i - 1], a[i])</code> for
+   * the original value of <code>a[i]</code>.  The operation must be
+   * associative and free of side effects, since it is applied to the
+   * elements in some other order and grouping as well.
+   * Since floating point addition is not exactly associative, a sum
+   * may differ slightly from the one computed sequentially.
    *
-   * @param i the first range start
-   * @param j the second range start
-   * @param n the element count
    * @param a the array
+   * @param op the associative operation
+   * @throws NullPointerException if the operation is null and the array
+   *         has more than one element
+   * @since 1.8
    */
-  private static void vecswap(int i, int j, int n, double[] a)
+  public static void parallelPrefix(double[] a, DoubleBinaryOperator op)
   {
-    for ( ; n > 0; i++, j++, n--)
-      swap(i, j, a);
+    ArraysParallelHelpers.prefix(a, 0, a.length, op);
   }
 
   /**
-   * Performs a recursive modified quicksort.
+   * Replaces each element of a range of the array by the result of
+   * combining it with all the elements of the range before it, in
+   * parallel, as {@link #parallelPrefix(double[], DoubleBinaryOperator)}
+   * does for a whole array.
    *
-   * @param array the array to sort
-   * @param from the start index (inclusive)
-   * @param count the number of elements to sort
+   * @param a the array
+   * @param fromIndex the first index of the range (inclusive)
+   * @param toIndex the last index of the range (exclusive)
+   * @param op the associative operation
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
+   *         || toIndex &gt; a.length
+   * @since 1.8
    */
-  private static void qsort(double[] array, int from, int count)
+  public static void parallelPrefix(double[] a, int fromIndex, int toIndex,
+                                    DoubleBinaryOperator op)
   {
-    // Use an insertion sort on small arrays.
-    if (count <= 7)
-      {
-        for (int i = from + 1; i < from + count; i++)
-          for (int j = i;
-               j > from && Double.compare(array[j - 1], array[j]) > 0;
-               j--)
-            {
-              swap(j, j - 1, array);
-            }
-        return;
-      }
-
-    // Determine a good median element.
-    int mid = from + count / 2;
-    int lo = from;
-    int hi = from + count - 1;
-
-    if (count > 40)
-      { // big arrays, pseudomedian of 9
-        int s = count / 8;
-        lo = med3(lo, lo + s, lo + 2 * s, array);
-        mid = med3(mid - s, mid, mid + s, array);
-        hi = med3(hi - 2 * s, hi - s, hi, array);
-      }
-    mid = med3(lo, mid, hi, array);
-
-    int a, b, c, d;
-    int comp;
-
-    // Pull the median element out of the fray, and use it as a pivot.
-    swap(from, mid, array);
-    a = b = from;
-    c = d = from + count - 1;
-
-    // Repeatedly move b and c to each other, swapping elements so
-    // that all elements before index b are less than the pivot, and all
-    // elements after index c are greater than the pivot. a and b track
-    // the elements equal to the pivot.
-    while (true)
-      {
-        while (b <= c && (comp = Double.compare(array[b], array[from])) <= 0)
-          {
-            if (comp == 0)
-              {
-                swap(a, b, array);
-                a++;
-              }
-            b++;
-          }
-        while (c >= b && (comp = Double.compare(array[c], array[from])) >= 0)
-          {
-            if (comp == 0)
-              {
-                swap(c, d, array);
-                d--;
-              }
-            c--;
-          }
-        if (b > c)
-          break;
-        swap(b, c, array);
-        b++;
-        c--;
-      }
-
-    // Swap pivot(s) back in place, the recurse on left and right sections.
-    hi = from + count;
-    int span;
-    span = Math.min(a - from, b - a);
-    vecswap(from, b - span, span, array);
-
-    span = Math.min(d - c, hi - d - 1);
-    vecswap(b, hi - span, span, array);
-
-    span = b - a;
-    if (span > 1)
-      qsort(array, from, span);
-
-    span = d - c;
-    if (span > 1)
-      qsort(array, hi - span, span);
+    if (fromIndex > toIndex)
+      throw new IllegalArgumentException("fromIndex " + fromIndex
+                                         + " > toIndex " + toIndex);
+    if (fromIndex < 0 || toIndex > a.length)
+      throw new ArrayIndexOutOfBoundsException();
+    ArraysParallelHelpers.prefix(a, fromIndex, toIndex, op);
   }
 
+// parallelSetAll
+
   /**
-   * Sort an array of Objects according to their natural ordering. The sort is
-   * guaranteed to be stable, that is, equal elements will not be reordered.
-   * The sort algorithm is a mergesort with the merge omitted if the last
-   * element of one half comes before the first element of the other half. This
-   * algorithm gives guaranteed O(n*log(n)) time, at the expense of making a
-   * copy of the array.
+   * Sets each element of the array to <code>generator.apply(i)</code>,
+   * where <code>i</code> is its index.  The elements are computed in
+   * parallel, in no particular order, by the common {@link
+   * ForkJoinPool}.
    *
-   * @param a the array to be sorted
-   * @throws ClassCastException if any two elements are not mutually
-   *         comparable
-   * @throws NullPointerException if an element is null (since
-   *         null.compareTo cannot work)
-   * @see Comparable
+   * @param a the array
+   * @param generator the function giving the value for each index
+   * @throws NullPointerException if the generator is null and the array
+   *         is not empty
+   * @since 1.8
    */
-  public static void sort(Object[] a)
+  public static <T> void parallelSetAll(T[] a,
+                                       IntFunction<? extends T> generator)
   {
-    sort(a, 0, a.length, null);
+    ArraysParallelHelpers.setAll(a, generator);
   }
 
   /**
-   * Sort an array of Objects according to a Comparator. The sort is
-   * guaranteed to be stable, that is, equal elements will not be reordered.
-   * The sort algorithm is a mergesort with the merge omitted if the last
-   * element of one half comes before the first element of the other half. This
-   * algorithm gives guaranteed O(n*log(n)) time, at the expense of making a
-   * copy of the array.
+   * Sets each element of the array to <code>generator.applyAsInt(i)</code>,
+   * where <code>i</code> is its index.  The elements are computed in
+   * parallel, in no particular order, by the common {@link
+   * ForkJoinPool}.
    *
-   * @param a the array to be sorted
-   * @param c a Comparator to use in sorting the array; or null to indicate
-   *        the elements' natural order
-   * @throws ClassCastException if any two elements are not mutually
-   *         comparable by the Comparator provided
-   * @throws NullPointerException if a null element is compared with natural
-   *         ordering (only possible when c is null)
+   * @param a the array
+   * @param generator the function giving the value for each index
+   * @throws NullPointerException if the generator is null and the array
+   *         is not empty
+   * @since 1.8
    */
-  public static <T> void sort(T[] a, Comparator<? super T> c)
+  public static void parallelSetAll(int[] a, IntUnaryOperator generator)
   {
-    sort(a, 0, a.length, c);
+    ArraysParallelHelpers.setAll(a, generator);
   }
 
   /**
-   * Sort an array of Objects according to their natural ordering. The sort is
-   * guaranteed to be stable, that is, equal elements will not be reordered.
-   * The sort algorithm is a mergesort with the merge omitted if the last
-   * element of one half comes before the first element of the other half. This
-   * algorithm gives guaranteed O(n*log(n)) time, at the expense of making a
-   * copy of the array.
+   * Sets each element of the array to <code>generator.applyAsLong(i)</code>,
+   * where <code>i</code> is its index.  The elements are computed in
+   * parallel, in no particular order, by the common {@link
+   * ForkJoinPool}.
    *
-   * @param a the array to be sorted
-   * @param fromIndex the index of the first element to be sorted
-   * @param toIndex the index of the last element to be sorted plus one
-   * @throws ClassCastException if any two elements are not mutually
-   *         comparable
-   * @throws NullPointerException if an element is null (since
-   *         null.compareTo cannot work)
-   * @throws ArrayIndexOutOfBoundsException if fromIndex and toIndex
-   *         are not in range.
-   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @param a the array
+   * @param generator the function giving the value for each index
+   * @throws NullPointerException if the generator is null and the array
+   *         is not empty
+   * @since 1.8
    */
-  public static void sort(Object[] a, int fromIndex, int toIndex)
+  public static void parallelSetAll(long[] a, IntToLongFunction generator)
   {
-    sort(a, fromIndex, toIndex, null);
+    ArraysParallelHelpers.setAll(a, generator);
   }
 
   /**
-   * Sort an array of Objects according to a Comparator. The sort is
-   * guaranteed to be stable, that is, equal elements will not be reordered.
-   * The sort algorithm is a mergesort with the merge omitted if the last
-   * element of one half comes before the first element of the other half. This
-   * algorithm gives guaranteed O(n*log(n)) time, at the expense of making a
-   * copy of the array.
+   * Sets each element of the array to <code>generator.applyAsDouble(i)</code>,
+   * where <code>i</code> is its index.  The elements are computed in
+   * parallel, in no particular order, by the common {@link
+   * ForkJoinPool}.
    *
-   * @param a the array to be sorted
-   * @param fromIndex the index of the first element to be sorted
-   * @param toIndex the index of the last element to be sorted plus one
-   * @param c a Comparator to use in sorting the array; or null to indicate
-   *        the elements' natural order
-   * @throws ClassCastException if any two elements are not mutually
-   *         comparable by the Comparator provided
-   * @throws ArrayIndexOutOfBoundsException if fromIndex and toIndex
-   *         are not in range.
-   * @throws IllegalArgumentException if fromIndex &gt; toIndex
-   * @throws NullPointerException if a null element is compared with natural
-   *         ordering (only possible when c is null)
+   * @param a the array
+   * @param generator the function giving the value for each index
+   * @throws NullPointerException if the generator is null and the array
+   *         is not empty
+   * @since 1.8
    */
-  public static <T> void sort(T[] a, int fromIndex, int toIndex,
-                              Comparator<? super T> c)
+  public static void parallelSetAll(double[] a, IntToDoubleFunction generator)
   {
-    if (fromIndex > toIndex)
-      throw new IllegalArgumentException("fromIndex " + fromIndex
-                                         + " > toIndex " + toIndex);
-    if (fromIndex < 0)
-      throw new ArrayIndexOutOfBoundsException();
-
-    // In general, the code attempts to be simple rather than fast, the
-    // idea being that a good optimising JIT will be able to optimise it
-    // better than I can, and if I try it will make it more confusing for
-    // the JIT. First presort the array in chunks of length 6 with insertion
-    // sort. A mergesort would give too much overhead for this length.
-    for (int chunk = fromIndex; chunk < toIndex; chunk += 6)
-      {
-        int end = Math.min(chunk + 6, toIndex);
-        for (int i = chunk + 1; i < end; i++)
-          {
-            if (Collections.compare(a[i - 1], a[i], c) > 0)
-              {
-                // not already sorted
-                int j = i;
-                T elem = a[j];
-                do
-                  {
-                    a[j] = a[j - 1];
-                    j--;
-                  }
-                while (j > chunk
-                       && Collections.compare(a[j - 1], elem, c) > 0);
-                a[j] = elem;
-              }
-          }
-      }
-
-    int len = toIndex - fromIndex;
-    // If length is smaller or equal 6 we are done.
-    if (len <= 6)
-      return;
-
-    T[] src = a;
-    T[] dest = (T[]) new Object[len];
-    T[] t = null; // t is used for swapping src and dest
-
-    // The difference of the fromIndex of the src and dest array.
-    int srcDestDiff = -fromIndex;
-
-    // The merges are done in this loop
-    for (int size = 6; size < len; size <<= 1)
-      {
-        for (int start = fromIndex; start < toIndex; start += size << 1)
-          {
-            // mid is the start of the second sublist;
-            // end the start of the next sublist (or end of array).
-            int mid = start + size;
-            int end = Math.min(toIndex, mid + size);
-
-            // The second list is empty or the elements are already in
-            // order - no need to merge
-            if (mid >= end
-                || Collections.compare(src[mid - 1], src[mid], c) <= 0)
-              {
-                System.arraycopy(src, start,
-                                 dest, start + srcDestDiff, end - start);
-
-                // The two halves just need swapping - no need to merge
-              }
-            else if (Collections.compare(src[start], src[end - 1], c) > 0)
-              {
-                System.arraycopy(src, start,
-                                 dest, end - size + srcDestDiff, size);
-                System.arraycopy(src, mid,
-                                 dest, start + srcDestDiff, end - mid);
-
-              }
-            else
-              {
-                // Declare a lot of variables to save repeating
-                // calculations.  Hopefully a decent JIT will put these
-                // in registers and make this fast
-                int p1 = start;
-                int p2 = mid;
-                int i = start + srcDestDiff;
-
-                // The main merge loop; terminates as soon as either
-                // half is ended
-                while (p1 < mid && p2 < end)
-                  {
-                    dest[i++] =
-                      src[(Collections.compare(src[p1], src[p2], c) <= 0
-                           ? p1++ : p2++)];
-                  }
-
-                // Finish up by copying the remainder of whichever half
-                // wasn't finished.
-                if (p1 < mid)
-                  System.arraycopy(src, p1, dest, i, mid - p1);
-                else
-                  System.arraycopy(src, p2, dest, i, end - p2);
-              }
-          }
-        // swap src and dest ready for the next merge
-        t = src;
-        src = dest;
-        dest = t;
-        fromIndex += srcDestDiff;
-        toIndex += srcDestDiff;
-        srcDestDiff = -srcDestDiff;
-      }
-
-    // make sure the result ends up back in the right place.  Note
-    // that src and dest may have been swapped above, so src
-    // contains the sorted array.
-    if (src != a)
-      {
-        // Note that fromIndex == 0.
-        System.arraycopy(src, 0, a, srcDestDiff, toIndex);
-      }
+    ArraysParallelHelpers.setAll(a, generator);
   }
 
   /**
@@ -0,0 +1,1383 @@
+/* ArraysParallelHelpers.java -- Tasks for the parallel methods of Arrays
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package java.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BinaryOperator;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntFunction;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * The tasks behind the parallel methods of {@link Arrays}, which run in
+ * the common {@link ForkJoinPool}.
+ * <p>
+ *
+ * The parallel sorts are merge sorts.  A range is cut into quarters,
+ * which are sorted in parallel; the quarters are merged in pairs into a
+ * workspace as large as the range, and the two halves are merged back
+ * from there.  Pieces no larger than the granularity are sorted in
+ * place by the sequential sorts.  A merge of two large runs is itself
+ * split: the larger run is cut in half, the other is cut by binary
+ * search at the same value, and the two pairs of pieces are merged at
+ * once.  Object merges take the left element first when two are equal,
+ * so the sort stays stable.
+ * <p>
+ *
+ * The parallel prefix cuts the range into blocks and works in two
+ * passes.  The first computes the prefix of each block by itself, in
+ * parallel.  The totals of the blocks are then combined in order, and
+ * the second pass combines every element of each block with the total
+ * of the blocks before it.  This needs only that the operation is
+ * associative.
+ */
+final class ArraysParallelHelpers
+{
+  /**
+   * Ranges no longer than this are sorted sequentially, and the pieces
+   * of a parallel sort are never shorter.
+   */
+  static final int MIN_ARRAY_SORT_GRAN = 1 << 13;
+
+  /** Ranges no longer than this have their prefix computed sequentially. */
+  static final int MIN_PREFIX_GRAN = 1 << 13;
+
+  private ArraysParallelHelpers()
+  {
+  }
+
+  /**
+   * Returns the granularity of a parallel sort of n elements, or 0 if
+   * the range should be sorted sequentially.
+   */
+  private static int sortGranularity(int n)
+  {
+    int p = ForkJoinPool.getCommonPoolParallelism();
+    if (n <= MIN_ARRAY_SORT_GRAN || p == 1)
+      return 0;
+    int g = n / (p << 2);
+    return g <= MIN_ARRAY_SORT_GRAN ? MIN_ARRAY_SORT_GRAN : g;
+  }
+
+  static void sort(int[] a, int from, int to)
+  {
+    int n = to - from;
+    int g = sortGranularity(n);
+    if (g == 0)
+      DualPivotQuicksort.sort(a, from, to);
+    else
+      ForkJoinPool.commonPool().invoke(new IntSorter(a, new int[n], from, n,
+                                                     0, g));
+  }
+
+  static void sort(long[] a, int from, int to)
+  {
+    int n = to - from;
+    int g = sortGranularity(n);
+    if (g == 0)
+      DualPivotQuicksort.sort(a, from, to);
+    else
+      ForkJoinPool.commonPool().invoke(new LongSorter(a, new long[n], from, n,
+                                                      0, g));
+  }
+
+  static void sort(float[] a, int from, int to)
+  {
+    int g = sortGranularity(to - from);
+    if (g == 0)
+      {
+        DualPivotQuicksort.sort(a, from, to);
+        return;
+      }
+
+    // As in the sequential sort, move the NaNs to the end and turn -0.0
+    // into 0.0, so that the merges can use the comparison operators.
+    int end = to;
+    int negativeZeros = 0;
+    for (int k = from; k < end; )
+      {
+        float ak = a[k];
+        if (ak != ak)
+          {
+            a[k] = a[--end];
+            a[end] = ak;
+          }
+        else
+          {
+            if (ak == 0 && Float.floatToRawIntBits(ak) < 0)
+              {
+                a[k] = 0;
+                negativeZeros++;
+              }
+            k++;
+          }
+      }
+
+    int n = end - from;
+    ForkJoinPool.commonPool().invoke(new FloatSorter(a, new float[n], from, n,
+                                                     0, g));
+
+    if (negativeZeros > 0)
+      {
+        int lo = from;
+        int hi = end;
+        while (lo < hi)
+          {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < 0)
+              lo = mid + 1;
+            else
+              hi = mid;
+          }
+        for (int i = 0; i < negativeZeros; i++)
+          a[lo + i] = -0.0f;
+      }
+  }
+
+  static void sort(double[] a, int from, int to)
+  {
+    int g = sortGranularity(to - from);
+    if (g == 0)
+      {
+        DualPivotQuicksort.sort(a, from, to);
+        return;
+      }
+
+    int end = to;
+    int negativeZeros = 0;
+    for (int k = from; k < end; )
+      {
+        double ak = a[k];
+        if (ak != ak)
+          {
+            a[k] = a[--end];
+            a[end] = ak;
+          }
+        else
+          {
+            if (ak == 0 && Double.doubleToRawLongBits(ak) < 0)
+              {
+                a[k] = 0;
+                negativeZeros++;
+              }
+            k++;
+          }
+      }
+
+    int n = end - from;
+    ForkJoinPool.commonPool().invoke(new DoubleSorter(a, new double[n], from,
+                                                      n, 0, g));
+
+    if (negativeZeros > 0)
+      {
+        int lo = from;
+        int hi = end;
+        while (lo < hi)
+          {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < 0)
+              lo = mid + 1;
+            else
+              hi = mid;
+          }
+        for (int i = 0; i < negativeZeros; i++)
+          a[lo + i] = -0.0d;
+      }
+  }
+
+  @SuppressWarnings("unchecked")
+  static <T> void sort(T[] a, int from, int to, Comparator<? super T> c)
+  {
+    int n = to - from;
+    int g = sortGranularity(n);
+    if (g == 0)
+      TimSort.sort(a, from, to, c);
+    else
+      {
+        Comparator<Object> oc = (Comparator<Object>) c;
+        ForkJoinPool.commonPool().invoke(new ObjectSorter(a, new Object[n],
+                                                          from, n, 0, g, oc));
+      }
+  }
+
+  /**
+   * Sorts a range of a int array by sorting quarters of it in parallel
+   * and merging them through the workspace.
+   */
+  static final class IntSorter
+    extends RecursiveAction
+  {
+    private static final long serialVersionUID = 1L;
+
+    private final int[] a;
+    private final int[] w;
+    private final int base;
+    private final int size;
+    private final int wbase;
+    private final int gran;
+
+    IntSorter(int[] a, int[] w, int base, int size, int wbase,
+              int gran)
+    {
+      this.a = a;
+      this.w = w;
+      this.base = base;
+      this.size = size;
+      this.wbase = wbase;
+      this.gran = gran;
+    }
+
+    protected void compute()
+    {
+      int n = size;
+      if (n <= gran)
+        {
+          DualPivotQuicksort.sort(a, base, base + n);
+          return;
+        }
+      int h = n >>> 1;
+      int q = h >>> 1;
+      int u = h + q;
+      invokeAll(new IntSorter(a, w, base, q, wbase, gran),
+                new IntSorter(a, w, base + q, h - q, wbase + q, gran),
+                new IntSorter(a, w, base + h, q, wbase + h, gran),
+                new IntSorter(a, w, base + u, n - u, wbase + u, gran));
+      invokeAll(new IntMerger(a, w, base, q, base + q, h - q, wbase, gran),
+                new IntMerger(a, w, base + h, q, base + u, n - u,
+                              wbase + h, gran));
+      new IntMerger(w, a, wbase, h, wbase + h, n - h, base, gran).invoke();
+    }
+  }
+
+  /**
+   * Merges two sorted ranges of a int array into another array.  While
+   * both ranges are large, the larger is split in half and the other at
+   * the matching place, and the upper halves are merged by a forked task.
+   */
+  static final class IntMerger
+    extends RecursiveAction
+  {
+    private static final long serialVersionUID = 1L;
+
+    private final int[] a;
+    private final int[] w;
+    private final int lbase;
+    private final int lsize;
+    private final int rbase;
+    private final int rsize;
+    private final int wbase;
+    private final int gran;
+    private IntMerger next;
+
+    IntMerger(int[] a, int[] w, int lbase, int lsize,
+              int rbase, int rsize, int wbase, int gran)
+    {
+      this.a = a;
+      this.w = w;
+      this.lbase = lbase;
+      this.lsize = lsize;
+      this.rbase = rbase;
+      this.rsize = rsize;
+      this.wbase = wbase;
+      this.gran = gran;
+    }
+
+    protected void compute()
+    {
+      int[] a = this.a;
+      int[] w = this.w;
+      int lb = lbase;
+      int ln = lsize;
+      int rb = rbase;
+      int rn = rsize;
+      int k = wbase;
+      IntMerger forked = null;
+      for (;;)
+        {
+          int lh;
+          int rh;
+          if (ln >= rn)
+            {
+              if (rn <= gran)
+                break;
+              lh = ln >>> 1;
+              int split = a[lb + lh];
+              int lo = 0;
+              rh = rn;
+              while (lo < rh)
+                {
+                  int m = (lo + rh) >>> 1;
+                  if (split <= a[rb + m])
+                    rh = m;
+                  else
+                    lo = m + 1;
+                }
+            }
+          else
+            {
+              if (ln <= gran)
+                break;
+              rh = rn >>> 1;
+              int split = a[rb + rh];
+              int lo = 0;
+              lh = ln;
+              while (lo < lh)
+                {
+                  int m = (lo + lh) >>> 1;
+                  if (split < a[lb + m])
+                    lh = m;
+                  else
+                    lo = m + 1;
+                }
+            }
+          IntMerger m
+            = new IntMerger(a, w, lb + lh, ln - lh, rb + rh, rn - rh,
+                            k + lh + rh, gran);
+          m.next = forked;
+          forked = m;
+          m.fork();
+          ln = lh;
+          rn = rh;
+        }
+
+      int lf = lb + ln;
+      int rf = rb + rn;
+      while (lb < lf && rb < rf)
+        {
+          int al = a[lb];
+          int ar = a[rb];
+          if (ar < al)
+            {
+              w[k++] = ar;
+              rb++;
+            }
+          else
+            {
+              w[k++] = al;
+              lb++;
+            }
+        }
+      if (lb < lf)
+        System.arraycopy(a, lb, w, k, lf - lb);
+      else if (rb < rf)
+        System.arraycopy(a, rb, w, k, rf - rb);
+
+      for (; forked != null; forked = forked.next)
+        forked.join();
+    }
+  }
+
+  /**
+   * Sorts a range of a long array by sorting quarters of it in parallel
+   * and merging them through the workspace.
+   */
+  static final class LongSorter
+    extends RecursiveAction
+  {
+    private static final long serialVersionUID = 1L;
+
+    private final long[] a;
+    private final long[] w;
+    private final int base;
+    private final int size;
+    private final int wbase;
+    private final int gran;
+
+    LongSorter(long[] a, long[] w, int base, int size, int wbase,
+               int gran)
+    {
+      this.a = a;
+      this.w = w;
+      this.base = base;
+      this.size = size;
+      this.wbase = wbase;
+      this.gran = gran;
+    }
+
+    protected void compute()
+    {
+      int n = size;
+      if (n <= gran)
+        {
+          DualPivotQuicksort.sort(a, base, base + n);
+          return;
+        }
+      int h = n >>> 1;
+      int q = h >>> 1;
+      int u = h + q;
+      invokeAll(new LongSorter(a, w, base, q, wbase, gran),
+                new LongSorter(a, w, base + q, h - q, wbase + q, gran),
+                new LongSorter(a, w, base + h, q, wbase + h, gran),
+                new LongSorter(a, w, base + u, n - u, wbase + u, gran));
+      invokeAll(new LongMerger(a, w, base, q, base + q, h - q, wbase, gran),
+                new LongMerger(a, w, base + h, q, base + u, n - u,
+                               wbase + h, gran));
+      new LongMerger(w, a, wbase, h, wbase + h, n - h, base, gran).invoke();
+    }
+  }
+
+  /**
+   * Merges two sorted ranges of a long array into another array.  While
+   * both ranges are large, the larger is split in half and the other at
+   * the matching place, and the upper halves are merged by a forked task.
+   */
+  static final class LongMerger
+    extends RecursiveAction
+  {
+    private static final long serialVersionUID = 1L;
+
+    private final long[] a;
+    private final long[] w;
+    private final int lbase;
+    private final int lsize;
+    private final int rbase;
+    private final int rsize;
+    private final int wbase;
+    private final int gran;
+    private LongMerger next;
+
+    LongMerger(long[] a, long[] w, int lbase, int lsize,
+               int rbase, int rsize, int wbase, int gran)
+    {
+      this.a = a;
+      this.w = w;
+      this.lbase = lbase;
+      this.lsize = lsize;
+      this.rbase = rbase;
+      this.rsize = rsize;
+      this.wbase = wbase;
+      this.gran = gran;
+    }
+
+    protected void compute()
+    {
+      long[] a = this.a;
+      long[] w = this.w;
+      int lb = lbase;
+      int ln = lsize;
+      int rb = rbase;
+      int rn = rsize;
+      int k = wbase;
+      LongMerger forked = null;
+      for (;;)
+        {
+          int lh;
+          int rh;
+          if (ln >= rn)
+            {
+              if (rn <= gran)
+                break;
+              lh = ln >>> 1;
+              long split = a[lb + lh];
+              int lo = 0;
+              rh = rn;
+              while (lo < rh)
+                {
+                  int m = (lo + rh) >>> 1;
+                  if (split <= a[rb + m])
+                    rh = m;
+                  else
+                    lo = m + 1;
+                }
+            }
+          else
+            {
+              if (ln <= gran)
+                break;
+              rh = rn >>> 1;
+              long split = a[rb + rh];
+              int lo = 0;
+              lh = ln;
+              while (lo < lh)
+                {
+                  int m = (lo + lh) >>> 1;
+                  if (split < a[lb + m])
+                    lh = m;
+                  else
+                    lo = m + 1;
+                }
+            }
+          LongMerger m
+            = new LongMerger(a, w, lb + lh, ln - lh, rb + rh, rn - rh,
+                             k + lh + rh, gran);
+          m.next = forked;
+          forked = m;
+          m.fork();
+          ln = lh;
+          rn = rh;
+        }
+
+      int lf = lb + ln;
+      int rf = rb + rn;
+      while (lb < lf && rb < rf)
+        {
+          long al = a[lb];
+          long ar = a[rb];
+          if (ar < al)
+            {
+              w[k++] = ar;
+              rb++;
+            }
+          else
+            {
+              w[k++] = al;
+              lb++;
+            }
+        }
+      if (lb < lf)
+        System.arraycopy(a, lb, w, k, lf - lb);
+      else if (rb < rf)
+        System.arraycopy(a, rb, w, k, rf - rb);
+
+      for (; forked != null; forked = forked.next)
+        forked.join();
+    }
+  }
+
+  /**
+   * Sorts a range of a float array by sorting quarters of it in parallel
+   * and merging them through the workspace.
+   */
+  static final class FloatSorter
+    extends RecursiveAction
+  {
+    private static final long serialVersionUID = 1L;
+
+    private final float[] a;
+    private final float[] w;
+    private final int base;
+    private final int size;
+    private final int wbase;
+    private final int gran;
+
+    FloatSorter(float[] a, float[] w, int base, int size, int wbase,
+                int gran)
+    {
+      this.a = a;
+      this.w = w;
+      this.base = base;
+      this.size = size;
+      this.wbase = wbase;
+      this.gran = gran;
+    }
+
+    protected void compute()
+    {
+      int n = size;
+      if (n <= gran)
+        {
+          DualPivotQuicksort.sort(a, base, base + n);
+          return;
+        }
+      int h = n >>> 1;
+      int q = h >>> 1;
+      int u = h + q;
+      invokeAll(new FloatSorter(a, w, base, q, wbase, gran),
+                new FloatSorter(a, w, base + q, h - q, wbase + q, gran),
+                new FloatSorter(a, w, base + h, q, wbase + h, gran),
+                new FloatSorter(a, w, base + u, n - u, wbase + u, gran));
+      invokeAll(new FloatMerger(a, w, base, q, base + q, h - q, wbase, gran),
+                new FloatMerger(a, w, base + h, q, base + u, n - u,
+                                wbase + h, gran));
+      new FloatMerger(w, a, wbase, h, wbase + h, n - h, base, gran).invoke();
+    }
+  }
+
+  /**
+   * Merges two sorted ranges of a float array into another array.  While
+   * both ranges are large, the larger is split in half and the other at
+   * the matching place, and the upper halves are merged by a forked task.
+   */
+  static final class FloatMerger
+    extends RecursiveAction
+  {
+    private static final long serialVersionUID = 1L;
+
+    private final float[] a;
+    private final float[] w;
+    private final int lbase;
+    private final int lsize;
+    private final int rbase;
+    private final int rsize;
+    private final int wbase;
+    private final int gran;
+    private FloatMerger next;
+
+    FloatMerger(float[] a, float[] w, int lbase, int lsize,
+                int rbase, int rsize, int wbase, int gran)
+    {
+      this.a = a;
+      this.w = w;
+      this.lbase = lbase;
+      this.lsize = lsize;
+      this.rbase = rbase;
+      this.rsize = rsize;
+      this.wbase = wbase;
+      this.gran = gran;
+    }
+
+    protected void compute()
+    {
+      float[] a = this.a;
+      float[] w = this.w;
+      int lb = lbase;
+      int ln = lsize;
+      int rb = rbase;
+      int rn = rsize;
+      int k = wbase;
+      FloatMerger forked = null;
+      for (;;)
+        {
+          int lh;
+          int rh;
+          if (ln >= rn)
+            {
+              if (rn <= gran)
+                break;
+              lh = ln >>> 1;
+              float split = a[lb + lh];
+              int lo = 0;
+              rh = rn;
+              while (lo < rh)
+                {
+                  int m = (lo + rh) >>> 1;
+                  if (split <= a[rb + m])
+                    rh = m;
+                  else
+                    lo = m + 1;
+                }
+            }
+          else
+            {
+              if (ln <= gran)
+                break;
+              rh = rn >>> 1;
+              float split = a[rb + rh];
+              int lo = 0;
+              lh = ln;
+              while (lo < lh)
+                {
+                  int m = (lo + lh) >>> 1;
+                  if (split < a[lb + m])
+                    lh = m;
+                  else
+                    lo = m + 1;
+                }
+            }
+          FloatMerger m
+            = new FloatMerger(a, w, lb + lh, ln - lh, rb + rh, rn - rh,
+                              k + lh + rh, gran);
+          m.next = forked;
+          forked = m;
+          m.fork();
+          ln = lh;
+          rn = rh;
+        }
+
+      int lf = lb + ln;
+      int rf = rb + rn;
+      while (lb < lf && rb < rf)
+        {
+          float al = a[lb];
+          float ar = a[rb];
+          if (ar < al)
+            {
+              w[k++] = ar;
+              rb++;
+            }
+          else
+            {
+              w[k++] = al;
+              lb++;
+            }
+        }
+      if (lb < lf)
+        System.arraycopy(a, lb, w, k, lf - lb);
+      else if (rb < rf)
+        System.arraycopy(a, rb, w, k, rf - rb);
+
+      for (; forked != null; forked = forked.next)
+        forked.join();
+    }
+  }
+
+  /**
+   * Sorts a range of a double array by sorting quarters of it in parallel
+   * and merging them through the workspace.
+   */
+  static final class DoubleSorter
+    extends RecursiveAction
+  {
+    private static final long serialVersionUID = 1L;
+
+    private final double[] a;
+    private final double[] w;
+    private final int base;
+    private final int size;
+    private final int wbase;
+    private final int gran;
+
+    DoubleSorter(double[] a, double[] w, int base, int size, int wbase,
+                 int gran)
+    {
+      this.a = a;
+      this.w = w;
+      this.base = base;
+      this.size = size;
+      this.wbase = wbase;
+      this.gran = gran;
+    }
+
+    protected void compute()
+    {
+      int n = size;
+      if (n <= gran)
+        {
+          DualPivotQuicksort.sort(a, base, base + n);
+          return;
+        }
+      int h = n >>> 1;
+      int q = h >>> 1;
+      int u = h + q;
+      invokeAll(new DoubleSorter(a, w, base, q, wbase, gran),
+                new DoubleSorter(a, w, base + q, h - q, wbase + q, gran),
+                new DoubleSorter(a, w, base + h, q, wbase + h, gran),
+                new DoubleSorter(a, w, base + u, n - u, wbase + u, gran));
+      invokeAll(new DoubleMerger(a, w, base, q, base + q, h - q, wbase, gran),
+                new DoubleMerger(a, w, base + h, q, base + u, n - u,
+                                 wbase + h, gran));
+      new DoubleMerger(w, a, wbase, h, wbase + h, n - h, base, gran).invoke();
+    }
+  }
+
+  /**
+   * Merges two sorted ranges of a double array into another array.  While
+   * both ranges are large, the larger is split in half and the other at
+   * the matching place, and the upper halves are merged by a forked task.
+   */
+  static final class DoubleMerger
+    extends RecursiveAction
+  {
+    private static final long serialVersionUID = 1L;
+
+    private final double[] a;
+    private final double[] w;
+    private final int lbase;
+    private final int lsize;
+    private final int rbase;
+    private final int rsize;
+    private final int wbase;
+    private final int gran;
+    private DoubleMerger next;
+
+    DoubleMerger(double[] a, double[] w, int lbase, int lsize,
+                 int rbase, int rsize, int wbase, int gran)
+    {
+      this.a = a;
+      this.w = w;
+      this.lbase = lbase;
+      this.lsize = lsize;
+      this.rbase = rbase;
+      this.rsize = rsize;
+      this.wbase = wbase;
+      this.gran = gran;
+    }
+
+    protected void compute()
+    {
+      double[] a = this.a;
+      double[] w = this.w;
+      int lb = lbase;
+      int ln = lsize;
+      int rb = rbase;
+      int rn = rsize;
+      int k = wbase;
+      DoubleMerger forked = null;
+      for (;;)
+        {
+          int lh;
+          int rh;
+          if (ln >= rn)
+            {
+              if (rn <= gran)
+                break;
+              lh = ln >>> 1;
+              double split = a[lb + lh];
+              int lo = 0;
+              rh = rn;
+              while (lo < rh)
+                {
+                  int m = (lo + rh) >>> 1;
+                  if (split <= a[rb + m])
+                    rh = m;
+                  else
+                    lo = m + 1;
+                }
+            }
+          else
+            {
+              if (ln <= gran)
+                break;
+              rh = rn >>> 1;
+              double split = a[rb + rh];
+              int lo = 0;
+              lh = ln;
+              while (lo < lh)
+                {
+                  int m = (lo + lh) >>> 1;
+                  if (split < a[lb + m])
+                    lh = m;
+                  else
+                    lo = m + 1;
+                }
+            }
+          DoubleMerger m
+            = new DoubleMerger(a, w, lb + lh, ln - lh, rb + rh, rn - rh,
+                               k + lh + rh, gran);
+          m.next = forked;
+          forked = m;
+          m.fork();
+          ln = lh;
+          rn = rh;
+        }
+
+      int lf = lb + ln;
+      int rf = rb + rn;
+      while (lb < lf && rb < rf)
+        {
+          double al = a[lb];
+          double ar = a[rb];
+          if (ar < al)
+            {
+              w[k++] = ar;
+              rb++;
+            }
+          else
+            {
+              w[k++] = al;
+              lb++;
+            }
+        }
+      if (lb < lf)
+        System.arraycopy(a, lb, w, k, lf - lb);
+      else if (rb < rf)
+        System.arraycopy(a, rb, w, k, rf - rb);
+
+      for (; forked != null; forked = forked.next)
+        forked.join();
+    }
+  }
+
+  /**
+   * Sorts a range of an Object array by sorting quarters of it in
+   * parallel and merging them through the workspace.
+   */
+  static final class ObjectSorter
+    extends RecursiveAction
+  {
+    private static final long serialVersionUID = 1L;
+
+    private final Object[] a;
+    private final Object[] w;
+    private final int base;
+    private final int size;
+    private final int wbase;
+    private final int gran;
+    private final Comparator<Object> c;
+
+    ObjectSorter(Object[] a, Object[] w, int base, int size, int wbase,
+                 int gran, Comparator<Object> c)
+    {
+      this.a = a;
+      this.w = w;
+      this.base = base;
+      this.size = size;
+      this.wbase = wbase;
+      this.gran = gran;
+      this.c = c;
+    }
+
+    protected void compute()
+    {
+      int n = size;
+      if (n <= gran)
+        {
+          TimSort.sort(a, base, base + n, c);
+          return;
+        }
+      int h = n >>> 1;
+      int q = h >>> 1;
+      int u = h + q;
+      invokeAll(new ObjectSorter(a, w, base, q, wbase, gran, c),
+                new ObjectSorter(a, w, base + q, h - q, wbase + q, gran, c),
+                new ObjectSorter(a, w, base + h, q, wbase + h, gran, c),
+                new ObjectSorter(a, w, base + u, n - u, wbase + u, gran, c));
+      invokeAll(new ObjectMerger(a, w, base, q, base + q, h - q, wbase,
+                                 gran, c),
+                new ObjectMerger(a, w, base + h, q, base + u, n - u,
+                                 wbase + h, gran, c));
+      new ObjectMerger(w, a, wbase, h, wbase + h, n - h, base, gran,
+                       c).invoke();
+    }
+  }
+
+  /**
+   * Merges two sorted ranges of an Object array into another array, in
+   * the same way as the primitive mergers.  The cuts are chosen so that
+   * equal elements of the left run always end up before those of the
+   * right run.
+   */
+  static final class ObjectMerger
+    extends RecursiveAction
+  {
+    private static final long serialVersionUID = 1L;
+
+    private final Object[] a;
+    private final Object[] w;
+    private final int lbase;
+    private final int lsize;
+    private final int rbase;
+    private final int rsize;
+    private final int wbase;
+    private final int gran;
+    private final Comparator<Object> c;
+    private ObjectMerger next;
+
+    ObjectMerger(Object[] a, Object[] w, int lbase, int lsize,
+                 int rbase, int rsize, int wbase, int gran,
+                 Comparator<Object> c)
+    {
+      this.a = a;
+      this.w = w;
+      this.lbase = lbase;
+      this.lsize = lsize;
+      this.rbase = rbase;
+      this.rsize = rsize;
+      this.wbase = wbase;
+      this.gran = gran;
+      this.c = c;
+    }
+
+    protected void compute()
+    {
+      Object[] a = this.a;
+      Object[] w = this.w;
+      Comparator<Object> c = this.c;
+      int lb = lbase;
+      int ln = lsize;
+      int rb = rbase;
+      int rn = rsize;
+      int k = wbase;
+      ObjectMerger forked = null;
+      for (;;)
+        {
+          int lh;
+          int rh;
+          if (ln >= rn)
+            {
+              if (rn <= gran)
+                break;
+              // Right elements equal to the split go after it.
+              lh = ln >>> 1;
+              Object split = a[lb + lh];
+              int lo = 0;
+              rh = rn;
+              while (lo < rh)
+                {
+                  int m = (lo + rh) >>> 1;
+                  if (Collections.compare(split, a[rb + m], c) <= 0)
+                    rh = m;
+                  else
+                    lo = m + 1;
+                }
+            }
+          else
+            {
+              if (ln <= gran)
+                break;
+              // Left elements equal to the split go before it.
+              rh = rn >>> 1;
+              Object split = a[rb + rh];
+              int lo = 0;
+              lh = ln;
+              while (lo < lh)
+                {
+                  int m = (lo + lh) >>> 1;
+                  if (Collections.compare(split, a[lb + m], c) < 0)
+                    lh = m;
+                  else
+                    lo = m + 1;
+                }
+            }
+          ObjectMerger m
+            = new ObjectMerger(a, w, lb + lh, ln - lh, rb + rh, rn - rh,
+                               k + lh + rh, gran, c);
+          m.next = forked;
+          forked = m;
+          m.fork();
+          ln = lh;
+          rn = rh;
+        }
+
+      int lf = lb + ln;
+      int rf = rb + rn;
+      while (lb < lf && rb < rf)
+        {
+          Object al = a[lb];
+          Object ar = a[rb];
+          if (Collections.compare(ar, al, c) < 0)
+            {
+              w[k++] = ar;
+              rb++;
+            }
+          else
+            {
+              w[k++] = al;
+              lb++;
+            }
+        }
+      if (lb < lf)
+        System.arraycopy(a, lb, w, k, lf - lb);
+      else if (rb < rf)
+        System.arraycopy(a, rb, w, k, rf - rb);
+
+      for (; forked != null; forked = forked.next)
+        forked.join();
+    }
+  }
+
+// prefix
+
+  /**
+   * The work done on one block of an array by {@link ForEachBlock}.
+   */
+  abstract static class BlockJob
+  {
+    /**
+     * Processes the elements from <code>from</code> to
+     * <code>to</code>, which make up the given block.
+     */
+    abstract void run(int from, int to, int block);
+  }
+
+  /**
+   * Runs a job on a range of blocks, splitting the range in half until
+   * there is a single block.
+   */
+  static final class ForEachBlock
+    extends RecursiveAction
+  {
+    private static final long serialVersionUID = 1L;
+
+    private final BlockJob job;
+    private final int origin;
+    private final int fence;
+    private final int blockSize;
+    private final int lo;
+    private final int hi;
+
+    ForEachBlock(BlockJob job, int origin, int fence, int blockSize,
+                 int lo, int hi)
+    {
+      this.job = job;
+      this.origin = origin;
+      this.fence = fence;
+      this.blockSize = blockSize;
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    protected void compute()
+    {
+      if (hi - lo == 1)
+        {
+          int from = origin + lo * blockSize;
+          job.run(from, Math.min(fence, from + blockSize), lo);
+        }
+      else
+        {
+          int mid = (lo + hi) >>> 1;
+          invokeAll(new ForEachBlock(job, origin, fence, blockSize, lo, mid),
+                    new ForEachBlock(job, origin, fence, blockSize, mid, hi));
+        }
+    }
+  }
+
+  /**
+   * Returns the size of the blocks when a range of n elements is shared
+   * among the workers of the common pool, with a few blocks per worker
+   * so that uneven blocks even out.
+   */
+  private static int blockSize(int n, int minBlock)
+  {
+    int p = ForkJoinPool.getCommonPoolParallelism();
+    int size = (n + (p << 2) - 1) / (p << 2);
+    return size < minBlock ? minBlock : size;
+  }
+
+  /**
+   * Runs the job on each block of the range, in parallel.
+   */
+  private static void forEachBlock(BlockJob job, int from, int to,
+                                   int blockSize)
+  {
+    int blocks = (to - from + blockSize - 1) / blockSize;
+    if (blocks > 0)
+      ForkJoinPool.commonPool().invoke(new ForEachBlock(job, from, to,
+                                                        blockSize, 0, blocks));
+  }
+
+  @SuppressWarnings("unchecked")
+  static <T> void prefix(final T[] a, int from, int to,
+                         final BinaryOperator<T> op)
+  {
+    int n = to - from;
+    if (n <= MIN_PREFIX_GRAN || ForkJoinPool.getCommonPoolParallelism() == 1)
+      {
+        for (int i = from + 1; i < to; i++)
+          a[i] = op.apply(a[i - 1], a[i]);
+        return;
+      }
+
+    final int size = blockSize(n, MIN_PREFIX_GRAN >>> 2);
+    forEachBlock(new BlockJob()
+      {
+        void run(int from, int to, int block)
+        {
+          for (int i = from + 1; i < to; i++)
+            a[i] = op.apply(a[i - 1], a[i]);
+        }
+      }, from, to, size);
+
+    int blocks = (n + size - 1) / size;
+    final Object[] carry = new Object[blocks];
+    carry[1] = a[from + size - 1];
+    for (int b = 2; b < blocks; b++)
+      carry[b] = op.apply((T) carry[b - 1], a[from + b * size - 1]);
+
+    forEachBlock(new BlockJob()
+      {
+        void run(int from, int to, int block)
+        {
+          if (block == 0)
+            return;
+          T c = (T) carry[block];
+          for (int i = from; i < to; i++)
+            a[i] = op.apply(c, a[i]);
+        }
+      }, from, to, size);
+  }
+
+  static void prefix(final int[] a, int from, int to,
+                     final IntBinaryOperator op)
+  {
+    int n = to - from;
+    if (n <= MIN_PREFIX_GRAN || ForkJoinPool.getCommonPoolParallelism() == 1)
+      {
+        for (int i = from + 1; i < to; i++)
+          a[i] = op.applyAsInt(a[i - 1], a[i]);
+        return;
+      }
+
+    final int size = blockSize(n, MIN_PREFIX_GRAN >>> 2);
+    forEachBlock(new BlockJob()
+      {
+        void run(int from, int to, int block)
+        {
+          for (int i = from + 1; i < to; i++)
+            a[i] = op.applyAsInt(a[i - 1], a[i]);
+        }
+      }, from, to, size);
+
+    int blocks = (n + size - 1) / size;
+    final int[] carry = new int[blocks];
+    carry[1] = a[from + size - 1];
+    for (int b = 2; b < blocks; b++)
+      carry[b] = op.applyAsInt(carry[b - 1], a[from + b * size - 1]);
+
+    forEachBlock(new BlockJob()
+      {
+        void run(int from, int to, int block)
+        {
+          if (block == 0)
+            return;
+          int c = carry[block];
+          for (int i = from; i < to; i++)
+            a[i] = op.applyAsInt(c, a[i]);
+        }
+      }, from, to, size);
+  }
+
+  static void prefix(final long[] a, int from, int to,
+                     final LongBinaryOperator op)
+  {
+    int n = to - from;
+    if (n <= MIN_PREFIX_GRAN || ForkJoinPool.getCommonPoolParallelism() == 1)
+      {
+        for (int i = from + 1; i < to; i++)
+          a[i] = op.applyAsLong(a[i - 1], a[i]);
+        return;
+      }
+
+    final int size = blockSize(n, MIN_PREFIX_GRAN >>> 2);
+    forEachBlock(new BlockJob()
+      {
+        void run(int from, int to, int block)
+        {
+          for (int i = from + 1; i < to; i++)
+            a[i] = op.applyAsLong(a[i - 1], a[i]);
+        }
+      }, from, to, size);
+
+    int blocks = (n + size - 1) / size;
+    final long[] carry = new long[blocks];
+    carry[1] = a[from + size - 1];
+    for (int b = 2; b < blocks; b++)
+      carry[b] = op.applyAsLong(carry[b - 1], a[from + b * size - 1]);
+
+    forEachBlock(new BlockJob()
+      {
+        void run(int from, int to, int block)
+        {
+          if (block == 0)
+            return;
+          long c = carry[block];
+          for (int i = from; i < to; i++)
+            a[i] = op.applyAsLong(c, a[i]);
+        }
+      }, from, to, size);
+  }
+
+  static void prefix(final double[] a, int from, int to,
+                     final DoubleBinaryOperator op)
+  {
+    int n = to - from;
+    if (n <= MIN_PREFIX_GRAN || ForkJoinPool.getCommonPoolParallelism() == 1)
+      {
+        for (int i = from + 1; i < to; i++)
+          a[i] = op.applyAsDouble(a[i - 1], a[i]);
+        return;
+      }
+
+    final int size = blockSize(n, MIN_PREFIX_GRAN >>> 2);
+    forEachBlock(new BlockJob()
+      {
+        void run(int from, int to, int block)
+        {
+          for (int i = from + 1; i < to; i++)
+            a[i] = op.applyAsDouble(a[i - 1], a[i]);
+        }
+      }, from, to, size);
+
+    int blocks = (n + size - 1) / size;
+    final double[] carry = new double[blocks];
+    carry[1] = a[from + size - 1];
+    for (int b = 2; b < blocks; b++)
+      carry[b] = op.applyAsDouble(carry[b - 1], a[from + b * size - 1]);
+
+    forEachBlock(new BlockJob()
+      {
+        void run(int from, int to, int block)
+        {
+          if (block == 0)
+            return;
+          double c = carry[block];
+          for (int i = from; i < to; i++)
+            a[i] = op.applyAsDouble(c, a[i]);
+        }
+      }, from, to, size);
+  }
+
+// setAll
+  // The generator may be expensive, so every element can be a block of
+  // its own; there are still only a few blocks per worker.
+
+  static <T> void setAll(final T[] a, final IntFunction<? extends T> gen)
+  {
+    forEachBlock(new BlockJob()
+      {
+        void run(int from, int to, int block)
+        {
+          for (int i = from; i < to; i++)
+            a[i] = gen.apply(i);
+        }
+      }, 0, a.length, blockSize(a.length, 1));
+  }
+
+  static void setAll(final int[] a, final IntUnaryOperator gen)
+  {
+    forEachBlock(new BlockJob()
+      {
+        void run(int from, int to, int block)
+        {
+          for (int i = from; i < to; i++)
+            a[i] = gen.applyAsInt(i);
+        }
+      }, 0, a.length, blockSize(a.length, 1));
+  }
+
+  static void setAll(final long[] a, final IntToLongFunction gen)
+  {
+    forEachBlock(new BlockJob()
+      {
+        void run(int from, int to, int block)
+        {
+          for (int i = from; i < to; i++)
+            a[i] = gen.applyAsLong(i);
+        }
+      }, 0, a.length, blockSize(a.length, 1));
+  }
+
+  static void setAll(final double[] a, final IntToDoubleFunction gen)
+  {
+    forEachBlock(new BlockJob()
+      {
+        void run(int from, int to, int block)
+        {
+          for (int i = from; i < to; i++)
+            a[i] = gen.applyAsDouble(i);
+        }
+      }, 0, a.length, blockSize(a.length, 1));
+  }
+}
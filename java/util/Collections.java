@@ -2083,7 +2083,8 @@ public class Collections
    * Sort a list according to the natural ordering of its elements. The list
    * must be modifiable, but can be of fixed size. The sort algorithm is
    * precisely that used by Arrays.sort(Object[]), which offers guaranteed
-   * nlog(n) performance. This implementation dumps the list into an array,
+   * nlog(n) performance, and linear performance if the list is already
+   * sorted. This implementation dumps the list into an array,
    * sorts the array, and then iterates over the list setting each element from
    * the array.
    *
@@ -2103,7 +2104,8 @@ public class Collections
    * Sort a list according to a specified Comparator. The list must be
    * modifiable, but can be of fixed size. The sort algorithm is precisely that
    * used by Arrays.sort(Object[], Comparator), which offers guaranteed
-   * nlog(n) performance. This implementation dumps the list into an array,
+   * nlog(n) performance, and linear performance if the list is already
+   * sorted. This implementation dumps the list into an array,
    * sorts the array, and then iterates over the list setting each element from
    * the array.
    *
@@ -0,0 +1,1755 @@
+/* DualPivotQuicksort.java -- Sorting of arrays of primitive values
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package java.util;
+
+/**
+ * Sorting of arrays of primitive values for {@link Arrays}.
+ * <p>
+ *
+ * The main algorithm is Vladimir Yaroslavskiy's dual-pivot quicksort.
+ * Two pivots taken from a sorted sample of five elements cut each range
+ * into three parts, which takes fewer element moves and makes better
+ * use of caches than partitioning around a single pivot, while
+ * insertion sort takes over for short ranges.  When the sample shows
+ * many equal elements, a range is partitioned into less, equal and
+ * greater parts instead, so arrays with few distinct values do not
+ * degrade.
+ * <p>
+ *
+ * Large ranges of bytes, shorts and chars are sorted by counting the
+ * occurrences of each value, which is linear in the length of the
+ * range.  Floats and doubles are sorted as described for
+ * {@link Float#compare} and {@link Double#compare}.
+ */
+final class DualPivotQuicksort
+{
+  /** Ranges shorter than this are sorted by insertion. */
+  private static final int INSERTION_SORT_THRESHOLD = 47;
+
+  /** Byte ranges longer than this are sorted by counting. */
+  private static final int COUNTING_SORT_THRESHOLD_FOR_BYTE = 29;
+
+  /**
+   * Short and char ranges longer than this are sorted by counting; the
+   * table of counts then costs less than the comparisons it saves.
+   */
+  private static final int COUNTING_SORT_THRESHOLD_FOR_SHORT_OR_CHAR = 3200;
+
+  /**
+   * This class is non-instantiable.
+   */
+  private DualPivotQuicksort()
+  {
+  }
+
+  /**
+   * Sorts the given range of the array into ascending order.
+   *
+   * @param a the array
+   * @param from the index of the first element to sort
+   * @param to the index after the last element to sort
+   */
+  static void sort(int[] a, int from, int to)
+  {
+    sort(a, from, to - 1, true);
+  }
+
+  /**
+   * Sorts a[left..right] (inclusive).  Unless leftmost, a[left - 1] is
+   * known to be no greater than any element of the range and serves as
+   * a sentinel for the insertion sort.
+   */
+  private static void sort(int[] a, int left, int right, boolean leftmost)
+  {
+    int length = right - left + 1;
+
+    if (length < INSERTION_SORT_THRESHOLD)
+      {
+        if (leftmost)
+          {
+            for (int i = left + 1; i <= right; i++)
+              {
+                int ai = a[i];
+                int j = i - 1;
+                while (j >= left && ai < a[j])
+                  {
+                    a[j + 1] = a[j];
+                    j--;
+                  }
+                a[j + 1] = ai;
+              }
+          }
+        else
+          {
+            for (int i = left + 1; i <= right; i++)
+              {
+                int ai = a[i];
+                int j = i - 1;
+                while (ai < a[j])
+                  {
+                    a[j + 1] = a[j];
+                    j--;
+                  }
+                a[j + 1] = ai;
+              }
+          }
+        return;
+      }
+
+    // Five evenly spaced elements around the middle, sorted in place,
+    // give the pivots.
+    int seventh = (length >> 3) + (length >> 6) + 1;
+    int e3 = (left + right) >>> 1;
+    int e2 = e3 - seventh;
+    int e1 = e2 - seventh;
+    int e4 = e3 + seventh;
+    int e5 = e4 + seventh;
+
+    if (a[e2] < a[e1])
+      {
+        int t = a[e2];
+        a[e2] = a[e1];
+        a[e1] = t;
+      }
+    if (a[e3] < a[e2])
+      {
+        int t = a[e3];
+        a[e3] = a[e2];
+        a[e2] = t;
+        if (t < a[e1])
+          {
+            a[e2] = a[e1];
+            a[e1] = t;
+          }
+      }
+    if (a[e4] < a[e3])
+      {
+        int t = a[e4];
+        a[e4] = a[e3];
+        a[e3] = t;
+        if (t < a[e2])
+          {
+            a[e3] = a[e2];
+            a[e2] = t;
+            if (t < a[e1])
+              {
+                a[e2] = a[e1];
+                a[e1] = t;
+              }
+          }
+      }
+    if (a[e5] < a[e4])
+      {
+        int t = a[e5];
+        a[e5] = a[e4];
+        a[e4] = t;
+        if (t < a[e3])
+          {
+            a[e4] = a[e3];
+            a[e3] = t;
+            if (t < a[e2])
+              {
+                a[e3] = a[e2];
+                a[e2] = t;
+                if (t < a[e1])
+                  {
+                    a[e2] = a[e1];
+                    a[e1] = t;
+                  }
+              }
+          }
+      }
+
+    int less = left;
+    int great = right;
+
+    if (a[e1] != a[e2] && a[e2] != a[e3] && a[e3] != a[e4] && a[e4] != a[e5])
+      {
+        // Partition into three parts:
+        //   left part:   a[left + 1 .. less - 1] < pivot1
+        //   middle part: pivot1 <= a[less .. great] <= pivot2
+        //   right part:  a[great + 1 .. right - 1] > pivot2
+        // with a[left] and a[right] holding the pivots meanwhile.
+        int pivot1 = a[e2];
+        int pivot2 = a[e4];
+        a[e2] = a[left];
+        a[e4] = a[right];
+
+        while (a[++less] < pivot1)
+          ;
+        while (a[--great] > pivot2)
+          ;
+
+      outer:
+        for (int k = less - 1; ++k <= great; )
+          {
+            int ak = a[k];
+            if (ak < pivot1)
+              {
+                a[k] = a[less];
+                a[less] = ak;
+                ++less;
+              }
+            else if (ak > pivot2)
+              {
+                while (a[great] > pivot2)
+                  if (great-- == k)
+                    break outer;
+                if (a[great] < pivot1)
+                  {
+                    a[k] = a[less];
+                    a[less] = a[great];
+                    ++less;
+                  }
+                else
+                  a[k] = a[great];
+                a[great] = ak;
+                --great;
+              }
+          }
+
+        // Put the pivots in their final places.
+        a[left] = a[less - 1];
+        a[less - 1] = pivot1;
+        a[right] = a[great + 1];
+        a[great + 1] = pivot2;
+
+        sort(a, left, less - 2, leftmost);
+        sort(a, great + 2, right, false);
+
+        // A large middle part is likely to be full of elements equal to
+        // the pivots; move those out of the way before sorting the rest.
+        if (less < e1 && e5 < great)
+          {
+            while (a[less] == pivot1)
+              ++less;
+            while (a[great] == pivot2)
+              --great;
+
+          outer:
+            for (int k = less - 1; ++k <= great; )
+              {
+                int ak = a[k];
+                if (ak == pivot1)
+                  {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    ++less;
+                  }
+                else if (ak == pivot2)
+                  {
+                    while (a[great] == pivot2)
+                      if (great-- == k)
+                        break outer;
+                    if (a[great] == pivot1)
+                      {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        ++less;
+                      }
+                    else
+                      a[k] = a[great];
+                    a[great] = ak;
+                    --great;
+                  }
+              }
+          }
+
+        sort(a, less, great, false);
+      }
+    else
+      {
+        // With so many equal elements among the samples, partition
+        // around a single pivot into less, equal and greater parts.
+        int pivot = a[e3];
+        for (int k = less; k <= great; ++k)
+          {
+            if (a[k] == pivot)
+              continue;
+            int ak = a[k];
+            if (ak < pivot)
+              {
+                a[k] = a[less];
+                a[less] = ak;
+                ++less;
+              }
+            else
+              {
+                while (a[great] > pivot)
+                  --great;
+                if (a[great] < pivot)
+                  {
+                    a[k] = a[less];
+                    a[less] = a[great];
+                    ++less;
+                  }
+                else
+                  a[k] = a[great];
+                a[great] = ak;
+                --great;
+              }
+          }
+
+        sort(a, left, less - 1, leftmost);
+        sort(a, great + 1, right, false);
+      }
+  }
+
+  /**
+   * Sorts the given range of the array into ascending order.
+   *
+   * @param a the array
+   * @param from the index of the first element to sort
+   * @param to the index after the last element to sort
+   */
+  static void sort(long[] a, int from, int to)
+  {
+    sort(a, from, to - 1, true);
+  }
+
+  /**
+   * Sorts a[left..right] (inclusive).  Unless leftmost, a[left - 1] is
+   * known to be no greater than any element of the range and serves as
+   * a sentinel for the insertion sort.
+   */
+  private static void sort(long[] a, int left, int right, boolean leftmost)
+  {
+    int length = right - left + 1;
+
+    if (length < INSERTION_SORT_THRESHOLD)
+      {
+        if (leftmost)
+          {
+            for (int i = left + 1; i <= right; i++)
+              {
+                long ai = a[i];
+                int j = i - 1;
+                while (j >= left && ai < a[j])
+                  {
+                    a[j + 1] = a[j];
+                    j--;
+                  }
+                a[j + 1] = ai;
+              }
+          }
+        else
+          {
+            for (int i = left + 1; i <= right; i++)
+              {
+                long ai = a[i];
+                int j = i - 1;
+                while (ai < a[j])
+                  {
+                    a[j + 1] = a[j];
+                    j--;
+                  }
+                a[j + 1] = ai;
+              }
+          }
+        return;
+      }
+
+    // Five evenly spaced elements around the middle, sorted in place,
+    // give the pivots.
+    int seventh = (length >> 3) + (length >> 6) + 1;
+    int e3 = (left + right) >>> 1;
+    int e2 = e3 - seventh;
+    int e1 = e2 - seventh;
+    int e4 = e3 + seventh;
+    int e5 = e4 + seventh;
+
+    if (a[e2] < a[e1])
+      {
+        long t = a[e2];
+        a[e2] = a[e1];
+        a[e1] = t;
+      }
+    if (a[e3] < a[e2])
+      {
+        long t = a[e3];
+        a[e3] = a[e2];
+        a[e2] = t;
+        if (t < a[e1])
+          {
+            a[e2] = a[e1];
+            a[e1] = t;
+          }
+      }
+    if (a[e4] < a[e3])
+      {
+        long t = a[e4];
+        a[e4] = a[e3];
+        a[e3] = t;
+        if (t < a[e2])
+          {
+            a[e3] = a[e2];
+            a[e2] = t;
+            if (t < a[e1])
+              {
+                a[e2] = a[e1];
+                a[e1] = t;
+              }
+          }
+      }
+    if (a[e5] < a[e4])
+      {
+        long t = a[e5];
+        a[e5] = a[e4];
+        a[e4] = t;
+        if (t < a[e3])
+          {
+            a[e4] = a[e3];
+            a[e3] = t;
+            if (t < a[e2])
+              {
+                a[e3] = a[e2];
+                a[e2] = t;
+                if (t < a[e1])
+                  {
+                    a[e2] = a[e1];
+                    a[e1] = t;
+                  }
+              }
+          }
+      }
+
+    int less = left;
+    int great = right;
+
+    if (a[e1] != a[e2] && a[e2] != a[e3] && a[e3] != a[e4] && a[e4] != a[e5])
+      {
+        // Partition into three parts:
+        //   left part:   a[left + 1 .. less - 1] < pivot1
+        //   middle part: pivot1 <= a[less .. great] <= pivot2
+        //   right part:  a[great + 1 .. right - 1] > pivot2
+        // with a[left] and a[right] holding the pivots meanwhile.
+        long pivot1 = a[e2];
+        long pivot2 = a[e4];
+        a[e2] = a[left];
+        a[e4] = a[right];
+
+        while (a[++less] < pivot1)
+          ;
+        while (a[--great] > pivot2)
+          ;
+
+      outer:
+        for (int k = less - 1; ++k <= great; )
+          {
+            long ak = a[k];
+            if (ak < pivot1)
+              {
+                a[k] = a[less];
+                a[less] = ak;
+                ++less;
+              }
+            else if (ak > pivot2)
+              {
+                while (a[great] > pivot2)
+                  if (great-- == k)
+                    break outer;
+                if (a[great] < pivot1)
+                  {
+                    a[k] = a[less];
+                    a[less] = a[great];
+                    ++less;
+                  }
+                else
+                  a[k] = a[great];
+                a[great] = ak;
+                --great;
+              }
+          }
+
+        // Put the pivots in their final places.
+        a[left] = a[less - 1];
+        a[less - 1] = pivot1;
+        a[right] = a[great + 1];
+        a[great + 1] = pivot2;
+
+        sort(a, left, less - 2, leftmost);
+        sort(a, great + 2, right, false);
+
+        // A large middle part is likely to be full of elements equal to
+        // the pivots; move those out of the way before sorting the rest.
+        if (less < e1 && e5 < great)
+          {
+            while (a[less] == pivot1)
+              ++less;
+            while (a[great] == pivot2)
+              --great;
+
+          outer:
+            for (int k = less - 1; ++k <= great; )
+              {
+                long ak = a[k];
+                if (ak == pivot1)
+                  {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    ++less;
+                  }
+                else if (ak == pivot2)
+                  {
+                    while (a[great] == pivot2)
+                      if (great-- == k)
+                        break outer;
+                    if (a[great] == pivot1)
+                      {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        ++less;
+                      }
+                    else
+                      a[k] = a[great];
+                    a[great] = ak;
+                    --great;
+                  }
+              }
+          }
+
+        sort(a, less, great, false);
+      }
+    else
+      {
+        // With so many equal elements among the samples, partition
+        // around a single pivot into less, equal and greater parts.
+        long pivot = a[e3];
+        for (int k = less; k <= great; ++k)
+          {
+            if (a[k] == pivot)
+              continue;
+            long ak = a[k];
+            if (ak < pivot)
+              {
+                a[k] = a[less];
+                a[less] = ak;
+                ++less;
+              }
+            else
+              {
+                while (a[great] > pivot)
+                  --great;
+                if (a[great] < pivot)
+                  {
+                    a[k] = a[less];
+                    a[less] = a[great];
+                    ++less;
+                  }
+                else
+                  a[k] = a[great];
+                a[great] = ak;
+                --great;
+              }
+          }
+
+        sort(a, left, less - 1, leftmost);
+        sort(a, great + 1, right, false);
+      }
+  }
+
+  /**
+   * Sorts the given range of the array into ascending order.
+   *
+   * @param a the array
+   * @param from the index of the first element to sort
+   * @param to the index after the last element to sort
+   */
+  static void sort(short[] a, int from, int to)
+  {
+    if (to - from > COUNTING_SORT_THRESHOLD_FOR_SHORT_OR_CHAR)
+      {
+        int[] count = new int[65536];
+        for (int i = from; i < to; i++)
+          count[a[i] - Short.MIN_VALUE]++;
+        for (int i = 65536, k = to; k > from; )
+          {
+            while (count[--i] == 0)
+              ;
+            short value = (short) (i + Short.MIN_VALUE);
+            int s = count[i];
+            do
+              a[--k] = value;
+            while (--s > 0);
+          }
+      }
+    else
+      sort(a, from, to - 1, true);
+  }
+
+  /**
+   * Sorts a[left..right] (inclusive).  Unless leftmost, a[left - 1] is
+   * known to be no greater than any element of the range and serves as
+   * a sentinel for the insertion sort.
+   */
+  private static void sort(short[] a, int left, int right, boolean leftmost)
+  {
+    int length = right - left + 1;
+
+    if (length < INSERTION_SORT_THRESHOLD)
+      {
+        if (leftmost)
+          {
+            for (int i = left + 1; i <= right; i++)
+              {
+                short ai = a[i];
+                int j = i - 1;
+                while (j >= left && ai < a[j])
+                  {
+                    a[j + 1] = a[j];
+                    j--;
+                  }
+                a[j + 1] = ai;
+              }
+          }
+        else
+          {
+            for (int i = left + 1; i <= right; i++)
+              {
+                short ai = a[i];
+                int j = i - 1;
+                while (ai < a[j])
+                  {
+                    a[j + 1] = a[j];
+                    j--;
+                  }
+                a[j + 1] = ai;
+              }
+          }
+        return;
+      }
+
+    // Five evenly spaced elements around the middle, sorted in place,
+    // give the pivots.
+    int seventh = (length >> 3) + (length >> 6) + 1;
+    int e3 = (left + right) >>> 1;
+    int e2 = e3 - seventh;
+    int e1 = e2 - seventh;
+    int e4 = e3 + seventh;
+    int e5 = e4 + seventh;
+
+    if (a[e2] < a[e1])
+      {
+        short t = a[e2];
+        a[e2] = a[e1];
+        a[e1] = t;
+      }
+    if (a[e3] < a[e2])
+      {
+        short t = a[e3];
+        a[e3] = a[e2];
+        a[e2] = t;
+        if (t < a[e1])
+          {
+            a[e2] = a[e1];
+            a[e1] = t;
+          }
+      }
+    if (a[e4] < a[e3])
+      {
+        short t = a[e4];
+        a[e4] = a[e3];
+        a[e3] = t;
+        if (t < a[e2])
+          {
+            a[e3] = a[e2];
+            a[e2] = t;
+            if (t < a[e1])
+              {
+                a[e2] = a[e1];
+                a[e1] = t;
+              }
+          }
+      }
+    if (a[e5] < a[e4])
+      {
+        short t = a[e5];
+        a[e5] = a[e4];
+        a[e4] = t;
+        if (t < a[e3])
+          {
+            a[e4] = a[e3];
+            a[e3] = t;
+            if (t < a[e2])
+              {
+                a[e3] = a[e2];
+                a[e2] = t;
+                if (t < a[e1])
+                  {
+                    a[e2] = a[e1];
+                    a[e1] = t;
+                  }
+              }
+          }
+      }
+
+    int less = left;
+    int great = right;
+
+    if (a[e1] != a[e2] && a[e2] != a[e3] && a[e3] != a[e4] && a[e4] != a[e5])
+      {
+        // Partition into three parts:
+        //   left part:   a[left + 1 .. less - 1] < pivot1
+        //   middle part: pivot1 <= a[less .. great] <= pivot2
+        //   right part:  a[great + 1 .. right - 1] > pivot2
+        // with a[left] and a[right] holding the pivots meanwhile.
+        short pivot1 = a[e2];
+        short pivot2 = a[e4];
+        a[e2] = a[left];
+        a[e4] = a[right];
+
+        while (a[++less] < pivot1)
+          ;
+        while (a[--great] > pivot2)
+          ;
+
+      outer:
+        for (int k = less - 1; ++k <= great; )
+          {
+            short ak = a[k];
+            if (ak < pivot1)
+              {
+                a[k] = a[less];
+                a[less] = ak;
+                ++less;
+              }
+            else if (ak > pivot2)
+              {
+                while (a[great] > pivot2)
+                  if (great-- == k)
+                    break outer;
+                if (a[great] < pivot1)
+                  {
+                    a[k] = a[less];
+                    a[less] = a[great];
+                    ++less;
+                  }
+                else
+                  a[k] = a[great];
+                a[great] = ak;
+                --great;
+              }
+          }
+
+        // Put the pivots in their final places.
+        a[left] = a[less - 1];
+        a[less - 1] = pivot1;
+        a[right] = a[great + 1];
+        a[great + 1] = pivot2;
+
+        sort(a, left, less - 2, leftmost);
+        sort(a, great + 2, right, false);
+
+        // A large middle part is likely to be full of elements equal to
+        // the pivots; move those out of the way before sorting the rest.
+        if (less < e1 && e5 < great)
+          {
+            while (a[less] == pivot1)
+              ++less;
+            while (a[great] == pivot2)
+              --great;
+
+          outer:
+            for (int k = less - 1; ++k <= great; )
+              {
+                short ak = a[k];
+                if (ak == pivot1)
+                  {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    ++less;
+                  }
+                else if (ak == pivot2)
+                  {
+                    while (a[great] == pivot2)
+                      if (great-- == k)
+                        break outer;
+                    if (a[great] == pivot1)
+                      {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        ++less;
+                      }
+                    else
+                      a[k] = a[great];
+                    a[great] = ak;
+                    --great;
+                  }
+              }
+          }
+
+        sort(a, less, great, false);
+      }
+    else
+      {
+        // With so many equal elements among the samples, partition
+        // around a single pivot into less, equal and greater parts.
+        short pivot = a[e3];
+        for (int k = less; k <= great; ++k)
+          {
+            if (a[k] == pivot)
+              continue;
+            short ak = a[k];
+            if (ak < pivot)
+              {
+                a[k] = a[less];
+                a[less] = ak;
+                ++less;
+              }
+            else
+              {
+                while (a[great] > pivot)
+                  --great;
+                if (a[great] < pivot)
+                  {
+                    a[k] = a[less];
+                    a[less] = a[great];
+                    ++less;
+                  }
+                else
+                  a[k] = a[great];
+                a[great] = ak;
+                --great;
+              }
+          }
+
+        sort(a, left, less - 1, leftmost);
+        sort(a, great + 1, right, false);
+      }
+  }
+
+  /**
+   * Sorts the given range of the array into ascending order.
+   *
+   * @param a the array
+   * @param from the index of the first element to sort
+   * @param to the index after the last element to sort
+   */
+  static void sort(char[] a, int from, int to)
+  {
+    if (to - from > COUNTING_SORT_THRESHOLD_FOR_SHORT_OR_CHAR)
+      {
+        int[] count = new int[65536];
+        for (int i = from; i < to; i++)
+          count[a[i]]++;
+        for (int i = 65536, k = to; k > from; )
+          {
+            while (count[--i] == 0)
+              ;
+            char value = (char) i;
+            int s = count[i];
+            do
+              a[--k] = value;
+            while (--s > 0);
+          }
+      }
+    else
+      sort(a, from, to - 1, true);
+  }
+
+  /**
+   * Sorts a[left..right] (inclusive).  Unless leftmost, a[left - 1] is
+   * known to be no greater than any element of the range and serves as
+   * a sentinel for the insertion sort.
+   */
+  private static void sort(char[] a, int left, int right, boolean leftmost)
+  {
+    int length = right - left + 1;
+
+    if (length < INSERTION_SORT_THRESHOLD)
+      {
+        if (leftmost)
+          {
+            for (int i = left + 1; i <= right; i++)
+              {
+                char ai = a[i];
+                int j = i - 1;
+                while (j >= left && ai < a[j])
+                  {
+                    a[j + 1] = a[j];
+                    j--;
+                  }
+                a[j + 1] = ai;
+              }
+          }
+        else
+          {
+            for (int i = left + 1; i <= right; i++)
+              {
+                char ai = a[i];
+                int j = i - 1;
+                while (ai < a[j])
+                  {
+                    a[j + 1] = a[j];
+                    j--;
+                  }
+                a[j + 1] = ai;
+              }
+          }
+        return;
+      }
+
+    // Five evenly spaced elements around the middle, sorted in place,
+    // give the pivots.
+    int seventh = (length >> 3) + (length >> 6) + 1;
+    int e3 = (left + right) >>> 1;
+    int e2 = e3 - seventh;
+    int e1 = e2 - seventh;
+    int e4 = e3 + seventh;
+    int e5 = e4 + seventh;
+
+    if (a[e2] < a[e1])
+      {
+        char t = a[e2];
+        a[e2] = a[e1];
+        a[e1] = t;
+      }
+    if (a[e3] < a[e2])
+      {
+        char t = a[e3];
+        a[e3] = a[e2];
+        a[e2] = t;
+        if (t < a[e1])
+          {
+            a[e2] = a[e1];
+            a[e1] = t;
+          }
+      }
+    if (a[e4] < a[e3])
+      {
+        char t = a[e4];
+        a[e4] = a[e3];
+        a[e3] = t;
+        if (t < a[e2])
+          {
+            a[e3] = a[e2];
+            a[e2] = t;
+            if (t < a[e1])
+              {
+                a[e2] = a[e1];
+                a[e1] = t;
+              }
+          }
+      }
+    if (a[e5] < a[e4])
+      {
+        char t = a[e5];
+        a[e5] = a[e4];
+        a[e4] = t;
+        if (t < a[e3])
+          {
+            a[e4] = a[e3];
+            a[e3] = t;
+            if (t < a[e2])
+              {
+                a[e3] = a[e2];
+                a[e2] = t;
+                if (t < a[e1])
+                  {
+                    a[e2] = a[e1];
+                    a[e1] = t;
+                  }
+              }
+          }
+      }
+
+    int less = left;
+    int great = right;
+
+    if (a[e1] != a[e2] && a[e2] != a[e3] && a[e3] != a[e4] && a[e4] != a[e5])
+      {
+        // Partition into three parts:
+        //   left part:   a[left + 1 .. less - 1] < pivot1
+        //   middle part: pivot1 <= a[less .. great] <= pivot2
+        //   right part:  a[great + 1 .. right - 1] > pivot2
+        // with a[left] and a[right] holding the pivots meanwhile.
+        char pivot1 = a[e2];
+        char pivot2 = a[e4];
+        a[e2] = a[left];
+        a[e4] = a[right];
+
+        while (a[++less] < pivot1)
+          ;
+        while (a[--great] > pivot2)
+          ;
+
+      outer:
+        for (int k = less - 1; ++k <= great; )
+          {
+            char ak = a[k];
+            if (ak < pivot1)
+              {
+                a[k] = a[less];
+                a[less] = ak;
+                ++less;
+              }
+            else if (ak > pivot2)
+              {
+                while (a[great] > pivot2)
+                  if (great-- == k)
+                    break outer;
+                if (a[great] < pivot1)
+                  {
+                    a[k] = a[less];
+                    a[less] = a[great];
+                    ++less;
+                  }
+                else
+                  a[k] = a[great];
+                a[great] = ak;
+                --great;
+              }
+          }
+
+        // Put the pivots in their final places.
+        a[left] = a[less - 1];
+        a[less - 1] = pivot1;
+        a[right] = a[great + 1];
+        a[great + 1] = pivot2;
+
+        sort(a, left, less - 2, leftmost);
+        sort(a, great + 2, right, false);
+
+        // A large middle part is likely to be full of elements equal to
+        // the pivots; move those out of the way before sorting the rest.
+        if (less < e1 && e5 < great)
+          {
+            while (a[less] == pivot1)
+              ++less;
+            while (a[great] == pivot2)
+              --great;
+
+          outer:
+            for (int k = less - 1; ++k <= great; )
+              {
+                char ak = a[k];
+                if (ak == pivot1)
+                  {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    ++less;
+                  }
+                else if (ak == pivot2)
+                  {
+                    while (a[great] == pivot2)
+                      if (great-- == k)
+                        break outer;
+                    if (a[great] == pivot1)
+                      {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        ++less;
+                      }
+                    else
+                      a[k] = a[great];
+                    a[great] = ak;
+                    --great;
+                  }
+              }
+          }
+
+        sort(a, less, great, false);
+      }
+    else
+      {
+        // With so many equal elements among the samples, partition
+        // around a single pivot into less, equal and greater parts.
+        char pivot = a[e3];
+        for (int k = less; k <= great; ++k)
+          {
+            if (a[k] == pivot)
+              continue;
+            char ak = a[k];
+            if (ak < pivot)
+              {
+                a[k] = a[less];
+                a[less] = ak;
+                ++less;
+              }
+            else
+              {
+                while (a[great] > pivot)
+                  --great;
+                if (a[great] < pivot)
+                  {
+                    a[k] = a[less];
+                    a[less] = a[great];
+                    ++less;
+                  }
+                else
+                  a[k] = a[great];
+                a[great] = ak;
+                --great;
+              }
+          }
+
+        sort(a, left, less - 1, leftmost);
+        sort(a, great + 1, right, false);
+      }
+  }
+
+  /**
+   * Sorts the given range of the array into ascending order.
+   *
+   * @param a the array
+   * @param from the index of the first element to sort
+   * @param to the index after the last element to sort
+   */
+  static void sort(byte[] a, int from, int to)
+  {
+    if (to - from > COUNTING_SORT_THRESHOLD_FOR_BYTE)
+      {
+        int[] count = new int[256];
+        for (int i = from; i < to; i++)
+          count[a[i] - Byte.MIN_VALUE]++;
+        for (int i = 256, k = to; k > from; )
+          {
+            while (count[--i] == 0)
+              ;
+            byte value = (byte) (i + Byte.MIN_VALUE);
+            int s = count[i];
+            do
+              a[--k] = value;
+            while (--s > 0);
+          }
+      }
+    else
+      {
+        for (int i = from + 1; i < to; i++)
+          {
+            byte ai = a[i];
+            int j = i - 1;
+            while (j >= from && ai < a[j])
+              {
+                a[j + 1] = a[j];
+                j--;
+              }
+            a[j + 1] = ai;
+          }
+      }
+  }
+
+  /**
+   * Sorts the given range of the array into ascending order, in the
+   * order of {@link Float#compare}: -0.0 before 0.0 and NaN last.
+   *
+   * @param a the array
+   * @param from the index of the first element to sort
+   * @param to the index after the last element to sort
+   */
+  static void sort(float[] a, int from, int to)
+  {
+    // Move the NaNs to the end, and turn -0.0 into 0.0 so that the
+    // comparison operators give a total order on what is left.
+    int end = to;
+    int negativeZeros = 0;
+    for (int k = from; k < end; )
+      {
+        float ak = a[k];
+        if (ak != ak)
+          {
+            a[k] = a[--end];
+            a[end] = ak;
+          }
+        else
+          {
+            if (ak == 0 && Float.floatToRawIntBits(ak) < 0)
+              {
+                a[k] = 0;
+                negativeZeros++;
+              }
+            k++;
+          }
+      }
+
+    sort(a, from, end - 1, true);
+
+    // Turn the first zeros back into -0.0.
+    if (negativeZeros > 0)
+      {
+        int lo = from;
+        int hi = end;
+        while (lo < hi)
+          {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < 0)
+              lo = mid + 1;
+            else
+              hi = mid;
+          }
+        for (int i = 0; i < negativeZeros; i++)
+          a[lo + i] = -0.0f;
+      }
+  }
+
+  /**
+   * Sorts a[left..right] (inclusive).  Unless leftmost, a[left - 1] is
+   * known to be no greater than any element of the range and serves as
+   * a sentinel for the insertion sort.
+   */
+  private static void sort(float[] a, int left, int right, boolean leftmost)
+  {
+    int length = right - left + 1;
+
+    if (length < INSERTION_SORT_THRESHOLD)
+      {
+        if (leftmost)
+          {
+            for (int i = left + 1; i <= right; i++)
+              {
+                float ai = a[i];
+                int j = i - 1;
+                while (j >= left && ai < a[j])
+                  {
+                    a[j + 1] = a[j];
+                    j--;
+                  }
+                a[j + 1] = ai;
+              }
+          }
+        else
+          {
+            for (int i = left + 1; i <= right; i++)
+              {
+                float ai = a[i];
+                int j = i - 1;
+                while (ai < a[j])
+                  {
+                    a[j + 1] = a[j];
+                    j--;
+                  }
+                a[j + 1] = ai;
+              }
+          }
+        return;
+      }
+
+    // Five evenly spaced elements around the middle, sorted in place,
+    // give the pivots.
+    int seventh = (length >> 3) + (length >> 6) + 1;
+    int e3 = (left + right) >>> 1;
+    int e2 = e3 - seventh;
+    int e1 = e2 - seventh;
+    int e4 = e3 + seventh;
+    int e5 = e4 + seventh;
+
+    if (a[e2] < a[e1])
+      {
+        float t = a[e2];
+        a[e2] = a[e1];
+        a[e1] = t;
+      }
+    if (a[e3] < a[e2])
+      {
+        float t = a[e3];
+        a[e3] = a[e2];
+        a[e2] = t;
+        if (t < a[e1])
+          {
+            a[e2] = a[e1];
+            a[e1] = t;
+          }
+      }
+    if (a[e4] < a[e3])
+      {
+        float t = a[e4];
+        a[e4] = a[e3];
+        a[e3] = t;
+        if (t < a[e2])
+          {
+            a[e3] = a[e2];
+            a[e2] = t;
+            if (t < a[e1])
+              {
+                a[e2] = a[e1];
+                a[e1] = t;
+              }
+          }
+      }
+    if (a[e5] < a[e4])
+      {
+        float t = a[e5];
+        a[e5] = a[e4];
+        a[e4] = t;
+        if (t < a[e3])
+          {
+            a[e4] = a[e3];
+            a[e3] = t;
+            if (t < a[e2])
+              {
+                a[e3] = a[e2];
+                a[e2] = t;
+                if (t < a[e1])
+                  {
+                    a[e2] = a[e1];
+                    a[e1] = t;
+                  }
+              }
+          }
+      }
+
+    int less = left;
+    int great = right;
+
+    if (a[e1] != a[e2] && a[e2] != a[e3] && a[e3] != a[e4] && a[e4] != a[e5])
+      {
+        // Partition into three parts:
+        //   left part:   a[left + 1 .. less - 1] < pivot1
+        //   middle part: pivot1 <= a[less .. great] <= pivot2
+        //   right part:  a[great + 1 .. right - 1] > pivot2
+        // with a[left] and a[right] holding the pivots meanwhile.
+        float pivot1 = a[e2];
+        float pivot2 = a[e4];
+        a[e2] = a[left];
+        a[e4] = a[right];
+
+        while (a[++less] < pivot1)
+          ;
+        while (a[--great] > pivot2)
+          ;
+
+      outer:
+        for (int k = less - 1; ++k <= great; )
+          {
+            float ak = a[k];
+            if (ak < pivot1)
+              {
+                a[k] = a[less];
+                a[less] = ak;
+                ++less;
+              }
+            else if (ak > pivot2)
+              {
+                while (a[great] > pivot2)
+                  if (great-- == k)
+                    break outer;
+                if (a[great] < pivot1)
+                  {
+                    a[k] = a[less];
+                    a[less] = a[great];
+                    ++less;
+                  }
+                else
+                  a[k] = a[great];
+                a[great] = ak;
+                --great;
+              }
+          }
+
+        // Put the pivots in their final places.
+        a[left] = a[less - 1];
+        a[less - 1] = pivot1;
+        a[right] = a[great + 1];
+        a[great + 1] = pivot2;
+
+        sort(a, left, less - 2, leftmost);
+        sort(a, great + 2, right, false);
+
+        // A large middle part is likely to be full of elements equal to
+        // the pivots; move those out of the way before sorting the rest.
+        if (less < e1 && e5 < great)
+          {
+            while (a[less] == pivot1)
+              ++less;
+            while (a[great] == pivot2)
+              --great;
+
+          outer:
+            for (int k = less - 1; ++k <= great; )
+              {
+                float ak = a[k];
+                if (ak == pivot1)
+                  {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    ++less;
+                  }
+                else if (ak == pivot2)
+                  {
+                    while (a[great] == pivot2)
+                      if (great-- == k)
+                        break outer;
+                    if (a[great] == pivot1)
+                      {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        ++less;
+                      }
+                    else
+                      a[k] = a[great];
+                    a[great] = ak;
+                    --great;
+                  }
+              }
+          }
+
+        sort(a, less, great, false);
+      }
+    else
+      {
+        // With so many equal elements among the samples, partition
+        // around a single pivot into less, equal and greater parts.
+        float pivot = a[e3];
+        for (int k = less; k <= great; ++k)
+          {
+            if (a[k] == pivot)
+              continue;
+            float ak = a[k];
+            if (ak < pivot)
+              {
+                a[k] = a[less];
+                a[less] = ak;
+                ++less;
+              }
+            else
+              {
+                while (a[great] > pivot)
+                  --great;
+                if (a[great] < pivot)
+                  {
+                    a[k] = a[less];
+                    a[less] = a[great];
+                    ++less;
+                  }
+                else
+                  a[k] = a[great];
+                a[great] = ak;
+                --great;
+              }
+          }
+
+        sort(a, left, less - 1, leftmost);
+        sort(a, great + 1, right, false);
+      }
+  }
+
+  /**
+   * Sorts the given range of the array into ascending order, in the
+   * order of {@link Double#compare}: -0.0 before 0.0 and NaN last.
+   *
+   * @param a the array
+   * @param from the index of the first element to sort
+   * @param to the index after the last element to sort
+   */
+  static void sort(double[] a, int from, int to)
+  {
+    // Move the NaNs to the end, and turn -0.0 into 0.0 so that the
+    // comparison operators give a total order on what is left.
+    int end = to;
+    int negativeZeros = 0;
+    for (int k = from; k < end; )
+      {
+        double ak = a[k];
+        if (ak != ak)
+          {
+            a[k] = a[--end];
+            a[end] = ak;
+          }
+        else
+          {
+            if (ak == 0 && Double.doubleToRawLongBits(ak) < 0)
+              {
+                a[k] = 0;
+                negativeZeros++;
+              }
+            k++;
+          }
+      }
+
+    sort(a, from, end - 1, true);
+
+    // Turn the first zeros back into -0.0.
+    if (negativeZeros > 0)
+      {
+        int lo = from;
+        int hi = end;
+        while (lo < hi)
+          {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < 0)
+              lo = mid + 1;
+            else
+              hi = mid;
+          }
+        for (int i = 0; i < negativeZeros; i++)
+          a[lo + i] = -0.0d;
+      }
+  }
+
+  /**
+   * Sorts a[left..right] (inclusive).  Unless leftmost, a[left - 1] is
+   * known to be no greater than any element of the range and serves as
+   * a sentinel for the insertion sort.
+   */
+  private static void sort(double[] a, int left, int right, boolean leftmost)
+  {
+    int length = right - left + 1;
+
+    if (length < INSERTION_SORT_THRESHOLD)
+      {
+        if (leftmost)
+          {
+            for (int i = left + 1; i <= right; i++)
+              {
+                double ai = a[i];
+                int j = i - 1;
+                while (j >= left && ai < a[j])
+                  {
+                    a[j + 1] = a[j];
+                    j--;
+                  }
+                a[j + 1] = ai;
+              }
+          }
+        else
+          {
+            for (int i = left + 1; i <= right; i++)
+              {
+                double ai = a[i];
+                int j = i - 1;
+                while (ai < a[j])
+                  {
+                    a[j + 1] = a[j];
+                    j--;
+                  }
+                a[j + 1] = ai;
+              }
+          }
+        return;
+      }
+
+    // Five evenly spaced elements around the middle, sorted in place,
+    // give the pivots.
+    int seventh = (length >> 3) + (length >> 6) + 1;
+    int e3 = (left + right) >>> 1;
+    int e2 = e3 - seventh;
+    int e1 = e2 - seventh;
+    int e4 = e3 + seventh;
+    int e5 = e4 + seventh;
+
+    if (a[e2] < a[e1])
+      {
+        double t = a[e2];
+        a[e2] = a[e1];
+        a[e1] = t;
+      }
+    if (a[e3] < a[e2])
+      {
+        double t = a[e3];
+        a[e3] = a[e2];
+        a[e2] = t;
+        if (t < a[e1])
+          {
+            a[e2] = a[e1];
+            a[e1] = t;
+          }
+      }
+    if (a[e4] < a[e3])
+      {
+        double t = a[e4];
+        a[e4] = a[e3];
+        a[e3] = t;
+        if (t < a[e2])
+          {
+            a[e3] = a[e2];
+            a[e2] = t;
+            if (t < a[e1])
+              {
+                a[e2] = a[e1];
+                a[e1] = t;
+              }
+          }
+      }
+    if (a[e5] < a[e4])
+      {
+        double t = a[e5];
+        a[e5] = a[e4];
+        a[e4] = t;
+        if (t < a[e3])
+          {
+            a[e4] = a[e3];
+            a[e3] = t;
+            if (t < a[e2])
+              {
+                a[e3] = a[e2];
+                a[e2] = t;
+                if (t < a[e1])
+                  {
+                    a[e2] = a[e1];
+                    a[e1] = t;
+                  }
+              }
+          }
+      }
+
+    int less = left;
+    int great = right;
+
+    if (a[e1] != a[e2] && a[e2] != a[e3] && a[e3] != a[e4] && a[e4] != a[e5])
+      {
+        // Partition into three parts:
+        //   left part:   a[left + 1 .. less - 1] < pivot1
+        //   middle part: pivot1 <= a[less .. great] <= pivot2
+        //   right part:  a[great + 1 .. right - 1] > pivot2
+        // with a[left] and a[right] holding the pivots meanwhile.
+        double pivot1 = a[e2];
+        double pivot2 = a[e4];
+        a[e2] = a[left];
+        a[e4] = a[right];
+
+        while (a[++less] < pivot1)
+          ;
+        while (a[--great] > pivot2)
+          ;
+
+      outer:
+        for (int k = less - 1; ++k <= great; )
+          {
+            double ak = a[k];
+            if (ak < pivot1)
+              {
+                a[k] = a[less];
+                a[less] = ak;
+                ++less;
+              }
+            else if (ak > pivot2)
+              {
+                while (a[great] > pivot2)
+                  if (great-- == k)
+                    break outer;
+                if (a[great] < pivot1)
+                  {
+                    a[k] = a[less];
+                    a[less] = a[great];
+                    ++less;
+                  }
+                else
+                  a[k] = a[great];
+                a[great] = ak;
+                --great;
+              }
+          }
+
+        // Put the pivots in their final places.
+        a[left] = a[less - 1];
+        a[less - 1] = pivot1;
+        a[right] = a[great + 1];
+        a[great + 1] = pivot2;
+
+        sort(a, left, less - 2, leftmost);
+        sort(a, great + 2, right, false);
+
+        // A large middle part is likely to be full of elements equal to
+        // the pivots; move those out of the way before sorting the rest.
+        if (less < e1 && e5 < great)
+          {
+            while (a[less] == pivot1)
+              ++less;
+            while (a[great] == pivot2)
+              --great;
+
+          outer:
+            for (int k = less - 1; ++k <= great; )
+              {
+                double ak = a[k];
+                if (ak == pivot1)
+                  {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    ++less;
+                  }
+                else if (ak == pivot2)
+                  {
+                    while (a[great] == pivot2)
+                      if (great-- == k)
+                        break outer;
+                    if (a[great] == pivot1)
+                      {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        ++less;
+                      }
+                    else
+                      a[k] = a[great];
+                    a[great] = ak;
+                    --great;
+                  }
+              }
+          }
+
+        sort(a, less, great, false);
+      }
+    else
+      {
+        // With so many equal elements among the samples, partition
+        // around a single pivot into less, equal and greater parts.
+        double pivot = a[e3];
+        for (int k = less; k <= great; ++k)
+          {
+            if (a[k] == pivot)
+              continue;
+            double ak = a[k];
+            if (ak < pivot)
+              {
+                a[k] = a[less];
+                a[less] = ak;
+                ++less;
+              }
+            else
+              {
+                while (a[great] > pivot)
+                  --great;
+                if (a[great] < pivot)
+                  {
+                    a[k] = a[less];
+                    a[less] = a[great];
+                    ++less;
+                  }
+                else
+                  a[k] = a[great];
+                a[great] = ak;
+                --great;
+              }
+          }
+
+        sort(a, left, less - 1, leftmost);
+        sort(a, great + 1, right, false);
+      }
+  }
+}
@@ -39,6 +39,8 @@ exception statement from your version. */
 package java.util;
 
 import gnu.java.lang.CPStringBuilder;
+import gnu.java.lang.FloatingDecimal;
+import gnu.java.util.FormatString;
 
 import java.io.Closeable;
 import java.io.File;
@@ -50,7 +52,10 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
 import java.text.DateFormatSymbols;
 import java.text.DecimalFormatSymbols;
 
@@ -109,21 +114,6 @@ public final class Formatter
   private IOException ioException;
 
   // Some state used when actually formatting.
-  /**
-   * The format string.
-   */
-  private String format;
-
-  /**
-   * The current index into the string.
-   */
-  private int index;
-
-  /**
-   * The length of the format string.
-   */
-  private int length;
-
   /**
    * The formatting locale.
    */
@@ -144,6 +134,18 @@ public final class Formatter
   private static final String lineSeparator
     = SystemProperties.getProperty("line.separator");
 
+  static
+  {
+    FormatString.setFormatting(new FormatString.Formatting()
+      {
+        public String format(Locale loc, FormatString compiled,
+                             Object[] args)
+        {
+          return new Formatter(loc).format(loc, compiled, args).toString();
+        }
+      });
+  }
+
   /**
    * The type of numeric output format for a {@link BigDecimal}.
    */
@@ -484,6 +486,7 @@ public final class Formatter
     // First replace each digit.
     char zeroDigit = dfsyms.getZeroDigit();
     int decimalOffset = -1;
+    int exponentOffset = -1;
     for (int i = builder.length() - 1; i >= 0; --i)
       {
         char c = builder.charAt(i);
@@ -494,6 +497,8 @@ public final class Formatter
             assert decimalOffset == -1;
             decimalOffset = i;
           }
+        else if (c == 'e')
+          exponentOffset = i;
       }
 
     // Localize the decimal separator.
@@ -503,12 +508,14 @@ public final class Formatter
         builder.insert(decimalOffset, dfsyms.getDecimalSeparator());
       }
 
-    // Insert the grouping separators.
+    // Insert the grouping separators, into the significand only.
     if ((flags & FormattableFlags.COMMA) != 0)
       {
         char groupSeparator = dfsyms.getGroupingSeparator();
         int groupSize = 3;      // FIXME
-        int offset = (decimalOffset == -1) ? builder.length() : decimalOffset;
+        int offset = decimalOffset;
+        if (offset == -1)
+          offset = exponentOffset == -1 ? builder.length() : exponentOffset;
         // We use '>' because we don't want to insert a separator
         // before the first digit.
         for (int i = offset - groupSize; i > 0; i -= groupSize)
@@ -517,9 +524,16 @@ public final class Formatter
 
     if ((flags & FormattableFlags.ZERO) != 0)
       {
-        // Zero fill.  Note that according to the algorithm we do not
+        // Zero fill, leaving room for the sign or parentheses added
+        // below.  Note that according to the algorithm we do not
         // insert grouping separators here.
-        for (int i = width - builder.length(); i > 0; --i)
+        int signLength = 0;
+        if (isNegative)
+          signLength = (flags & FormattableFlags.PAREN) != 0 ? 2 : 1;
+        else if ((flags & (FormattableFlags.PLUS
+                           | FormattableFlags.SPACE)) != 0)
+          signLength = 1;
+        for (int i = width - signLength - builder.length(); i > 0; --i)
           builder.insert(0, zeroDigit);
       }
 
@@ -769,6 +783,8 @@ public final class Formatter
 
     if ((flags & FormattableFlags.LEFT_JUSTIFY) != 0 && width == -1)
       throw new MissingFormatWidthException("fixme");
+    if ((flags & FormattableFlags.ZERO) != 0 && width == -1)
+      throw new MissingFormatWidthException("fixme");
 
     // Do the base translation of the value to a string.
     String result;
@@ -926,6 +942,171 @@ public final class Formatter
     genericFormat(builder.toString(), flags, width, precision);
   }
 
+  /**
+   * Emit a floating point value for the 'e', 'f' or 'g' conversions.
+   * A Float or Double is first converted to the shortest decimal that
+   * reads back as the same value, which are the digits Double.toString
+   * prints, and that is then rounded half up to the precision.
+   *
+   * @param arg the floating point value.
+   * @param flags the formatting flags to use.
+   * @param width the width to use.
+   * @param precision the precision to use.
+   * @param conversion the conversion character, in lower case.
+   * @throws IOException if the output stream throws an I/O error.
+   */
+  private void floatingConversion(Object arg, int flags, int width,
+                                  int precision, char conversion)
+    throws IOException
+  {
+    int allowed = (FormattableFlags.LEFT_JUSTIFY
+                   | FormattableFlags.UPPERCASE
+                   | FormattableFlags.PLUS
+                   | FormattableFlags.SPACE
+                   | FormattableFlags.ZERO
+                   | FormattableFlags.PAREN);
+    if (conversion != 'g')
+      allowed |= FormattableFlags.ALTERNATE;
+    if (conversion != 'e')
+      allowed |= FormattableFlags.COMMA;
+    if ((flags & FormattableFlags.LEFT_JUSTIFY) != 0 && width == -1)
+      throw new MissingFormatWidthException("fixme");
+    if ((flags & FormattableFlags.ZERO) != 0 && width == -1)
+      throw new MissingFormatWidthException("fixme");
+    checkFlags(flags, allowed, conversion);
+    if ((flags & FormattableFlags.PLUS) != 0
+        && (flags & FormattableFlags.SPACE) != 0)
+      throw new IllegalFormatFlagsException(getName(flags));
+    if ((flags & FormattableFlags.LEFT_JUSTIFY) != 0
+        && (flags & FormattableFlags.ZERO) != 0)
+      throw new IllegalFormatFlagsException(getName(flags));
+
+    if (arg == null)
+      {
+        genericFormat("null", flags, width, precision);
+        return;
+      }
+
+    BigDecimal value;
+    boolean isNegative;
+    if (arg instanceof Float || arg instanceof Double)
+      {
+        double d = ((Number) arg).doubleValue();
+        isNegative = d < 0 || (d == 0 && 1 / d < 0);
+        if (Double.isNaN(d) || Double.isInfinite(d))
+          {
+            CPStringBuilder builder
+              = new CPStringBuilder(Double.isNaN(d) ? "NaN" : "Infinity");
+            if (isNegative && (flags & FormattableFlags.PAREN) != 0)
+              {
+                builder.insert(0, '(');
+                builder.append(')');
+              }
+            else if (isNegative)
+              builder.insert(0, '-');
+            else if (! Double.isNaN(d)
+                     && (flags & FormattableFlags.PLUS) != 0)
+              builder.insert(0, '+');
+            else if (! Double.isNaN(d)
+                     && (flags & FormattableFlags.SPACE) != 0)
+              builder.insert(0, ' ');
+            genericFormat(builder.toString(), flags, width, -1);
+            return;
+          }
+        if (arg instanceof Float)
+          value = FloatingDecimal.toBigDecimal(Math.abs((float) d));
+        else
+          value = FloatingDecimal.toBigDecimal(Math.abs(d));
+      }
+    else if (arg instanceof BigDecimal)
+      {
+        value = (BigDecimal) arg;
+        isNegative = value.signum() < 0;
+        value = value.abs();
+      }
+    else
+      throw new IllegalFormatConversionException(conversion, arg.getClass());
+
+    if (precision == -1)
+      precision = 6;
+    boolean alternate = (flags & FormattableFlags.ALTERNATE) != 0;
+    String result;
+    if (conversion == 'g')
+      {
+        // Use scientific notation unless the rounded value is at least
+        // 10^-4 and less than 10^precision.
+        if (precision == 0)
+          precision = 1;
+        BigDecimal rounded
+          = value.round(new MathContext(precision, RoundingMode.HALF_UP));
+        int exponent = (rounded.signum() == 0 ? 0
+                        : rounded.precision() - rounded.scale() - 1);
+        if (exponent < -4 || exponent >= precision)
+          result = scientificString(value, precision - 1, false);
+        else
+          result = plainString(value, precision - 1 - exponent, false);
+      }
+    else if (conversion == 'e')
+      result = scientificString(value, precision, alternate);
+    else
+      result = plainString(value, precision, alternate);
+
+    CPStringBuilder builder = new CPStringBuilder(result);
+    applyLocalization(builder, flags, width, isNegative);
+    genericFormat(builder.toString(), flags, width, -1);
+  }
+
+  /**
+   * Returns a non-negative value with the given number of fraction
+   * digits, rounded half up.
+   *
+   * @param value the value to format.
+   * @param fractionDigits the number of digits after the decimal point.
+   * @param alternate true to write the point even with no fraction.
+   */
+  private static String plainString(BigDecimal value, int fractionDigits,
+                                    boolean alternate)
+  {
+    String result = value.setScale(fractionDigits, BigDecimal.ROUND_HALF_UP)
+      .toPlainString();
+    return alternate && fractionDigits == 0 ? result + "." : result;
+  }
+
+  /**
+   * Returns a non-negative value in scientific notation with the given
+   * number of fraction digits, rounded half up, and an exponent of at
+   * least two digits.
+   *
+   * @param value the value to format.
+   * @param fractionDigits the number of digits after the decimal point.
+   * @param alternate true to write the point even with no fraction.
+   */
+  private static String scientificString(BigDecimal value,
+                                         int fractionDigits,
+                                         boolean alternate)
+  {
+    int exponent = 0;
+    if (value.signum() != 0)
+      {
+        value = value.round(new MathContext(fractionDigits + 1,
+                                            RoundingMode.HALF_UP));
+        exponent = value.precision() - value.scale() - 1;
+        value = value.scaleByPowerOfTen(-exponent);
+      }
+    CPStringBuilder result = new CPStringBuilder(value.setScale
+                                                 (fractionDigits,
+                                                  BigDecimal.ROUND_HALF_UP)
+                                                 .toPlainString());
+    if (alternate && fractionDigits == 0)
+      result.append('.');
+    result.append('e');
+    result.append(exponent < 0 ? '-' : '+');
+    if (Math.abs(exponent) < 10)
+      result.append('0');
+    result.append(Math.abs(exponent));
+    return result.toString();
+  }
+
   /**
    * Emit a single date or time conversion to a StringBuilder.
    *
@@ -1171,124 +1352,6 @@ public final class Formatter
     genericFormat(result.toString(), flags, width, precision);
   }
 
-  /**
-   * Advance the internal parsing index, and throw an exception
-   * on overrun.
-   *
-   * @throws IllegalArgumentException on overrun.
-   */
-  private void advance()
-  {
-    ++index;
-    if (index >= length)
-      {
-        // FIXME: what exception here?
-        throw new IllegalArgumentException();
-      }
-  }
-
-  /**
-   * Parse an integer appearing in the format string.  Will return -1
-   * if no integer was found.
-   *
-   * @return the parsed integer.
-   */
-  private int parseInt()
-  {
-    int start = index;
-    while (Character.isDigit(format.charAt(index)))
-      advance();
-    if (start == index)
-      return -1;
-    return Integer.parseInt(format.substring(start, index));
-  }
-
-  /**
-   * Parse the argument index.  Returns -1 if there was no index, 0 if
-   * we should re-use the previous index, and a positive integer to
-   * indicate an absolute index.
-   *
-   * @return the parsed argument index.
-   */
-  private int parseArgumentIndex()
-  {
-    int result = -1;
-    int start = index;
-    if (format.charAt(index) == '<')
-      {
-        result = 0;
-        advance();
-      }
-    else if (Character.isDigit(format.charAt(index)))
-      {
-        result = parseInt();
-        if (format.charAt(index) == '$')
-          advance();
-        else
-          {
-            // Reset.
-            index = start;
-            result = -1;
-          }
-      }
-    return result;
-  }
-
-  /**
-   * Parse a set of flags and return a bit mask of values from
-   * FormattableFlags.  Will throw an exception if a flag is
-   * duplicated.
-   *
-   * @return the parsed flags.
-   */
-  private int parseFlags()
-  {
-    int value = 0;
-    int start = index;
-    while (true)
-      {
-        int x = FLAGS.indexOf(format.charAt(index));
-        if (x == -1)
-          break;
-        int newValue = 1 << x;
-        if ((value & newValue) != 0)
-          throw new DuplicateFormatFlagsException(format.substring(start,
-                                                                   index + 1));
-        value |= newValue;
-        advance();
-      }
-    return value;
-  }
-
-  /**
-   * Parse the width part of a format string.  Returns -1 if no width
-   * was specified.
-   *
-   * @return the parsed width.
-   */
-  private int parseWidth()
-  {
-    return parseInt();
-  }
-
-  /**
-   * If the current character is '.', parses the precision part of a
-   * format string.  Returns -1 if no precision was specified.
-   *
-   * @return the parsed precision.
-   */
-  private int parsePrecision()
-  {
-    if (format.charAt(index) != '.')
-      return -1;
-    advance();
-    int precision = parseInt();
-    if (precision == -1)
-      // FIXME
-      throw new IllegalArgumentException();
-    return precision;
-  }
-
   /**
    * Outputs a formatted string based on the supplied specification,
    * <code>fmt</code>, and its arguments using the specified locale.
@@ -1310,7 +1373,23 @@ public final class Formatter
   {
     if (closed)
       throw new FormatterClosedException();
+    return format(loc, FormatString.compile(fmt), args);
+  }
 
+  /**
+   * Outputs a formatted string based on an already parsed format
+   * string.  {@link FormatString#format(Locale,Object...)} calls this
+   * through the formatting installed above, so that it need not look
+   * the format up again.
+   *
+   * @param loc the locale to use for this format.
+   * @param compiled the parsed format specification.
+   * @param args the arguments to apply to the specification.
+   * @throws IllegalFormatException if there is a mismatch between the
+   *                                format and the arguments.
+   */
+  private Formatter format(Locale loc, FormatString compiled, Object[] args)
+  {
     // Note the arguments are indexed starting at 1.
     int implicitArgumentIndex = 1;
     int previousArgumentIndex = 0;
@@ -1318,29 +1397,24 @@ public final class Formatter
     try
       {
         fmtLocale = loc;
-        format = fmt;
-        length = format.length();
-        for (index = 0; index < length; ++index)
+        for (int i = 0; i < compiled.size(); ++i)
           {
-            char c = format.charAt(index);
-            if (c != '%')
+            FormatString.Specifier spec = compiled.get(i);
+            char origConversion = spec.conversion;
+            if (origConversion == FormatString.LITERAL)
               {
-                out.append(c);
+                out.append(spec.text);
                 continue;
               }
 
-            int start = index;
-            advance();
-
             // We do the needed post-processing of this later, when we
             // determine whether an argument is actually needed by
             // this conversion.
-            int argumentIndex = parseArgumentIndex();
+            int argumentIndex = spec.argumentIndex;
 
-            int flags = parseFlags();
-            int width = parseWidth();
-            int precision = parsePrecision();
-            char origConversion = format.charAt(index);
+            int flags = spec.flags;
+            int width = spec.width;
+            int precision = spec.precision;
             char conversion = origConversion;
             if (Character.isUpperCase(conversion))
               {
@@ -1349,26 +1423,19 @@ public final class Formatter
               }
 
             Object argument = null;
-            if (conversion == '%' || conversion == 'n')
-              {
-                if (argumentIndex != -1)
-                  {
-                    // FIXME: not sure about this.
-                    throw new UnknownFormatConversionException("FIXME");
-                  }
-              }
-            else
+            if (conversion != '%' && conversion != 'n')
               {
                 if (argumentIndex == -1)
                   argumentIndex = implicitArgumentIndex++;
                 else if (argumentIndex == 0)
                   argumentIndex = previousArgumentIndex;
+                previousArgumentIndex = argumentIndex;
                 // Argument indices start at 1 but array indices at 0.
                 --argumentIndex;
                 if (args != null)
                   {
                     if (argumentIndex < 0 || argumentIndex >= args.length)
-                      throw new MissingFormatArgumentException(format.substring(start, index));
+                      throw new MissingFormatArgumentException(spec.text);
                     argument = args[argumentIndex];
                   }
               }
@@ -1404,23 +1471,19 @@ public final class Formatter
               case 'x':
                 hexOrOctalConversion(argument, flags, width, precision, 16,
                                      origConversion);
-              case 'e':
-                // scientificNotationConversion();
                 break;
+              case 'e':
               case 'f':
-                // floatingDecimalConversion();
-                break;
               case 'g':
-                // smartFloatingConversion();
+                floatingConversion(argument, flags, width, precision,
+                                   conversion);
                 break;
               case 'a':
                 // hexFloatingConversion();
                 break;
               case 't':
-                advance();
-                char subConversion = format.charAt(index);
                 dateTimeConversion(argument, flags, width, precision,
-                                   origConversion, subConversion);
+                                   origConversion, spec.dateTimeConversion);
                 break;
               case '%':
                 percentFormat(flags, width, precision);
@@ -39,6 +39,8 @@ exception statement from your version. */
 
 package java.util;
 
+import gnu.java.util.ZoneInfo;
+
 
 /**
  * <p>
@@ -181,6 +183,74 @@ public class GregorianCalendar extends Calendar
    */
   private static final int EPOCH_DAYS = 719162;
 
+  /**
+   * The date fields of the last local day computeFields worked out,
+   * so that later times on the same day only need their time of day
+   * computed.  The cache is only used while the time zone, its rules,
+   * the first day of the week and the minimal days in the first week
+   * are the ones it was made with.
+   */
+  private static final class DayCache
+  {
+    /**
+     * A copy of the calendar fields at the time the cache was made.
+     */
+    final int[] fields;
+
+    /**
+     * The time (UTC) of the local midnight starting the day.
+     */
+    final long dayStart;
+
+    /**
+     * The range of times, start inclusive and end exclusive, that
+     * fall on this day in local standard time.  The zone offsets are
+     * known to be constant over it once <code>verified</code> is true.
+     */
+    final long validStart, validEnd;
+
+    /**
+     * Whether the zone offsets have been checked at both ends of the
+     * valid range.  This is only done when a second time falls on the
+     * same day, so that computing scattered dates costs no extra
+     * time zone lookups.
+     */
+    final boolean verified;
+
+    final TimeZone zone;
+    final int rawOffset;
+
+    /**
+     * The rules of the zone when the cache was made; see zoneRules.
+     */
+    final TimeZone rules;
+    final int firstDayOfWeek;
+    final int minimalDaysInFirstWeek;
+
+    DayCache(int[] fields, long dayStart, TimeZone zone, TimeZone rules,
+             int firstDayOfWeek, int minimalDaysInFirstWeek,
+             boolean verified)
+    {
+      this.fields = fields;
+      this.dayStart = dayStart;
+      int dstOffset = fields[DST_OFFSET];
+      this.validStart = dayStart + Math.max(0, dstOffset);
+      this.validEnd = dayStart + (24 * 60 * 60 * 1000L)
+                      + Math.min(0, dstOffset);
+      this.zone = zone;
+      this.rawOffset = zone.getRawOffset();
+      this.rules = rules;
+      this.firstDayOfWeek = firstDayOfWeek;
+      this.minimalDaysInFirstWeek = minimalDaysInFirstWeek;
+      this.verified = verified;
+    }
+  }
+
+  /**
+   * The cached fields of the last computed day, or null.
+   */
+  private transient DayCache dayCache;
+
   /**
    * Constructs a new GregorianCalender representing the current
    * time, using the default time zone and the default locale.
@@ -296,6 +366,7 @@ public class GregorianCalendar extends Calendar
   public void setGregorianChange(Date date)
   {
     gregorianCutover = date.getTime();
+    dayCache = null;
   }
 
   /**
@@ -405,12 +476,136 @@ public class GregorianCalendar extends Calendar
   {
     int relativeDay = (year - 1) * 365 + ((year - 1) >> 2) + dayOfYear
                       - EPOCH_DAYS; // gregorian days from 1 to epoch.
-    int gregFactor = (int) Math.floor((double) (year - 1) / 400.)
-                     - (int) Math.floor((double) (year - 1) / 100.);
+    int gregFactor = gregorianCorrection(year);
 
     return ((relativeDay + gregFactor) * 60L * 60L * 24L * 1000L >= gregorianCutover);
   }
 
+  /**
+   * Returns the Gregorian correction for a year, as described for
+   * EPOCH_DAYS.
+   */
+  private static int gregorianCorrection(int year)
+  {
+    return floorDiv(year - 1, 400) - floorDiv(year - 1, 100);
+  }
+
+  /**
+   * Divides, rounding towards negative infinity.
+   */
+  private static int floorDiv(int a, int b)
+  {
+    int q = a / b;
+    if ((a % b) != 0 && ((a ^ b) < 0))
+      q--;
+    return q;
+  }
+
+  /**
+   * Divides, rounding towards negative infinity.
+   */
+  private static long floorDiv(long a, long b)
+  {
+    long q = a / b;
+    if ((a % b) != 0 && ((a ^ b) < 0))
+      q--;
+    return q;
+  }
+
+  /**
+   * Returns what the day cache keeps to notice changes to the rules of
+   * a zone, or null if the zone's days must not be cached.  A ZoneInfo
+   * can only change its raw offset, which the cache checks anyway, so
+   * it is its own rules.  A SimpleTimeZone may change its daylight
+   * saving rules, so a copy is kept.  Other zones are not cached, as
+   * there is no telling how they change.
+   */
+  private static TimeZone zoneRules(TimeZone zone)
+  {
+    if (zone.getClass() == ZoneInfo.class)
+      return zone;
+    if (zone.getClass() == SimpleTimeZone.class)
+      return (TimeZone) zone.clone();
+    return null;
+  }
+
+  /**
+   * Returns the day cache if it may be used with the current settings
+   * of this calendar, and null otherwise.
+   */
+  private DayCache getDayCache()
+  {
+    DayCache cache = dayCache;
+    if (cache == null)
+      return null;
+    TimeZone zone = getTimeZone();
+    if (cache.zone != zone || cache.rawOffset != zone.getRawOffset()
+        || cache.firstDayOfWeek != getFirstDayOfWeek()
+        || cache.minimalDaysInFirstWeek != getMinimalDaysInFirstWeek())
+      return null;
+    if (cache.rules != zone
+        && (! zone.hasSameRules(cache.rules)
+            || zone.getDSTSavings() != cache.rules.getDSTSavings()))
+      return null;
+    return cache;
+  }
+
+  /**
+   * Checks that the zone offsets are the same at both ends of the
+   * cached day in local standard time.  A zone changes its offset at
+   * most once a day, so they are then the same all day.  Returns the
+   * verified cache, or null if the offsets differ.
+   */
+  private DayCache verifyDayCache(DayCache cache)
+  {
+    int[] f = cache.fields;
+    int offset = f[ZONE_OFFSET] + f[DST_OFFSET];
+    if (cache.zone.getOffset(f[ERA], f[YEAR], f[MONTH], f[DAY_OF_MONTH],
+                             f[DAY_OF_WEEK], 0) != offset
+        || cache.zone.getOffset(f[ERA], f[YEAR], f[MONTH], f[DAY_OF_MONTH],
+                                f[DAY_OF_WEEK],
+                                24 * 60 * 60 * 1000 - 1) != offset)
+      return null;
+    return new DayCache(f, cache.dayStart, cache.zone, cache.rules,
+                        cache.firstDayOfWeek, cache.minimalDaysInFirstWeek,
+                        true);
+  }
+
+  /**
+   * Returns true if the date and zone fields match the cached day,
+   * so that computeTime would arrive at that day.
+   */
+  private boolean isCachedDay(int[] cached)
+  {
+    return (fields[ERA] == cached[ERA] && fields[YEAR] == cached[YEAR]
+            && fields[MONTH] == cached[MONTH]
+            && fields[DAY_OF_MONTH] == cached[DAY_OF_MONTH]
+            && fields[DAY_OF_WEEK] == cached[DAY_OF_WEEK]
+            && fields[DAY_OF_WEEK_IN_MONTH] == cached[DAY_OF_WEEK_IN_MONTH]
+            && (! isSet[ZONE_OFFSET]
+                || fields[ZONE_OFFSET] == cached[ZONE_OFFSET])
+            && (! isSet[DST_OFFSET]
+                || fields[DST_OFFSET] == cached[DST_OFFSET]));
+  }
+
+  /**
+   * Sets the time of day fields from the milliseconds since local
+   * midnight.
+   */
+  private void setTimeOfDayFields(int millisInDay)
+  {
+    int hourOfDay = millisInDay / (60 * 60 * 1000);
+    fields[AM_PM] = (hourOfDay < 12) ? AM : PM;
+    int hour = hourOfDay % 12;
+    fields[HOUR] = hour;
+    fields[HOUR_OF_DAY] = hourOfDay;
+    millisInDay %= (60 * 60 * 1000);
+    fields[MINUTE] = millisInDay / (60 * 1000);
+    millisInDay %= (60 * 1000);
+    fields[SECOND] = millisInDay / (1000);
+    fields[MILLISECOND] = millisInDay % 1000;
+  }
+
   /**
    * Check set fields for validity, without leniency.
    *
@@ -520,6 +715,26 @@ public class GregorianCalendar extends Calendar
     if (! isLenient())
       nonLeniencyCheck();
 
+    // If the date is the cached day, only the time of day is new.
+    DayCache cache = getDayCache();
+    if (cache != null && cache.verified && isSet[MONTH]
+        && (! isSet[DAY_OF_WEEK] || isSet[DAY_OF_WEEK_IN_MONTH])
+        && isCachedDay(cache.fields))
+      {
+        if (isSet[HOUR])
+          hour = fields[HOUR] + (fields[AM_PM] == PM ? 12 : 0);
+        else
+          hour = fields[HOUR_OF_DAY];
+        long newTime = cache.dayStart
+          + ((((hour * 60L) + minute) * 60L + second) * 1000L + millis);
+        if (newTime >= cache.validStart && newTime < cache.validEnd)
+          {
+            time = newTime;
+            isTimeSet = true;
+            return;
+          }
+      }
+
     if (! isSet[MONTH] && (! isSet[DAY_OF_WEEK] || isSet[WEEK_OF_YEAR]))
       {
         // 5: YEAR + DAY_OF_WEEK + WEEK_OF_YEAR
@@ -663,8 +878,7 @@ public class GregorianCalendar extends Calendar
 
     int relativeDay = (year - 1) * 365 + ((year - 1) >> 2) + dayOfYear
                       - EPOCH_DAYS; // gregorian days from 1 to epoch.
-    int gregFactor = (int) Math.floor((double) (year - 1) / 400.)
-                     - (int) Math.floor((double) (year - 1) / 100.);
+    int gregFactor = gregorianCorrection(year);
 
     if ((relativeDay + gregFactor) * 60L * 60L * 24L * 1000L >= gregorianCutover)
       relativeDay += gregFactor;
@@ -728,8 +942,7 @@ public class GregorianCalendar extends Calendar
         //
         // The additional leap year factor accounts for the fact that
         // a leap day is not seen on Jan 1 of the leap year.
-        int gregOffset = (int) Math.floor((double) (year - 1) / 400.)
-                         - (int) Math.floor((double) (year - 1) / 100.);
+        int gregOffset = gregorianCorrection(year);
 
         return julianDay + gregOffset;
       }
@@ -754,6 +967,36 @@ public class GregorianCalendar extends Calendar
       weekday += 7;
     fields[DAY_OF_WEEK] = weekday;
 
+    if (gregorian
+        && day - 366 >= floorDiv(gregorianCutover, 24 * 60 * 60 * 1000L))
+      {
+        // The whole year is Gregorian, so use the civil from days
+        // algorithm.  This counts years from the 1st of March, so
+        // that the leap day is the last day of the year.
+        long shifted = day + 719468;
+        long era = floorDiv(shifted, 146097);
+        int dayOfEra = (int) (shifted - era * 146097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524
+                         - dayOfEra / 146096) / 365;
+        int dayFromMarch = dayOfEra - (365 * yearOfEra + yearOfEra / 4
+                                       - yearOfEra / 100);
+        int monthFromMarch = (5 * dayFromMarch + 2) / 153;
+        int month = monthFromMarch < 10 ? monthFromMarch + 2
+                                        : monthFromMarch - 10;
+        int year = (int) (era * 400) + yearOfEra + (month <= 1 ? 1 : 0);
+        boolean leap = (year & 3) == 0
+                       && ((year % 100) != 0 || (year % 400) == 0);
+
+        fields[ERA] = AD;
+        fields[YEAR] = year;
+        fields[MONTH] = month;
+        fields[DAY_OF_MONTH] = dayFromMarch - (153 * monthFromMarch + 2) / 5
+                               + 1;
+        fields[DAY_OF_YEAR] = (dayFromMarch >= 306 ? dayFromMarch - 305
+                               : dayFromMarch + 60 + (leap ? 1 : 0));
+        return;
+      }
+
     // get a first approximation of the year.  This may be one
     // year too big.
     int year = 1970
@@ -808,6 +1051,24 @@ public class GregorianCalendar extends Calendar
    */
   protected synchronized void computeFields()
   {
+    DayCache cache = getDayCache();
+    if (cache != null && time >= cache.validStart && time < cache.validEnd)
+      {
+        if (! cache.verified)
+          dayCache = cache = verifyDayCache(cache);
+        if (cache != null)
+          {
+            int[] cached = cache.fields;
+            for (int i = 0; i < FIELD_COUNT; i++)
+              fields[i] = cached[i];
+            setTimeOfDayFields((int) (time - cache.dayStart));
+            for (int i = 0; i < FIELD_COUNT; i++)
+              isSet[i] = true;
+            areFieldsSet = true;
+            return;
+          }
+      }
+
     boolean gregorian = (time >= gregorianCutover);
 
     TimeZone zone = getTimeZone();
@@ -898,16 +1159,18 @@ public class GregorianCalendar extends Calendar
 
     fields[WEEK_OF_YEAR] = weekOfYear;
 
-    int hourOfDay = millisInDay / (60 * 60 * 1000);
-    fields[AM_PM] = (hourOfDay < 12) ? AM : PM;
-    int hour = hourOfDay % 12;
-    fields[HOUR] = hour;
-    fields[HOUR_OF_DAY] = hourOfDay;
-    millisInDay %= (60 * 60 * 1000);
-    fields[MINUTE] = millisInDay / (60 * 1000);
-    millisInDay %= (60 * 1000);
-    fields[SECOND] = millisInDay / (1000);
-    fields[MILLISECOND] = millisInDay % 1000;
+    setTimeOfDayFields(millisInDay);
+
+    // Remember this day, unless it spans the Gregorian change or the
+    // zone's rules can't be checked for changes.
+    long dayStart = time - millisInDay;
+    TimeZone rules = zoneRules(zone);
+    if (millisInDay >= 0 && rules != null
+        && (gregorianCutover <= dayStart
+            || gregorianCutover >= dayStart + (24 * 60 * 60 * 1000L)))
+      dayCache = new DayCache(fields.clone(), dayStart, zone, rules,
+                              getFirstDayOfWeek(),
+                              getMinimalDaysInFirstWeek(), false);
 
     areFieldsSet = isSet[ERA] = isSet[YEAR] = isSet[MONTH] = isSet[WEEK_OF_YEAR] = isSet[WEEK_OF_MONTH] = isSet[DAY_OF_MONTH] = isSet[DAY_OF_YEAR] = isSet[DAY_OF_WEEK] = isSet[DAY_OF_WEEK_IN_MONTH] = isSet[AM_PM] = isSet[HOUR] = isSet[HOUR_OF_DAY] = isSet[MINUTE] = isSet[SECOND] = isSet[MILLISECOND] = isSet[ZONE_OFFSET] = isSet[DST_OFFSET] = true;
   }
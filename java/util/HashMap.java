@@ -65,8 +65,11 @@ import java.io.Serializable;
  *
  * Under ideal circumstances (no collisions), HashMap offers O(1)
  * performance on most operations (<code>containsValue()</code> is,
- * of course, O(n)).  In the worst case (all keys map to the same
- * hash code -- very unlikely), most operations are O(n).
+ * of course, O(n)).  A bucket that collects many entries is turned
+ * into a red-black tree ordered by hash code and, for keys of the same
+ * {@link Comparable} class, by <code>compareTo()</code>, so heavy
+ * collisions cost O(log n) rather than O(n).  Only when all keys have
+ * the same hash code and are not comparable are operations O(n).
  * <p>
  *
  * HashMap is part of the JDK1.2 Collections API.  It differs from
@@ -105,6 +108,32 @@ public class HashMap<K, V> extends AbstractMap<K, V>
    */
   static final int DEFAULT_CAPACITY = 16;
 
+  /**
+   * The largest number of buckets; the number of buckets is always a
+   * power of two no larger than this.
+   */
+  static final int MAXIMUM_CAPACITY = 1 << 30;
+
+  /**
+   * The number of entries at which a bucket is turned into a tree.
+   */
+  static final int TREEIFY_THRESHOLD = 8;
+
+  /**
+   * The number of entries at which a tree bucket is turned back into a
+   * list.  This is below {@link #TREEIFY_THRESHOLD} so that a bucket
+   * does not flip back and forth as one key is added and removed.
+   */
+  static final int UNTREEIFY_THRESHOLD = 6;
+
+  /**
+   * The smallest number of buckets for which buckets are turned into
+   * trees.  Below this, a crowded bucket causes a rehash instead, as the
+   * collisions are more likely due to the table being small than to the
+   * hash codes being poor.
+   */
+  static final int MIN_TREEIFY_CAPACITY = 64;
+
   /**
    * The default load factor; this is explicitly specified by the spec.
    * Package visible for use by HashSet.
@@ -132,7 +161,9 @@ public class HashMap<K, V> extends AbstractMap<K, V>
   final float loadFactor;
 
   /**
-   * Array containing the actual key-value mappings.
+   * Array containing the actual key-value mappings.  Its length is a
+   * power of two.  Each bucket is either a list of entries linked by
+   * <code>next</code>, or a {@link TreeBin} holding the entries in a tree.
    * Package visible for use by nested and subclasses.
    */
   transient HashEntry<K, V>[] buckets;
@@ -168,14 +199,22 @@ public class HashMap<K, V> extends AbstractMap<K, V>
      */
     HashEntry<K, V> next;
 
+    /**
+     * The spread hash code of the key, as computed by
+     * {@link HashMap#keyHash(Object)}.  Package visible for use by subclass.
+     */
+    int hash;
+
     /**
      * Simple constructor.
      * @param key the key
      * @param value the value
+     * @param hash the spread hash code of the key
      */
-    HashEntry(K key, V value)
+    HashEntry(K key, V value, int hash)
     {
       super(key, value);
+      this.hash = hash;
     }
 
     /**
@@ -199,6 +238,484 @@ public class HashMap<K, V> extends AbstractMap<K, V>
     }
   }
 
+  /**
+   * A node of a tree bucket, referring to one entry of the map.
+   */
+  static final class TreeNode<K, V>
+  {
+    final HashEntry<K, V> entry;
+    TreeNode<K, V> parent;
+    TreeNode<K, V> left;
+    TreeNode<K, V> right;
+    boolean red;
+
+    TreeNode(HashEntry<K, V> entry)
+    {
+      this.entry = entry;
+    }
+  }
+
+  /**
+   * A bucket holding its entries in a red-black tree rather than a list.
+   * It is stored in the buckets array in place of the first entry, and
+   * its entries do not use their <code>next</code> links.  The tree is
+   * ordered by hash code, then by <code>compareTo()</code> for keys of the
+   * same Comparable class, then by an arbitrary but consistent order.
+   * Only the first two are used for lookups; where they do not decide,
+   * both subtrees are searched.
+   */
+  static final class TreeBin<K, V> extends HashEntry<K, V>
+  {
+    /**
+     * Tree bins are never serialized, since HashMap writes out its
+     * entries itself.
+     */
+    private static final long serialVersionUID = 5655912240747357806L;
+
+    /** The root of the tree. */
+    TreeNode<K, V> root;
+
+    /** The number of entries in the tree. */
+    int count;
+
+    TreeBin()
+    {
+      super(null, null, 0);
+    }
+
+    /**
+     * Returns the entry for a key, or null if there is none.
+     *
+     * @param hash the spread hash code of the key
+     * @param key the key
+     * @return the entry, or null
+     */
+    HashEntry<K, V> find(int hash, Object key)
+    {
+      TreeNode<K, V> n = findNode(root, hash, key);
+      return n == null ? null : n.entry;
+    }
+
+    /**
+     * Returns the node for a key, or null if there is none.
+     *
+     * @param hash the spread hash code of the key
+     * @param key the key
+     * @return the node, or null
+     */
+    TreeNode<K, V> findNode(int hash, Object key)
+    {
+      return findNode(root, hash, key);
+    }
+
+    private static <K, V> TreeNode<K, V> findNode(TreeNode<K, V> p, int hash,
+                                                  Object key)
+    {
+      while (p != null)
+        {
+          int h = p.entry.hash;
+          if (hash < h)
+            p = p.left;
+          else if (hash > h)
+            p = p.right;
+          else
+            {
+              Object k = p.entry.key;
+              if (AbstractMap.equals(key, k))
+                return p;
+              int dir = compareKeys(key, k);
+              if (dir < 0)
+                p = p.left;
+              else if (dir > 0)
+                p = p.right;
+              else
+                {
+                  TreeNode<K, V> q = findNode(p.right, hash, key);
+                  if (q != null)
+                    return q;
+                  p = p.left;
+                }
+            }
+        }
+      return null;
+    }
+
+    /**
+     * Compares two keys with equal hash codes if they are of the same
+     * Comparable class.
+     *
+     * @return the result of compareTo(), or 0 if the keys cannot be
+     *         compared
+     */
+    private static int compareKeys(Object a, Object b)
+    {
+      if (a == null || b == null || a.getClass() != b.getClass()
+          || ! (a instanceof Comparable))
+        return 0;
+      @SuppressWarnings("unchecked")
+      Comparable<Object> ca = (Comparable<Object>) a;
+      try
+        {
+          return ca.compareTo(b);
+        }
+      catch (ClassCastException x)
+        {
+          // The class is comparable to some other type only.
+          return 0;
+        }
+    }
+
+    /**
+     * Orders two keys with equal hash codes that compareKeys() cannot
+     * order.  Keys are grouped by class, and otherwise ordered by identity.
+     * The result is never 0, so that insertion can always proceed.
+     */
+    private static int tieBreak(Object a, Object b)
+    {
+      if (a != null && b != null && a.getClass() != b.getClass())
+        {
+          Class<?> ca = a.getClass();
+          Class<?> cb = b.getClass();
+          int dir = ca.getName().compareTo(cb.getName());
+          if (dir == 0)
+            dir = System.identityHashCode(ca) <= System.identityHashCode(cb)
+              ? -1 : 1;
+          return dir < 0 ? -1 : 1;
+        }
+      return System.identityHashCode(a) <= System.identityHashCode(b)
+        ? -1 : 1;
+    }
+
+    /**
+     * Adds an entry whose key is not yet in the tree.
+     *
+     * @param e the entry
+     */
+    void insert(HashEntry<K, V> e)
+    {
+      e.next = null;
+      TreeNode<K, V> node = new TreeNode<K, V>(e);
+      count++;
+      if (root == null)
+        {
+          root = node;
+          return;
+        }
+      TreeNode<K, V> p = root;
+      while (true)
+        {
+          int h = p.entry.hash;
+          int dir;
+          if (e.hash != h)
+            dir = e.hash < h ? -1 : 1;
+          else
+            {
+              dir = compareKeys(e.key, p.entry.key);
+              if (dir == 0)
+                dir = tieBreak(e.key, p.entry.key);
+            }
+          TreeNode<K, V> next = dir < 0 ? p.left : p.right;
+          if (next == null)
+            {
+              node.parent = p;
+              if (dir < 0)
+                p.left = node;
+              else
+                p.right = node;
+              break;
+            }
+          p = next;
+        }
+      node.red = true;
+      fixAfterInsertion(node);
+    }
+
+    /**
+     * Removes a node from the tree.
+     *
+     * @param z the node
+     */
+    void delete(TreeNode<K, V> z)
+    {
+      count--;
+      TreeNode<K, V> x;
+      TreeNode<K, V> xParent;
+      boolean removedRed = z.red;
+      if (z.left == null)
+        {
+          x = z.right;
+          xParent = z.parent;
+          transplant(z, x);
+        }
+      else if (z.right == null)
+        {
+          x = z.left;
+          xParent = z.parent;
+          transplant(z, x);
+        }
+      else
+        {
+          // Move the successor into the place of z.
+          TreeNode<K, V> y = z.right;
+          while (y.left != null)
+            y = y.left;
+          removedRed = y.red;
+          x = y.right;
+          if (y.parent == z)
+            xParent = y;
+          else
+            {
+              xParent = y.parent;
+              transplant(y, x);
+              y.right = z.right;
+              y.right.parent = y;
+            }
+          transplant(z, y);
+          y.left = z.left;
+          y.left.parent = y;
+          y.red = z.red;
+        }
+      if (! removedRed)
+        fixAfterDeletion(x, xParent);
+    }
+
+    /**
+     * Returns the entries of the tree as a list linked by their
+     * <code>next</code> fields, in tree order.
+     *
+     * @return the first entry
+     */
+    HashEntry<K, V> untreeify()
+    {
+      HashEntry<K, V> head = null;
+      HashEntry<K, V> tail = null;
+      for (TreeNode<K, V> n = first(); n != null; n = successor(n))
+        {
+          if (tail == null)
+            head = n.entry;
+          else
+            tail.next = n.entry;
+          tail = n.entry;
+        }
+      if (tail != null)
+        tail.next = null;
+      return head;
+    }
+
+    /**
+     * Returns the entries of the tree, in tree order.
+     *
+     * @return the entries
+     */
+    HashEntry<K, V>[] toArray()
+    {
+      @SuppressWarnings("unchecked")
+      HashEntry<K, V>[] a = (HashEntry<K, V>[]) new HashEntry<?, ?>[count];
+      int i = 0;
+      for (TreeNode<K, V> n = first(); n != null; n = successor(n))
+        a[i++] = n.entry;
+      return a;
+    }
+
+    /**
+     * Returns the first node of the tree, or null if it is empty.
+     */
+    TreeNode<K, V> first()
+    {
+      TreeNode<K, V> n = root;
+      if (n != null)
+        while (n.left != null)
+          n = n.left;
+      return n;
+    }
+
+    /**
+     * Returns the node following a node in tree order, or null.
+     */
+    static <K, V> TreeNode<K, V> successor(TreeNode<K, V> n)
+    {
+      if (n.right != null)
+        {
+          n = n.right;
+          while (n.left != null)
+            n = n.left;
+          return n;
+        }
+      TreeNode<K, V> p = n.parent;
+      while (p != null && n == p.right)
+        {
+          n = p;
+          p = p.parent;
+        }
+      return p;
+    }
+
+    private void transplant(TreeNode<K, V> u, TreeNode<K, V> v)
+    {
+      if (u.parent == null)
+        root = v;
+      else if (u == u.parent.left)
+        u.parent.left = v;
+      else
+        u.parent.right = v;
+      if (v != null)
+        v.parent = u.parent;
+    }
+
+    private void rotateLeft(TreeNode<K, V> x)
+    {
+      TreeNode<K, V> y = x.right;
+      x.right = y.left;
+      if (y.left != null)
+        y.left.parent = x;
+      transplant(x, y);
+      y.left = x;
+      x.parent = y;
+    }
+
+    private void rotateRight(TreeNode<K, V> x)
+    {
+      TreeNode<K, V> y = x.left;
+      x.left = y.right;
+      if (y.right != null)
+        y.right.parent = x;
+      transplant(x, y);
+      y.right = x;
+      x.parent = y;
+    }
+
+    private void fixAfterInsertion(TreeNode<K, V> z)
+    {
+      while (z.parent != null && z.parent.red)
+        {
+          TreeNode<K, V> p = z.parent;
+          TreeNode<K, V> g = p.parent;
+          if (p == g.left)
+            {
+              TreeNode<K, V> u = g.right;
+              if (u != null && u.red)
+                {
+                  p.red = false;
+                  u.red = false;
+                  g.red = true;
+                  z = g;
+                }
+              else
+                {
+                  if (z == p.right)
+                    {
+                      z = p;
+                      rotateLeft(z);
+                      p = z.parent;
+                    }
+                  p.red = false;
+                  g.red = true;
+                  rotateRight(g);
+                }
+            }
+          else
+            {
+              TreeNode<K, V> u = g.left;
+              if (u != null && u.red)
+                {
+                  p.red = false;
+                  u.red = false;
+                  g.red = true;
+                  z = g;
+                }
+              else
+                {
+                  if (z == p.left)
+                    {
+                      z = p;
+                      rotateRight(z);
+                      p = z.parent;
+                    }
+                  p.red = false;
+                  g.red = true;
+                  rotateLeft(g);
+                }
+            }
+        }
+      root.red = false;
+    }
+
+    private void fixAfterDeletion(TreeNode<K, V> x, TreeNode<K, V> parent)
+    {
+      while (x != root && (x == null || ! x.red))
+        {
+          if (x == parent.left)
+            {
+              TreeNode<K, V> w = parent.right;
+              if (w.red)
+                {
+                  w.red = false;
+                  parent.red = true;
+                  rotateLeft(parent);
+                  w = parent.right;
+                }
+              if ((w.left == null || ! w.left.red)
+                  && (w.right == null || ! w.right.red))
+                {
+                  w.red = true;
+                  x = parent;
+                  parent = x.parent;
+                }
+              else
+                {
+                  if (w.right == null || ! w.right.red)
+                    {
+                      w.left.red = false;
+                      w.red = true;
+                      rotateRight(w);
+                      w = parent.right;
+                    }
+                  w.red = parent.red;
+                  parent.red = false;
+                  w.right.red = false;
+                  rotateLeft(parent);
+                  x = root;
+                }
+            }
+          else
+            {
+              TreeNode<K, V> w = parent.left;
+              if (w.red)
+                {
+                  w.red = false;
+                  parent.red = true;
+                  rotateRight(parent);
+                  w = parent.left;
+                }
+              if ((w.left == null || ! w.left.red)
+                  && (w.right == null || ! w.right.red))
+                {
+                  w.red = true;
+                  x = parent;
+                  parent = x.parent;
+                }
+              else
+                {
+                  if (w.left == null || ! w.left.red)
+                    {
+                      w.right.red = false;
+                      w.red = true;
+                      rotateLeft(w);
+                      w = parent.left;
+                    }
+                  w.red = parent.red;
+                  parent.red = false;
+                  w.left.red = false;
+                  rotateRight(parent);
+                  x = root;
+                }
+            }
+        }
+      if (x != null)
+        x.red = false;
+    }
+  }
+
   /**
    * Construct a new HashMap with the default capacity (11) and the default
    * load factor (0.75).
@@ -253,11 +770,10 @@ public class HashMap<K, V> extends AbstractMap<K, V>
     if (! (loadFactor > 0)) // check for NaN too
       throw new IllegalArgumentException("Illegal Load: " + loadFactor);
 
-    if (initialCapacity == 0)
-      initialCapacity = 1;
-    buckets = (HashEntry<K, V>[]) new HashEntry[initialCapacity];
+    int capacity = tableSizeFor(initialCapacity);
+    buckets = (HashEntry<K, V>[]) new HashEntry[capacity];
     this.loadFactor = loadFactor;
-    threshold = (int) (initialCapacity * loadFactor);
+    threshold = (int) (capacity * loadFactor);
   }
 
   /**
@@ -293,15 +809,8 @@ public class HashMap<K, V> extends AbstractMap<K, V>
    */
   public V get(Object key)
   {
-    int idx = hash(key);
-    HashEntry<K, V> e = buckets[idx];
-    while (e != null)
-      {
-        if (equals(key, e.key))
-          return e.value;
-        e = e.next;
-      }
-    return null;
+    HashEntry<K, V> e = findEntry(key);
+    return e == null ? null : e.value;
   }
 
   /**
@@ -314,15 +823,7 @@ public class HashMap<K, V> extends AbstractMap<K, V>
    */
   public boolean containsKey(Object key)
   {
-    int idx = hash(key);
-    HashEntry<K, V> e = buckets[idx];
-    while (e != null)
-      {
-        if (equals(key, e.key))
-          return true;
-        e = e.next;
-      }
-    return false;
+    return findEntry(key) != null;
   }
 
   /**
@@ -340,23 +841,22 @@ public class HashMap<K, V> extends AbstractMap<K, V>
    */
   public V put(K key, V value)
   {
-    int idx = hash(key);
+    int hash = keyHash(key);
+    int idx = hash & (buckets.length - 1);
     HashEntry<K, V> e = buckets[idx];
 
-    int hash1 = key == null ? 0 : key.hashCode();
-    while (e != null)
-      {
-        int hash2 = e.key == null ? 0 : e.key.hashCode();
+    if (e instanceof TreeBin)
+      e = ((TreeBin<K, V>) e).find(hash, key);
+    else
+      while (e != null && (e.hash != hash || ! equals(key, e.key)))
+        e = e.next;
 
-        if ((hash1 == hash2) && equals(key, e.key))
-          {
-            e.access(); // Must call this for bookkeeping in LinkedHashMap.
-            V r = e.value;
-            e.value = value;
-            return r;
-          }
-        else
-          e = e.next;
+    if (e != null)
+      {
+        e.access(); // Must call this for bookkeeping in LinkedHashMap.
+        V r = e.value;
+        e.value = value;
+        return r;
       }
 
     // At this point, we know we need to add a new entry.
@@ -364,12 +864,12 @@ public class HashMap<K, V> extends AbstractMap<K, V>
     if (++size > threshold)
       {
         rehash();
-        // Need a new hash value to suit the bigger table.
-        idx = hash(key);
+        // Need a new index to suit the bigger table.
+        idx = hash & (buckets.length - 1);
       }
 
     // LinkedHashMap cannot override put(), hence this call.
-    addEntry(key, value, idx, true);
+    addEntry(key, value, hash, idx, true);
     return null;
   }
 
@@ -411,13 +911,29 @@ public class HashMap<K, V> extends AbstractMap<K, V>
    */
   public V remove(Object key)
   {
-    int idx = hash(key);
+    int hash = keyHash(key);
+    int idx = hash & (buckets.length - 1);
     HashEntry<K, V> e = buckets[idx];
     HashEntry<K, V> last = null;
 
+    if (e instanceof TreeBin)
+      {
+        TreeBin<K, V> bin = (TreeBin<K, V>) e;
+        TreeNode<K, V> node = bin.findNode(hash, key);
+        if (node == null)
+          return null;
+        modCount++;
+        bin.delete(node);
+        if (bin.count <= UNTREEIFY_THRESHOLD)
+          buckets[idx] = bin.untreeify();
+        size--;
+        // Method call necessary for LinkedHashMap to work correctly.
+        return node.entry.cleanup();
+      }
+
     while (e != null)
       {
-        if (equals(key, e.key))
+        if (e.hash == hash && equals(key, e.key))
           {
             modCount++;
             if (last == null)
@@ -460,6 +976,17 @@ public class HashMap<K, V> extends AbstractMap<K, V>
     for (int i = buckets.length - 1; i >= 0; i--)
       {
         HashEntry<K, V> e = buckets[i];
+        if (e instanceof TreeBin)
+          {
+            TreeNode<K, V> n = ((TreeBin<K, V>) e).first();
+            while (n != null)
+              {
+                if (equals(value, n.entry.value))
+                  return true;
+                n = TreeBin.successor(n);
+              }
+            continue;
+          }
         while (e != null)
           {
             if (equals(value, e.value))
@@ -641,15 +1168,51 @@ public class HashMap<K, V> extends AbstractMap<K, V>
    *
    * @param key the key of the new Entry
    * @param value the value
+   * @param hash the spread hash code of the key
    * @param idx the index in buckets where the new Entry belongs
    * @param callRemove whether to call the removeEldestEntry method
    * @see #put(Object, Object)
    */
-  void addEntry(K key, V value, int idx, boolean callRemove)
+  void addEntry(K key, V value, int hash, int idx, boolean callRemove)
   {
-    HashEntry<K, V> e = new HashEntry<K, V>(key, value);
-    e.next = buckets[idx];
+    linkEntry(new HashEntry<K, V>(key, value, hash), idx);
+  }
+
+  /**
+   * Helper method for addEntry, that links a new Entry into its bucket.
+   * A list bucket that reaches {@link #TREEIFY_THRESHOLD} entries is
+   * turned into a tree, or the table is grown if it is still small.
+   * Package visible for use by subclasses.
+   *
+   * @param e the new Entry, whose key is not yet in the map
+   * @param idx the index in buckets where the new Entry belongs
+   */
+  final void linkEntry(HashEntry<K, V> e, int idx)
+  {
+    HashEntry<K, V> first = buckets[idx];
+    if (first instanceof TreeBin)
+      {
+        ((TreeBin<K, V>) first).insert(e);
+        return;
+      }
+    e.next = first;
     buckets[idx] = e;
+    if (first == null)
+      return;
+
+    int count = 1;
+    while (first != null && count < TREEIFY_THRESHOLD)
+      {
+        count++;
+        first = first.next;
+      }
+    if (count >= TREEIFY_THRESHOLD)
+      {
+        if (buckets.length < MIN_TREEIFY_CAPACITY)
+          rehash();
+        else
+          buckets[idx] = treeify(e);
+      }
   }
 
   /**
@@ -666,13 +1229,29 @@ public class HashMap<K, V> extends AbstractMap<K, V>
     if (! (o instanceof Map.Entry))
       return null;
     Map.Entry<K, V> me = (Map.Entry<K, V>) o;
-    K key = me.getKey();
-    int idx = hash(key);
-    HashEntry<K, V> e = buckets[idx];
+    HashEntry<K, V> e = findEntry(me.getKey());
+    if (e != null && equals(e.value, me.getValue()))
+      return e;
+    return null;
+  }
+
+  /**
+   * Helper method that finds the entry for a key.  Package visible for
+   * use by subclasses.
+   *
+   * @param key the key to search for
+   * @return the entry for the key, or null if there is none
+   */
+  final HashEntry<K, V> findEntry(Object key)
+  {
+    int hash = keyHash(key);
+    HashEntry<K, V> e = buckets[hash & (buckets.length - 1)];
+    if (e instanceof TreeBin)
+      return ((TreeBin<K, V>) e).find(hash, key);
     while (e != null)
       {
-        if (equals(e.key, key))
-          return equals(e.value, me.getValue()) ? e : null;
+        if (e.hash == hash && equals(key, e.key))
+          return e;
         e = e.next;
       }
     return null;
@@ -687,7 +1266,57 @@ public class HashMap<K, V> extends AbstractMap<K, V>
    */
   final int hash(Object key)
   {
-    return key == null ? 0 : Math.abs(key.hashCode() % buckets.length);
+    return keyHash(key) & (buckets.length - 1);
+  }
+
+  /**
+   * Returns the hash code of a key with its high bits folded into its low
+   * bits.  Bucket indexes are taken from the low bits only, so without
+   * this, hash codes that differ only in their high bits, such as those
+   * of small floating point numbers, would all collide.
+   *
+   * @param key the key, which may be null
+   * @return the spread hash code
+   */
+  static int keyHash(Object key)
+  {
+    if (key == null)
+      return 0;
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Returns the smallest power of two that is at least the given
+   * capacity, within the bounds of the table.
+   *
+   * @param capacity the requested capacity
+   * @return the table length
+   */
+  static int tableSizeFor(int capacity)
+  {
+    int n = 1;
+    while (n < capacity && n < MAXIMUM_CAPACITY)
+      n <<= 1;
+    return n;
+  }
+
+  /**
+   * Turns a list of entries into a tree bucket.
+   *
+   * @param list the first entry of the list
+   * @return the tree
+   */
+  static <K, V> TreeBin<K, V> treeify(HashEntry<K, V> list)
+  {
+    TreeBin<K, V> bin = new TreeBin<K, V>();
+    while (list != null)
+      {
+        HashEntry<K, V> next = list.next;
+        bin.insert(list);
+        list = next;
+      }
+    return bin;
   }
 
   /**
@@ -720,8 +1349,9 @@ public class HashMap<K, V> extends AbstractMap<K, V>
         final Map.Entry<K,V> e = it.next();
         size++;
         K key = e.getKey();
-        int idx = hash(key);
-        addEntry(key, e.getValue(), idx, false);
+        int hash = keyHash(key);
+        addEntry(key, e.getValue(), hash, hash & (buckets.length - 1),
+                 false);
       }
   }
 
@@ -731,32 +1361,84 @@ public class HashMap<K, V> extends AbstractMap<K, V>
    * would cause size() &gt; threshold. Note that the existing Entry
    * objects are reused in the new hash table.
    *
-   * <p>This is not specified, but the new size is twice the current size
-   * plus one; this number is not always prime, unfortunately.
+   * <p>This is not specified, but the new size is twice the current size.
+   * As the size is a power of two, each bucket splits into the bucket
+   * with the same index and the one <code>oldcapacity</code> above it,
+   * according to one more bit of the spread hash code.
    */
   private void rehash()
   {
     HashEntry<K, V>[] oldBuckets = buckets;
+    int oldcapacity = oldBuckets.length;
+    if (oldcapacity >= MAXIMUM_CAPACITY)
+      {
+        threshold = Integer.MAX_VALUE;
+        return;
+      }
 
-    int newcapacity = (buckets.length * 2) + 1;
+    int newcapacity = oldcapacity << 1;
     threshold = (int) (newcapacity * loadFactor);
     buckets = (HashEntry<K, V>[]) new HashEntry[newcapacity];
 
-    for (int i = oldBuckets.length - 1; i >= 0; i--)
+    for (int i = 0; i < oldcapacity; i++)
       {
         HashEntry<K, V> e = oldBuckets[i];
+        if (e == null)
+          continue;
+        boolean tree = e instanceof TreeBin;
+        if (tree)
+          e = ((TreeBin<K, V>) e).untreeify();
+
+        HashEntry<K, V> loHead = null, loTail = null;
+        HashEntry<K, V> hiHead = null, hiTail = null;
+        int loCount = 0, hiCount = 0;
         while (e != null)
           {
-            int idx = hash(e.key);
-            HashEntry<K, V> dest = buckets[idx];
             HashEntry<K, V> next = e.next;
-            e.next = buckets[idx];
-            buckets[idx] = e;
+            e.next = null;
+            if ((e.hash & oldcapacity) == 0)
+              {
+                if (loTail == null)
+                  loHead = e;
+                else
+                  loTail.next = e;
+                loTail = e;
+                loCount++;
+              }
+            else
+              {
+                if (hiTail == null)
+                  hiHead = e;
+                else
+                  hiTail.next = e;
+                hiTail = e;
+                hiCount++;
+              }
             e = next;
           }
+        buckets[i] = rehashBucket(loHead, loCount, tree);
+        buckets[i + oldcapacity] = rehashBucket(hiHead, hiCount, tree);
       }
   }
 
+  /**
+   * Helper method for rehash(), that decides whether half of a split
+   * bucket should be a tree.
+   *
+   * @param list the entries of the bucket
+   * @param count the number of entries
+   * @param tree true if the bucket was split from a tree
+   * @return the bucket
+   */
+  private HashEntry<K, V> rehashBucket(HashEntry<K, V> list, int count,
+                                       boolean tree)
+  {
+    if (buckets.length >= MIN_TREEIFY_CAPACITY
+        && (tree ? count > UNTREEIFY_THRESHOLD : count >= TREEIFY_THRESHOLD))
+      return treeify(list);
+    return list;
+  }
+
   /**
    * Serializes this object to the given stream.
    *
@@ -801,14 +1483,19 @@ public class HashMap<K, V> extends AbstractMap<K, V>
     // Read the threshold and loadFactor fields.
     s.defaultReadObject();
 
-    // Read and use capacity, followed by key/value pairs.
-    buckets = (HashEntry<K, V>[]) new HashEntry[s.readInt()];
+    // Read and use capacity, followed by key/value pairs.  The stream
+    // may come from an implementation that does not use a power of two.
+    int capacity = tableSizeFor(s.readInt());
+    buckets = (HashEntry<K, V>[]) new HashEntry[capacity];
+    threshold = (int) (capacity * loadFactor);
     int len = s.readInt();
     size = len;
     while (len-- > 0)
       {
         Object key = s.readObject();
-        addEntry((K) key, (V) s.readObject(), hash(key), false);
+        int hash = keyHash(key);
+        addEntry((K) key, (V) s.readObject(), hash,
+                 hash & (buckets.length - 1), false);
       }
   }
 
@@ -842,6 +1529,13 @@ public class HashMap<K, V> extends AbstractMap<K, V>
      * entries. It is null if next() needs to find a new bucket.
      */
     private HashEntry next;
+    /**
+     * The entries of the tree bucket being iterated through, copied so
+     * that removals do not disturb the iteration, or null.
+     */
+    private HashEntry<K, V>[] treeEntries;
+    /** The index of the next entry in treeEntries. */
+    private int treeIdx;
 
     /**
      * Construct a new HashIterator with the supplied type.
@@ -877,9 +1571,27 @@ public class HashMap<K, V> extends AbstractMap<K, V>
       HashEntry e = next;
 
       while (e == null)
-        e = buckets[--idx];
+        {
+          if (treeEntries != null)
+            {
+              e = treeEntries[treeIdx++];
+              if (treeIdx == treeEntries.length)
+                treeEntries = null;
+            }
+          else
+            {
+              HashEntry<K, V> b = buckets[--idx];
+              if (b instanceof TreeBin)
+                {
+                  treeEntries = ((TreeBin<K, V>) b).toArray();
+                  treeIdx = 0;
+                }
+              else
+                e = b;
+            }
+        }
 
-      next = e.next;
+      next = treeEntries == null ? e.next : null;
       last = e;
       if (type == VALUES)
         return (T) e.value;
@@ -148,10 +148,11 @@ public class LinkedHashMap<K,V> extends HashMap<K,V>
      *
      * @param key the key
      * @param value the value
+     * @param hash the spread hash code of the key
      */
-    LinkedHashEntry(K key, V value)
+    LinkedHashEntry(K key, V value, int hash)
     {
-      super(key, value);
+      super(key, value, hash);
       if (root == null)
         {
           root = this;
@@ -339,18 +340,11 @@ public class LinkedHashMap<K,V> extends HashMap<K,V>
    */
   public V get(Object key)
   {
-    int idx = hash(key);
-    HashEntry<K,V> e = buckets[idx];
-    while (e != null)
-      {
-        if (equals(key, e.key))
-          {
-            e.access();
-            return e.value;
-          }
-        e = e.next;
-      }
-    return null;
+    HashEntry<K,V> e = findEntry(key);
+    if (e == null)
+      return null;
+    e.access();
+    return e.value;
   }
 
   /**
@@ -403,17 +397,17 @@ public class LinkedHashMap<K,V> extends HashMap<K,V>
    *
    * @param key the key of the new Entry
    * @param value the value
+   * @param hash the spread hash code of the key
    * @param idx the index in buckets where the new Entry belongs
    * @param callRemove whether to call the removeEldestEntry method
    * @see #put(Object, Object)
    * @see #removeEldestEntry(Map.Entry)
-   * @see LinkedHashEntry#LinkedHashEntry(Object, Object)
+   * @see LinkedHashEntry#LinkedHashEntry(Object, Object, int)
    */
-  void addEntry(K key, V value, int idx, boolean callRemove)
+  void addEntry(K key, V value, int hash, int idx, boolean callRemove)
   {
-    LinkedHashEntry e = new LinkedHashEntry(key, value);
-    e.next = buckets[idx];
-    buckets[idx] = e;
+    LinkedHashEntry<K,V> e = new LinkedHashEntry<K,V>(key, value, hash);
+    linkEntry(e, idx);
     if (callRemove && removeEldestEntry(root))
       remove(root.key);
   }
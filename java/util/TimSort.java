@@ -0,0 +1,676 @@
+/* TimSort.java -- Stable, adaptive merge sort for arrays of objects
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package java.util;
+
+/**
+ * A stable merge sort for arrays of objects that takes advantage of
+ * order already present in its input, after the list sort written by
+ * Tim Peters for Python.
+ * <p>
+ *
+ * The array is cut into runs, maximal slices that are already ascending
+ * or strictly descending (the latter are reversed in place).  Runs
+ * shorter than a minimum length computed from the size of the array
+ * are extended with a binary insertion sort.  Runs are pushed on a
+ * stack and merged with their neighbours while the lengths on the stack
+ * stop shrinking fast enough, which keeps the merges balanced.
+ * <p>
+ *
+ * A merge first skips the elements of either run that are already in
+ * place, then copies only the shorter of the two runs into a temporary
+ * buffer, so the buffer grows with the runs rather than with the array.
+ * When one run keeps winning, the merge switches to "galloping":
+ * searching exponentially, then by bisection, for how far that run
+ * wins, and moving the whole slice at once.
+ * <p>
+ *
+ * An array that is already sorted, or sorted backwards, is a single run
+ * and takes n - 1 comparisons.  Random input takes about as many
+ * comparisons as a plain merge sort.
+ */
+final class TimSort<T>
+{
+  /**
+   * Arrays shorter than this are sorted with a binary insertion sort
+   * alone.  It is also the upper bound on the minimum run length.
+   */
+  private static final int MIN_MERGE = 32;
+
+  /**
+   * How many times in a row one run must win a merge before galloping
+   * starts.  The threshold actually used adapts to the data.
+   */
+  private static final int MIN_GALLOP = 7;
+
+  /** Initial size of the merge buffer, unless the array is short. */
+  private static final int INITIAL_TMP_LENGTH = 256;
+
+  private final T[] a;
+  private final Comparator<? super T> c;
+  private int minGallop = MIN_GALLOP;
+  private T[] tmp;
+
+  // The stack of runs waiting to be merged.  Run i starts at runBase[i]
+  // and has runLen[i] elements; each run follows the one below it.
+  private int stackSize;
+  private final int[] runBase;
+  private final int[] runLen;
+
+  @SuppressWarnings("unchecked")
+  private TimSort(T[] a, Comparator<? super T> c, int len)
+  {
+    this.a = a;
+    this.c = c;
+    tmp = (T[]) new Object[len < 2 * INITIAL_TMP_LENGTH
+                           ? len >>> 1 : INITIAL_TMP_LENGTH];
+    // The invariants kept by mergeCollapse make the run lengths grow
+    // at least as fast as the Fibonacci numbers, which bounds the
+    // height of the stack.
+    int stackLen = (len < 120 ? 5 : len < 1542 ? 10 : len < 119151 ? 24 : 49);
+    runBase = new int[stackLen];
+    runLen = new int[stackLen];
+  }
+
+  /**
+   * Sorts the given range of the array, which has already been checked.
+   *
+   * @param a the array to sort
+   * @param lo the index of the first element to sort
+   * @param hi the index after the last element to sort
+   * @param c the Comparator to use, or null for the natural ordering
+   * @throws IllegalArgumentException if the Comparator is found to be
+   *         inconsistent
+   */
+  static <T> void sort(T[] a, int lo, int hi, Comparator<? super T> c)
+  {
+    int remaining = hi - lo;
+    if (remaining < 2)
+      return;
+
+    if (remaining < MIN_MERGE)
+      {
+        int initRunLen = countRunAndMakeAscending(a, lo, hi, c);
+        binarySort(a, lo, hi, lo + initRunLen, c);
+        return;
+      }
+
+    TimSort<T> ts = new TimSort<T>(a, c, remaining);
+    int minRun = minRunLength(remaining);
+    do
+      {
+        int runLen = countRunAndMakeAscending(a, lo, hi, c);
+        if (runLen < minRun)
+          {
+            int force = remaining <= minRun ? remaining : minRun;
+            binarySort(a, lo, lo + force, lo + runLen, c);
+            runLen = force;
+          }
+        ts.pushRun(lo, runLen);
+        ts.mergeCollapse();
+        lo += runLen;
+        remaining -= runLen;
+      }
+    while (remaining != 0);
+    ts.mergeForceCollapse();
+  }
+
+  /**
+   * Sorts a[lo..hi) with a binary insertion sort, knowing that a[lo..start)
+   * is already sorted.  Equal elements are inserted after one another, so
+   * the sort is stable.
+   */
+  private static <T> void binarySort(T[] a, int lo, int hi, int start,
+                                     Comparator<? super T> c)
+  {
+    if (start == lo)
+      start++;
+    for ( ; start < hi; start++)
+      {
+        T pivot = a[start];
+        int left = lo;
+        int right = start;
+        while (left < right)
+          {
+            int mid = (left + right) >>> 1;
+            if (Collections.compare(pivot, a[mid], c) < 0)
+              right = mid;
+            else
+              left = mid + 1;
+          }
+        int n = start - left;
+        if (n == 1)
+          a[left + 1] = a[left];
+        else if (n > 1)
+          System.arraycopy(a, left, a, left + 1, n);
+        a[left] = pivot;
+      }
+  }
+
+  /**
+   * Returns the length of the run starting at lo, reversing it first if
+   * it is descending.  A descending run must be strictly descending, so
+   * that reversing it cannot reorder equal elements.
+   */
+  private static <T> int countRunAndMakeAscending(T[] a, int lo, int hi,
+                                                  Comparator<? super T> c)
+  {
+    int runHi = lo + 1;
+    if (runHi == hi)
+      return 1;
+
+    if (Collections.compare(a[runHi++], a[lo], c) < 0)
+      {
+        while (runHi < hi && Collections.compare(a[runHi], a[runHi - 1], c) < 0)
+          runHi++;
+        for (int i = lo, j = runHi - 1; i < j; i++, j--)
+          {
+            T t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+          }
+      }
+    else
+      {
+        while (runHi < hi && Collections.compare(a[runHi], a[runHi - 1], c) >= 0)
+          runHi++;
+      }
+    return runHi - lo;
+  }
+
+  /**
+   * Returns the minimum run length for an array of n elements: a number
+   * between MIN_MERGE / 2 and MIN_MERGE such that n divided by it is a
+   * power of two, or slightly less than one.
+   */
+  private static int minRunLength(int n)
+  {
+    int r = 0;
+    while (n >= MIN_MERGE)
+      {
+        r |= n & 1;
+        n >>= 1;
+      }
+    return n + r;
+  }
+
+  private void pushRun(int base, int len)
+  {
+    runBase[stackSize] = base;
+    runLen[stackSize] = len;
+    stackSize++;
+  }
+
+  /**
+   * Merges runs on top of the stack until, for every three consecutive
+   * runs X, Y and Z from the top down, len(Z) &gt; len(Y) + len(X) and
+   * len(Y) &gt; len(X).  Both conditions are checked one level further
+   * down as well, as a merge may break them there.
+   */
+  private void mergeCollapse()
+  {
+    while (stackSize > 1)
+      {
+        int n = stackSize - 2;
+        if ((n > 0 && runLen[n - 1] <= runLen[n] + runLen[n + 1])
+            || (n > 1 && runLen[n - 2] <= runLen[n] + runLen[n - 1]))
+          {
+            if (runLen[n - 1] < runLen[n + 1])
+              n--;
+          }
+        else if (runLen[n] > runLen[n + 1])
+          break;
+        mergeAt(n);
+      }
+  }
+
+  /** Merges all the runs on the stack into one. */
+  private void mergeForceCollapse()
+  {
+    while (stackSize > 1)
+      {
+        int n = stackSize - 2;
+        if (n > 0 && runLen[n - 1] < runLen[n + 1])
+          n--;
+        mergeAt(n);
+      }
+  }
+
+  /** Merges the runs at i and i + 1 on the stack. */
+  private void mergeAt(int i)
+  {
+    int base1 = runBase[i];
+    int len1 = runLen[i];
+    int base2 = runBase[i + 1];
+    int len2 = runLen[i + 1];
+
+    runLen[i] = len1 + len2;
+    if (i == stackSize - 3)
+      {
+        runBase[i + 1] = runBase[i + 2];
+        runLen[i + 1] = runLen[i + 2];
+      }
+    stackSize--;
+
+    // Elements of the first run that come before the whole second run
+    // are already in place, and so are elements of the second run that
+    // come after the whole first run.
+    int k = gallopRight(a[base2], a, base1, len1, 0, c);
+    base1 += k;
+    len1 -= k;
+    if (len1 == 0)
+      return;
+    len2 = gallopLeft(a[base1 + len1 - 1], a, base2, len2, len2 - 1, c);
+    if (len2 == 0)
+      return;
+
+    if (len1 <= len2)
+      mergeLo(base1, len1, base2, len2);
+    else
+      mergeHi(base1, len1, base2, len2);
+  }
+
+  /**
+   * Returns the index k in [0, len] such that a[base + k - 1] &lt; key
+   * &lt;= a[base + k], that is, where key goes before any equal elements
+   * of the sorted slice a[base..base + len).  The search starts from
+   * base + hint and gallops away from it.
+   */
+  private static <T> int gallopLeft(T key, T[] a, int base, int len,
+                                    int hint, Comparator<? super T> c)
+  {
+    int lastOfs = 0;
+    int ofs = 1;
+    if (Collections.compare(key, a[base + hint], c) > 0)
+      {
+        // Gallop right until a[base + hint + lastOfs] < key
+        // <= a[base + hint + ofs].
+        int maxOfs = len - hint;
+        while (ofs < maxOfs
+               && Collections.compare(key, a[base + hint + ofs], c) > 0)
+          {
+            lastOfs = ofs;
+            ofs = (ofs << 1) + 1;
+            if (ofs <= 0)
+              ofs = maxOfs;
+          }
+        if (ofs > maxOfs)
+          ofs = maxOfs;
+        lastOfs += hint;
+        ofs += hint;
+      }
+    else
+      {
+        // Gallop left until a[base + hint - ofs] < key
+        // <= a[base + hint - lastOfs].
+        int maxOfs = hint + 1;
+        while (ofs < maxOfs
+               && Collections.compare(key, a[base + hint - ofs], c) <= 0)
+          {
+            lastOfs = ofs;
+            ofs = (ofs << 1) + 1;
+            if (ofs <= 0)
+              ofs = maxOfs;
+          }
+        if (ofs > maxOfs)
+          ofs = maxOfs;
+        int t = lastOfs;
+        lastOfs = hint - ofs;
+        ofs = hint - t;
+      }
+
+    // Now a[base + lastOfs] < key <= a[base + ofs]; bisect in between.
+    lastOfs++;
+    while (lastOfs < ofs)
+      {
+        int m = lastOfs + ((ofs - lastOfs) >>> 1);
+        if (Collections.compare(key, a[base + m], c) > 0)
+          lastOfs = m + 1;
+        else
+          ofs = m;
+      }
+    return ofs;
+  }
+
+  /**
+   * Like gallopLeft, but returns the index k such that a[base + k - 1]
+   * &lt;= key &lt; a[base + k], that is, where key goes after any equal
+   * elements.
+   */
+  private static <T> int gallopRight(T key, T[] a, int base, int len,
+                                     int hint, Comparator<? super T> c)
+  {
+    int lastOfs = 0;
+    int ofs = 1;
+    if (Collections.compare(key, a[base + hint], c) < 0)
+      {
+        // Gallop left until a[base + hint - ofs] <= key
+        // < a[base + hint - lastOfs].
+        int maxOfs = hint + 1;
+        while (ofs < maxOfs
+               && Collections.compare(key, a[base + hint - ofs], c) < 0)
+          {
+            lastOfs = ofs;
+            ofs = (ofs << 1) + 1;
+            if (ofs <= 0)
+              ofs = maxOfs;
+          }
+        if (ofs > maxOfs)
+          ofs = maxOfs;
+        int t = lastOfs;
+        lastOfs = hint - ofs;
+        ofs = hint - t;
+      }
+    else
+      {
+        // Gallop right until a[base + hint + lastOfs] <= key
+        // < a[base + hint + ofs].
+        int maxOfs = len - hint;
+        while (ofs < maxOfs
+               && Collections.compare(key, a[base + hint + ofs], c) >= 0)
+          {
+            lastOfs = ofs;
+            ofs = (ofs << 1) + 1;
+            if (ofs <= 0)
+              ofs = maxOfs;
+          }
+        if (ofs > maxOfs)
+          ofs = maxOfs;
+        lastOfs += hint;
+        ofs += hint;
+      }
+
+    // Now a[base + lastOfs] <= key < a[base + ofs]; bisect in between.
+    lastOfs++;
+    while (lastOfs < ofs)
+      {
+        int m = lastOfs + ((ofs - lastOfs) >>> 1);
+        if (Collections.compare(key, a[base + m], c) < 0)
+          ofs = m;
+        else
+          lastOfs = m + 1;
+      }
+    return ofs;
+  }
+
+  /**
+   * Merges two adjacent runs in place, copying the first, shorter one
+   * into the buffer and filling the array from the left.  mergeAt has
+   * made sure that the first element of the second run belongs before
+   * the first run, and the last element of the first run after the
+   * second.
+   */
+  private void mergeLo(int base1, int len1, int base2, int len2)
+  {
+    T[] a = this.a;
+    T[] tmp = ensureCapacity(len1);
+    System.arraycopy(a, base1, tmp, 0, len1);
+
+    int cursor1 = 0;
+    int cursor2 = base2;
+    int dest = base1;
+
+    a[dest++] = a[cursor2++];
+    if (--len2 == 0)
+      {
+        System.arraycopy(tmp, cursor1, a, dest, len1);
+        return;
+      }
+    if (len1 == 1)
+      {
+        System.arraycopy(a, cursor2, a, dest, len2);
+        a[dest + len2] = tmp[cursor1];
+        return;
+      }
+
+    Comparator<? super T> c = this.c;
+    int minGallop = this.minGallop;
+  outer:
+    while (true)
+      {
+        // Number of times in a row each run has won.
+        int count1 = 0;
+        int count2 = 0;
+
+        // Merge one element at a time until one run starts winning
+        // consistently.
+        do
+          {
+            if (Collections.compare(a[cursor2], tmp[cursor1], c) < 0)
+              {
+                a[dest++] = a[cursor2++];
+                count2++;
+                count1 = 0;
+                if (--len2 == 0)
+                  break outer;
+              }
+            else
+              {
+                a[dest++] = tmp[cursor1++];
+                count1++;
+                count2 = 0;
+                if (--len1 == 1)
+                  break outer;
+              }
+          }
+        while ((count1 | count2) < minGallop);
+
+        // Gallop until neither run is winning consistently any more.
+        do
+          {
+            count1 = gallopRight(a[cursor2], tmp, cursor1, len1, 0, c);
+            if (count1 != 0)
+              {
+                System.arraycopy(tmp, cursor1, a, dest, count1);
+                dest += count1;
+                cursor1 += count1;
+                len1 -= count1;
+                if (len1 <= 1)
+                  break outer;
+              }
+            a[dest++] = a[cursor2++];
+            if (--len2 == 0)
+              break outer;
+
+            count2 = gallopLeft(tmp[cursor1], a, cursor2, len2, 0, c);
+            if (count2 != 0)
+              {
+                System.arraycopy(a, cursor2, a, dest, count2);
+                dest += count2;
+                cursor2 += count2;
+                len2 -= count2;
+                if (len2 == 0)
+                  break outer;
+              }
+            a[dest++] = tmp[cursor1++];
+            if (--len1 == 1)
+              break outer;
+            minGallop--;
+          }
+        while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+        if (minGallop < 0)
+          minGallop = 0;
+        // Galloping did not pay; make it harder to start again.
+        minGallop += 2;
+      }
+    this.minGallop = minGallop < 1 ? 1 : minGallop;
+
+    if (len1 == 1)
+      {
+        System.arraycopy(a, cursor2, a, dest, len2);
+        a[dest + len2] = tmp[cursor1];
+      }
+    else if (len1 == 0)
+      throw new IllegalArgumentException("Comparison method violates its "
+                                         + "general contract");
+    else
+      System.arraycopy(tmp, cursor1, a, dest, len1);
+  }
+
+  /**
+   * Like mergeLo, but copies the second, shorter run into the buffer
+   * and fills the array from the right.
+   */
+  private void mergeHi(int base1, int len1, int base2, int len2)
+  {
+    T[] a = this.a;
+    T[] tmp = ensureCapacity(len2);
+    System.arraycopy(a, base2, tmp, 0, len2);
+
+    int cursor1 = base1 + len1 - 1;
+    int cursor2 = len2 - 1;
+    int dest = base2 + len2 - 1;
+
+    a[dest--] = a[cursor1--];
+    if (--len1 == 0)
+      {
+        System.arraycopy(tmp, 0, a, dest - (len2 - 1), len2);
+        return;
+      }
+    if (len2 == 1)
+      {
+        dest -= len1;
+        cursor1 -= len1;
+        System.arraycopy(a, cursor1 + 1, a, dest + 1, len1);
+        a[dest] = tmp[cursor2];
+        return;
+      }
+
+    Comparator<? super T> c = this.c;
+    int minGallop = this.minGallop;
+  outer:
+    while (true)
+      {
+        int count1 = 0;
+        int count2 = 0;
+
+        do
+          {
+            if (Collections.compare(tmp[cursor2], a[cursor1], c) < 0)
+              {
+                a[dest--] = a[cursor1--];
+                count1++;
+                count2 = 0;
+                if (--len1 == 0)
+                  break outer;
+              }
+            else
+              {
+                a[dest--] = tmp[cursor2--];
+                count2++;
+                count1 = 0;
+                if (--len2 == 1)
+                  break outer;
+              }
+          }
+        while ((count1 | count2) < minGallop);
+
+        do
+          {
+            count1 = len1 - gallopRight(tmp[cursor2], a, base1, len1,
+                                        len1 - 1, c);
+            if (count1 != 0)
+              {
+                dest -= count1;
+                cursor1 -= count1;
+                len1 -= count1;
+                System.arraycopy(a, cursor1 + 1, a, dest + 1, count1);
+                if (len1 == 0)
+                  break outer;
+              }
+            a[dest--] = tmp[cursor2--];
+            if (--len2 == 1)
+              break outer;
+
+            count2 = len2 - gallopLeft(a[cursor1], tmp, 0, len2,
+                                       len2 - 1, c);
+            if (count2 != 0)
+              {
+                dest -= count2;
+                cursor2 -= count2;
+                len2 -= count2;
+                System.arraycopy(tmp, cursor2 + 1, a, dest + 1, count2);
+                if (len2 <= 1)
+                  break outer;
+              }
+            a[dest--] = a[cursor1--];
+            if (--len1 == 0)
+              break outer;
+            minGallop--;
+          }
+        while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+        if (minGallop < 0)
+          minGallop = 0;
+        minGallop += 2;
+      }
+    this.minGallop = minGallop < 1 ? 1 : minGallop;
+
+    if (len2 == 1)
+      {
+        dest -= len1;
+        cursor1 -= len1;
+        System.arraycopy(a, cursor1 + 1, a, dest + 1, len1);
+        a[dest] = tmp[cursor2];
+      }
+    else if (len2 == 0)
+      throw new IllegalArgumentException("Comparison method violates its "
+                                         + "general contract");
+    else
+      System.arraycopy(tmp, 0, a, dest - (len2 - 1), len2);
+  }
+
+  /**
+   * Returns a buffer of at least the given length, growing the current
+   * one to the next power of two if it is too short.  No merge needs
+   * more than half the elements being sorted.
+   */
+  @SuppressWarnings("unchecked")
+  private T[] ensureCapacity(int minCapacity)
+  {
+    if (tmp.length < minCapacity)
+      {
+        int newSize = Integer.highestOneBit(minCapacity) << 1;
+        if (newSize < 0)
+          newSize = minCapacity;
+        else
+          newSize = Math.min(newSize, Math.max(minCapacity, a.length >>> 1));
+        tmp = (T[]) new Object[newSize];
+      }
+    return tmp;
+  }
+}
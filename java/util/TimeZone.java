@@ -42,6 +42,7 @@ package java.util;
 import gnu.classpath.SystemProperties;
 import gnu.java.lang.CPStringBuilder;
 import gnu.java.util.ZoneInfo;
+import gnu.java.util.ZoneInfoDatabase;
 
 import java.io.File;
 import java.security.AccessController;
@@ -138,6 +139,12 @@ public abstract class TimeZone implements java.io.Serializable, Cloneable
    */
   private static String zoneinfo_dir;
 
+  /**
+   * Precompiled zone database, used instead of zoneinfo_dir when
+   * the gnu.java.util.zoneinfo.db property names a valid database.
+   */
+  private static ZoneInfoDatabase zoneinfo_db;
+
   /**
    * Cached copy of getAvailableIDs().
    */
@@ -163,11 +170,18 @@ public abstract class TimeZone implements java.io.Serializable, Cloneable
         HashMap<String,TimeZone> timezones = new HashMap<String,TimeZone>();
         timezones0 = timezones;
 
-        zoneinfo_dir = SystemProperties.getProperty("gnu.java.util.zoneinfo.dir");
-        if (zoneinfo_dir != null && !new File(zoneinfo_dir).isDirectory())
-          zoneinfo_dir = null;
+        String db = SystemProperties.getProperty("gnu.java.util.zoneinfo.db");
+        if (db != null)
+          zoneinfo_db = ZoneInfoDatabase.open(db);
+
+        if (zoneinfo_db == null)
+          {
+            zoneinfo_dir = SystemProperties.getProperty("gnu.java.util.zoneinfo.dir");
+            if (zoneinfo_dir != null && !new File(zoneinfo_dir).isDirectory())
+              zoneinfo_dir = null;
+          }
 
-        if (zoneinfo_dir != null)
+        if (zoneinfo_dir != null || zoneinfo_db != null)
           {
             aliases0 = new HashMap<String,String>();
 
@@ -1492,7 +1506,7 @@ public abstract class TimeZone implements java.io.Serializable, Cloneable
               }
           }
 
-        if (pass == 1 || zoneinfo_dir == null)
+        if (pass == 1 || (zoneinfo_dir == null && zoneinfo_db == null))
           return null;
 
         // aliases0 is never changing after first timezones(), so should
@@ -1502,8 +1516,11 @@ public abstract class TimeZone implements java.io.Serializable, Cloneable
           zonename = ID;
 
         // Read the file outside of the critical section, it is expensive.
-        tznew = ZoneInfo.readTZFile (ID, zoneinfo_dir
-                                     + File.separatorChar + zonename);
+        if (zoneinfo_db != null)
+          tznew = zoneinfo_db.getTimeZone(ID, zonename);
+        else
+          tznew = ZoneInfo.readTZFile (ID, zoneinfo_dir
+                                       + File.separatorChar + zonename);
         if (tznew == null)
           return null;
       }
@@ -1607,7 +1624,7 @@ public abstract class TimeZone implements java.io.Serializable, Cloneable
       {
         HashMap<String,TimeZone> h = timezones();
         int count = 0;
-        if (zoneinfo_dir == null)
+        if (zoneinfo_dir == null && zoneinfo_db == null)
           {
             Iterator<Map.Entry<String,TimeZone>> iter = h.entrySet().iterator();
             while (iter.hasNext())
@@ -1692,7 +1709,7 @@ public abstract class TimeZone implements java.io.Serializable, Cloneable
     synchronized (TimeZone.class)
       {
         HashMap<String,TimeZone> h = timezones();
-        if (zoneinfo_dir == null)
+        if (zoneinfo_dir == null && zoneinfo_db == null)
           return h.keySet().toArray(new String[h.size()]);
 
         if (availableIDs != null)
@@ -1703,9 +1720,23 @@ public abstract class TimeZone implements java.io.Serializable, Cloneable
             return ids;
           }
 
-        File d = new File(zoneinfo_dir);
         ArrayList<String[]> list = new ArrayList<String[]>(30);
-        int count = getAvailableIDs(d, "", list) + aliases0.size();
+        int count;
+        if (zoneinfo_db != null)
+          {
+            String[] s = zoneinfo_db.getIDs();
+            count = s.length;
+            for (int i = 0; i < s.length; i++)
+              if (aliases0.get(s[i]) != null)
+                {
+                  s[i] = null;
+                  count--;
+                }
+            list.add(s);
+          }
+        else
+          count = getAvailableIDs(new File(zoneinfo_dir), "", list);
+        count += aliases0.size();
         availableIDs = new String[count];
         String[] ids = new String[count];
 
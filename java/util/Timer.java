@@ -37,6 +37,9 @@ exception statement from your version. */
 
 package java.util;
 
+import gnu.classpath.SystemProperties;
+import gnu.java.util.TimingWheel;
+
 /**
  * Timer that can run TimerTasks at a later time.
  * TimerTasks can be scheduled for one time execution at some time in the
@@ -56,6 +59,12 @@ package java.util;
  * <p>
  * The Timer keeps a binary heap as a task priority queue which means that
  * scheduling and serving of a task in a queue of n tasks costs O(log n).
+ * When the <code>gnu.java.util.timer.tick</code> system property is set
+ * to a positive number of milliseconds, Timers instead keep their tasks
+ * in a hierarchical timing wheel with that resolution.  Scheduling and
+ * canceling then take constant time and canceled tasks are removed at
+ * once, but tasks may run up to one tick late and tasks due in the
+ * same tick run in no particular order.
  *
  * @see TimerTask
  * @since 1.3
@@ -71,7 +80,7 @@ public class Timer
    * which is automatically called by the enqueue(), cancel() and
    * timerFinalized() methods.
    */
-  private static final class TaskQueue
+  private static class TaskQueue
   {
     /** Default size of this queue */
     private static final int DEFAULT_SIZE = 32;
@@ -302,46 +311,46 @@ public class Timer
      */
     public synchronized int purge()
     {
-      int removed = 0;
-      // Null out any elements that are canceled.  Skip element 0 as
-      // it is the sentinel.
-      for (int i = elements; i > 0; --i)
+      if (heap == null)
+        return 0;
+
+      // Squeeze out the canceled tasks, skipping element 0 as it is
+      // the sentinel.
+      int kept = 0;
+      for (int i = 1; i <= elements; i++)
         {
-          if (heap[i].scheduled < 0)
+          if (heap[i].scheduled >= 0)
+            heap[++kept] = heap[i];
+        }
+      int removed = elements - kept;
+      for (int i = kept + 1; i <= elements; i++)
+        heap[i] = null;
+      elements = kept;
+
+      // Restore the heap order by sifting down every parent, starting
+      // with the last one.
+      for (int i = elements / 2; i > 0; i--)
+        {
+          TimerTask task = heap[i];
+          int parent = i;
+          int child = 2 * parent;
+          while (child <= elements)
             {
-              ++removed;
-
-              // Remove an element by pushing the appropriate child
-              // into place, and then iterating to the bottom of the
-              // tree.
-              int index = i;
-              while (heap[index] != null)
-                {
-                  int child = 2 * index;
-                  if (child >= heap.length)
-                    {
-                      // Off end; we're done.
-                      heap[index] = null;
-                      break;
-                    }
-
-                  if (child + 1 >= heap.length || heap[child + 1] == null)
-                    {
-                      // Nothing -- we're done.
-                    }
-                  else if (heap[child] == null
-                           || (heap[child].scheduled
-                               > heap[child + 1].scheduled))
-                    ++child;
-                  heap[index] = heap[child];
-                  index = child;
-                }
+              if (child < elements
+                  && heap[child].scheduled > heap[child + 1].scheduled)
+                child++;
+              if (task.scheduled <= heap[child].scheduled)
+                break;
+              heap[parent] = heap[child];
+              parent = child;
+              child = parent * 2;
             }
+          heap[parent] = task;
         }
 
       // Make a new heap if we shrank enough.
       int newLen = heap.length;
-      while (elements - removed + DEFAULT_SIZE / 2 <= newLen / 4)
+      while (elements + DEFAULT_SIZE / 2 <= newLen / 4)
         newLen /= 2;
       if (newLen != heap.length)
         {
@@ -354,6 +363,128 @@ public class Timer
     }
   }                             // TaskQueue
 
+  /**
+   * Task queue that keeps the TimerTasks in a TimingWheel.
+   * A TimerTask is linked into the wheel through its WheelEntry, which
+   * lets TimerTask.cancel() remove it from the wheel immediately.
+   */
+  private static final class WheelQueue extends TaskQueue
+  {
+    /**
+     * The wheel containing all the scheduled TimerTasks.
+     * Null when the stop() method has been called.
+     */
+    private TimingWheel wheel;
+
+    /** Whether to return null when there is nothing in the queue */
+    private boolean nullOnEmpty;
+
+    /**
+     * Creates an empty WheelQueue with the given tick in milliseconds.
+     */
+    public WheelQueue(long tick)
+    {
+      wheel = new TimingWheel(tick, System.currentTimeMillis());
+    }
+
+    public synchronized void enqueue(TimerTask task)
+    {
+      if (wheel == null)
+        {
+          throw new IllegalStateException
+            ("cannot enqueue when stop() has been called on queue");
+        }
+
+      WheelEntry entry = task.entry;
+      if (entry == null)
+        {
+          entry = new WheelEntry(this, task);
+          task.entry = entry;
+        }
+      wheel.add(entry, task.scheduled);
+      this.notify();
+    }
+
+    public synchronized TimerTask serve()
+    {
+      while (wheel != null)
+        {
+          long now = System.currentTimeMillis();
+          WheelEntry entry = (WheelEntry) wheel.poll(now);
+          if (entry != null)
+            return entry.task;
+
+          long next = wheel.nextExpiry();
+          if (next == Long.MAX_VALUE && nullOnEmpty)
+            return null;
+          try
+            {
+              if (next == Long.MAX_VALUE)
+                this.wait();
+              else
+                this.wait(Math.max(next - now, 1));
+            }
+          catch (InterruptedException ie)
+            {
+            }
+        }
+      return null;
+    }
+
+    /**
+     * Removes a canceled task from the wheel.
+     */
+    synchronized void remove(WheelEntry entry)
+    {
+      if (wheel != null)
+        wheel.remove(entry);
+    }
+
+    public synchronized void setNullOnEmpty(boolean nullOnEmpty)
+    {
+      this.nullOnEmpty = nullOnEmpty;
+      this.notify();
+    }
+
+    public synchronized void stop()
+    {
+      this.wheel = null;
+      this.notify();
+    }
+
+    /**
+     * Canceled tasks are removed from the wheel when they are canceled,
+     * so there is never anything to purge.
+     */
+    public synchronized int purge()
+    {
+      return 0;
+    }
+  }                             // WheelQueue
+
+  /**
+   * Links a TimerTask into the TimingWheel of a WheelQueue.
+   */
+  static final class WheelEntry extends TimingWheel.Entry
+  {
+    private final WheelQueue queue;
+    final TimerTask task;
+
+    WheelEntry(WheelQueue queue, TimerTask task)
+    {
+      this.queue = queue;
+      this.task = task;
+    }
+
+    /**
+     * Removes the task from the wheel if it is still there.
+     */
+    void cancel()
+    {
+      queue.remove(this);
+    }
+  }                             // WheelEntry
+
   /**
    * The scheduler that executes all the tasks on a particular TaskQueue,
    * reschedules any repeating tasks and that waits when no task has to be
@@ -440,6 +571,10 @@ public class Timer
   // Used for creating nice Thread names.
   private static int nr;
 
+  // Tick of the TimingWheel used by new Timers in milliseconds,
+  // or 0 when they use a binary heap.
+  private static final long wheelTick = getWheelTick();
+
   // The queue that all the tasks are put in.
   // Given to the scheduler
   private TaskQueue queue;
@@ -514,7 +649,10 @@ public class Timer
   private Timer(boolean daemon, int priority, String name)
   {
     canceled = false;
-    queue = new TaskQueue();
+    if (wheelTick > 0)
+      queue = new WheelQueue(wheelTick);
+    else
+      queue = new TaskQueue();
     scheduler = new Scheduler(queue);
     thread = new Thread(scheduler, name);
     thread.setDaemon(daemon);
@@ -569,6 +707,25 @@ public class Timer
       }
   }
 
+  /**
+   * Returns the value of the gnu.java.util.timer.tick property,
+   * or 0 if it is not set or not a positive number.
+   */
+  private static long getWheelTick()
+  {
+    String tick = SystemProperties.getProperty("gnu.java.util.timer.tick");
+    if (tick == null)
+      return 0;
+    try
+      {
+        return Math.max(Long.parseLong(tick), 0);
+      }
+    catch (NumberFormatException e)
+      {
+        return 0;
+      }
+  }
+
   private static void positiveDelay(long delay)
   {
     if (delay < 0)
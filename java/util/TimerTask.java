@@ -95,6 +95,12 @@ public abstract class TimerTask implements Runnable
    */
   boolean fixed;
 
+  /**
+   * Links this task into the timing wheel of a Timer that uses one,
+   * so that cancel() can remove it at once.  Null otherwise.
+   */
+  volatile Timer.WheelEntry entry;
+
   /**
    * Creates a TimerTask and marks it as not yet scheduled.
    */
@@ -114,12 +120,16 @@ public abstract class TimerTask implements Runnable
    * In this implementation the TimerTask it is possible that the Timer does
    * keep a reference to the TimerTask until the first time the TimerTask
    * is actually scheduled. But the reference will disappear immediatly when
-   * cancel is called from within the TimerTask run method.
+   * cancel is called from within the TimerTask run method.  A Timer that
+   * keeps its tasks in a timing wheel drops the reference immediately.
    */
   public boolean cancel()
   {
     boolean prevented_execution = (this.scheduled >= 0);
     this.scheduled = -1;
+    Timer.WheelEntry e = entry;
+    if (e != null)
+      e.cancel();
     return prevented_execution;
   }
 
@@ -0,0 +1,1067 @@
+/* ForkJoinPool.java -- An ExecutorService for ForkJoinTasks
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package java.util.concurrent;
+
+import gnu.classpath.SystemProperties;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An {@link ExecutorService} which runs {@link ForkJoinTask}s using work
+ * stealing.  Each worker thread keeps its own double-ended queue of
+ * tasks.  A task forked by a worker is pushed on the front of that
+ * worker's queue, and the worker takes its next task from the front as
+ * well, so that it works depth-first on the subtasks it has just made.
+ * A worker whose queue is empty steals the oldest task from the back of
+ * another worker's queue; being the oldest, that task is usually the
+ * largest piece of work left, so steals are rare compared with forks.
+ * Tasks submitted from outside the pool go on a shared queue which
+ * workers take from when they find nothing to steal.
+ * <p>
+ * The pool starts workers as tasks arrive, up to its {@link
+ * #getParallelism() parallelism}, and a worker exits after it has been
+ * idle for a while.  A worker which joins a task that is not done keeps
+ * running other tasks in the meantime rather than blocking.
+ * <p>
+ * The {@link #commonPool() common pool} is used by tasks forked outside
+ * any pool and by the parallel methods of {@link java.util.Arrays}.  Its
+ * parallelism is one less than the number of processors, since a thread
+ * which forks tasks into it and then joins them runs some of them
+ * itself.  It can be set with the
+ * <code>java.util.concurrent.ForkJoinPool.common.parallelism</code>
+ * system property.  The common pool cannot be shut down.
+ *
+ * @since 1.7
+ */
+public class ForkJoinPool
+  extends AbstractExecutorService
+{
+  /**
+   * A factory for the worker threads of a pool.
+   */
+  public static interface ForkJoinWorkerThreadFactory
+  {
+    /**
+     * Returns a new worker thread for the given pool.
+     *
+     * @param pool the pool
+     * @return the thread, or null if none could be made
+     */
+    ForkJoinWorkerThread newThread(ForkJoinPool pool);
+  }
+
+  /**
+   * The factory used unless another is given, which just constructs a
+   * {@link ForkJoinWorkerThread}.
+   */
+  public static final ForkJoinWorkerThreadFactory
+    defaultForkJoinWorkerThreadFactory = new DefaultFactory();
+
+  /** The largest parallelism allowed. */
+  private static final int MAX_CAP = 0x7fff;
+
+  /** How long a worker waits for work before it exits. */
+  private static final long KEEP_ALIVE_MILLIS = 60000L;
+
+  /**
+   * How long a worker joining a task first blocks before it looks again
+   * for work to help with.  The wait doubles, up to the maximum, each
+   * time it finds none.  It is woken early when the task completes.
+   */
+  private static final long JOIN_WAIT_MILLIS = 1L;
+
+  /** The longest a worker joining a task blocks at a time. */
+  private static final long MAX_JOIN_WAIT_MILLIS = 64L;
+
+  // Values of runState.
+  private static final int RUNNING = 0;
+  private static final int SHUTDOWN = 1;
+  private static final int STOP = 2;
+  private static final int TERMINATED = 3;
+
+  private static final RuntimePermission modifyThreadPermission
+    = new RuntimePermission("modifyThread");
+
+  /** The common pool. */
+  static final ForkJoinPool common;
+
+  /** Used to number the pools, for the names of their threads. */
+  private static int poolNumber;
+
+  static
+  {
+    int parallelism = -1;
+    String p = SystemProperties.getProperty
+      ("java.util.concurrent.ForkJoinPool.common.parallelism");
+    if (p != null)
+      {
+        try
+          {
+            parallelism = Integer.parseInt(p);
+          }
+        catch (NumberFormatException e)
+          {
+            // Use the default.
+          }
+      }
+    if (parallelism < 0)
+      parallelism = Runtime.getRuntime().availableProcessors() - 1;
+    common = new ForkJoinPool(Math.max(1, Math.min(parallelism, MAX_CAP)),
+                              defaultForkJoinWorkerThreadFactory, null,
+                              false, "ForkJoinPool.commonPool-worker-");
+  }
+
+  final int parallelism;
+  private final ForkJoinWorkerThreadFactory factory;
+  private final Thread.UncaughtExceptionHandler handler;
+  private final boolean asyncMode;
+  private final String workerNamePrefix;
+
+  /** Tasks submitted from outside the pool. */
+  final WorkQueue submissions = new WorkQueue(null, -1);
+
+  /**
+   * The queues of the workers, indexed by pool index; a slot is null
+   * when no worker holds it.  Changed only while holding lock.
+   */
+  private volatile WorkQueue[] queues;
+
+  /**
+   * Guards the fields below and the registration of workers.  Idle
+   * workers wait on it, and so do threads awaiting termination.
+   */
+  private final Object lock = new Object();
+
+  private volatile int workerCount;
+  private volatile int idleCount;
+  private volatile int runState;
+  private int nextWorkerNumber;
+
+  /** Steals made by workers which have since exited. */
+  private long exitedStealCount;
+
+  /**
+   * Creates a pool whose parallelism is the number of processors.
+   */
+  public ForkJoinPool()
+  {
+    this(Math.min(MAX_CAP, Runtime.getRuntime().availableProcessors()),
+         defaultForkJoinWorkerThreadFactory, null, false);
+  }
+
+  /**
+   * Creates a pool with the given parallelism.
+   *
+   * @param parallelism the most threads that run tasks at once
+   * @throws IllegalArgumentException if the parallelism is not positive
+   *         or is too large
+   */
+  public ForkJoinPool(int parallelism)
+  {
+    this(parallelism, defaultForkJoinWorkerThreadFactory, null, false);
+  }
+
+  /**
+   * Creates a pool with the given settings.
+   *
+   * @param parallelism the most threads that run tasks at once
+   * @param factory the factory for new worker threads
+   * @param handler the handler for exceptions which stop a worker, or
+   *        null for the default
+   * @param asyncMode if true, each worker runs its own tasks in the
+   *        order they were forked rather than the most recent first; this
+   *        suits event-style tasks which are never joined
+   * @throws IllegalArgumentException if the parallelism is not positive
+   *         or is too large
+   * @throws NullPointerException if the factory is null
+   */
+  public ForkJoinPool(int parallelism,
+                      ForkJoinWorkerThreadFactory factory,
+                      Thread.UncaughtExceptionHandler handler,
+                      boolean asyncMode)
+  {
+    this(checkParallelism(parallelism), factory, handler, asyncMode,
+         "ForkJoinPool-" + nextPoolNumber() + "-worker-");
+    checkPermission();
+  }
+
+  private ForkJoinPool(int parallelism,
+                       ForkJoinWorkerThreadFactory factory,
+                       Thread.UncaughtExceptionHandler handler,
+                       boolean asyncMode, String workerNamePrefix)
+  {
+    if (factory == null)
+      throw new NullPointerException();
+    this.parallelism = parallelism;
+    this.factory = factory;
+    this.handler = handler;
+    this.asyncMode = asyncMode;
+    this.workerNamePrefix = workerNamePrefix;
+    queues = new WorkQueue[parallelism];
+  }
+
+  private static int checkParallelism(int parallelism)
+  {
+    if (parallelism <= 0 || parallelism > MAX_CAP)
+      throw new IllegalArgumentException();
+    return parallelism;
+  }
+
+  private static synchronized int nextPoolNumber()
+  {
+    return ++poolNumber;
+  }
+
+  private static void checkPermission()
+  {
+    SecurityManager sm = System.getSecurityManager();
+    if (sm != null)
+      sm.checkPermission(modifyThreadPermission);
+  }
+
+  /**
+   * Returns the common pool.
+   *
+   * @return the common pool
+   * @since 1.8
+   */
+  public static ForkJoinPool commonPool()
+  {
+    return common;
+  }
+
+  /**
+   * Returns the parallelism of the common pool.
+   *
+   * @return the parallelism of the common pool
+   * @since 1.8
+   */
+  public static int getCommonPoolParallelism()
+  {
+    return common.parallelism;
+  }
+
+  /**
+   * Runs the given task and returns its result, waiting for it if
+   * necessary.  An exception thrown by the task is rethrown.
+   *
+   * @param task the task
+   * @return the result
+   * @throws NullPointerException if the task is null
+   * @throws RejectedExecutionException if the pool is shut down
+   */
+  public <T> T invoke(ForkJoinTask<T> task)
+  {
+    Thread t = Thread.currentThread();
+    if (t instanceof ForkJoinWorkerThread
+        && ((ForkJoinWorkerThread) t).pool == this)
+      return task.invoke();
+    externalPush(task);
+    return task.join();
+  }
+
+  /**
+   * Arranges for the given task to be run.
+   *
+   * @param task the task
+   * @throws NullPointerException if the task is null
+   * @throws RejectedExecutionException if the pool is shut down
+   */
+  public void execute(ForkJoinTask<?> task)
+  {
+    externalPush(task);
+  }
+
+  public void execute(Runnable task)
+  {
+    if (task instanceof ForkJoinTask)
+      externalPush((ForkJoinTask<?>) task);
+    else
+      externalPush(ForkJoinTask.adapt(task));
+  }
+
+  /**
+   * Arranges for the given task to be run, and returns it.
+   *
+   * @param task the task
+   * @return the task
+   * @throws NullPointerException if the task is null
+   * @throws RejectedExecutionException if the pool is shut down
+   */
+  public <T> ForkJoinTask<T> submit(ForkJoinTask<T> task)
+  {
+    externalPush(task);
+    return task;
+  }
+
+  public <T> ForkJoinTask<T> submit(Callable<T> task)
+  {
+    ForkJoinTask<T> job = ForkJoinTask.adapt(task);
+    externalPush(job);
+    return job;
+  }
+
+  public <T> ForkJoinTask<T> submit(Runnable task, T result)
+  {
+    ForkJoinTask<T> job = ForkJoinTask.adapt(task, result);
+    externalPush(job);
+    return job;
+  }
+
+  public ForkJoinTask<?> submit(Runnable task)
+  {
+    ForkJoinTask<?> job;
+    if (task instanceof ForkJoinTask)
+      job = (ForkJoinTask<?>) task;
+    else
+      job = ForkJoinTask.adapt(task);
+    externalPush(job);
+    return job;
+  }
+
+  public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks)
+  {
+    List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+    for (Callable<T> c : tasks)
+      {
+        ForkJoinTask<T> job = ForkJoinTask.adapt(c);
+        futures.add(job);
+        externalPush(job);
+      }
+    for (Future<T> f : futures)
+      ((ForkJoinTask<?>) f).quietlyJoin();
+    return futures;
+  }
+
+  /**
+   * Returns the factory used to make worker threads.
+   *
+   * @return the factory
+   */
+  public ForkJoinWorkerThreadFactory getFactory()
+  {
+    return factory;
+  }
+
+  /**
+   * Returns the handler for exceptions which stop a worker.
+   *
+   * @return the handler, or null
+   */
+  public Thread.UncaughtExceptionHandler getUncaughtExceptionHandler()
+  {
+    return handler;
+  }
+
+  /**
+   * Returns the most threads that run tasks at once.
+   *
+   * @return the parallelism
+   */
+  public int getParallelism()
+  {
+    return parallelism;
+  }
+
+  /**
+   * Returns true if workers run their own tasks in the order they were
+   * forked.
+   *
+   * @return the async mode
+   */
+  public boolean getAsyncMode()
+  {
+    return asyncMode;
+  }
+
+  /**
+   * Returns the number of worker threads which have been started and
+   * have not exited.
+   *
+   * @return the number of workers
+   */
+  public int getPoolSize()
+  {
+    return workerCount;
+  }
+
+  /**
+   * Returns an estimate of the number of workers which are running or
+   * looking for tasks, rather than waiting for work to arrive.
+   *
+   * @return the number of active workers
+   */
+  public int getActiveThreadCount()
+  {
+    return Math.max(0, workerCount - idleCount);
+  }
+
+  /**
+   * Returns an estimate of the number of workers which are not blocked.
+   * Workers only block while idle or while joining, so this is the same
+   * as {@link #getActiveThreadCount()}.
+   *
+   * @return the number of running workers
+   */
+  public int getRunningThreadCount()
+  {
+    return getActiveThreadCount();
+  }
+
+  /**
+   * Returns true if every worker is idle.
+   *
+   * @return true if the pool is quiescent
+   */
+  public boolean isQuiescent()
+  {
+    return getActiveThreadCount() == 0;
+  }
+
+  /**
+   * Returns an estimate of the number of tasks that workers have stolen
+   * from each other's queues.
+   *
+   * @return the number of steals
+   */
+  public long getStealCount()
+  {
+    long n;
+    synchronized (lock)
+      {
+        n = exitedStealCount;
+      }
+    WorkQueue[] qs = queues;
+    for (int i = 0; i < qs.length; i++)
+      if (qs[i] != null)
+        n += qs[i].steals;
+    return n;
+  }
+
+  /**
+   * Returns an estimate of the number of tasks in the queues of the
+   * workers.
+   *
+   * @return the number of queued tasks
+   */
+  public long getQueuedTaskCount()
+  {
+    long n = 0;
+    WorkQueue[] qs = queues;
+    for (int i = 0; i < qs.length; i++)
+      if (qs[i] != null)
+        n += qs[i].size();
+    return n;
+  }
+
+  /**
+   * Returns an estimate of the number of tasks submitted from outside
+   * the pool which have not started yet.
+   *
+   * @return the number of queued submissions
+   */
+  public int getQueuedSubmissionCount()
+  {
+    return submissions.size();
+  }
+
+  /**
+   * Returns true if there are submissions from outside the pool which
+   * have not started yet.
+   *
+   * @return true if there are queued submissions
+   */
+  public boolean hasQueuedSubmissions()
+  {
+    return ! submissions.isEmpty();
+  }
+
+  /**
+   * Starts an orderly shutdown: tasks already submitted are run, but no
+   * new ones are accepted.  This has no effect on the common pool.
+   *
+   * @throws SecurityException if the caller may not modify threads
+   */
+  public void shutdown()
+  {
+    checkPermission();
+    if (this == common)
+      return;
+    boolean needWorker;
+    synchronized (lock)
+      {
+        if (runState < SHUTDOWN)
+          runState = SHUTDOWN;
+        lock.notifyAll();
+        needWorker = workerCount == 0 && hasQueuedTasks();
+        tryTerminate();
+      }
+    if (needWorker)
+      tryAddWorker();
+  }
+
+  /**
+   * Cancels all tasks which have not started, and stops accepting new
+   * ones.  This has no effect on the common pool.  Since cancelled
+   * tasks are not returned, the list is always empty.
+   *
+   * @return an empty list
+   * @throws SecurityException if the caller may not modify threads
+   */
+  public List<Runnable> shutdownNow()
+  {
+    checkPermission();
+    if (this != common)
+      {
+        WorkQueue[] qs;
+        synchronized (lock)
+          {
+            if (runState < STOP)
+              runState = STOP;
+            qs = queues;
+          }
+        submissions.cancelAll();
+        for (int i = 0; i < qs.length; i++)
+          {
+            WorkQueue q = qs[i];
+            if (q != null)
+              {
+                q.cancelAll();
+                q.owner.interrupt();
+              }
+          }
+        synchronized (lock)
+          {
+            lock.notifyAll();
+            tryTerminate();
+          }
+      }
+    return new ArrayList<Runnable>();
+  }
+
+  public boolean isShutdown()
+  {
+    return runState >= SHUTDOWN;
+  }
+
+  public boolean isTerminated()
+  {
+    return runState == TERMINATED;
+  }
+
+  /**
+   * Returns true if the pool has been shut down but has not yet
+   * terminated.
+   *
+   * @return true if the pool is terminating
+   */
+  public boolean isTerminating()
+  {
+    int s = runState;
+    return s >= SHUTDOWN && s < TERMINATED;
+  }
+
+  public boolean awaitTermination(long timeout, TimeUnit unit)
+    throws InterruptedException
+  {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    synchronized (lock)
+      {
+        while (runState != TERMINATED)
+          {
+            long left = deadline - System.nanoTime();
+            if (left <= 0L)
+              return false;
+            lock.wait((left + 999999L) / 1000000L);
+          }
+      }
+    return true;
+  }
+
+  public String toString()
+  {
+    String state;
+    switch (runState)
+      {
+      case RUNNING:
+        state = "Running";
+        break;
+      case TERMINATED:
+        state = "Terminated";
+        break;
+      default:
+        state = "Shutting down";
+      }
+    return super.toString() + "[" + state
+      + ", parallelism = " + parallelism
+      + ", size = " + workerCount
+      + ", active = " + getActiveThreadCount()
+      + ", steals = " + getStealCount()
+      + ", tasks = " + getQueuedTaskCount()
+      + ", submissions = " + getQueuedSubmissionCount() + "]";
+  }
+
+  /**
+   * Queues a task submitted from outside the pool.
+   */
+  final void externalPush(ForkJoinTask<?> task)
+  {
+    if (task == null)
+      throw new NullPointerException();
+    if (runState != RUNNING)
+      throw new RejectedExecutionException();
+    submissions.push(task);
+    signalWork();
+  }
+
+  /**
+   * Wakes an idle worker, or starts a new one if there are fewer than
+   * the parallelism, after a task has been queued.
+   */
+  final void signalWork()
+  {
+    if (idleCount > 0)
+      {
+        synchronized (lock)
+          {
+            lock.notify();
+          }
+      }
+    else if (workerCount < parallelism)
+      tryAddWorker();
+  }
+
+  final int getIdleCount()
+  {
+    return idleCount;
+  }
+
+  final String nextWorkerName()
+  {
+    synchronized (lock)
+      {
+        return workerNamePrefix + (++nextWorkerNumber);
+      }
+  }
+
+  private void tryAddWorker()
+  {
+    synchronized (lock)
+      {
+        if (runState >= STOP || workerCount >= parallelism)
+          return;
+        workerCount++;
+      }
+    ForkJoinWorkerThread w = null;
+    Throwable exception = null;
+    try
+      {
+        w = factory.newThread(this);
+        if (w != null)
+          {
+            w.start();
+            return;
+          }
+      }
+    catch (Throwable ex)
+      {
+        exception = ex;
+      }
+    if (w != null)
+      deregisterWorker(w, exception);
+    else
+      synchronized (lock)
+        {
+          workerCount--;
+          tryTerminate();
+        }
+  }
+
+  /**
+   * Gives a new worker its queue.  Called from the worker's constructor.
+   */
+  final WorkQueue registerWorker(ForkJoinWorkerThread w)
+  {
+    w.setDaemon(true);
+    if (handler != null)
+      w.setUncaughtExceptionHandler(handler);
+    synchronized (lock)
+      {
+        WorkQueue[] qs = queues;
+        int i = 0;
+        while (i < qs.length && qs[i] != null)
+          i++;
+        WorkQueue[] copy = new WorkQueue[Math.max(qs.length, i + 1)];
+        System.arraycopy(qs, 0, copy, 0, qs.length);
+        WorkQueue q = new WorkQueue(w, i);
+        copy[i] = q;
+        queues = copy;
+        return q;
+      }
+  }
+
+  /**
+   * Removes an exiting worker.  Any tasks left in its queue are moved to
+   * the submission queue, or cancelled if the pool is stopping.
+   */
+  final void deregisterWorker(ForkJoinWorkerThread w, Throwable exception)
+  {
+    WorkQueue q = w.queue;
+    ForkJoinTask<?> t;
+    while ((t = q.poll()) != null)
+      {
+        if (runState >= STOP)
+          t.cancel(false);
+        else
+          submissions.push(t);
+      }
+    boolean needWorker;
+    synchronized (lock)
+      {
+        WorkQueue[] qs = queues;
+        if (q.index < qs.length && qs[q.index] == q)
+          {
+            WorkQueue[] copy = qs.clone();
+            copy[q.index] = null;
+            queues = copy;
+          }
+        exitedStealCount += q.steals;
+        workerCount--;
+        // A task may have been queued after this worker decided to
+        // exit but before it stopped counting as idle, in which case
+        // nobody else was told about it.
+        needWorker = runState < STOP && hasQueuedTasks();
+        tryTerminate();
+      }
+    if (needWorker)
+      tryAddWorker();
+    if (exception != null)
+      ForkJoinTask.<RuntimeException>uncheckedThrow(exception);
+  }
+
+  /**
+   * Runs tasks for a worker until it is time for it to exit.
+   */
+  final void runWorker(ForkJoinWorkerThread w)
+  {
+    WorkQueue q = w.queue;
+    for (;;)
+      {
+        ForkJoinTask<?> t = asyncMode ? q.poll() : q.pop();
+        if (t == null)
+          t = scan(q);
+        if (t != null)
+          t.doExec();
+        else if (! awaitWork())
+          break;
+      }
+  }
+
+  /**
+   * Runs other tasks while a worker waits for the given task to
+   * complete, and returns the task's status.
+   */
+  final int awaitJoin(ForkJoinWorkerThread w, ForkJoinTask<?> task)
+  {
+    WorkQueue q = w.queue;
+    long millis = JOIN_WAIT_MILLIS;
+    int s;
+    while ((s = task.status) >= 0)
+      {
+        ForkJoinTask<?> t = q.pop();
+        if (t == null)
+          t = scan(q);
+        if (t != null)
+          {
+            t.doExec();
+            millis = JOIN_WAIT_MILLIS;
+          }
+        else
+          {
+            // Forking only wakes idle workers, so a joining one has to
+            // look for new work itself now and then.
+            task.internalWait(millis);
+            if (millis < MAX_JOIN_WAIT_MILLIS)
+              millis <<= 1;
+          }
+      }
+    return s;
+  }
+
+  /**
+   * Steals a task from another worker, starting at a random queue, or
+   * failing that takes the oldest submission.
+   *
+   * @param q the queue of the worker looking for work
+   * @return a task, or null if none was found
+   */
+  private ForkJoinTask<?> scan(WorkQueue q)
+  {
+    WorkQueue[] qs = queues;
+    int n = qs.length;
+    int origin = q.nextRandom() & Integer.MAX_VALUE;
+    for (int k = 0; k < n; k++)
+      {
+        WorkQueue victim = qs[(origin + k) % n];
+        if (victim != null && victim != q && ! victim.isEmpty())
+          {
+            ForkJoinTask<?> t = victim.poll();
+            if (t != null)
+              {
+                q.steals++;
+                return t;
+              }
+          }
+      }
+    return submissions.poll();
+  }
+
+  /**
+   * Waits until there may be work for an idle worker.
+   *
+   * @return false if the worker should exit
+   */
+  private boolean awaitWork()
+  {
+    synchronized (lock)
+      {
+        long deadline = System.currentTimeMillis() + KEEP_ALIVE_MILLIS;
+        // Count as idle before looking at the queues; a thread which
+        // queues a task looks at the count afterwards, so one of the
+        // two sees the other.
+        idleCount++;
+        try
+          {
+            for (;;)
+              {
+                if (runState >= STOP)
+                  return false;
+                if (hasQueuedTasks())
+                  return true;
+                if (runState != RUNNING)
+                  return false;
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0L)
+                  return false;
+                try
+                  {
+                    lock.wait(left);
+                  }
+                catch (InterruptedException e)
+                  {
+                    // Check the run state again.
+                  }
+              }
+          }
+        finally
+          {
+            idleCount--;
+          }
+      }
+  }
+
+  private boolean hasQueuedTasks()
+  {
+    if (! submissions.isEmpty())
+      return true;
+    WorkQueue[] qs = queues;
+    for (int i = 0; i < qs.length; i++)
+      if (qs[i] != null && ! qs[i].isEmpty())
+        return true;
+    return false;
+  }
+
+  /**
+   * Moves to the terminated state if the pool has been shut down, all
+   * workers have exited and no tasks remain.  Called holding lock.
+   */
+  private void tryTerminate()
+  {
+    if (runState >= SHUTDOWN && runState != TERMINATED && workerCount == 0
+        && (runState >= STOP || ! hasQueuedTasks()))
+      {
+        submissions.cancelAll();
+        runState = TERMINATED;
+        lock.notifyAll();
+      }
+  }
+
+  /**
+   * A double-ended queue of tasks.  The owning worker pushes and pops
+   * at the top, and other workers poll at the base.  The operations
+   * are synchronized, and base and top are volatile so that other
+   * threads can see cheaply whether the queue is empty.
+   */
+  static final class WorkQueue
+  {
+    private static final int INITIAL_CAPACITY = 1 << 6;
+
+    /** The worker which owns this queue, or null for submissions. */
+    final ForkJoinWorkerThread owner;
+
+    /** The index of this queue in the pool. */
+    final int index;
+
+    /** The number of tasks stolen by the owner; written by it alone. */
+    volatile long steals;
+
+    // Tasks are held in array[base & mask] to array[(top - 1) & mask].
+    private ForkJoinTask<?>[] array = new ForkJoinTask<?>[INITIAL_CAPACITY];
+    private volatile int base;
+    private volatile int top;
+
+    /** State for the owner's choice of victims to steal from. */
+    private int seed;
+
+    WorkQueue(ForkJoinWorkerThread owner, int index)
+    {
+      this.owner = owner;
+      this.index = index;
+      seed = (index + 1) * 0x9e3779b9;
+    }
+
+    synchronized void push(ForkJoinTask<?> task)
+    {
+      ForkJoinTask<?>[] a = array;
+      int s = top;
+      if (s - base == a.length)
+        a = grow();
+      a[s & (a.length - 1)] = task;
+      top = s + 1;
+    }
+
+    synchronized ForkJoinTask<?> pop()
+    {
+      int s = top;
+      if (s == base)
+        return null;
+      ForkJoinTask<?>[] a = array;
+      int i = --s & (a.length - 1);
+      ForkJoinTask<?> t = a[i];
+      a[i] = null;
+      top = s;
+      return t;
+    }
+
+    synchronized ForkJoinTask<?> poll()
+    {
+      int b = base;
+      if (b == top)
+        return null;
+      ForkJoinTask<?>[] a = array;
+      int i = b & (a.length - 1);
+      ForkJoinTask<?> t = a[i];
+      a[i] = null;
+      base = b + 1;
+      return t;
+    }
+
+    /**
+     * Removes the given task if it is at the top of the queue.
+     */
+    synchronized boolean tryUnpush(ForkJoinTask<?> task)
+    {
+      int s = top;
+      if (s == base)
+        return false;
+      ForkJoinTask<?>[] a = array;
+      int i = (s - 1) & (a.length - 1);
+      if (a[i] != task)
+        return false;
+      a[i] = null;
+      top = s - 1;
+      return true;
+    }
+
+    synchronized void cancelAll()
+    {
+      ForkJoinTask<?> t;
+      while ((t = poll()) != null)
+        t.cancel(false);
+    }
+
+    boolean isEmpty()
+    {
+      return base == top;
+    }
+
+    int size()
+    {
+      int n = top - base;
+      return n < 0 ? 0 : n;
+    }
+
+    /**
+     * Returns the next value of a xorshift generator.  Only the owner
+     * calls this.
+     */
+    int nextRandom()
+    {
+      int r = seed;
+      r ^= r << 13;
+      r ^= r >>> 17;
+      r ^= r << 5;
+      seed = r;
+      return r;
+    }
+
+    private ForkJoinTask<?>[] grow()
+    {
+      ForkJoinTask<?>[] old = array;
+      int n = old.length;
+      ForkJoinTask<?>[] a = new ForkJoinTask<?>[n << 1];
+      int b = base;
+      for (int j = 0; j < n; j++)
+        a[(b + j) & (a.length - 1)] = old[(b + j) & (n - 1)];
+      array = a;
+      return a;
+    }
+  }
+
+  private static final class DefaultFactory
+    implements ForkJoinWorkerThreadFactory
+  {
+    public ForkJoinWorkerThread newThread(ForkJoinPool pool)
+    {
+      return new ForkJoinWorkerThread(pool);
+    }
+  }
+}
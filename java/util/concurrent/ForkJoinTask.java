@@ -0,0 +1,774 @@
+/* ForkJoinTask.java -- A task run by a ForkJoinPool
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package java.util.concurrent;
+
+import java.io.Serializable;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A task which runs in a {@link ForkJoinPool}, and which may split its
+ * work into subtasks that are run in parallel.  A task calls
+ * {@link #fork()} to make a subtask available to other workers of the
+ * pool, and {@link #join()} to wait for its result.  A worker which
+ * joins a task that has not completed does not simply block: it runs
+ * the task itself if nobody has taken it yet, and otherwise runs other
+ * queued tasks until the result is ready.
+ * <p>
+ * Tasks are intended to be small and to do pure computation; they
+ * should not block on I/O or on other synchronization.  Most tasks
+ * extend {@link RecursiveAction} or {@link RecursiveTask} rather than
+ * this class.
+ *
+ * @param <V> the type of the result
+ * @since 1.7
+ */
+public abstract class ForkJoinTask<V>
+  implements Future<V>, Serializable
+{
+  private static final long serialVersionUID = -7721805057305804111L;
+
+  // A task is pending while its status is at least 0, and complete
+  // once it is negative.  SIGNAL marks a pending task which some thread
+  // is waiting for, so that completion knows to notify it.
+  static final int SIGNAL = 1;
+  static final int NORMAL = -1;
+  static final int CANCELLED = -2;
+  static final int EXCEPTIONAL = -3;
+
+  private static final AtomicIntegerFieldUpdater<? super ForkJoinTask<?>>
+    statusUpdater = AtomicIntegerFieldUpdater.newUpdater(ForkJoinTask.class,
+                                                         "status");
+
+  /** The run status of this task. */
+  volatile int status;
+
+  /** The exception thrown by the task, if it completed abnormally. */
+  private Throwable exception;
+
+  /**
+   * Constructs a new task.
+   */
+  public ForkJoinTask()
+  {
+  }
+
+  /**
+   * Arranges for this task to be run asynchronously.  When called from
+   * a worker of a pool the task goes to the front of that worker's
+   * queue; otherwise it is submitted to the {@link
+   * ForkJoinPool#commonPool() common pool}.  A task should be forked at
+   * most once until it completes (or is {@link #reinitialize()}d).
+   *
+   * @return this task
+   */
+  public final ForkJoinTask<V> fork()
+  {
+    Thread t = Thread.currentThread();
+    if (t instanceof ForkJoinWorkerThread)
+      ((ForkJoinWorkerThread) t).push(this);
+    else
+      ForkJoinPool.common.externalPush(this);
+    return this;
+  }
+
+  /**
+   * Returns the result of this task once it has completed.  Unlike
+   * {@link #get()}, an exception thrown by the task is rethrown as it
+   * is, and the wait cannot be interrupted.
+   *
+   * @return the result
+   * @throws CancellationException if the task was cancelled
+   */
+  public final V join()
+  {
+    int s = doJoin();
+    if (s != NORMAL)
+      reportException(s);
+    return getRawResult();
+  }
+
+  /**
+   * Runs this task in the current thread, waits for it to complete if
+   * necessary, and returns its result.
+   *
+   * @return the result
+   * @throws CancellationException if the task was cancelled
+   */
+  public final V invoke()
+  {
+    int s = doInvoke();
+    if (s != NORMAL)
+      reportException(s);
+    return getRawResult();
+  }
+
+  /**
+   * Forks <code>t2</code>, runs <code>t1</code>, and then joins
+   * <code>t2</code>.  If either task completed abnormally, the
+   * exception of the first one to do so is rethrown.
+   *
+   * @param t1 the first task
+   * @param t2 the second task
+   * @throws NullPointerException if either task is null
+   */
+  public static void invokeAll(ForkJoinTask<?> t1, ForkJoinTask<?> t2)
+  {
+    t2.fork();
+    int s1 = t1.doInvoke();
+    int s2 = t2.doJoin();
+    if (s1 != NORMAL)
+      t1.reportException(s1);
+    if (s2 != NORMAL)
+      t2.reportException(s2);
+  }
+
+  /**
+   * Forks all the given tasks but the first, runs the first, and then
+   * joins the others.  If any task completed abnormally, the exception
+   * of the first such task is rethrown.
+   *
+   * @param tasks the tasks
+   * @throws NullPointerException if any task is null
+   */
+  public static void invokeAll(ForkJoinTask<?>... tasks)
+  {
+    int n = tasks.length;
+    for (int i = n - 1; i > 0; i--)
+      tasks[i].fork();
+    if (n > 0)
+      tasks[0].doInvoke();
+    for (int i = 1; i < n; i++)
+      tasks[i].doJoin();
+    for (int i = 0; i < n; i++)
+      {
+        int s = tasks[i].status;
+        if (s != NORMAL)
+          tasks[i].reportException(s);
+      }
+  }
+
+  /**
+   * Forks all the tasks in the collection but the first, runs the first,
+   * and then joins the others.  If any task completed abnormally, the
+   * exception of the first such task is rethrown.
+   *
+   * @param tasks the tasks
+   * @return the collection
+   * @throws NullPointerException if any task is null
+   */
+  public static <T extends ForkJoinTask<?>> Collection<T>
+    invokeAll(Collection<T> tasks)
+  {
+    invokeAll(tasks.toArray(new ForkJoinTask<?>[tasks.size()]));
+    return tasks;
+  }
+
+  /**
+   * Attempts to cancel this task.  A task can only be cancelled before
+   * it has started to run; it is then never run.
+   *
+   * @param mayInterruptIfRunning ignored, since a running task cannot be
+   *        cancelled
+   * @return true if this task is now cancelled
+   */
+  public boolean cancel(boolean mayInterruptIfRunning)
+  {
+    return setCompletion(CANCELLED) == CANCELLED;
+  }
+
+  public final boolean isDone()
+  {
+    return status < 0;
+  }
+
+  public final boolean isCancelled()
+  {
+    return status == CANCELLED;
+  }
+
+  /**
+   * Returns true if this task was cancelled or threw an exception.
+   *
+   * @return true if the task completed abnormally
+   */
+  public final boolean isCompletedAbnormally()
+  {
+    return status < NORMAL;
+  }
+
+  /**
+   * Returns true if this task completed without being cancelled or
+   * throwing an exception.
+   *
+   * @return true if the task completed normally
+   */
+  public final boolean isCompletedNormally()
+  {
+    return status == NORMAL;
+  }
+
+  /**
+   * Returns the exception thrown by this task, a
+   * <code>CancellationException</code> if it was cancelled, or null if
+   * it has not completed abnormally.
+   *
+   * @return the exception, or null
+   */
+  public final Throwable getException()
+  {
+    int s = status;
+    if (s == CANCELLED)
+      return new CancellationException();
+    return s == EXCEPTIONAL ? exception : null;
+  }
+
+  /**
+   * Completes this task abnormally, so that joining it throws the given
+   * exception.  A checked exception is wrapped in a
+   * <code>RuntimeException</code>.
+   *
+   * @param ex the exception
+   */
+  public void completeExceptionally(Throwable ex)
+  {
+    setExceptionalCompletion((ex instanceof RuntimeException
+                              || ex instanceof Error)
+                             ? ex : new RuntimeException(ex));
+  }
+
+  /**
+   * Completes this task with the given result, whether or not it has
+   * run.
+   *
+   * @param value the result
+   */
+  public void complete(V value)
+  {
+    try
+      {
+        setRawResult(value);
+      }
+    catch (Throwable ex)
+      {
+        setExceptionalCompletion(ex);
+        return;
+      }
+    setCompletion(NORMAL);
+  }
+
+  /**
+   * Waits for this task to complete and returns its result.
+   *
+   * @return the result
+   * @throws CancellationException if the task was cancelled
+   * @throws ExecutionException if the task threw an exception
+   * @throws InterruptedException if the thread was interrupted while
+   *         waiting
+   */
+  public final V get()
+    throws InterruptedException, ExecutionException
+  {
+    int s;
+    if (Thread.currentThread() instanceof ForkJoinWorkerThread)
+      s = doJoin();
+    else
+      s = externalInterruptibleAwaitDone(false, 0L);
+    return report(s);
+  }
+
+  /**
+   * Waits at most the given time for this task to complete, and returns
+   * its result.
+   *
+   * @param timeout the time to wait
+   * @param unit the unit of <code>timeout</code>
+   * @return the result
+   * @throws CancellationException if the task was cancelled
+   * @throws ExecutionException if the task threw an exception
+   * @throws InterruptedException if the thread was interrupted while
+   *         waiting
+   * @throws TimeoutException if the task did not complete in time
+   */
+  public final V get(long timeout, TimeUnit unit)
+    throws InterruptedException, ExecutionException, TimeoutException
+  {
+    int s = externalInterruptibleAwaitDone(true, unit.toNanos(timeout));
+    if (s >= 0)
+      throw new TimeoutException();
+    return report(s);
+  }
+
+  /**
+   * Waits for this task to complete, without returning its result or
+   * throwing its exception.
+   */
+  public final void quietlyJoin()
+  {
+    doJoin();
+  }
+
+  /**
+   * Runs this task and waits for it to complete, without returning its
+   * result or throwing its exception.
+   */
+  public final void quietlyInvoke()
+  {
+    doInvoke();
+  }
+
+  /**
+   * Resets this task to the pending state, so that it can be forked
+   * again.  This must not be called while the task is queued or
+   * running.
+   */
+  public void reinitialize()
+  {
+    exception = null;
+    status = 0;
+  }
+
+  /**
+   * Removes this task from the queue of the current thread, if it is
+   * the most recently forked task there and has not yet been taken by
+   * another worker.  The caller may then run it with {@link #invoke()}.
+   *
+   * @return true if the task was removed
+   */
+  public boolean tryUnfork()
+  {
+    Thread t = Thread.currentThread();
+    if (t instanceof ForkJoinWorkerThread)
+      return ((ForkJoinWorkerThread) t).queue.tryUnpush(this);
+    return ForkJoinPool.common.submissions.tryUnpush(this);
+  }
+
+  /**
+   * Returns the pool of the current thread, or null if it is not a
+   * worker of a pool.
+   *
+   * @return the pool, or null
+   */
+  public static ForkJoinPool getPool()
+  {
+    Thread t = Thread.currentThread();
+    if (t instanceof ForkJoinWorkerThread)
+      return ((ForkJoinWorkerThread) t).pool;
+    return null;
+  }
+
+  /**
+   * Returns true if the current thread is a worker of a pool.
+   *
+   * @return true if running in a pool
+   */
+  public static boolean inForkJoinPool()
+  {
+    return Thread.currentThread() instanceof ForkJoinWorkerThread;
+  }
+
+  /**
+   * Returns the number of tasks that the current worker has forked but
+   * which have not been run yet.
+   *
+   * @return the number of queued tasks
+   */
+  public static int getQueuedTaskCount()
+  {
+    Thread t = Thread.currentThread();
+    if (t instanceof ForkJoinWorkerThread)
+      return ((ForkJoinWorkerThread) t).queue.size();
+    return ForkJoinPool.common.submissions.size();
+  }
+
+  /**
+   * Returns an estimate of how many more tasks the current worker has
+   * queued than there are idle workers to steal them.  A task might
+   * use this to decide whether splitting further is worthwhile.
+   *
+   * @return the estimated surplus, which may be negative
+   */
+  public static int getSurplusQueuedTaskCount()
+  {
+    Thread t = Thread.currentThread();
+    if (t instanceof ForkJoinWorkerThread)
+      {
+        ForkJoinWorkerThread w = (ForkJoinWorkerThread) t;
+        return w.queue.size() - w.pool.getIdleCount();
+      }
+    return 0;
+  }
+
+  /**
+   * Returns the result of this task, or null if it has none or has not
+   * completed.  This is used by the framework, and is not meant for
+   * general use.
+   *
+   * @return the result, or null
+   */
+  public abstract V getRawResult();
+
+  /**
+   * Sets the result of this task.  This is used by the framework, and is
+   * not meant for general use.
+   *
+   * @param value the result
+   */
+  protected abstract void setRawResult(V value);
+
+  /**
+   * Performs the work of this task.
+   *
+   * @return true if the task is now complete; false if it will be
+   *         completed later by some other means
+   */
+  protected abstract boolean exec();
+
+  /**
+   * Returns a task which runs the given <code>Runnable</code> and has a
+   * null result.
+   *
+   * @param runnable the code to run
+   * @return the task
+   */
+  public static ForkJoinTask<?> adapt(Runnable runnable)
+  {
+    return new AdaptedRunnable<Void>(runnable, null);
+  }
+
+  /**
+   * Returns a task which runs the given <code>Runnable</code> and has
+   * the given result.
+   *
+   * @param runnable the code to run
+   * @param result the result
+   * @return the task
+   */
+  public static <T> ForkJoinTask<T> adapt(Runnable runnable, T result)
+  {
+    return new AdaptedRunnable<T>(runnable, result);
+  }
+
+  /**
+   * Returns a task which calls the given <code>Callable</code> and
+   * returns its result.  A checked exception thrown by the
+   * <code>Callable</code> is wrapped in a <code>RuntimeException</code>.
+   *
+   * @param callable the code to call
+   * @return the task
+   */
+  public static <T> ForkJoinTask<T> adapt(Callable<? extends T> callable)
+  {
+    return new AdaptedCallable<T>(callable);
+  }
+
+  /**
+   * Runs this task, unless it has already completed, and records the
+   * outcome.
+   *
+   * @return the status afterwards
+   */
+  final int doExec()
+  {
+    int s = status;
+    if (s >= 0)
+      {
+        boolean completed;
+        try
+          {
+            completed = exec();
+          }
+        catch (Throwable ex)
+          {
+            return setExceptionalCompletion(ex);
+          }
+        s = completed ? setCompletion(NORMAL) : status;
+      }
+    return s;
+  }
+
+  private int doInvoke()
+  {
+    int s = doExec();
+    return s < 0 ? s : doJoin();
+  }
+
+  /**
+   * Waits for this task to complete, helping with the work of the pool
+   * if the current thread is a worker, and returns its status.
+   */
+  private int doJoin()
+  {
+    int s = status;
+    if (s < 0)
+      return s;
+    Thread t = Thread.currentThread();
+    if (t instanceof ForkJoinWorkerThread)
+      {
+        ForkJoinWorkerThread w = (ForkJoinWorkerThread) t;
+        if (w.queue.tryUnpush(this) && (s = doExec()) < 0)
+          return s;
+        return w.pool.awaitJoin(w, this);
+      }
+    return externalAwaitDone();
+  }
+
+  /**
+   * Waits for this task from a thread outside any pool.  If the task is
+   * still the latest submission to the common pool the caller runs it
+   * itself, so that a thread forking subtasks takes part in the work.
+   */
+  private int externalAwaitDone()
+  {
+    int s;
+    if (ForkJoinPool.common.submissions.tryUnpush(this)
+        && (s = doExec()) < 0)
+      return s;
+    boolean interrupted = false;
+    while ((s = status) >= 0)
+      {
+        if (s == 0 && ! statusUpdater.compareAndSet(this, 0, SIGNAL))
+          continue;
+        synchronized (this)
+          {
+            if (status >= 0)
+              {
+                try
+                  {
+                    wait();
+                  }
+                catch (InterruptedException e)
+                  {
+                    interrupted = true;
+                  }
+              }
+          }
+      }
+    if (interrupted)
+      Thread.currentThread().interrupt();
+    return s;
+  }
+
+  private int externalInterruptibleAwaitDone(boolean timed, long nanos)
+    throws InterruptedException
+  {
+    if (Thread.interrupted())
+      throw new InterruptedException();
+    long deadline = timed ? System.nanoTime() + nanos : 0L;
+    int s;
+    while ((s = status) >= 0)
+      {
+        long millis = 0L;
+        if (timed)
+          {
+            long left = deadline - System.nanoTime();
+            if (left <= 0L)
+              break;
+            millis = (left + 999999L) / 1000000L;
+          }
+        if (s == 0 && ! statusUpdater.compareAndSet(this, 0, SIGNAL))
+          continue;
+        synchronized (this)
+          {
+            if (status >= 0)
+              wait(millis);
+          }
+      }
+    return s;
+  }
+
+  /**
+   * Blocks a worker for at most the given time, or until this task
+   * completes, so that it can look for other work again.
+   */
+  final void internalWait(long millis)
+  {
+    if (status == 0 && ! statusUpdater.compareAndSet(this, 0, SIGNAL))
+      return;
+    synchronized (this)
+      {
+        if (status >= 0)
+          {
+            try
+              {
+                wait(millis);
+              }
+            catch (InterruptedException e)
+              {
+                // Workers are only interrupted by shutdownNow, and
+                // the pool checks for that itself.
+              }
+          }
+      }
+  }
+
+  private int setCompletion(int completion)
+  {
+    for (;;)
+      {
+        int s = status;
+        if (s < 0)
+          return s;
+        if (statusUpdater.compareAndSet(this, s, completion))
+          {
+            if (s == SIGNAL)
+              synchronized (this)
+                {
+                  notifyAll();
+                }
+            return completion;
+          }
+      }
+  }
+
+  private int setExceptionalCompletion(Throwable ex)
+  {
+    if (status >= 0)
+      exception = ex;
+    return setCompletion(EXCEPTIONAL);
+  }
+
+  /**
+   * Throws the exception matching the given abnormal status.
+   */
+  private void reportException(int s)
+  {
+    if (s == CANCELLED)
+      throw new CancellationException();
+    if (s == EXCEPTIONAL)
+      ForkJoinTask.<RuntimeException>uncheckedThrow(exception);
+  }
+
+  private V report(int s)
+    throws ExecutionException
+  {
+    if (s == CANCELLED)
+      throw new CancellationException();
+    if (s == EXCEPTIONAL)
+      throw new ExecutionException(exception);
+    return getRawResult();
+  }
+
+  /**
+   * Throws any exception, checked or not, without declaring it.
+   */
+  @SuppressWarnings("unchecked")
+  static <T extends Throwable> void uncheckedThrow(Throwable t)
+    throws T
+  {
+    throw (T) t;
+  }
+
+  static final class AdaptedRunnable<T>
+    extends ForkJoinTask<T>
+  {
+    private static final long serialVersionUID = 5232453952276885070L;
+
+    private final Runnable runnable;
+    private T result;
+
+    AdaptedRunnable(Runnable runnable, T result)
+    {
+      if (runnable == null)
+        throw new NullPointerException();
+      this.runnable = runnable;
+      this.result = result;
+    }
+
+    public T getRawResult()
+    {
+      return result;
+    }
+
+    protected void setRawResult(T value)
+    {
+      result = value;
+    }
+
+    protected boolean exec()
+    {
+      runnable.run();
+      return true;
+    }
+  }
+
+  static final class AdaptedCallable<T>
+    extends ForkJoinTask<T>
+  {
+    private static final long serialVersionUID = 2838392045355241008L;
+
+    private final Callable<? extends T> callable;
+    private T result;
+
+    AdaptedCallable(Callable<? extends T> callable)
+    {
+      if (callable == null)
+        throw new NullPointerException();
+      this.callable = callable;
+    }
+
+    public T getRawResult()
+    {
+      return result;
+    }
+
+    protected void setRawResult(T value)
+    {
+      result = value;
+    }
+
+    protected boolean exec()
+    {
+      try
+        {
+          result = callable.call();
+          return true;
+        }
+      catch (RuntimeException e)
+        {
+          throw e;
+        }
+      catch (Exception e)
+        {
+          throw new RuntimeException(e);
+        }
+    }
+  }
+}
@@ -0,0 +1,158 @@
+/* ForkJoinWorkerThread.java -- A thread run by a ForkJoinPool
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package java.util.concurrent;
+
+/**
+ * A thread which belongs to a {@link ForkJoinPool} and runs its tasks.
+ * Each worker has its own queue of tasks: tasks it forks go to the front
+ * of the queue, and it takes its own work from the front too, while
+ * idle workers steal from the back of other workers' queues.  Threads
+ * are made by the pool's {@link ForkJoinPool.ForkJoinWorkerThreadFactory
+ * factory}; a subclass may be used to set up and clean up per-thread
+ * state.
+ *
+ * @since 1.7
+ */
+public class ForkJoinWorkerThread
+  extends Thread
+{
+  /** The pool this thread works for. */
+  final ForkJoinPool pool;
+
+  /** The queue of tasks forked by this thread. */
+  final ForkJoinPool.WorkQueue queue;
+
+  /**
+   * Creates a worker for the given pool.  The thread is a daemon and
+   * uses the pool's uncaught exception handler, if any.
+   *
+   * @param pool the pool
+   * @throws NullPointerException if the pool is null
+   */
+  protected ForkJoinWorkerThread(ForkJoinPool pool)
+  {
+    super(pool.nextWorkerName());
+    this.pool = pool;
+    queue = pool.registerWorker(this);
+  }
+
+  /**
+   * Returns the pool this thread works for.
+   *
+   * @return the pool
+   */
+  public ForkJoinPool getPool()
+  {
+    return pool;
+  }
+
+  /**
+   * Returns the index of this thread among the workers of its pool.
+   * Indices run from 0 up to the number of workers that have ever been
+   * started, and may be reused once a worker has exited.
+   *
+   * @return the index
+   */
+  public int getPoolIndex()
+  {
+    return queue.index;
+  }
+
+  /**
+   * Called when the thread starts, before it runs any task.  The
+   * default does nothing.
+   */
+  protected void onStart()
+  {
+  }
+
+  /**
+   * Called when the thread is about to exit.  The default does nothing.
+   *
+   * @param exception the exception which caused the thread to stop, or
+   *        null if it exited normally
+   */
+  protected void onTermination(Throwable exception)
+  {
+  }
+
+  /**
+   * Runs tasks from the pool until the pool shuts down, or until the
+   * thread has been idle for a while.  This should not be called
+   * directly.
+   */
+  public void run()
+  {
+    Throwable exception = null;
+    try
+      {
+        onStart();
+        pool.runWorker(this);
+      }
+    catch (Throwable ex)
+      {
+        exception = ex;
+      }
+    finally
+      {
+        try
+          {
+            onTermination(exception);
+          }
+        catch (Throwable ex)
+          {
+            if (exception == null)
+              exception = ex;
+          }
+        finally
+          {
+            pool.deregisterWorker(this, exception);
+          }
+      }
+  }
+
+  /**
+   * Pushes a task forked by this thread onto its queue.
+   */
+  final void push(ForkJoinTask<?> task)
+  {
+    queue.push(task);
+    pool.signalWork();
+  }
+}
@@ -0,0 +1,95 @@
+/* RecursiveAction.java -- A ForkJoinTask without a result
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package java.util.concurrent;
+
+/**
+ * A {@link ForkJoinTask} which does its work in {@link #compute()} and
+ * has no result.  A typical action splits a large problem in two, and
+ * runs the halves with {@link ForkJoinTask#invokeAll(ForkJoinTask,
+ * ForkJoinTask)}, until the pieces are small enough to do directly.
+ *
+ * @since 1.7
+ */
+public abstract class RecursiveAction
+  extends ForkJoinTask<Void>
+{
+  private static final long serialVersionUID = 5232453952276485070L;
+
+  /**
+   * Constructs a new action.
+   */
+  public RecursiveAction()
+  {
+  }
+
+  /**
+   * Performs the work of this action.
+   */
+  protected abstract void compute();
+
+  /**
+   * Returns null, since an action has no result.
+   *
+   * @return null
+   */
+  public final Void getRawResult()
+  {
+    return null;
+  }
+
+  /**
+   * Does nothing, since an action has no result.
+   *
+   * @param value ignored
+   */
+  protected final void setRawResult(Void value)
+  {
+  }
+
+  /**
+   * Runs {@link #compute()}.
+   *
+   * @return true
+   */
+  protected final boolean exec()
+  {
+    compute();
+    return true;
+  }
+}
@@ -60,6 +60,10 @@ public final class Matcher implements MatchResult
   private int position;
   private int appendPosition;
   private REMatch match;
+  // The result of the last successful search, reused by the next one.
+  private REMatch spare;
+  // The region of the input seen through opaque bounds, made on first use.
+  private CharIndexed regionCharIndexed;
 
   /**
    * The start of the region of the input on which to match.
@@ -184,9 +188,9 @@ public final class Matcher implements MatchResult
   {
     boolean first = (match == null);
     if (transparentBounds || (regionStart == 0 && regionEnd == input.length()))
-      match = pattern.getRE().getMatch(inputCharIndexed, position, anchoringBounds);
+      match = getMatch(inputCharIndexed, position, anchoringBounds);
     else
-      match = pattern.getRE().getMatch(input.subSequence(regionStart, regionEnd),
+      match = getMatch(regionCharIndexed(),
                                        position, anchoringBounds);
     if (match != null)
       {
@@ -225,9 +229,9 @@ public final class Matcher implements MatchResult
   public boolean find (int start)
   {
     if (transparentBounds || (regionStart == 0 && regionEnd == input.length()))
-      match = pattern.getRE().getMatch(inputCharIndexed, start, anchoringBounds);
+      match = getMatch(inputCharIndexed, start, anchoringBounds);
     else
-      match = pattern.getRE().getMatch(input.subSequence(regionStart, regionEnd),
+      match = getMatch(regionCharIndexed(),
                                        start, anchoringBounds);
     if (match != null)
       {
@@ -291,10 +295,10 @@ public final class Matcher implements MatchResult
   public boolean lookingAt ()
   {
     if (transparentBounds || (regionStart == 0 && regionEnd == input.length()))
-      match = pattern.getRE().getMatch(inputCharIndexed, regionStart,
+      match = getMatch(inputCharIndexed, regionStart,
                                        anchoringBounds|RE.REG_FIX_STARTING_POSITION|RE.REG_ANCHORINDEX);
     else
-      match = pattern.getRE().getMatch(input.subSequence(regionStart, regionEnd), 0,
+      match = getMatch(regionCharIndexed(), 0,
                                        anchoringBounds|RE.REG_FIX_STARTING_POSITION);
     if (match != null)
       {
@@ -321,10 +325,10 @@ public final class Matcher implements MatchResult
   public boolean matches ()
   {
     if (transparentBounds || (regionStart == 0 && regionEnd == input.length()))
-      match = pattern.getRE().getMatch(inputCharIndexed, regionStart,
+      match = getMatch(inputCharIndexed, regionStart,
                                        anchoringBounds|RE.REG_TRY_ENTIRE_MATCH|RE.REG_FIX_STARTING_POSITION|RE.REG_ANCHORINDEX);
     else
-      match = pattern.getRE().getMatch(input.subSequence(regionStart, regionEnd), 0,
+      match = getMatch(regionCharIndexed(), 0,
                                        anchoringBounds|RE.REG_TRY_ENTIRE_MATCH|RE.REG_FIX_STARTING_POSITION);
     if (match != null)
       {
@@ -363,6 +367,7 @@ public final class Matcher implements MatchResult
   {
     position = 0;
     match = null;
+    regionCharIndexed = null;
     regionStart = 0;
     regionEnd = input.length();
     appendPosition = 0;
@@ -442,6 +447,26 @@ public final class Matcher implements MatchResult
     return sb.toString();
   }
 
+  /**
+   * Searches the given input with the pattern, reusing the result of
+   * the previous search so that repeated searches do not allocate.
+   */
+  private REMatch getMatch(Object in, int index, int eflags)
+  {
+    REMatch m = pattern.getRE().getMatchReusing(in, index, eflags, spare);
+    if (m != null)
+      spare = m;
+    return m;
+  }
+
+  private CharIndexed regionCharIndexed()
+  {
+    if (regionCharIndexed == null)
+      regionCharIndexed =
+        RE.makeCharIndexed(input.subSequence(regionStart, regionEnd), 0);
+    return regionCharIndexed;
+  }
+
   private void assertMatchOp()
   {
     if (match == null) throw new IllegalStateException();
@@ -174,6 +174,51 @@ public class Adler32 implements Checksum
         if (n > len)
           n = len;
         len -= n;
+
+        // Sixteen bytes at a time, in two independent halves of
+        // eight.  a is the sum of the first half and wa the sum of its
+        // running sums; c and wc are the same for the second half.  s2
+        // gains 16 * s1 + wa + wc + 8 * a, since each of the eight
+        // running sums of the second half also contains a.
+        while (n >= 16)
+          {
+            int a = buf[off] & 0xFF;
+            int c = buf[off + 8] & 0xFF;
+            int wa = a;
+            int wc = c;
+            a += buf[off + 1] & 0xFF;
+            wa += a;
+            c += buf[off + 9] & 0xFF;
+            wc += c;
+            a += buf[off + 2] & 0xFF;
+            wa += a;
+            c += buf[off + 10] & 0xFF;
+            wc += c;
+            a += buf[off + 3] & 0xFF;
+            wa += a;
+            c += buf[off + 11] & 0xFF;
+            wc += c;
+            a += buf[off + 4] & 0xFF;
+            wa += a;
+            c += buf[off + 12] & 0xFF;
+            wc += c;
+            a += buf[off + 5] & 0xFF;
+            wa += a;
+            c += buf[off + 13] & 0xFF;
+            wc += c;
+            a += buf[off + 6] & 0xFF;
+            wa += a;
+            c += buf[off + 14] & 0xFF;
+            wc += c;
+            a += buf[off + 7] & 0xFF;
+            wa += a;
+            c += buf[off + 15] & 0xFF;
+            wc += c;
+            s2 += (s1 << 4) + wa + (a << 3) + wc;
+            s1 += a + c;
+            off += 16;
+            n -= 16;
+          }
         while (--n >= 0)
           {
             s1 = s1 + (buf[off++] & 0xFF);
@@ -62,13 +62,18 @@ public class CRC32 implements Checksum
   /** The crc data checksum so far. */
   private int crc = 0;
 
-  /** The fast CRC table. Computed once when the CRC32 class is loaded. */
-  private static int[] crc_table = make_crc_table();
+  /**
+   * The CRC tables for slicing-by-8, computed once when the CRC32
+   * class is loaded.  Entries 0..255 are the classic byte-at-a-time
+   * table; entries k*256..k*256+255 give the CRC of a byte followed
+   * by k zero bytes, so that eight bytes can be folded in at once.
+   */
+  private static final int[] crc_table = make_crc_table();
 
-  /** Make the table for a fast CRC. */
+  /** Make the tables for a fast CRC. */
   private static int[] make_crc_table ()
   {
-    int[] crc_table = new int[256];
+    int[] crc_table = new int[8 * 256];
     for (int n = 0; n < 256; n++)
       {
         int c = n;
@@ -81,6 +86,11 @@ public class CRC32 implements Checksum
           }
         crc_table[n] = c;
       }
+    for (int n = 256; n < 8 * 256; n++)
+      {
+        int c = crc_table[n - 256];
+        crc_table[n] = crc_table[c & 0xff] ^ (c >>> 8);
+      }
     return crc_table;
   }
 
@@ -119,9 +129,27 @@ public class CRC32 implements Checksum
    */
   public void update (byte[] buf, int off, int len)
   {
+    int[] table = crc_table;
     int c = ~crc;
+    while (len >= 8)
+      {
+        c ^= (buf[off] & 0xff) | (buf[off + 1] & 0xff) << 8
+          | (buf[off + 2] & 0xff) << 16 | buf[off + 3] << 24;
+        int hi = (buf[off + 4] & 0xff) | (buf[off + 5] & 0xff) << 8
+          | (buf[off + 6] & 0xff) << 16 | buf[off + 7] << 24;
+        c = table[7 * 256 + (c & 0xff)]
+          ^ table[6 * 256 + ((c >>> 8) & 0xff)]
+          ^ table[5 * 256 + ((c >>> 16) & 0xff)]
+          ^ table[4 * 256 + (c >>> 24)]
+          ^ table[3 * 256 + (hi & 0xff)]
+          ^ table[2 * 256 + ((hi >>> 8) & 0xff)]
+          ^ table[256 + ((hi >>> 16) & 0xff)]
+          ^ table[hi >>> 24];
+        off += 8;
+        len -= 8;
+      }
     while (--len >= 0)
-      c = crc_table[(c ^ buf[off++]) & 0xff] ^ (c >>> 8);
+      c = table[(c ^ buf[off++]) & 0xff] ^ (c >>> 8);
     crc = ~c;
   }
 
@@ -91,6 +91,28 @@ public class Deflater
    */
   public static final int DEFLATED = 8;
 
+  /**
+   * Flush mode for deflate(byte[], int, int, int): compress as much
+   * of the input as is convenient and keep the rest for later.
+   * @since 1.7
+   */
+  public static final int NO_FLUSH = 0;
+
+  /**
+   * Flush mode for deflate(byte[], int, int, int): compress all input
+   * and end the output with an empty stored block on a byte boundary,
+   * so that everything written so far can be inflated.
+   * @since 1.7
+   */
+  public static final int SYNC_FLUSH = 2;
+
+  /**
+   * Flush mode for deflate(byte[], int, int, int): like SYNC_FLUSH,
+   * but later output does not refer back to data before this point.
+   * @since 1.7
+   */
+  public static final int FULL_FLUSH = 3;
+
   /*
    * The Deflater can do the following state transitions:
    *
@@ -158,6 +180,12 @@ public class Deflater
   /** The deflater engine. */
   private DeflaterEngine engine;
 
+  /** The flush mode of the flush in progress. */
+  private int flushMode;
+
+  /** The input processed when the last sync or full flush completed. */
+  private long flushedIn;
+
   /**
    * Creates a new deflater with default compression level.
    */
@@ -210,6 +238,8 @@ public class Deflater
   {
     state = (noHeader ? BUSY_STATE : INIT_STATE);
     totalOut = 0;
+    flushMode = NO_FLUSH;
+    flushedIn = -1;
     pending.reset();
     engine.reset();
   }
@@ -415,9 +445,48 @@ public class Deflater
    * don't match the array length.
    */
   public int deflate(byte[] output, int offset, int length)
+  {
+    return deflate(output, offset, length, NO_FLUSH);
+  }
+
+  /**
+   * Deflates the current input block to the given array, using the
+   * given flush mode.  With SYNC_FLUSH or FULL_FLUSH, all input is
+   * compressed and the output ends on a byte boundary.  If the return
+   * value is length, the output did not fit and this method must be
+   * called again with the same flush mode.
+   * @param output the buffer where to write the compressed data.
+   * @param offset the offset into the output array.
+   * @param length the maximum number of bytes that may be written.
+   * @param flush NO_FLUSH, SYNC_FLUSH or FULL_FLUSH.
+   * @return the number of bytes written.
+   * @exception IllegalArgumentException if flush is not a valid mode.
+   * @exception IllegalStateException if end() was called.
+   * @exception IndexOutOfBoundsException if offset and/or length
+   * don't match the array length.
+   * @since 1.7
+   */
+  public int deflate(byte[] output, int offset, int length, int flush)
   {
     int origLength = length;
 
+    if (flush == SYNC_FLUSH || flush == FULL_FLUSH)
+      {
+        /* A repeated call only has to drain the pending output, unless
+         * there was new input.
+         */
+        if (state != CLOSED_STATE && (state & IS_FINISHING) == 0
+            && (flushMode != NO_FLUSH || !engine.needsInput()
+                || engine.getTotalIn() != flushedIn))
+          {
+            if (flushMode != FULL_FLUSH)
+              flushMode = flush;
+            state |= IS_FLUSHING;
+          }
+      }
+    else if (flush != NO_FLUSH)
+      throw new IllegalArgumentException("Illegal flush mode: " + flush);
+
     if (state == CLOSED_STATE)
       throw new IllegalStateException("Deflater closed");
 
@@ -464,7 +533,22 @@ public class Deflater
               return origLength - length;
             else if (state == FLUSHING_STATE)
               {
-                if (level != NO_COMPRESSION)
+                if (flushMode != NO_FLUSH)
+                  {
+                    /* An empty stored block ends the output on a byte
+                     * boundary.
+                     */
+                    pending.writeBits(DeflaterConstants.STORED_BLOCK << 1,
+                                      3);
+                    pending.alignToByte();
+                    pending.writeShort(0);
+                    pending.writeShort(0xffff);
+                    if (flushMode == FULL_FLUSH)
+                      engine.clearHistory();
+                    flushMode = NO_FLUSH;
+                    flushedIn = engine.getTotalIn();
+                  }
+                else if (level != NO_COMPRESSION)
                   {
                     /* We have to supply some lookahead.  8 bit lookahead
                      * are needed by the zlib inflater, and we must fill
@@ -528,10 +612,19 @@ public class Deflater
    */
   public void setDictionary(byte[] dict, int offset, int length)
   {
-    if (state != INIT_STATE)
+    if (noHeader)
+      {
+        /* There is no header to announce the dictionary in, so it can
+         * be set as long as no input was deflated.
+         */
+        if (state != BUSY_STATE || engine.getTotalIn() != 0
+            || !engine.needsInput())
+          throw new IllegalStateException();
+      }
+    else if (state != INIT_STATE)
       throw new IllegalStateException();
-
-    state = SETDICT_STATE;
+    else
+      state = SETDICT_STATE;
     engine.setDictionary(dict, offset, length);
   }
 }
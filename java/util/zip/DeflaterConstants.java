@@ -66,13 +66,21 @@ interface DeflaterConstants
   int PENDING_BUF_SIZE = 1 << (DEFAULT_MEM_LEVEL + 8);
   int MAX_BLOCK_SIZE = Math.min(65535, PENDING_BUF_SIZE-5);
 
-  int DEFLATE_STORED = 0;
-  int DEFLATE_FAST   = 1;
-  int DEFLATE_SLOW   = 2;
-
+  int DEFLATE_STORED  = 0;
+  int DEFLATE_FAST    = 1;
+  int DEFLATE_SLOW    = 2;
+  int DEFLATE_OPTIMAL = 3;
+
+  /* Levels 1-3 are greedy, and for them MAX_LAZY limits the length of
+   * matches whose strings are still inserted into the hash table.
+   * Levels 4-8 use lazy matching, which is skipped after a match of
+   * MAX_LAZY bytes.  Level 9 looks two bytes ahead and weighs the
+   * estimated bits of the matches it finds; since it searches three
+   * positions per match, it walks shorter chains than level 8.
+   */
   int GOOD_LENGTH[] = { 0,4, 4, 4, 4, 8,  8,  8,  32,  32 };
   int MAX_LAZY[]    = { 0,4, 5, 6, 4,16, 16, 32, 128, 258 };
-  int NICE_LENGTH[] = { 0,8,16,32,16,32,128,128, 258, 258 };
-  int MAX_CHAIN[]   = { 0,4, 8,32,16,32,128,256,1024,4096 };
-  int COMPR_FUNC[]  = { 0,1, 1, 1, 1, 2,  2,  2,   2,   2 };
+  int NICE_LENGTH[] = { 0,8,16,32,16,32,128,128, 258, 128 };
+  int MAX_CHAIN[]   = { 0,4, 8,32,16,32,128,256,1024, 512 };
+  int COMPR_FUNC[]  = { 0,1, 1, 1, 2, 2,  2,  2,   2,   3 };
 }
@@ -41,6 +41,15 @@ class DeflaterEngine implements DeflaterConstants
 {
   private static final int TOO_FAR = 4096;
 
+  /**
+   * The most literals that deflateOptimal may put in front of a match
+   * while it looks for a better one.
+   */
+  private static final int MAX_DEFERRED = 8;
+
+  /** How many positions deflateOptimal searches after a match. */
+  private static final int LOOK_AHEAD = 2;
+
   private int ins_h;
 
   /**
@@ -152,6 +161,18 @@ class DeflaterEngine implements DeflaterConstants
       prev[i] = 0;
   }
 
+  /**
+   * Forgets all previous strings, so that no later match refers to
+   * data before the current position.
+   */
+  public void clearHistory()
+  {
+    for (int i = 0; i < HASH_SIZE; i++)
+      head[i] = 0;
+    for (int i = 0; i < WSIZE; i++)
+      prev[i] = 0;
+  }
+
   public final void resetAdler()
   {
     adler.reset();
@@ -197,6 +218,7 @@ class DeflaterEngine implements DeflaterConstants
             updateHash();
             break;
           case DEFLATE_FAST:
+          case DEFLATE_OPTIMAL:
             if (strstart > blockStart)
               {
                 huffman.flushBlock(window, blockStart, strstart - blockStart,
@@ -261,20 +283,24 @@ class DeflaterEngine implements DeflaterConstants
     blockStart -= WSIZE;
 
     /* Slide the hash table (could be avoided with 32 bit values
-     * at the expense of memory usage).
+     * at the expense of memory usage).  Entries that fall out of the
+     * window become 0; this is done without a branch, since which
+     * entries these are is unpredictable.
      */
+    short[] head = this.head;
     for (int i = 0; i < HASH_SIZE; i++)
       {
-        int m = head[i] & 0xffff;
-        head[i] = m >= WSIZE ? (short) (m - WSIZE) : 0;
+        int m = (head[i] & 0xffff) - WSIZE;
+        head[i] = (short) (m & ~(m >> 31));
       }
 
     /* Slide the prev table.
      */
+    short[] prev = this.prev;
     for (int i = 0; i < WSIZE; i++)
       {
-        int m = prev[i] & 0xffff;
-        prev[i] = m >= WSIZE ? (short) (m - WSIZE) : 0;
+        int m = (prev[i] & 0xffff) - WSIZE;
+        prev[i] = (short) (m & ~(m >> 31));
       }
   }
 
@@ -433,6 +459,9 @@ class DeflaterEngine implements DeflaterConstants
     lookahead = 0;
 
     int storedLen = strstart - blockStart;
+    if (storedLen == 0 && flush && !finish)
+      /* Everything is flushed; don't write empty blocks forever. */
+      return false;
 
     if ((storedLen >= DeflaterConstants.MAX_BLOCK_SIZE)
         /* Block is full */
@@ -440,7 +469,8 @@ class DeflaterEngine implements DeflaterConstants
         /* Block may move out of window */
         || flush)
       {
-        boolean lastBlock = finish;
+        /* Only the block that takes the end of the input is the last */
+        boolean lastBlock = finish && flush;
         if (storedLen > DeflaterConstants.MAX_BLOCK_SIZE)
           {
             storedLen = DeflaterConstants.MAX_BLOCK_SIZE;
@@ -489,7 +519,7 @@ class DeflaterEngine implements DeflaterConstants
             && strstart - hashHead <= MAX_DIST
             && findLongestMatch(hashHead))
           {
-            /* longestMatch sets matchStart and matchLen */
+            /* these set matchStart and matchLen */
             if (DeflaterConstants.DEBUGGING)
               {
                 for (int i = 0 ; i < matchLen; i++)
@@ -576,7 +606,11 @@ class DeflaterEngine implements DeflaterConstants
         if (lookahead >= MIN_MATCH)
           {
             int hashHead = insertString();
+            /* Don't look for a better match if the previous one is
+             * already long enough.
+             */
             if (strategy != Deflater.HUFFMAN_ONLY
+                && prevLen < max_lazy
                 && hashHead != 0 && strstart - hashHead <= MAX_DIST
                 && findLongestMatch(hashHead))
               {
@@ -641,6 +675,143 @@ class DeflaterEngine implements DeflaterConstants
     return true;
   }
 
+  /**
+   * Inserts the string at strstart and looks for the longest match
+   * for it, discarding matches that are too short to be worth it.
+   */
+  private boolean findMatchHere()
+  {
+    if (lookahead < MIN_MATCH)
+      return false;
+    int hashHead = insertString();
+    matchLen = MIN_MATCH - 1;
+    if (strategy == Deflater.HUFFMAN_ONLY
+        || hashHead == 0 || strstart - hashHead > MAX_DIST
+        || !findLongestMatch(hashHead))
+      return false;
+    return !(matchLen <= 5
+             && (strategy == Deflater.FILTERED
+                 || (matchLen == MIN_MATCH
+                     && strstart - matchStart > TOO_FAR)));
+  }
+
+  /**
+   * Like deflateSlow, but before a match is taken the next LOOK_AHEAD
+   * positions are searched as well.  If one of them has a match that
+   * needs fewer bits per byte, counting the literals in front of it,
+   * that one is taken instead, and the search goes on from there.
+   * The bits are estimated from the code lengths of the last block.
+   * This is a cheap approximation of optimal parsing.
+   */
+  private boolean deflateOptimal(boolean flush, boolean finish)
+  {
+    if (lookahead < MIN_LOOKAHEAD && !flush)
+      return false;
+
+    while (lookahead >= MIN_LOOKAHEAD || flush)
+      {
+        if (lookahead == 0)
+          {
+            /* We are flushing everything */
+            huffman.flushBlock(window, blockStart, strstart - blockStart,
+                               finish);
+            blockStart = strstart;
+            return false;
+          }
+
+        /* The search below may move strstart up to MAX_DEFERRED
+         * bytes on before findLongestMatch reads MAX_MATCH bytes past
+         * it, so leave room for that.
+         */
+        if (strstart >= 2 * WSIZE - MIN_LOOKAHEAD - MAX_DEFERRED)
+          slideWindow();
+
+        /* strstart moves along with the search.  litStart is the first
+         * byte that was not tallied yet, bestStart the position of the
+         * best match so far.
+         */
+        int litStart = strstart;
+        int bestStart = strstart;
+        int bestLen = 0, bestDist = 0, bestCost = 0;
+        /* The cost of the literals from bestStart to strstart. */
+        int litCost = 0;
+        for (;;)
+          {
+            if (findMatchHere())
+              {
+                int dist = strstart - matchStart;
+                int cost = huffman.matchCost(dist, matchLen);
+                /* Compare the bits per byte of the best match with
+                 * those of this match and the literals before it.
+                 */
+                if (bestLen == 0
+                    || ((litCost + cost) * bestLen
+                        < bestCost * (strstart - bestStart + matchLen)))
+                  {
+                    bestStart = strstart;
+                    bestLen = matchLen;
+                    bestDist = dist;
+                    bestCost = cost;
+                    litCost = 0;
+                  }
+              }
+            if (bestLen == 0 || bestLen >= niceLength
+                || strstart - bestStart == LOOK_AHEAD
+                || strstart - litStart == MAX_DEFERRED
+                || lookahead <= MIN_MATCH)
+              break;
+            litCost += huffman.literalCost(window[strstart] & 0xff);
+            strstart++;
+            lookahead--;
+          }
+        matchLen = MIN_MATCH - 1;
+
+        if (bestLen == 0)
+          {
+            huffman.tallyLit(window[strstart] & 0xff);
+            strstart++;
+            lookahead--;
+          }
+        else
+          {
+            if (DeflaterConstants.DEBUGGING)
+              {
+                for (int i = 0 ; i < bestLen; i++)
+                  {
+                    if (window[bestStart + i]
+                        != window[bestStart - bestDist + i])
+                      throw new InternalError();
+                  }
+              }
+            for (int i = litStart; i < bestStart; i++)
+              huffman.tallyLit(window[i] & 0xff);
+            huffman.tallyDist(bestDist, bestLen);
+
+            /* Insert the strings in the match that were not searched. */
+            int end = bestStart + bestLen;
+            while (strstart + 1 < end)
+              {
+                strstart++;
+                lookahead--;
+                if (lookahead >= MIN_MATCH)
+                  insertString();
+              }
+            strstart++;
+            lookahead--;
+          }
+
+        if (huffman.isFull(MAX_DEFERRED + 1))
+          {
+            boolean lastBlock = finish && lookahead == 0;
+            huffman.flushBlock(window, blockStart, strstart - blockStart,
+                               lastBlock);
+            blockStart = strstart;
+            return !lastBlock;
+          }
+      }
+    return true;
+  }
+
   public boolean deflate(boolean flush, boolean finish)
   {
     boolean progress;
@@ -662,6 +833,9 @@ class DeflaterEngine implements DeflaterConstants
           case DEFLATE_SLOW:
             progress = deflateSlow(canFlush, finish);
             break;
+          case DEFLATE_OPTIMAL:
+            progress = deflateOptimal(canFlush, finish);
+            break;
           default:
             throw new InternalError();
           }
@@ -499,6 +499,12 @@ class DeflaterHuffman
   DeflaterPending pending;
   private Tree literalTree, distTree, blTree;
 
+  /**
+   * The code lengths of the last block, which serve as estimates for
+   * the cost of symbols in the next one.
+   */
+  private byte[] literalCost, distCost;
+
   private short d_buf[];
   private byte l_buf[];
   private int last_lit;
@@ -509,6 +515,15 @@ class DeflaterHuffman
   private static short staticDCodes[];
   private static byte  staticDLength[];
 
+  /**
+   * The length code for each match length minus 3, and the distance
+   * code for each distance minus 1.  Distances from 256 on share
+   * their code with all distances that agree in every bit but the
+   * low seven, so these are looked up at 256 + (distance >> 7).
+   */
+  private static short lengthCode[];
+  private static byte  distCode[];
+
   /**
    * Reverse the bits of a 16 bit value.
    */
@@ -549,6 +564,33 @@ class DeflaterHuffman
       staticDCodes[i] = bitReverse(i << 11);
       staticDLength[i] = 5;
     }
+
+    lengthCode = new short[256];
+    for (i = 0; i < 256; i++)
+      {
+        int code = 257;
+        int len = i;
+        while (len >= 8)
+          {
+            code += 4;
+            len >>= 1;
+          }
+        lengthCode[i] = (short) (code + len);
+      }
+    lengthCode[255] = 285;
+
+    distCode = new byte[512];
+    for (i = 0; i < 512; i++)
+      {
+        int code = 0;
+        int distance = i < 256 ? i : (i - 256) << 7;
+        while (distance >= 4)
+          {
+            code += 2;
+            distance >>= 1;
+          }
+        distCode[i] = (byte) (code + distance);
+      }
   }
 
   public DeflaterHuffman(DeflaterPending pending)
@@ -561,6 +603,9 @@ class DeflaterHuffman
 
     d_buf = new short[BUFSIZE];
     l_buf = new byte [BUFSIZE];
+
+    literalCost = staticLLength.clone();
+    distCost = staticDLength.clone();
   }
 
   public final void reset() {
@@ -572,26 +617,11 @@ class DeflaterHuffman
   }
 
   private int l_code(int len) {
-    if (len == 255)
-      return 285;
-
-    int code = 257;
-    while (len >= 8)
-      {
-        code += 4;
-        len >>= 1;
-      }
-    return code + len;
+    return lengthCode[len];
   }
 
   private int d_code(int distance) {
-    int code = 0;
-    while (distance >= 4)
-      {
-        code += 2;
-        distance >>= 1;
-      }
-    return code + distance;
+    return distCode[distance < 256 ? distance : 256 + (distance >> 7)];
   }
 
   public void sendAllTrees(int blTreeCodes) {
@@ -669,6 +699,43 @@ class DeflaterHuffman
     reset();
   }
 
+  /**
+   * Copies the code lengths of a tree into a cost table.  Symbols that
+   * did not occur get a cost higher than all others.
+   */
+  private static void saveCosts(byte[] length, byte[] cost)
+  {
+    int max = 0;
+    for (int i = 0; i < length.length; i++)
+      max = Math.max(max, length[i]);
+    for (int i = 0; i < length.length; i++)
+      cost[i] = length[i] != 0 ? length[i] : (byte) (max + 1);
+  }
+
+  /**
+   * Estimates the number of bits needed for a literal.
+   */
+  public final int literalCost(int lit)
+  {
+    return literalCost[lit];
+  }
+
+  /**
+   * Estimates the number of bits needed for a match, extra bits
+   * included.
+   */
+  public final int matchCost(int dist, int len)
+  {
+    int lc = l_code(len - 3);
+    int dc = d_code(dist - 1);
+    int cost = literalCost[lc] + distCost[dc];
+    if (lc >= 265 && lc < 285)
+      cost += (lc - 261) / 4;
+    if (dc >= 4)
+      cost += dc / 2 - 1;
+    return cost;
+  }
+
   public void flushBlock(byte[] stored, int stored_offset, int stored_len,
                          boolean lastBlock) {
     literalTree.freqs[EOF_SYMBOL]++;
@@ -676,6 +743,8 @@ class DeflaterHuffman
     /* Build trees */
     literalTree.buildTree();
     distTree.buildTree();
+    saveCosts(literalTree.length, literalCost);
+    saveCosts(distTree.length, distCost);
 
     /* Calculate bitlen frequency */
     literalTree.calcBLFreq(blTree);
@@ -739,6 +808,15 @@ class DeflaterHuffman
     return last_lit == BUFSIZE;
   }
 
+  /**
+   * Returns true if fewer than count more symbols fit into the
+   * current block.
+   */
+  public final boolean isFull(int count)
+  {
+    return last_lit + count > BUFSIZE;
+  }
+
   public final boolean tallyLit(int lit)
   {
     if (DeflaterConstants.DEBUGGING)
@@ -319,7 +319,26 @@ public class Inflater
       {
         if (outputWindow.getAvailable() == 0)
           {
-            if (!decode())
+            if (mode == DECODE_STORED && uncomprLen > 0 && len > 0)
+              {
+                /* Stored data goes straight to the caller; the window
+                 * only keeps a copy of its tail as history.
+                 */
+                int more = input.copyBytes(buf, off,
+                                           Math.min(len, uncomprLen));
+                if (more == 0)
+                  break;
+                outputWindow.copyHistory(buf, off, more);
+                uncomprLen -= more;
+                if (uncomprLen == 0)
+                  mode = DECODE_BLOCKS;
+                adler.update(buf, off, more);
+                off += more;
+                count += more;
+                totalOut += more;
+                len -= more;
+              }
+            else if (!decode())
               break;
           }
         else if (len > 0)
@@ -497,6 +516,167 @@ public class Inflater
     return false;
   }
 
+  /**
+   * Decodes literals and matches as long as the input window holds
+   * enough bytes for any complete match (at most 48 bits) and the
+   * output window has room for the longest one.  The bit buffer and
+   * both window positions are kept in locals and the table lookups
+   * are done inline.  Near the end of the input, where a code may be
+   * split between two calls of setInput(), decodeHuffman() takes over.
+   * @return true if the end of the block was reached.
+   * @exception DataFormatException if deflated stream is invalid.
+   */
+  private boolean decodeFast () throws DataFormatException
+  {
+    StreamManipulator in = input;
+    byte[] inbuf = in.window;
+    int inpos = in.window_start;
+    int inlimit = in.window_end - 8;
+    if (inpos > inlimit)
+      return false;
+    long bitbuf = in.buffer;
+    int bitcnt = in.bits_in_buffer;
+
+    byte[] out = outputWindow.window;
+    int outpos = outputWindow.window_end;
+    int filled = outputWindow.window_filled;
+    int outlimit = OutputWindow.WINDOW_SIZE - 258;
+
+    int[] ltable = litlenTree.table;
+    int lbits = litlenTree.rootBits;
+    int lmask = (1 << lbits) - 1;
+    int[] dtable = distTree.table;
+    int dbits = distTree.rootBits;
+    int dmask = (1 << dbits) - 1;
+
+    boolean endOfBlock = false;
+    while (inpos <= inlimit && filled <= outlimit)
+      {
+        if (bitcnt < 32)
+          {
+            bitbuf |= ((inbuf[inpos] & 0xff
+                        | (inbuf[inpos + 1] & 0xff) << 8
+                        | (inbuf[inpos + 2] & 0xff) << 16
+                        | (long) (inbuf[inpos + 3] & 0xff) << 24) << bitcnt);
+            inpos += 4;
+            bitcnt += 32;
+          }
+
+        int entry = ltable[(int) bitbuf & lmask];
+        if ((entry & InflaterHuffmanTree.SUBTABLE) != 0)
+          entry = ltable[(entry >>> 8) + ((int) (bitbuf >>> lbits)
+                                          & ((1 << (entry & 15)) - 1))];
+        int bits = entry & 15;
+        if (bits == 0)
+          throw new DataFormatException("invalid Huffman code");
+        bitbuf >>>= bits;
+        bitcnt -= bits;
+        int symbol = entry >>> 8;
+        if (symbol < 256)
+          {
+            out[outpos] = (byte) symbol;
+            outpos = (outpos + 1) & OutputWindow.WINDOW_MASK;
+            filled++;
+            continue;
+          }
+        if (symbol == 256)
+          {
+            endOfBlock = true;
+            break;
+          }
+
+        symbol -= 257;
+        if (symbol >= CPLENS.length)
+          throw new DataFormatException("Illegal rep length code");
+        bits = CPLEXT[symbol];
+        int length = CPLENS[symbol] + ((int) bitbuf & ((1 << bits) - 1));
+        bitbuf >>>= bits;
+        bitcnt -= bits;
+
+        if (bitcnt < 32)
+          {
+            bitbuf |= ((inbuf[inpos] & 0xff
+                        | (inbuf[inpos + 1] & 0xff) << 8
+                        | (inbuf[inpos + 2] & 0xff) << 16
+                        | (long) (inbuf[inpos + 3] & 0xff) << 24) << bitcnt);
+            inpos += 4;
+            bitcnt += 32;
+          }
+        entry = dtable[(int) bitbuf & dmask];
+        if ((entry & InflaterHuffmanTree.SUBTABLE) != 0)
+          entry = dtable[(entry >>> 8) + ((int) (bitbuf >>> dbits)
+                                          & ((1 << (entry & 15)) - 1))];
+        bits = entry & 15;
+        if (bits == 0)
+          throw new DataFormatException("invalid Huffman code");
+        bitbuf >>>= bits;
+        bitcnt -= bits;
+        symbol = entry >>> 8;
+        if (symbol >= CPDIST.length)
+          throw new DataFormatException("Illegal rep dist code");
+        bits = CPDEXT[symbol];
+        int dist = CPDIST[symbol] + ((int) bitbuf & ((1 << bits) - 1));
+        bitbuf >>>= bits;
+        bitcnt -= bits;
+
+        filled += length;
+        int from = (outpos - dist) & OutputWindow.WINDOW_MASK;
+        if (from + length <= OutputWindow.WINDOW_SIZE
+            && outpos + length <= OutputWindow.WINDOW_SIZE)
+          {
+            if (length <= dist)
+              System.arraycopy(out, from, out, outpos, length);
+            else if (length < 32)
+              {
+                /* The repeat pattern overlaps, copy byte by byte. */
+                int end = outpos + length;
+                for (int i = outpos; i < end; i++)
+                  out[i] = out[from++];
+              }
+            else
+              {
+                /* Long overlapping repeat: each piece copies the whole
+                 * pattern written so far, so the pieces double in size.
+                 */
+                int to = outpos;
+                int end = outpos + length;
+                for (int n = dist; to + n < end; n <<= 1)
+                  {
+                    System.arraycopy(out, from, out, to, n);
+                    to += n;
+                  }
+                System.arraycopy(out, from, out, to, end - to);
+              }
+            outpos = (outpos + length) & OutputWindow.WINDOW_MASK;
+          }
+        else
+          {
+            while (length-- > 0)
+              {
+                out[outpos] = out[from];
+                outpos = (outpos + 1) & OutputWindow.WINDOW_MASK;
+                from = (from + 1) & OutputWindow.WINDOW_MASK;
+              }
+          }
+      }
+
+    /* Give back the whole bytes fetched ahead, so that they count as
+     * remaining input again.  Only bytes taken from this window may be
+     * returned; the buffer may still hold some from the previous one.
+     */
+    int ahead = Math.min(bitcnt >> 3, inpos - in.window_start);
+    inpos -= ahead;
+    bitcnt -= ahead << 3;
+    bitbuf &= (1L << bitcnt) - 1;
+
+    in.window_start = inpos;
+    in.buffer = bitbuf;
+    in.bits_in_buffer = bitcnt;
+    outputWindow.window_end = outpos;
+    outputWindow.window_filled = filled;
+    return endOfBlock;
+  }
+
   /**
    * Decodes the huffman encoded symbols in the input stream.
    * @return false if more input is needed, true if output window is
@@ -512,12 +692,21 @@ public class Inflater
         switch (mode)
           {
           case DECODE_HUFFMAN:
-            /* This is the inner loop so it is optimized a bit */
-            while (((symbol = litlenTree.getSymbol(input)) & ~0xff) == 0)
+            /* The inner loop is decodeFast(); only the symbols it
+             * leaves over at the end of the input are decoded here,
+             * one at a time.
+             */
+            boolean endOfBlock = decodeFast();
+            free = outputWindow.getFreeSpace();
+            if (endOfBlock)
+              symbol = 256;
+            else if (free < 258)
+              return true;
+            else if (((symbol = litlenTree.getSymbol(input)) & ~0xff) == 0)
               {
                 outputWindow.write(symbol);
-                if (--free < 258)
-                  return true;
+                free--;
+                break;
               }
             if (symbol < 257)
               {
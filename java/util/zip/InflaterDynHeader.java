@@ -117,7 +117,8 @@ class InflaterDynHeader
                 blLens[BL_ORDER[ptr]] = (byte) len;
                 ptr++;
               }
-            blTree = new InflaterHuffmanTree(blLens);
+            blTree = new InflaterHuffmanTree
+              (blLens, InflaterHuffmanTree.DIST_ROOT_BITS);
             blLens = null;
             ptr = 0;
             mode = LENS;
@@ -191,13 +192,15 @@ class InflaterDynHeader
   {
     byte[] litlenLens = new byte[lnum];
     System.arraycopy(litdistLens, 0, litlenLens, 0, lnum);
-    return new InflaterHuffmanTree(litlenLens);
+    return new InflaterHuffmanTree(litlenLens,
+                                   InflaterHuffmanTree.LITLEN_ROOT_BITS);
   }
 
   public InflaterHuffmanTree buildDistTree() throws DataFormatException
   {
     byte[] distLens = new byte[dnum];
     System.arraycopy(litdistLens, lnum, distLens, 0, dnum);
-    return new InflaterHuffmanTree(distLens);
+    return new InflaterHuffmanTree(distLens,
+                                   InflaterHuffmanTree.DIST_ROOT_BITS);
   }
 }
@@ -41,7 +41,31 @@ class InflaterHuffmanTree
 {
   private static final int MAX_BITLEN = 15;
 
-  private short[] tree;
+  /** The root table size for literal/length trees, in bits. */
+  static final int LITLEN_ROOT_BITS = 10;
+  /** The root table size for distance and bit length trees, in bits. */
+  static final int DIST_ROOT_BITS = 8;
+
+  /** Flags a table entry that points to a secondary table. */
+  static final int SUBTABLE = 0x80;
+
+  /**
+   * The decoding table.  The first <code>1 &lt;&lt; rootBits</code>
+   * entries are indexed by the next rootBits input bits, which is the
+   * code bit reversed.  An entry holds <code>symbol &lt;&lt; 8 |
+   * length</code>, where length is the full code length.  Codes longer
+   * than rootBits share a root entry <code>offset &lt;&lt; 8 | SUBTABLE
+   * | bits</code> instead; the following input bits index the
+   * secondary table of <code>1 &lt;&lt; bits</code> entries at offset.
+   * A zero entry marks an unused code.
+   */
+  final int[] table;
+
+  /** The number of input bits resolved by the root table. */
+  final int rootBits;
+
+  /** The length of the longest code. */
+  private final int maxBits;
 
   static InflaterHuffmanTree defLitLenTree, defDistTree;
 
@@ -59,13 +83,14 @@ class InflaterHuffmanTree
           codeLengths[i++] = 7;
         while (i < 288)
           codeLengths[i++] = 8;
-        defLitLenTree = new InflaterHuffmanTree(codeLengths);
+        defLitLenTree
+          = new InflaterHuffmanTree(codeLengths, LITLEN_ROOT_BITS);
 
         codeLengths = new byte[32];
         i = 0;
         while (i < 32)
           codeLengths[i++] = 5;
-        defDistTree = new InflaterHuffmanTree(codeLengths);
+        defDistTree = new InflaterHuffmanTree(codeLengths, DIST_ROOT_BITS);
       }
     catch (DataFormatException ex)
       {
@@ -78,13 +103,10 @@ class InflaterHuffmanTree
    * Constructs a Huffman tree from the array of code lengths.
    *
    * @param codeLengths the array of code lengths
+   * @param maxRootBits the maximum size of the root table in bits
    */
-  InflaterHuffmanTree(byte[] codeLengths) throws DataFormatException
-  {
-    buildTree(codeLengths);
-  }
-
-  private void buildTree(byte[] codeLengths) throws DataFormatException
+  InflaterHuffmanTree(byte[] codeLengths, int maxRootBits)
+    throws DataFormatException
   {
     int[] blCount = new int[MAX_BITLEN+1];
     int[] nextCode = new int[MAX_BITLEN+1];
@@ -97,40 +119,55 @@ class InflaterHuffmanTree
 
     int max = 0;
     int code = 0;
-    int treeSize = 512;
     for (int bits = 1; bits <= MAX_BITLEN; bits++)
       {
         nextCode[bits] = code;
         if (blCount[bits] > 0)
           max = bits;
         code += blCount[bits] << (16 - bits);
-        if (bits >= 10)
-          {
-            /* We need an extra table for bit lengths >= 10. */
-            int start = nextCode[bits] & 0x1ff80;
-            int end   = code & 0x1ff80;
-            treeSize += (end - start) >> (16 - bits);
-          }
       }
-    if (code != 65536 && max > 1)
+    if (code > 65536 || (code != 65536 && max > 1))
       throw new DataFormatException("incomplete dynamic bit lengths tree");
 
-    /* Now create and fill the extra tables from longest to shortest
-     * bit len.  This way the sub trees will be aligned.
+    maxBits = max;
+    rootBits = Math.min(max, maxRootBits);
+    int rootSize = 1 << rootBits;
+    int rootMask = rootSize - 1;
+
+    /* Codes longer than rootBits are grouped by their first rootBits
+     * bits; each group gets a secondary table that is as large as its
+     * longest code requires.
      */
-    tree = new short[treeSize];
-    int treePtr = 512;
-    for (int bits = MAX_BITLEN; bits >= 10; bits--)
+    int[] subBits = null;
+    int tableSize = rootSize;
+    if (max > rootBits)
       {
-        int end   = code & 0x1ff80;
-        code -= blCount[bits] << (16 - bits);
-        int start = code & 0x1ff80;
-        for (int i = start; i < end; i += 1 << 7)
+        subBits = new int[rootSize];
+        code = nextCode[rootBits + 1];
+        for (int bits = rootBits + 1; bits <= max; bits++)
           {
-            tree[DeflaterHuffman.bitReverse(i)]
-              = (short) ((-treePtr << 4) | bits);
-            treePtr += 1 << (bits-9);
+            for (int n = blCount[bits]; n > 0; n--)
+              {
+                int root = DeflaterHuffman.bitReverse(code) & rootMask;
+                subBits[root] = bits - rootBits;
+                code += 1 << (16 - bits);
+              }
           }
+        for (int root = 0; root < rootSize; root++)
+          if (subBits[root] > 0)
+            tableSize += 1 << subBits[root];
+      }
+
+    table = new int[tableSize];
+    if (subBits != null)
+      {
+        int offset = rootSize;
+        for (int root = 0; root < rootSize; root++)
+          if (subBits[root] > 0)
+            {
+              table[root] = (offset << 8) | SUBTABLE | subBits[root];
+              offset += 1 << subBits[root];
+            }
       }
 
     for (int i = 0; i < codeLengths.length; i++)
@@ -138,30 +175,23 @@ class InflaterHuffmanTree
         int bits = codeLengths[i];
         if (bits == 0)
           continue;
-        code = nextCode[bits];
-        int revcode = DeflaterHuffman.bitReverse(code);
-        if (bits <= 9)
+        int revcode = DeflaterHuffman.bitReverse(nextCode[bits]) & 0xffff;
+        nextCode[bits] += 1 << (16 - bits);
+        int entry = (i << 8) | bits;
+        if (bits <= rootBits)
           {
-            do
-              {
-                tree[revcode] = (short) ((i << 4) | bits);
-                revcode += 1 << bits;
-              }
-            while (revcode < 512);
+            for (int j = revcode; j < rootSize; j += 1 << bits)
+              table[j] = entry;
           }
         else
           {
-            int subTree = tree[revcode & 511];
-            int treeLen = 1 << (subTree & 15);
-            subTree = -(subTree >> 4);
-            do
-              {
-                tree[subTree | (revcode >> 9)] = (short) ((i << 4) | bits);
-                revcode += 1 << bits;
-              }
-            while (revcode < treeLen);
+            int link = table[revcode & rootMask];
+            int offset = link >>> 8;
+            int subSize = 1 << (link & 15);
+            for (int j = revcode >>> rootBits; j < subSize;
+                 j += 1 << (bits - rootBits))
+              table[offset + j] = entry;
           }
-        nextCode[bits] = code + (1 << (16 - bits));
       }
   }
 
@@ -173,48 +203,26 @@ class InflaterHuffmanTree
    */
   int getSymbol(StreamManipulator input) throws DataFormatException
   {
-    int lookahead, symbol;
-    if ((lookahead = input.peekBits(9)) >= 0)
+    int avail = maxBits;
+    int lookahead = input.peekBits(avail);
+    if (lookahead < 0)
       {
-        if ((symbol = tree[lookahead]) >= 0)
-          {
-            input.dropBits(symbol & 15);
-            return symbol >> 4;
-          }
-        int subtree = -(symbol >> 4);
-        int bitlen = symbol & 15;
-        if ((lookahead = input.peekBits(bitlen)) >= 0)
-          {
-            symbol = tree[subtree | (lookahead >> 9)];
-            input.dropBits(symbol & 15);
-            return symbol >> 4;
-          }
-        else
-          {
-            int bits = input.getAvailableBits();
-            lookahead = input.peekBits(bits);
-            symbol = tree[subtree | (lookahead >> 9)];
-            if ((symbol & 15) <= bits)
-              {
-                input.dropBits(symbol & 15);
-                return symbol >> 4;
-              }
-            else
-              return -1;
-          }
-      }
-    else
-      {
-        int bits = input.getAvailableBits();
-        lookahead = input.peekBits(bits);
-        symbol = tree[lookahead];
-        if (symbol >= 0 && (symbol & 15) <= bits)
-          {
-            input.dropBits(symbol & 15);
-            return symbol >> 4;
-          }
-        else
-          return -1;
+        /* Near the end of the input; the code may still be shorter
+         * than the bits we have.
+         */
+        avail = input.getAvailableBits();
+        lookahead = input.peekBits(avail);
       }
+    int entry = table[lookahead & ((1 << rootBits) - 1)];
+    if ((entry & SUBTABLE) != 0)
+      entry = table[(entry >>> 8)
+                    + ((lookahead >>> rootBits) & ((1 << (entry & 15)) - 1))];
+    int bits = entry & 15;
+    if (bits == 0)
+      throw new DataFormatException("invalid Huffman code");
+    if (bits > avail)
+      return -1;
+    input.dropBits(bits);
+    return entry >>> 8;
   }
 }
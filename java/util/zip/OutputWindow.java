@@ -48,12 +48,13 @@ package java.util.zip;
  */
 class OutputWindow
 {
-  private static final int WINDOW_SIZE = 1 << 15;
-  private static final int WINDOW_MASK = WINDOW_SIZE - 1;
+  static final int WINDOW_SIZE = 1 << 15;
+  static final int WINDOW_MASK = WINDOW_SIZE - 1;
 
-  private byte[] window = new byte[WINDOW_SIZE]; //The window is 2^15 bytes
-  private int window_end  = 0;
-  private int window_filled = 0;
+  /* These are accessed directly by Inflater.decodeFast(). */
+  final byte[] window = new byte[WINDOW_SIZE]; //The window is 2^15 bytes
+  int window_end  = 0;
+  int window_filled = 0;
 
   public void write(int abyte)
   {
@@ -134,6 +135,33 @@ class OutputWindow
     window_end = len & WINDOW_MASK;
   }
 
+  /**
+   * Records bytes that were inflated straight into the caller's
+   * buffer.  They are kept as history for later back references only
+   * and are not counted as available output.  The window must be
+   * empty.
+   */
+  public void copyHistory(byte[] buf, int offset, int len)
+  {
+    if (window_filled > 0)
+      throw new IllegalStateException();
+
+    if (len > WINDOW_SIZE)
+      {
+        offset += len - WINDOW_SIZE;
+        len = WINDOW_SIZE;
+      }
+    int tailLen = WINDOW_SIZE - window_end;
+    if (len > tailLen)
+      {
+        System.arraycopy(buf, offset, window, window_end, tailLen);
+        System.arraycopy(buf, offset + tailLen, window, 0, len - tailLen);
+      }
+    else
+      System.arraycopy(buf, offset, window, window_end, len);
+    window_end = (window_end + len) & WINDOW_MASK;
+  }
+
   public int getFreeSpace()
   {
     return WINDOW_SIZE - window_filled;
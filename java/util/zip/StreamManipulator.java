@@ -41,44 +41,65 @@ package java.util.zip;
  * This class allows us to retrieve a specified amount of bits from
  * the input buffer, as well as copy big byte blocks.
  *
- * It uses an int buffer to store up to 31 bits for direct
- * manipulation.  This guarantees that we can get at least 16 bits,
- * but we only need at most 15, so this is all safe.
+ * It uses a long buffer to store up to 64 bits for direct
+ * manipulation.  A peek only moves as many whole input bytes into the
+ * buffer as it needs, so the bytes that have not been looked at stay
+ * in the input window and needsInput() and getAvailableBytes() agree
+ * with what can still be decoded.  The Inflater reads the fields
+ * directly in its fast decoding loop and gives back any whole bytes
+ * it fetched ahead.
  *
- * There are some optimizations in this class, for example, you must
- * never peek more then 8 bits more than needed, and you must first
- * peek bits before you may drop them.  This is not a general purpose
- * class but optimized for the behaviour of the Inflater.
+ * You must first peek bits before you may drop them.  This is not a
+ * general purpose class but optimized for the behaviour of the
+ * Inflater.
  *
  * @author John Leuner, Jochen Hoenicke
  */
 
 class StreamManipulator
 {
-  private byte[] window;
-  private int window_start = 0;
-  private int window_end = 0;
+  byte[] window;
+  int window_start = 0;
+  int window_end = 0;
 
-  private int buffer = 0;
-  private int bits_in_buffer = 0;
+  long buffer = 0;
+  int bits_in_buffer = 0;
+
+  /**
+   * Moves whole bytes from the input window to the bit buffer until
+   * it holds at least n bits or the window is empty.
+   */
+  private void fill(int n)
+  {
+    byte[] w = window;
+    int start = window_start;
+    int end = window_end;
+    long buf = buffer;
+    int bits = bits_in_buffer;
+    while (bits < n && start < end)
+      {
+        buf |= (long) (w[start++] & 0xff) << bits;
+        bits += 8;
+      }
+    window_start = start;
+    buffer = buf;
+    bits_in_buffer = bits;
+  }
 
   /**
    * Get the next n bits but don't increase input pointer.  n must be
-   * less or equal 16 and if you if this call succeeds, you must drop
-   * at least n-8 bits in the next call.
+   * less or equal 16.
    *
    * @return the value of the bits, or -1 if not enough bits available.  */
   public final int peekBits(int n)
   {
     if (bits_in_buffer < n)
       {
-        if (window_start == window_end)
+        fill(n);
+        if (bits_in_buffer < n)
           return -1;
-        buffer |= (window[window_start++] & 0xff
-                   | (window[window_start++] & 0xff) << 8) << bits_in_buffer;
-        bits_in_buffer += 16;
       }
-    return buffer & ((1 << n) - 1);
+    return (int) buffer & ((1 << n) - 1);
   }
 
   /* Drops the next n bits from the input.  You should have called peekBits
@@ -127,7 +148,7 @@ class StreamManipulator
    */
   public void skipToByteBoundary()
   {
-    buffer >>= (bits_in_buffer & 7);
+    buffer >>>= (bits_in_buffer & 7);
     bits_in_buffer &= ~7;
   }
 
@@ -148,7 +169,6 @@ class StreamManipulator
     if (length < 0)
       throw new IllegalArgumentException("length negative");
     if ((bits_in_buffer & 7) != 0)
-      /* bits_in_buffer may only be 0 or 8 */
       throw new IllegalStateException("Bit buffer is not aligned!");
 
     int count = 0;
@@ -168,13 +188,6 @@ class StreamManipulator
       length = avail;
     System.arraycopy(window, window_start, output, offset, length);
     window_start += length;
-
-    if (((window_start - window_end) & 1) != 0)
-      {
-        /* We always want an even number of bytes in input, see peekBits */
-        buffer = (window[window_start++] & 0xff);
-        bits_in_buffer = 8;
-      }
     return count + length;
   }
 
@@ -184,7 +197,8 @@ class StreamManipulator
 
   public void reset()
   {
-    window_start = window_end = buffer = bits_in_buffer = 0;
+    window_start = window_end = bits_in_buffer = 0;
+    buffer = 0;
   }
 
   public void setInput(byte[] buf, int off, int len)
@@ -201,13 +215,6 @@ class StreamManipulator
     if (0 > off || off > end || end > buf.length)
       throw new ArrayIndexOutOfBoundsException();
 
-    if ((len & 1) != 0)
-      {
-        /* We always want an even number of bytes in input, see peekBits */
-        buffer |= (buf[off++] & 0xff) << bits_in_buffer;
-        bits_in_buffer += 8;
-      }
-
     window = buf;
     window_start = off;
     window_end = end;
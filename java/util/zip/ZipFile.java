@@ -47,13 +47,13 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
-import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.util.Enumeration;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.util.NoSuchElementException;
 
 /**
  * This class represents a Zip archive.  You can ask for the contained
@@ -63,6 +63,11 @@ import java.util.LinkedHashMap;
  * This class is thread safe:  You can open input streams for arbitrary
  * entries in different threads.
  *
+ * The file is mapped into memory when possible.  Opening it only
+ * indexes the names in the central directory; ZipEntry objects are
+ * created when they are asked for, and entry data is read straight
+ * from the mapping.
+ *
  * @author Jochen Hoenicke
  * @author Artur Biesiadowski
  */
@@ -90,10 +95,12 @@ public class ZipFile implements ZipConstants
   // File from which zip entries are read.
   private final RandomAccessFile raf;
 
-  // The entries of this zip file when initialized and not yet closed.
-  private LinkedHashMap<String, ZipEntry> entries;
+  // The central directory of this zip file when initialized and not
+  // yet closed.
+  private Directory entries;
 
-  private boolean closed = false;
+  // Read without the lock by the streams of mapped entries.
+  private volatile boolean closed = false;
 
 
   /**
@@ -249,53 +256,46 @@ public class ZipFile implements ZipConstants
     if (inp.skip(ENDTOT - ENDNRD) != ENDTOT - ENDNRD)
       throw new EOFException(name);
     int count = inp.readLeShort();
-    if (inp.skip(ENDOFF - ENDSIZ) != ENDOFF - ENDSIZ)
-      throw new EOFException(name);
+    int centralSize = inp.readLeInt();
     int centralOffset = inp.readLeInt();
+    long length = raf.length();
+    if (centralOffset < 0 || centralSize < 0
+        || (long) centralOffset + centralSize > length)
+      throw new ZipException("Central Directory out of range: " + name);
 
-    entries = new LinkedHashMap<String, ZipEntry> (count+count/2);
-    inp.seek(centralOffset);
-
-    for (int i = 0; i < count; i++)
+    ByteBuffer map = null;
+    if (length <= Integer.MAX_VALUE)
       {
-        if (inp.readLeInt() != CENSIG)
-          throw new ZipException("Wrong Central Directory signature: " + name);
-
-        inp.skip(4);
-        int flags = inp.readLeShort();
-        if ((flags & 1) != 0)
-          throw new ZipException("invalid CEN header (encrypted entry)");
-        int method = inp.readLeShort();
-        int dostime = inp.readLeInt();
-        int crc = inp.readLeInt();
-        int csize = inp.readLeInt();
-        int size = inp.readLeInt();
-        int nameLen = inp.readLeShort();
-        int extraLen = inp.readLeShort();
-        int commentLen = inp.readLeShort();
-        inp.skip(8);
-        int offset = inp.readLeInt();
-        String name = inp.readString(nameLen);
-
-        ZipEntry entry = new ZipEntry(name);
-        entry.setMethod(method);
-        entry.setCrc(crc & 0xffffffffL);
-        entry.setSize(size & 0xffffffffL);
-        entry.setCompressedSize(csize & 0xffffffffL);
-        entry.setDOSTime(dostime);
-        if (extraLen > 0)
+        try
           {
-            byte[] extra = new byte[extraLen];
-            inp.readFully(extra);
-            entry.setExtra(extra);
+            map = raf.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                                       0, length);
+            map.order(ByteOrder.LITTLE_ENDIAN);
           }
-        if (commentLen > 0)
+        catch (IOException ioe)
           {
-            entry.setComment(inp.readString(commentLen));
+            // Fall back to reading through raf.
           }
-        entry.offset = offset;
-        entries.put(name, entry);
       }
+
+    ByteBuffer cen;
+    if (map != null)
+      {
+        cen = map.duplicate();
+        cen.limit(centralOffset + centralSize);
+        cen.position(centralOffset);
+        cen = cen.slice();
+      }
+    else
+      {
+        byte[] buf = new byte[centralSize];
+        inp.seek(centralOffset);
+        inp.readFully(buf);
+        cen = ByteBuffer.wrap(buf);
+      }
+    cen.order(ByteOrder.LITTLE_ENDIAN);
+
+    entries = new Directory(cen, map, count, name);
   }
 
   /**
@@ -339,7 +339,7 @@ public class ZipFile implements ZipConstants
 
     try
       {
-        return new ZipEntryEnumeration(getEntries().values().iterator());
+        return new ZipEntryEnumeration(getEntries());
       }
     catch (IOException ioe)
       {
@@ -353,7 +353,7 @@ public class ZipFile implements ZipConstants
    * @exception IllegalStateException when the ZipFile has already been closed.
    * @exception IOException when the entries could not be read.
    */
-  private LinkedHashMap<String, ZipEntry> getEntries() throws IOException
+  private Directory getEntries() throws IOException
   {
     synchronized(raf)
       {
@@ -381,12 +381,12 @@ public class ZipFile implements ZipConstants
 
     try
       {
-        LinkedHashMap<String, ZipEntry> entries = getEntries();
-        ZipEntry entry = entries.get(name);
+        Directory entries = getEntries();
+        int index = entries.find(name, false);
         // If we didn't find it, maybe it's a directory.
-        if (entry == null && !name.endsWith("/"))
-          entry = entries.get(name + '/');
-        return entry != null ? new ZipEntry(entry, name) : null;
+        if (index < 0 && !name.endsWith("/"))
+          index = entries.find(name, true);
+        return index >= 0 ? entries.getEntry(index, name) : null;
       }
     catch (IOException ioe)
       {
@@ -420,38 +420,70 @@ public class ZipFile implements ZipConstants
   {
     checkClosed();
 
-    LinkedHashMap<String, ZipEntry> entries = getEntries();
+    Directory entries = getEntries();
     String name = entry.getName();
-    ZipEntry zipEntry = entries.get(name);
-    if (zipEntry == null)
+    int index = entries.find(name, false);
+    if (index < 0)
       return null;
 
-    PartialInputStream inp = new PartialInputStream(raf, 1024);
-    inp.seek(zipEntry.offset);
+    int header = entries.headers[index];
+    long offset = entries.cen.getInt(header + CENOFF) & 0xffffffffL;
+    int method = entries.cen.getShort(header + CENHOW) & 0xffff;
+    long csize = entries.cen.getInt(header + CENSIZ) & 0xffffffffL;
+
+    InputStream inp;
+    ByteBuffer map = entries.map;
+    if (map != null)
+      {
+        if (offset + LOCHDR > map.limit()
+            || map.getInt((int) offset) != LOCSIG)
+          throw new ZipException("Wrong Local header signature: " + name);
+
+        if (method != (map.getShort((int) offset + LOCHOW) & 0xffff))
+          throw new ZipException("Compression method mismatch: " + name);
+
+        int nameLen = map.getShort((int) offset + LOCNAM) & 0xffff;
+        int extraLen = map.getShort((int) offset + LOCEXT) & 0xffff;
+        long start = offset + LOCHDR + nameLen + extraLen;
+        if (start + csize > map.limit())
+          throw new ZipException("Entry data out of range: " + name);
+
+        MappedInputStream min
+          = new MappedInputStream(this, map, (int) start, (int) csize);
+        if (method == ZipOutputStream.DEFLATED)
+          min.addDummyByte();
+        inp = min;
+      }
+    else
+      {
+        PartialInputStream pin = new PartialInputStream(raf, 1024);
+        pin.seek(offset);
 
-    if (inp.readLeInt() != LOCSIG)
-      throw new ZipException("Wrong Local header signature: " + name);
+        if (pin.readLeInt() != LOCSIG)
+          throw new ZipException("Wrong Local header signature: " + name);
 
-    inp.skip(4);
+        pin.skip(4);
 
-    if (zipEntry.getMethod() != inp.readLeShort())
-      throw new ZipException("Compression method mismatch: " + name);
+        if (method != pin.readLeShort())
+          throw new ZipException("Compression method mismatch: " + name);
 
-    inp.skip(16);
+        pin.skip(16);
 
-    int nameLen = inp.readLeShort();
-    int extraLen = inp.readLeShort();
-    inp.skip(nameLen + extraLen);
+        int nameLen = pin.readLeShort();
+        int extraLen = pin.readLeShort();
+        pin.skip(nameLen + extraLen);
 
-    inp.setLength(zipEntry.getCompressedSize());
+        pin.setLength(csize);
+        if (method == ZipOutputStream.DEFLATED)
+          pin.addDummyByte();
+        inp = pin;
+      }
 
-    int method = zipEntry.getMethod();
     switch (method)
       {
       case ZipOutputStream.STORED:
         return inp;
       case ZipOutputStream.DEFLATED:
-        inp.addDummyByte();
         final Inflater inf = new Inflater(true);
         final int sz = (int) entry.getSize();
         return new InflaterInputStream(inp, inf)
@@ -489,7 +521,7 @@ public class ZipFile implements ZipConstants
 
     try
       {
-        return getEntries().size();
+        return getEntries().size;
       }
     catch (IOException ioe)
       {
@@ -497,41 +529,366 @@ public class ZipFile implements ZipConstants
       }
   }
 
+  /**
+   * The central directory of a zip file, indexed by entry name.
+   * The headers stay in the buffer they were read or mapped into
+   * and a ZipEntry is only created when one is asked for.  The
+   * index is an open addressed hash table of positions of headers,
+   * which takes a few ints per entry instead of a ZipEntry.
+   */
+  private static final class Directory
+  {
+    /**
+     * The UTF-8 charset use for decoding the filenames.
+     */
+    private static final Charset UTF8CHARSET = Charset.forName("UTF-8");
+
+    /** The central directory headers, in little endian byte order. */
+    final ByteBuffer cen;
+
+    /** The whole zip file, or null if it could not be mapped. */
+    final ByteBuffer map;
+
+    /**
+     * The positions in cen of the headers, in the order of the central
+     * directory.  -1 for an entry superseded by a later one with the
+     * same name.
+     */
+    final int[] headers;
+
+    /** The hash codes of the entry names, as String.hashCode(). */
+    private final int[] hashes;
+
+    /** Indexes into headers plus one, 0 for an empty slot. */
+    private final int[] table;
+
+    /** The number of distinct entry names. */
+    final int size;
+
+    Directory(ByteBuffer cen, ByteBuffer map, int count, String zipName)
+      throws IOException
+    {
+      this.cen = cen;
+      this.map = map;
+      headers = new int[count];
+      hashes = new int[count];
+      int capacity = 2;
+      while (capacity < count + count / 2)
+        capacity <<= 1;
+      table = new int[capacity];
+
+      int size = 0;
+      int pos = 0;
+      for (int i = 0; i < count; i++)
+        {
+          if (pos + CENHDR > cen.limit() || cen.getInt(pos) != CENSIG)
+            throw new ZipException("Wrong Central Directory signature: "
+                                   + zipName);
+
+          int flags = cen.getShort(pos + CENFLG) & 0xffff;
+          if ((flags & 1) != 0)
+            throw new ZipException("invalid CEN header (encrypted entry)");
+          int nameLen = cen.getShort(pos + CENNAM) & 0xffff;
+          int extraLen = cen.getShort(pos + CENEXT) & 0xffff;
+          int commentLen = cen.getShort(pos + CENCOM) & 0xffff;
+          int next = pos + CENHDR + nameLen + extraLen + commentLen;
+          if (next > cen.limit())
+            throw new EOFException(zipName);
+          // Names are decoded by hash(), check comments decode as well.
+          if (commentLen > 0)
+            hash(pos + CENHDR + nameLen + extraLen, commentLen);
+
+          headers[i] = pos;
+          int hash = hash(pos + CENHDR, nameLen);
+          hashes[i] = hash;
+          int slot = hash & (capacity - 1);
+          while (table[slot] != 0)
+            {
+              int other = table[slot] - 1;
+              if (hashes[other] == hash
+                  && sameName(headers[other], pos + CENHDR, nameLen))
+                {
+                  headers[other] = -1;
+                  size--;
+                  break;
+                }
+              slot = (slot + 1) & (capacity - 1);
+            }
+          table[slot] = i + 1;
+          size++;
+          pos = next;
+        }
+      this.size = size;
+    }
+
+    /**
+     * Returns the hash code of the String decoded from the given
+     * bytes of cen.
+     */
+    private int hash(int pos, int length) throws IOException
+    {
+      int h = 0;
+      for (int i = 0; i < length; i++)
+        {
+          byte b = cen.get(pos + i);
+          if (b < 0)
+            return decodeName(pos, length).hashCode();
+          h = 31 * h + b;
+        }
+      return h;
+    }
+
+    /**
+     * Returns true if the name of the entry with the given header is
+     * made up of the given bytes of cen.
+     */
+    private boolean sameName(int header, int pos, int length)
+    {
+      if ((cen.getShort(header + CENNAM) & 0xffff) != length)
+        return false;
+      for (int i = 0; i < length; i++)
+        if (cen.get(header + CENHDR + i) != cen.get(pos + i))
+          return false;
+      return true;
+    }
+
+    /**
+     * Returns the index of the entry with the given name, or with the
+     * given name followed by a slash if slash is true, or -1 if there
+     * is no such entry.
+     */
+    int find(String name, boolean slash) throws IOException
+    {
+      int hash = name.hashCode();
+      if (slash)
+        hash = 31 * hash + '/';
+      int mask = table.length - 1;
+      for (int slot = hash & mask; table[slot] != 0; slot = (slot + 1) & mask)
+        {
+          int i = table[slot] - 1;
+          if (hashes[i] == hash && nameEquals(headers[i], name, slash))
+            return i;
+        }
+      return -1;
+    }
+
+    private boolean nameEquals(int header, String name, boolean slash)
+      throws IOException
+    {
+      int nameLen = cen.getShort(header + CENNAM) & 0xffff;
+      int pos = header + CENHDR;
+      int length = name.length();
+      for (int i = 0; i < nameLen; i++)
+        {
+          byte b = cen.get(pos + i);
+          if (b < 0)
+            {
+              String s = decodeName(pos, nameLen);
+              return slash ? s.length() == length + 1 && s.endsWith("/")
+                             && s.startsWith(name)
+                           : s.equals(name);
+            }
+          char c = i < length ? name.charAt(i) : slash && i == length ? '/'
+                                                                      : 0;
+          if (c != b)
+            return false;
+        }
+      return nameLen == length + (slash ? 1 : 0);
+    }
+
+    /**
+     * Decodes a name or comment stored in cen as UTF-8.  Names are
+     * mostly plain ASCII, which is decoded without a CharsetDecoder.
+     */
+    String decodeName(int pos, int length) throws IOException
+    {
+      byte[] b = new byte[length];
+      boolean ascii = true;
+      for (int i = 0; i < length; i++)
+        {
+          b[i] = cen.get(pos + i);
+          if (b[i] < 0)
+            ascii = false;
+        }
+      if (ascii)
+        return new String(b, 0, 0, length);
+      CharsetDecoder utf8Decoder = UTF8CHARSET.newDecoder();
+      return utf8Decoder.decode(ByteBuffer.wrap(b)).toString();
+    }
+
+    /**
+     * Creates the ZipEntry for the entry with the given index.
+     *
+     * @param name the name of the entry, or null to use the name
+     * stored in the central directory.
+     */
+    ZipEntry getEntry(int index, String name) throws IOException
+    {
+      int pos = headers[index];
+      int nameLen = cen.getShort(pos + CENNAM) & 0xffff;
+      int extraLen = cen.getShort(pos + CENEXT) & 0xffff;
+      int commentLen = cen.getShort(pos + CENCOM) & 0xffff;
+      if (name == null)
+        name = decodeName(pos + CENHDR, nameLen);
+
+      ZipEntry entry = new ZipEntry(name);
+      entry.setMethod(cen.getShort(pos + CENHOW) & 0xffff);
+      entry.setCrc(cen.getInt(pos + CENCRC) & 0xffffffffL);
+      entry.setSize(cen.getInt(pos + CENLEN) & 0xffffffffL);
+      entry.setCompressedSize(cen.getInt(pos + CENSIZ) & 0xffffffffL);
+      entry.setDOSTime(cen.getInt(pos + CENTIM));
+      if (extraLen > 0)
+        {
+          byte[] extra = new byte[extraLen];
+          for (int i = 0; i < extraLen; i++)
+            extra[i] = cen.get(pos + CENHDR + nameLen + i);
+          entry.setExtra(extra);
+        }
+      if (commentLen > 0)
+        {
+          entry.setComment(decodeName(pos + CENHDR + nameLen + extraLen,
+                                      commentLen));
+        }
+      entry.offset = cen.getInt(pos + CENOFF);
+      return entry;
+    }
+  }
+
   private static class ZipEntryEnumeration implements Enumeration<ZipEntry>
   {
-    private final Iterator<ZipEntry> elements;
+    private final Directory entries;
+    private int index;
 
-    public ZipEntryEnumeration(Iterator<ZipEntry> elements)
+    public ZipEntryEnumeration(Directory entries)
     {
-      this.elements = elements;
+      this.entries = entries;
+      skipSuperseded();
+    }
+
+    private void skipSuperseded()
+    {
+      while (index < entries.headers.length && entries.headers[index] < 0)
+        index++;
     }
 
     public boolean hasMoreElements()
     {
-      return elements.hasNext();
+      return index < entries.headers.length;
     }
 
     public ZipEntry nextElement()
     {
-      /* We return a clone, just to be safe that the user doesn't
-       * change the entry.
+      if (index >= entries.headers.length)
+        throw new NoSuchElementException();
+
+      /* Every call creates a new entry, so the user cannot change the
+       * entries seen by others.
        */
-      return (ZipEntry) (elements.next().clone());
+      try
+        {
+          return entries.getEntry(index++, null);
+        }
+      catch (IOException ioe)
+        {
+          InternalError ie = new InternalError(ioe.getMessage());
+          ie.initCause(ioe);
+          throw ie;
+        }
+      finally
+        {
+          skipSuperseded();
+        }
     }
   }
 
-  private static final class PartialInputStream extends InputStream
+  /**
+   * Reads the data of an entry from the mapped zip file.  Like
+   * PartialInputStream it can supply a dummy byte after the data
+   * for the Inflater.
+   */
+  private static final class MappedInputStream extends InputStream
   {
-    /**
-     * The UTF-8 charset use for decoding the filenames.
-     */
-    private static final Charset UTF8CHARSET = Charset.forName("UTF-8");
+    private final ZipFile zip;
+    // A view of the mapping of its own, so that bulk reads can move
+    // its position without affecting other streams.
+    private final ByteBuffer map;
+    private int pos;
+    private final int end;
+    private int dummyByteCount;
 
-    /**
-     * The actual UTF-8 decoder. Created on demand.
-     */
-    private CharsetDecoder utf8Decoder;
+    MappedInputStream(ZipFile zip, ByteBuffer map, int start, int length)
+    {
+      this.zip = zip;
+      this.map = map.duplicate();
+      this.pos = start;
+      this.end = start + length;
+    }
+
+    private void checkOpen() throws IOException
+    {
+      if (zip.closed)
+        throw new IOException("ZipFile has closed: " + zip.name);
+    }
+
+    public int available()
+    {
+      return end - pos;
+    }
+
+    public int read() throws IOException
+    {
+      checkOpen();
+      if (pos >= end)
+        {
+          if (dummyByteCount == 0)
+            return -1;
+          dummyByteCount = 0;
+          return 0;
+        }
+      return map.get(pos++) & 0xFF;
+    }
+
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+      checkOpen();
+      if (off < 0 || len < 0 || off + len > b.length)
+        throw new IndexOutOfBoundsException();
+      if (len == 0)
+        return 0;
+      if (pos >= end)
+        {
+          if (dummyByteCount == 0)
+            return -1;
+          dummyByteCount = 0;
+          b[off] = 0;
+          return 1;
+        }
+
+      len = Math.min(len, end - pos);
+      map.position(pos);
+      map.get(b, off, len);
+      pos += len;
+      return len;
+    }
+
+    public long skip(long amount)
+    {
+      if (amount <= 0)
+        return 0;
+      if (amount > end - pos)
+        amount = end - pos;
+      pos += (int) amount;
+      return amount;
+    }
 
+    public void addDummyByte()
+    {
+      dummyByteCount = 1;
+    }
+  }
+
+  private static final class PartialInputStream extends InputStream
+  {
     private final RandomAccessFile raf;
     private final byte[] buffer;
     private long bufferOffset;
@@ -709,74 +1066,6 @@ public class ZipFile implements ZipConstants
       return result;
     }
 
-    /**
-     * Decode chars from byte buffer using UTF8 encoding.  This
-     * operation is performance-critical since a jar file contains a
-     * large number of strings for the name of each file in the
-     * archive.  This routine therefore avoids using the expensive
-     * utf8Decoder when decoding is straightforward.
-     *
-     * @param buffer the buffer that contains the encoded character
-     *        data
-     * @param pos the index in buffer of the first byte of the encoded
-     *        data
-     * @param length the length of the encoded data in number of
-     *        bytes.
-     *
-     * @return a String that contains the decoded characters.
-     */
-    private String decodeChars(byte[] buffer, int pos, int length)
-      throws IOException
-    {
-      String result;
-      int i=length - 1;
-      while ((i >= 0) && (buffer[i] <= 0x7f))
-        {
-          i--;
-        }
-      if (i < 0)
-        {
-          result = new String(buffer, 0, pos, length);
-        }
-      else
-        {
-          ByteBuffer bufferBuffer = ByteBuffer.wrap(buffer, pos, length);
-          if (utf8Decoder == null)
-            utf8Decoder = UTF8CHARSET.newDecoder();
-          utf8Decoder.reset();
-          char [] characters = utf8Decoder.decode(bufferBuffer).array();
-          result = String.valueOf(characters);
-        }
-      return result;
-    }
-
-    String readString(int length) throws IOException
-    {
-      if (length > end - (bufferOffset + pos))
-        throw new EOFException();
-
-      String result = null;
-      try
-        {
-          if (buffer.length - pos >= length)
-            {
-              result = decodeChars(buffer, pos, length);
-              pos += length;
-            }
-          else
-            {
-              byte[] b = new byte[length];
-              readFully(b);
-              result = decodeChars(b, 0, length);
-            }
-        }
-      catch (UnsupportedEncodingException uee)
-        {
-          throw new AssertionError(uee);
-        }
-      return result;
-    }
-
     public void addDummyByte()
     {
       dummyByteCount = 1;
@@ -44,6 +44,7 @@ package gnu.classpath.jdwp;
 import gnu.classpath.jdwp.exception.InvalidClassException;
 import gnu.classpath.jdwp.exception.InvalidObjectException;
 import gnu.classpath.jdwp.id.*;
+import gnu.java.util.primitive.LongObjectMap;
 
 import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
@@ -286,15 +287,16 @@ public class VMIdManager
   // Mapping of objects (ReferenceKey) to IDs (ObjectId)
   private Hashtable _oidTable;
 
-  // Mapping of ID numbers (Long) to IDs (ObjectId)
-  private Hashtable _idTable;
+  // Mapping of ID numbers to IDs (ObjectId); locked while used
+  private LongObjectMap<ObjectId> _idTable;
 
   /* Mapping of class (ReferenceKey) to IDs (ReferenceTypeId) for reference
      types. Unlike other types, reference id types are NEVER released. */
   private Hashtable _classTable;
 
-  // Mapping of ID numbers (Long) to reference type IDs (ReferenceTypeId)
-  private Hashtable _ridTable;
+  // Mapping of ID numbers to reference type IDs (ReferenceTypeId); locked
+  // while used
+  private LongObjectMap<ReferenceTypeId> _ridTable;
 
   /**
    * Gets the instance of VMIdManager, constructing a new one
@@ -310,9 +312,9 @@ public class VMIdManager
   {
     _refQueue = new ReferenceQueue ();
     _oidTable = new Hashtable (50);
-    _idTable = new Hashtable (50);
+    _idTable = new LongObjectMap<ObjectId> (50);
     _classTable = new Hashtable (20);
-    _ridTable = new Hashtable (20);
+    _ridTable = new LongObjectMap<ReferenceTypeId> (20);
   }
 
   // Updates the object ID table, removing IDs whose objects have
@@ -324,7 +326,10 @@ public class VMIdManager
       {
         ObjectId id = (ObjectId) _oidTable.get (ref);
         _oidTable.remove (ref);
-        _idTable.remove (new Long (id.getId ()));
+        synchronized (_idTable)
+          {
+            _idTable.remove (id.getId ());
+          }
       }
   }
 
@@ -351,7 +356,10 @@ public class VMIdManager
         // Object not found. Make new id for it
         id = IdFactory.newObjectId (ref);
         _oidTable.put (ref, id);
-        _idTable.put (new Long (id.getId ()), id);
+        synchronized (_idTable)
+          {
+            _idTable.put (id.getId (), id);
+          }
       }
 
     return id;
@@ -372,7 +380,11 @@ public class VMIdManager
     if (id == 0)
       return new NullObjectId ();
 
-    ObjectId oid = (ObjectId) _idTable.get (new Long (id));
+    ObjectId oid;
+    synchronized (_idTable)
+      {
+        oid = _idTable.get (id);
+      }
     if (oid == null)
       throw new InvalidObjectException (id);
 
@@ -402,7 +414,10 @@ public class VMIdManager
         // Object not found. Make new id for it
         id = IdFactory.newReferenceTypeId (ref);
         _classTable.put (ref, id);
-        _ridTable.put (new Long (id.getId ()), id);
+        synchronized (_ridTable)
+          {
+            _ridTable.put (id.getId (), id);
+          }
       }
 
     return id;
@@ -419,7 +434,11 @@ public class VMIdManager
   public ReferenceTypeId getReferenceType (long id)
     throws InvalidClassException
   {
-    ReferenceTypeId rid = (ReferenceTypeId) _ridTable.get (new Long (id));
+    ReferenceTypeId rid;
+    synchronized (_ridTable)
+      {
+        rid = _ridTable.get (id);
+      }
     if (rid == null)
       throw new InvalidClassException (id);
 
@@ -0,0 +1,158 @@
+/* VMStringInternMXBeanImpl.java - VM impl. of a string intern table bean
+   Copyright (C) 2026  Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+package gnu.java.lang.management;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+
+/**
+ * Provides statistics about the intern table of the reference
+ * java.lang.VMString.  The default implementation calls its
+ * package-private accessors by reflection.  VMs which keep their own
+ * intern table may replace this class.
+ *
+ * @since 1.6
+ */
+final class VMStringInternMXBeanImpl
+{
+
+  /**
+   * The accessors of java.lang.VMString, in the order size, capacity
+   * and misses, or null if the VM's VMString does not have them.
+   */
+  private static final Method[] accessors
+    = AccessController.doPrivileged(new PrivilegedAction<Method[]>()
+      {
+        public Method[] run()
+        {
+          String[] names = { "internTableSize", "internTableCapacity",
+                             "internMisses" };
+          Method[] methods = new Method[names.length];
+          try
+            {
+              Class<?> vmString = Class.forName("java.lang.VMString");
+              for (int i = 0; i < names.length; i++)
+                {
+                  methods[i] = vmString.getDeclaredMethod(names[i]);
+                  methods[i].setAccessible(true);
+                }
+            }
+          catch (ClassNotFoundException e)
+            {
+              return null;
+            }
+          catch (NoSuchMethodException e)
+            {
+              return null;
+            }
+          return methods;
+        }
+      });
+
+  private VMStringInternMXBeanImpl() {} // Prohibits instantiation.
+
+  /**
+   * Returns true if the VM provides intern table statistics.  If it
+   * does not, the other methods all return zero.
+   *
+   * @return true if the statistics are available.
+   */
+  static boolean isSupported()
+  {
+    return accessors != null;
+  }
+
+  /**
+   * Returns the number of entries in the intern table.
+   *
+   * @return the number of interned strings.
+   */
+  static int getSize()
+  {
+    if (accessors == null)
+      return 0;
+    return ((Integer) call(0)).intValue();
+  }
+
+  /**
+   * Returns the total number of buckets in the intern table.
+   *
+   * @return the capacity of the table.
+   */
+  static int getCapacity()
+  {
+    if (accessors == null)
+      return 0;
+    return ((Integer) call(1)).intValue();
+  }
+
+  /**
+   * Returns the number of intern calls which added a new string to
+   * the table.
+   *
+   * @return the number of intern misses.
+   */
+  static long getMissCount()
+  {
+    if (accessors == null)
+      return 0;
+    return ((Long) call(2)).longValue();
+  }
+
+  private static Object call(int accessor)
+  {
+    try
+      {
+        return accessors[accessor].invoke(null);
+      }
+    catch (IllegalAccessException e)
+      {
+        throw (Error)
+          new InternalError("Could not access intern table").initCause(e);
+      }
+    catch (InvocationTargetException e)
+      {
+        throw (Error)
+          new InternalError("Error calling intern table accessor").initCause(e);
+      }
+  }
+
+}
@@ -1,5 +1,5 @@
 /* VMString.java -- VM Specific String methods
-   Copyright (C) 2003, 2010  Free Software Foundation, Inc.
+   Copyright (C) 2003, 2010, 2026  Free Software Foundation, Inc.
 
 This file is part of GNU Classpath.
 
@@ -37,8 +37,10 @@ exception statement from your version. */
 
 package java.lang;
 
+import gnu.classpath.SystemProperties;
+
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
-import java.util.WeakHashMap;
 
 /*
  * This class is a reference version, mainly for compiling a class library
@@ -54,11 +56,40 @@ final class VMString
 {
 
   /**
-   * Holds the references for each intern()'d String. If all references to
-   * the string disappear, and the VM properly supports weak references,
-   * the String will be GC'd.
+   * The number of segments in the intern table, as a power of two.
    */
-  private static final WeakHashMap internTable = new WeakHashMap();
+  private static final int SEGMENT_SHIFT = 5;
+
+  /**
+   * The initial number of buckets in each segment, unless the
+   * gnu.java.lang.intern.capacity property sets the initial number of
+   * buckets of the whole table.
+   */
+  private static final int DEFAULT_SEGMENT_CAPACITY = 64;
+
+  /**
+   * The largest number of buckets in a segment.
+   */
+  private static final int MAXIMUM_SEGMENT_CAPACITY = 1 << 26;
+
+  /**
+   * Holds the references for each intern()'d String.  The table is split
+   * into independently locked segments, selected by the high bits of the
+   * hash, so that threads interning different strings rarely contend.
+   * Lookups of strings that are already interned take no lock at all.
+   * If all references to a string disappear, and the VM properly
+   * supports weak references, the String will be GC'd and its entry
+   * removed the next time its segment is modified.
+   */
+  private static final Segment[] segments;
+
+  static
+  {
+    segments = new Segment[1 << SEGMENT_SHIFT];
+    int capacity = getSegmentCapacity();
+    for (int i = 0; i < segments.length; i++)
+      segments[i] = new Segment(capacity);
+  }
 
   private VMString() {} // Prohibits instantiation.
 
@@ -74,20 +105,268 @@ final class VMString
    */
   static String intern(String str)
   {
-    synchronized (internTable)
+    int hash = spread(str.hashCode());
+    return segments[hash >>> (32 - SEGMENT_SHIFT)].intern(str, hash);
+  }
+
+  /**
+   * Returns the number of entries in the intern table.  Entries whose
+   * strings have been collected but not yet expunged are included.
+   * This and the following statistics are published by
+   * gnu.java.lang.management.StringInternMXBean.
+   *
+   * @return the number of interned strings
+   */
+  static int internTableSize()
+  {
+    int size = 0;
+    for (int i = 0; i < segments.length; i++)
+      size += segments[i].count;
+    return size;
+  }
+
+  /**
+   * Returns the total number of buckets in the intern table.
+   *
+   * @return the capacity of the table
+   */
+  static int internTableCapacity()
+  {
+    int capacity = 0;
+    for (int i = 0; i < segments.length; i++)
+      capacity += segments[i].table.length;
+    return capacity;
+  }
+
+  /**
+   * Returns the number of calls to {@link #intern(String)} that added a
+   * new string to the table.
+   *
+   * @return the number of intern misses
+   */
+  static long internMisses()
+  {
+    long misses = 0;
+    for (int i = 0; i < segments.length; i++)
+      misses += segments[i].misses;
+    return misses;
+  }
+
+  /**
+   * Returns the initial number of buckets in each segment: the
+   * gnu.java.lang.intern.capacity property spread over the segments
+   * and rounded up to a power of two, or the default if the property
+   * is not set or not a positive number.
+   */
+  private static int getSegmentCapacity()
+  {
+    String value =
+      SystemProperties.getProperty("gnu.java.lang.intern.capacity");
+    if (value == null)
+      return DEFAULT_SEGMENT_CAPACITY;
+    int capacity;
+    try
+      {
+        capacity = Integer.parseInt(value.trim());
+      }
+    catch (NumberFormatException e)
       {
-        WeakReference ref = (WeakReference) internTable.get(str);
-        if (ref != null)
+        return DEFAULT_SEGMENT_CAPACITY;
+      }
+    if (capacity <= 0)
+      return DEFAULT_SEGMENT_CAPACITY;
+    int perSegment = 1;
+    while (perSegment < MAXIMUM_SEGMENT_CAPACITY
+           && perSegment << SEGMENT_SHIFT < capacity)
+      perSegment <<= 1;
+    return perSegment;
+  }
+
+  /**
+   * Mixes the bits of a string hash code so that both the segment index,
+   * taken from the high bits, and the bucket index, taken from the low
+   * bits, depend on the whole hash.
+   */
+  private static int spread(int h)
+  {
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    return h;
+  }
+
+  /**
+   * A weak reference to an interned string, chained in a hash bucket.
+   * Entries are never modified once published, so readers can walk a
+   * chain without locking; removal copies the entries before it.
+   */
+  private static final class Entry
+    extends WeakReference<String>
+  {
+    final int hash;
+    final Entry next;
+
+    Entry(String str, int hash, Entry next, ReferenceQueue<String> queue)
+    {
+      super(str, queue);
+      this.hash = hash;
+      this.next = next;
+    }
+  }
+
+  /**
+   * One stripe of the intern table.  Writers lock the segment; readers
+   * read the volatile count and then the table without locking.
+   */
+  private static final class Segment
+  {
+    /**
+     * The number of entries, written last by every update so that a
+     * reader which reads it first sees the entries it published.
+     */
+    volatile int count;
+
+    volatile Entry[] table;
+
+    /**
+     * The count at which the table is rebuilt.
+     */
+    int threshold;
+
+    final ReferenceQueue<String> queue = new ReferenceQueue<String>();
+
+    /**
+     * The number of strings added.  Only updated with the lock held; it
+     * is volatile so that the statistics read a whole value.  Lookups
+     * which find the string are not counted, since that would make
+     * every reader write to the segment.
+     */
+    volatile long misses;
+
+    Segment(int capacity)
+    {
+      table = new Entry[capacity];
+      threshold = capacity * 3 / 4;
+    }
+
+    String intern(String str, int hash)
+    {
+      if (count != 0)
+        {
+          String s = find(table, str, hash);
+          if (s != null)
+            return s;
+        }
+      synchronized (this)
+        {
+          expunge();
+          // Look again under the lock; another thread may have added
+          // the string, or a reader may have raced with a rehash.
+          String s = find(table, str, hash);
+          if (s != null)
+            return s;
+          misses++;
+          int c = count + 1;
+          if (c > threshold)
+            {
+              rehash();
+              c = count + 1;
+            }
+          Entry[] tab = table;
+          int index = hash & (tab.length - 1);
+          tab[index] = new Entry(str, hash, tab[index], queue);
+          count = c;
+        }
+      return str;
+    }
+
+    private static String find(Entry[] tab, String str, int hash)
+    {
+      for (Entry e = tab[hash & (tab.length - 1)]; e != null; e = e.next)
+        {
+          if (e.hash == hash)
+            {
+              String s = e.get();
+              // If s is null, then no strong references exist to the
+              // String; the entry will be removed by a later update.
+              if (s != null && s.equals(str))
+                return s;
+            }
+        }
+      return null;
+    }
+
+    /**
+     * Removes the entries whose strings have been collected.  Called with
+     * the lock held, so the cost is spread over the updates of each
+     * segment rather than paid in one pass over the whole table.
+     */
+    private void expunge()
+    {
+      Object ref;
+      while ((ref = queue.poll()) != null)
+        {
+          Entry dead = (Entry) ref;
+          Entry[] tab = table;
+          int index = dead.hash & (tab.length - 1);
+          Entry first = tab[index];
+          Entry e = first;
+          while (e != null && e != dead)
+            e = e.next;
+          // Already dropped by a rehash or an earlier removal.
+          if (e == null)
+            continue;
+          int c = count - 1;
+          Entry head = dead.next;
+          for (e = first; e != dead; e = e.next)
+            {
+              String s = e.get();
+              if (s != null)
+                head = new Entry(s, e.hash, head, queue);
+              else
+                c--;
+            }
+          tab[index] = head;
+          count = c;
+        }
+    }
+
+    /**
+     * Rebuilds the table without its dead entries, doubling its size if
+     * most of the entries are still live.
+     */
+    private void rehash()
+    {
+      Entry[] oldTable = table;
+      int oldCapacity = oldTable.length;
+      int live = 0;
+      for (int i = 0; i < oldCapacity; i++)
+        for (Entry e = oldTable[i]; e != null; e = e.next)
+          if (e.get() != null)
+            live++;
+      int newCapacity = oldCapacity;
+      if (live >= threshold / 2 && oldCapacity < MAXIMUM_SEGMENT_CAPACITY)
+        newCapacity = oldCapacity << 1;
+      Entry[] newTable = new Entry[newCapacity];
+      int mask = newCapacity - 1;
+      live = 0;
+      for (int i = 0; i < oldCapacity; i++)
+        for (Entry e = oldTable[i]; e != null; e = e.next)
           {
-            String s = (String) ref.get();
-            // If s is null, then no strong references exist to the String;
-            // the weak hash map will soon delete the key.
+            String s = e.get();
             if (s != null)
-              return s;
+              {
+                int index = e.hash & mask;
+                newTable[index] = new Entry(s, e.hash, newTable[index],
+                                            queue);
+                live++;
+              }
           }
-        internTable.put(str, new WeakReference(str));
-      }
-    return str;
+      threshold = newCapacity < MAXIMUM_SEGMENT_CAPACITY
+        ? newCapacity * 3 / 4 : Integer.MAX_VALUE;
+      table = newTable;
+      count = live;
+    }
   }
 
 } // class VMString